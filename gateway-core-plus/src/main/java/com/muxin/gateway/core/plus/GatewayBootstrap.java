@@ -7,6 +7,9 @@ import com.muxin.gateway.core.plus.config.RouteSystemConfig;
 import com.muxin.gateway.core.plus.config.ServerConfig;
 import com.muxin.gateway.core.plus.connect.ConnectionPoolConfig;
 import com.muxin.gateway.core.plus.connect.ConnectionPoolManager;
+import com.muxin.gateway.core.plus.health.ActiveHealthChecker;
+import com.muxin.gateway.core.plus.health.HealthCheckConfig;
+import com.muxin.gateway.core.plus.route.DefaultRouteManager;
 import com.muxin.gateway.core.plus.route.GlobalRouteConfig;
 import com.muxin.gateway.core.plus.route.RouteManager;
 import com.muxin.gateway.core.plus.route.service.InstanceManager;
@@ -37,6 +40,7 @@ public class GatewayBootstrap implements LifeCycle {
     private ConnectionPoolManager connectionPoolManager;
     private RouteManager routeManager;
     private InstanceManager instanceManager;
+    private ActiveHealthChecker healthChecker;
     private GatewayProcessor gatewayProcessor;
 
     // ========== 服务器 ==========
@@ -161,13 +165,21 @@ public class GatewayBootstrap implements LifeCycle {
         connectionPoolManager.init();
 
         // 路由管理器（使用增强版本，支持全局配置）
-        this.routeManager = new com.muxin.gateway.core.plus.route.DefaultRouteManager();
+        DefaultRouteManager defaultRouteManager = new DefaultRouteManager();
+        this.routeManager = defaultRouteManager;
         routeManager.init();
 
         // 节点管理器
         this.instanceManager = new com.muxin.gateway.core.plus.route.service.DefaultInstanceManager();
         instanceManager.init();
 
+        // 主动健康检查
+        this.healthChecker = new ActiveHealthChecker(instanceManager, connectionPoolManager,
+                HealthCheckConfig.from(gatewayConfig.getNodeManagerConfig()));
+        healthChecker.init();
+        // 路由服务的目标地址随路由添加纳入探测，探测结果写入负载均衡读取的端点状态表
+        healthChecker.bindRoutes(defaultRouteManager);
+
         log.debug("Core components initialized");
     }
 
@@ -205,6 +217,7 @@ public class GatewayBootstrap implements LifeCycle {
         connectionPoolManager.start();
         routeManager.start();
         instanceManager.start();
+        healthChecker.start();
 
         log.debug("Core components started");
     }
@@ -250,6 +263,9 @@ public class GatewayBootstrap implements LifeCycle {
     private void shutdownCoreComponents() {
         log.debug("Shutting down core components...");
 
+        if (healthChecker != null) {
+            healthChecker.shutdown();
+        }
         if (instanceManager != null) {
             instanceManager.shutdown();
         }
@@ -293,4 +309,11 @@ public class GatewayBootstrap implements LifeCycle {
         return instanceManager;
     }
 
+    /**
+     * 获取主动健康检查器
+     */
+    public ActiveHealthChecker getHealthChecker() {
+        return healthChecker;
+    }
+
 } 
\ No newline at end of file
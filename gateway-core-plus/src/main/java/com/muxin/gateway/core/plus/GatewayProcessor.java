@@ -1,29 +1,61 @@
 package com.muxin.gateway.core.plus;
 
+import com.muxin.gateway.core.plus.common.Constant;
 import com.muxin.gateway.core.plus.common.LifeCycle;
 import com.muxin.gateway.core.plus.config.GatewayConfig;
 import com.muxin.gateway.core.plus.connect.ClientConnection;
-import com.muxin.gateway.core.plus.connect.Connection;
 import com.muxin.gateway.core.plus.connect.ConnectionPoolManager;
+import com.muxin.gateway.core.plus.connect.ServerConnection;
+import com.muxin.gateway.core.plus.health.EndpointStateTable;
+import com.muxin.gateway.core.plus.health.OutlierDetector;
 import com.muxin.gateway.core.plus.message.Message;
 import com.muxin.gateway.core.plus.message.ServerExchange;
+import com.muxin.gateway.core.plus.message.http.HttpMessage;
+import com.muxin.gateway.core.plus.message.http.HttpRequestMessage;
+import com.muxin.gateway.core.plus.message.http.HttpResponseMessage;
+import com.muxin.gateway.core.plus.resilience.HedgingPolicy;
+import com.muxin.gateway.core.plus.resilience.DeadlineTimer;
+import com.muxin.gateway.core.plus.resilience.HedgingState;
+import com.muxin.gateway.core.plus.resilience.RequestDeadline;
+import com.muxin.gateway.core.plus.resilience.RetryState;
+import com.muxin.gateway.core.plus.resilience.TokenBudget;
+import com.muxin.gateway.core.plus.route.AttemptRequestContext;
 import com.muxin.gateway.core.plus.route.RequestContext;
+import com.muxin.gateway.core.plus.route.RetryConfig;
 import com.muxin.gateway.core.plus.route.Route;
 import com.muxin.gateway.core.plus.route.RouteManager;
 import com.muxin.gateway.core.plus.route.loadbalance.LoadBalanceStrategy;
 import com.muxin.gateway.core.plus.route.filter.Filter;
 import com.muxin.gateway.core.plus.route.filter.FilterChain;
 import com.muxin.gateway.core.plus.route.filter.FilterType;
+import com.muxin.gateway.core.plus.route.filter.RequestRejectedException;
 import com.muxin.gateway.core.plus.route.service.EndpointAddress;
 import com.muxin.gateway.core.plus.route.service.InstanceManager;
+import io.netty.channel.EventLoop;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.ScheduledFuture;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
 /**
@@ -40,6 +72,24 @@ public class GatewayProcessor implements LifeCycle {
     protected final ConnectionPoolManager connectionPoolManager;
     protected final RouteManager routeManager;
     protected final InstanceManager instanceManager;
+    protected final OutlierDetector outlierDetector;
+
+    // ========== 超时控制 ==========
+    /**
+     * 连接获取、后端响应和请求总超时共用的定时器
+     */
+    private final DeadlineTimer deadlineTimer = DeadlineTimer.shared();
+
+    // ========== 请求对冲与重试 ==========
+    /**
+     * 对冲、重试时选择不同端点的最多尝试次数
+     */
+    private static final int ENDPOINT_SELECT_ATTEMPTS = 3;
+
+    /**
+     * 按路由ID缓存的对冲和重试状态，路由重建后随之重建
+     */
+    private final Map<String, RouteResilience> resilienceStates = new ConcurrentHashMap<>();
 
     // ========== 线程池管理 ==========
     protected final ExecutorService businessExecutor;
@@ -55,6 +105,8 @@ public class GatewayProcessor implements LifeCycle {
         this.connectionPoolManager = connectionPoolManager;
         this.routeManager = routeManager;
         this.instanceManager = instanceManager;
+        this.outlierDetector = new OutlierDetector(
+                config != null ? config.getOutlierDetectionConfig() : null, EndpointStateTable.shared());
 
         // 初始化业务线程池
         this.businessExecutor = Executors.newFixedThreadPool(
@@ -82,25 +134,77 @@ public class GatewayProcessor implements LifeCycle {
             // 同步阶段：直接执行，无线程切换
             prepareRequest(context);
 
-            // 异步阶段：唯一的线程切换点
-            invokeBackendService(context)
-                    .whenComplete((result, error)
-                            -> handleCompletion(context, result, error)
-                    );
+            // 异步阶段：获取连接与后端调用均不阻塞I/O线程
+            // 请求结果只完成一次，总超时或客户端断开时由cancelRequest提前以异常完成
+            CompletableFuture<Void> outcome = new CompletableFuture<>();
+            context.setAttribute(Constant.REQUEST_FUTURE, outcome);
+            Timeout totalTimeout = scheduleTotalDeadline(context);
+            outcome.whenComplete((result, error) -> {
+                if (totalTimeout != null) {
+                    totalTimeout.cancel();
+                }
+                handleCompletion(context, result, error);
+            });
+            acquireConnection(context)
+                    .thenCompose(connection -> invokeBackendService(context))
+                    .whenComplete((result, error) -> {
+                        if (error != null) {
+                            outcome.completeExceptionally(error);
+                        } else {
+                            outcome.complete(result);
+                        }
+                    });
         } catch (Exception e) {
             handleError(context, e);
-            cleanupResources(context);
+            cleanupResources(context, e);
+        }
+    }
+
+    /**
+     * 按请求头匹配路由，供服务器层在读取请求体之前决定转发方式
+     */
+    public Route matchRoute(RequestContext context) {
+        return routeManager.matchRoute(context);
+    }
+
+    /**
+     * 流式请求的前置处理：路由、前置过滤器、端点选择并异步获取连接
+     * 请求体和响应体由服务器层直接在两个Channel之间转发，不经过后置过滤器
+     */
+    public CompletableFuture<ClientConnection> prepareStreaming(RequestContext context) {
+        try {
+            validateContext(context);
+            prepareRequest(context);
+            return acquireConnection(context);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 流式请求结束：归还或释放连接；错误响应由服务器层根据响应是否已开始写出决定如何发送
+     */
+    public void completeStreaming(RequestContext context, Throwable error) {
+        if (error instanceof RequestRejectedException) {
+            log.debug("[GatewayProcessor] 请求被过滤器拒绝: {} - {}", context.requestId(), error.getMessage());
+            context.setError(error);
+        } else if (error != null) {
+            log.warn("[GatewayProcessor] 流式转发失败: {} - {}", context.requestId(), error.getMessage());
+            context.setError(error);
         }
+        recordEndpointOutcome(context, error);
+        cleanupResources(context, error);
     }
 
     /**
      * 同步准备请求 - 直接调用，无额外开销
      */
     private void prepareRequest(RequestContext context) {
-        // 路由匹配
-        Route route = routeManager.matchRoute(context);
+        // 路由匹配（服务器层按请求头预先匹配过的直接使用）
+        Route route = context.getMatchedRoute() != null ? context.getMatchedRoute() : routeManager.matchRoute(context);
         requireNonNull(route, () -> new ProcessingException("路由匹配失败", context.requestId()));
         context.setMatchedRoute(route);
+        startDeadline(context, route);
         log.debug("[GatewayProcessor] 路由匹配成功: {} -> {}", context.requestId(), route.getId());
 
         // 前置过滤器
@@ -114,23 +218,130 @@ public class GatewayProcessor implements LifeCycle {
         context.setSelectedEndpoint(endpoint);
         log.debug("[GatewayProcessor] 端点选择成功: {} -> {} (策略: {})", 
                 context.requestId(), endpoint.toUri(), strategy.getStrategyName());
+    }
+
+    /**
+     * 异步获取连接 - 连接池满时排队等待，不占用I/O线程
+     * 连接池在归还连接的线程上完成等待者，绑定连接前先切回入站EventLoop，与cancelRequest触发的清理串行执行，
+     * 避免请求在检查之后、绑定之前结束导致连接不再归还
+     */
+    private CompletableFuture<ClientConnection> acquireConnection(RequestContext context) {
+        EventLoop eventLoop = context.getAttribute(Constant.EVENT_LOOP);
+        CompletableFuture<ClientConnection> acquired = acquire(context, context.getSelectedEndpoint());
+        return eventLoop != null
+                ? acquired.thenApplyAsync(connection -> bindConnection(context, connection), eventLoop)
+                : acquired.thenApply(connection -> bindConnection(context, connection));
+    }
 
-        // 连接获取
-        ClientConnection connection = connectionPoolManager.getClientConnection(endpoint, endpoint.getProtocol());
+    /**
+     * 把获取到的连接绑定到请求上下文，请求已结束时归还连接
+     */
+    private ClientConnection bindConnection(RequestContext context, ClientConnection connection) {
         requireNonNull(connection, () -> new ProcessingException("连接获取失败", context.requestId()));
+        if (context.isCompleted()) {
+            // 请求已超时结束，连接不再使用
+            connectionPoolManager.returnConnection(connection);
+            throw new CancellationException("请求已结束: " + context.requestId());
+        }
         context.setClientConnection(connection);
         log.debug("[GatewayProcessor] 连接获取成功: {}", context.requestId());
+        return connection;
     }
 
     /**
-     * 后端服务调用 - 唯一的异步操作
+     * 从连接池获取到指定端点的连接，受路由连接超时限制，超时后才获取到的连接归还连接池
+     */
+    private CompletableFuture<ClientConnection> acquire(RequestContext context, EndpointAddress endpoint) {
+        EventLoop eventLoop = context.getAttribute(Constant.EVENT_LOOP);
+        long timeoutNanos = timeoutNanos(context, context.getMatchedRoute().getConnectionTimeout());
+        return deadlineTimer.within(connectionPoolManager.acquire(endpoint, endpoint.getProtocol(), eventLoop),
+                timeoutNanos, () -> new TimeoutException("获取后端连接超时: " + endpoint.toUri()),
+                eventLoop, connectionPoolManager::returnConnection);
+    }
+
+    // ========== 超时控制 ==========
+
+    /**
+     * 按路由总超时时间记录请求的截止时间，从请求到达时开始计算
+     */
+    private void startDeadline(RequestContext context, Route route) {
+        long totalNanos = RequestDeadline.toNanos(route.getTotalTimeout());
+        if (totalNanos < 0) {
+            return;
+        }
+        long elapsedNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - context.getStartTime());
+        context.setAttribute(Constant.DEADLINE, new RequestDeadline(totalNanos - elapsedNanos));
+    }
+
+    /**
+     * 按请求剩余时间安排总超时，到期时取消请求，由统一完成处理返回504并释放连接
+     */
+    private Timeout scheduleTotalDeadline(RequestContext context) {
+        RequestDeadline deadline = context.getAttribute(Constant.DEADLINE);
+        if (deadline == null) {
+            return null;
+        }
+        return deadlineTimer.schedule(() -> cancelRequest(context,
+                new TimeoutException("请求总超时: " + context.requestId())), deadline.remainingNanos());
+    }
+
+    /**
+     * 取消进行中的请求（总超时、客户端断开）：请求以cause结束，由统一完成处理释放资源。
+     * 后端连接上还有未完成的响应，直接关闭而不归还连接池，连接池名额立即释放；进行中的对冲请求一并取消。
+     * 可在任意线程调用，在入站EventLoop上执行；请求已结束时不做任何事
+     */
+    public void cancelRequest(RequestContext context, Throwable cause) {
+        CompletableFuture<Void> outcome = context.getAttribute(Constant.REQUEST_FUTURE);
+        if (outcome == null || outcome.isDone()) {
+            return;
+        }
+        EventLoop eventLoop = context.getAttribute(Constant.EVENT_LOOP);
+        if (eventLoop == null || eventLoop.inEventLoop()) {
+            outcome.completeExceptionally(cause);
+            return;
+        }
+        try {
+            eventLoop.execute(() -> outcome.completeExceptionally(cause));
+        } catch (RejectedExecutionException e) {
+            outcome.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * 以请求剩余时间为上限的超时时间（纳秒），-1表示不限时
+     */
+    private static long timeoutNanos(RequestContext context, Duration timeout) {
+        RequestDeadline deadline = context.getAttribute(Constant.DEADLINE);
+        return deadline != null ? deadline.bound(timeout) : RequestDeadline.toNanos(timeout);
+    }
+
+    /**
+     * 计算本次后端调用等待响应的超时时间，并通过请求头把它传给后端
+     * 超时时间取路由请求超时与请求剩余时间中较小者
+     *
+     * @return 超时时间（纳秒），-1表示不限时
+     */
+    public long prepareBackendDeadline(RequestContext context) {
+        long timeoutNanos = timeoutNanos(context, context.getMatchedRoute().getRequestTimeout());
+        if (timeoutNanos >= 0 && context.exchange().request() instanceof HttpRequestMessage request) {
+            request.headers().set(RequestDeadline.HEADER, RequestDeadline.headerValue(timeoutNanos));
+        }
+        return timeoutNanos;
+    }
+
+    /**
+     * 后端服务调用
      */
     private CompletableFuture<Void> invokeBackendService(RequestContext context) {
         log.debug("[GatewayProcessor] 开始后端调用: {}", context.requestId());
 
-        return context.clientConnection()
-                .send(context.exchange().request())
+        return sendWithRetry(context)
                 .thenAccept(response -> {
+                    if (context.isCompleted()) {
+                        // 请求已被取消，响应不再发送
+                        releaseResponse(response);
+                        return;
+                    }
                     // 在I/O线程中执行后续处理
                     log.debug("[GatewayProcessor] 后端调用成功: {}", context.requestId());
                     setResponseToExchange(context, response);
@@ -140,21 +351,234 @@ public class GatewayProcessor implements LifeCycle {
                 });
     }
 
+    /**
+     * 按路由的重试策略发送请求：可重试的状态码或异常在重试预算允许时换一个端点重试
+     */
+    private CompletableFuture<Message> sendWithRetry(RequestContext context) {
+        RouteResilience resilience = resilience(context.getMatchedRoute());
+        RetryState retry = resilience.retry();
+        boolean retryable = retry != null && retry.config().isRetryableMethod(requestMethod(context));
+        if (retryable || resilience.hedging() != null) {
+            // 对冲和重试共用预算，每个请求只存入一次，重试的每次尝试不再存入，请求数同样只记录一次
+            resilience.budget().deposit();
+        }
+        if (resilience.hedging() != null) {
+            resilience.hedging().onRequest();
+        }
+        if (!retryable) {
+            return sendToBackend(context);
+        }
+        retry.onRequest();
+        return new RetryCall(context, retry).start();
+    }
+
+    private static String requestMethod(RequestContext context) {
+        return context.exchange().request() instanceof HttpRequestMessage request && request.method() != null
+                ? request.method().name() : null;
+    }
+
+    /**
+     * 发送请求到后端；开启对冲的路由在首个请求超过对冲延迟仍未返回时，向另一个端点发出相同的请求
+     */
+    private CompletableFuture<Message> sendToBackend(RequestContext context) {
+        HedgingState hedging = resilience(context.getMatchedRoute()).hedging();
+        EventLoop eventLoop = context.getAttribute(Constant.EVENT_LOOP);
+        if (hedging == null || eventLoop == null) {
+            return send(context, null);
+        }
+        long delayNanos = hedging.hedgeDelayNanos();
+        if (delayNanos >= 0) {
+            return new HedgedCall(context, hedging, eventLoop).start(delayNanos);
+        }
+        // 样本不足以确定对冲延迟时只记录延迟
+        long sendStart = System.nanoTime();
+        return send(context, null).whenComplete((response, error) -> {
+            if (error == null) {
+                hedging.recordLatency(System.nanoTime() - sendStart);
+            }
+        });
+    }
+
+    /**
+     * 发出一次后端调用，完成时通知负载均衡策略响应耗时
+     *
+     * @param abandoned 调用被放弃后不再通知，为null时总是通知
+     */
+    private CompletableFuture<Message> send(RequestContext context, AtomicBoolean abandoned) {
+        long timeoutNanos = prepareBackendDeadline(context);
+        long sendStart = System.nanoTime();
+        CompletableFuture<Message> call = context.clientConnection().send(context.exchange().request());
+        return deadlineTimer.within(call, timeoutNanos,
+                        () -> new TimeoutException("后端响应超时: " + context.getSelectedEndpoint().toUri()),
+                        context.getAttribute(Constant.EVENT_LOOP), GatewayProcessor::releaseResponse)
+                .whenComplete((response, error) -> {
+                    // 被放弃或请求已取消的调用耗时不完整，不计入响应耗时
+                    if ((abandoned == null || !abandoned.get()) && !context.isCompleted()) {
+                        recordBackendResponse(context, System.nanoTime() - sendStart, error);
+                    }
+                });
+    }
+
+    /**
+     * 获取路由的对冲和重试状态
+     */
+    private RouteResilience resilience(Route route) {
+        RouteResilience entry = resilienceStates.get(route.getId());
+        if (entry == null || entry.route() != route) {
+            entry = resilienceStates.compute(route.getId(), (id, existing)
+                    -> existing != null && existing.route() == route ? existing : createResilience(route));
+        }
+        return entry;
+    }
+
+    private RouteResilience createResilience(Route route) {
+        HedgingPolicy policy = null;
+        try {
+            policy = HedgingPolicy.from(route);
+        } catch (IllegalArgumentException e) {
+            log.warn("[GatewayProcessor] 路由对冲配置无效，不开启对冲: {} - {}", route.getId(), e.getMessage());
+        }
+        RetryConfig retryConfig = route.getRetryConfig();
+        if (retryConfig != null && (!retryConfig.isEnabled() || retryConfig.getMaxAttempts() <= 1)) {
+            retryConfig = null;
+        }
+        if (policy == null && retryConfig == null) {
+            return new RouteResilience(route, null, null, null);
+        }
+
+        // 对冲和重试共用一个预算，额外请求合计不超过两者中较大的比例
+        int percent = Math.max(policy != null ? policy.getMaxPercent() : 0,
+                retryConfig != null ? retryConfig.getBudgetPercent() : 0);
+        int burst = Math.max(policy != null ? HedgingState.BUDGET_BURST : 0,
+                retryConfig != null ? retryConfig.getBudgetBurst() : 0);
+        TokenBudget budget = new TokenBudget(percent / 100.0, burst);
+        return new RouteResilience(route,
+                policy != null ? new HedgingState(route, policy, budget) : null,
+                retryConfig != null ? new RetryState(route, retryConfig, budget) : null,
+                budget);
+    }
+
+    /**
+     * 获取各路由的对冲统计：请求数、对冲数、对冲胜出数、预算不足次数和延迟分位数
+     */
+    public Map<String, Object> getHedgingStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        resilienceStates.forEach((routeId, entry) -> {
+            if (entry.hedging() != null) {
+                stats.put(routeId, entry.hedging().getStatistics());
+            }
+        });
+        return stats;
+    }
+
+    /**
+     * 获取各路由的重试统计：请求数、重试数、重试成功数、预算不足次数和预算余额
+     */
+    public Map<String, Object> getRetryStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        resilienceStates.forEach((routeId, entry) -> {
+            if (entry.retry() != null) {
+                stats.put(routeId, entry.retry().getStatistics());
+            }
+        });
+        return stats;
+    }
+
+    /**
+     * 记录后端响应耗时，供按响应时间选择地址的负载均衡策略使用
+     * 流式转发没有经过{@link ClientConnection#send}，由服务器层在收到响应头时调用
+     */
+    public void recordBackendResponse(RequestContext context, long latencyNanos, Throwable error) {
+        Route route = context.getMatchedRoute();
+        if (route == null || context.getSelectedEndpoint() == null) {
+            return;
+        }
+        try {
+            route.getLoadBalanceStrategy().onResponse(context, latencyNanos, error);
+        } catch (Exception e) {
+            log.warn("[GatewayProcessor] 负载均衡策略响应回调异常: {}", context.requestId(), e);
+        }
+    }
+
     /**
      * 统一完成处理
      */
     private void handleCompletion(RequestContext context, Void result, Throwable error) {
         try {
+            recordEndpointOutcome(context, error);
             if (error != null) {
                 handleError(context, error);
             } else {
                 log.debug("[GatewayProcessor] 请求处理成功: {}", context.requestId());
             }
         } finally {
-            cleanupResources(context);
+            cleanupResources(context, error);
         }
     }
 
+    /**
+     * 向异常检测记录端点的请求结果，异常和5xx响应视为失败
+     */
+    private void recordEndpointOutcome(RequestContext context, Throwable error) {
+        Route route = context.getMatchedRoute();
+        EndpointAddress endpoint = context.getSelectedEndpoint();
+        if (route == null || endpoint == null || isCancellation(error)) {
+            // 客户端主动断开不是端点的失败
+            return;
+        }
+        recordEndpointOutcome(context, endpoint, isFailure(context.exchange().response(), error));
+    }
+
+    private void recordEndpointOutcome(RequestContext context, EndpointAddress endpoint, boolean failed) {
+        try {
+            outlierDetector.record(endpoint, context.getMatchedRoute().getService().getTargetAddresses(), failed);
+        } catch (Exception e) {
+            log.warn("[GatewayProcessor] 异常检测记录失败: {}", context.requestId(), e);
+        }
+    }
+
+    private static boolean isFailure(Message response, Throwable error) {
+        return error != null || (response instanceof HttpResponseMessage httpResponse
+                && httpResponse.status() != null && httpResponse.status().code() >= 500);
+    }
+
+    private static boolean isCancellation(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof CancellationException;
+    }
+
+    /**
+     * 释放未发送给客户端的响应
+     */
+    private static void releaseResponse(Message response) {
+        if (response instanceof HttpMessage httpMessage) {
+            ReferenceCountUtil.safeRelease(httpMessage.content());
+        }
+    }
+
+    /**
+     * 结束一次未成功的后端调用：通知负载均衡策略，连接归还连接池或直接释放
+     */
+    private void releaseAttempt(RequestContext context, Throwable error) {
+        notifyLoadBalanceStrategy(context, error);
+        ClientConnection connection = context.clientConnection();
+        context.setClientConnection(null);
+        if (connection != null) {
+            if (error == null && connection.isActive()) {
+                connectionPoolManager.returnConnection(connection);
+            } else {
+                connectionPoolManager.releaseConnection(connection);
+            }
+        }
+    }
+
+    /**
+     * 获取被动异常检测
+     */
+    public OutlierDetector getOutlierDetector() {
+        return outlierDetector;
+    }
+
     /**
      * 验证上下文
      */
@@ -184,6 +608,8 @@ public class GatewayProcessor implements LifeCycle {
                 .forEach(filter -> {
                     try {
                         filter.filter(context.exchange(), NoOpFilterChain.INSTANCE);
+                    } catch (RequestRejectedException e) {
+                        throw e;
                     } catch (Exception e) {
                         log.error("[GatewayProcessor] 过滤器执行失败: {} - {}", filter.getName(), context.requestId(), e);
                         throw new ProcessingException("过滤器执行失败: " + filter.getName(), context.requestId(), e);
@@ -196,11 +622,9 @@ public class GatewayProcessor implements LifeCycle {
      */
     private void setResponseToExchange(RequestContext context, Message response) {
         try {
-            // 假设有可变的Exchange实现或通过其他方式设置响应
-            // 这里可能需要根据具体的ServerExchange实现来调整
-
-            // TODO: 根据实际的ServerExchange实现来设置响应
-            // 目前先记录日志，具体实现可能需要强制转换或其他方式
+            @SuppressWarnings("unchecked")
+            ServerExchange<Message, Message> exchange = (ServerExchange<Message, Message>) context.exchange();
+            exchange.setResponse(response);
             log.debug("[GatewayProcessor] 响应设置到Exchange: {}", context.requestId());
 
         } catch (Exception e) {
@@ -225,10 +649,19 @@ public class GatewayProcessor implements LifeCycle {
      * 优雅的错误处理
      */
     private void handleError(RequestContext context, Throwable error) {
-        log.error("[GatewayProcessor] 请求处理失败: {}", context.requestId(), error);
-
         context.setError(error);
 
+        ServerConnection serverConnection = context.serverConnection();
+        if (serverConnection != null && !serverConnection.isActive()) {
+            log.debug("[GatewayProcessor] 客户端已断开，请求结束: {} - {}", context.requestId(), error.getMessage());
+            return;
+        }
+        if (error instanceof RequestRejectedException) {
+            log.debug("[GatewayProcessor] 请求被过滤器拒绝: {} - {}", context.requestId(), error.getMessage());
+        } else {
+            log.error("[GatewayProcessor] 请求处理失败: {}", context.requestId(), error);
+        }
+
         Optional.ofNullable(context.serverConnection())
                 .ifPresent(conn -> conn.sendError(error)
                         .exceptionally(sendError -> {
@@ -239,12 +672,20 @@ public class GatewayProcessor implements LifeCycle {
 
     /**
      * 优雅的资源清理
+     * 通知负载均衡策略请求结束；成功时连接归还连接池复用，出错时连接状态未知（可能残留半个响应），直接销毁
      */
-    private void cleanupResources(RequestContext context) {
+    private void cleanupResources(RequestContext context, Throwable error) {
         try {
-            Optional.ofNullable(context.clientConnection())
-                    .filter(Connection::isActive)
-                    .ifPresent(ClientConnection::returnToPool);
+            notifyLoadBalanceStrategy(context, error);
+
+            ClientConnection connection = context.clientConnection();
+            if (connection != null) {
+                if (error == null && connection.isActive()) {
+                    connectionPoolManager.returnConnection(connection);
+                } else {
+                    connectionPoolManager.releaseConnection(connection);
+                }
+            }
 
             context.markComplete();
 
@@ -255,6 +696,21 @@ public class GatewayProcessor implements LifeCycle {
         }
     }
 
+    /**
+     * 通知负载均衡策略请求已结束，用于释放在途请求计数
+     */
+    private void notifyLoadBalanceStrategy(RequestContext context, Throwable error) {
+        Route route = context.getMatchedRoute();
+        if (route == null || context.getSelectedEndpoint() == null) {
+            return;
+        }
+        try {
+            route.getLoadBalanceStrategy().onComplete(context, error);
+        } catch (Exception e) {
+            log.warn("[GatewayProcessor] 负载均衡策略完成回调异常: {}", context.requestId(), e);
+        }
+    }
+
     // ========== 生命周期方法 ==========
 
     @Override
@@ -303,6 +759,378 @@ public class GatewayProcessor implements LifeCycle {
 
     // ========== 内部类 ==========
 
+    /**
+     * 路由及其对冲、重试状态，为null表示未开启；两者共用的预算在都未开启时为null
+     */
+    private record RouteResilience(Route route, HedgingState hedging, RetryState retry, TokenBudget budget) {
+    }
+
+    /**
+     * 一次对冲调用
+     * <p>
+     * 首个请求使用原始上下文，对冲请求使用独立的{@link AttemptRequestContext}，负载均衡策略的在途状态互不覆盖。
+     * 先返回的成功响应生效：对冲请求胜出时替换原始上下文的端点和后端连接，首个请求的连接仍有未完成的响应，
+     * 直接释放；首个请求胜出时对冲请求同样被取消。一个请求失败时等待另一个，两个都失败时以首个请求的异常结束。
+     * 所有状态只在入站EventLoop上读写
+     */
+    private final class HedgedCall {
+
+        private final RequestContext context;
+        private final HedgingState hedging;
+        private final EventLoop eventLoop;
+        private final CompletableFuture<Message> result = new CompletableFuture<>();
+
+        private final AtomicBoolean primaryAbandoned = new AtomicBoolean(false);
+        private final AtomicBoolean hedgeAbandoned = new AtomicBoolean(false);
+
+        private long startNanos;
+        private ScheduledFuture<?> hedgeTimer;
+        private Throwable primaryError;
+
+        private AttemptRequestContext hedge;
+        private boolean hedgeSent;
+        private boolean hedgeFinished;
+
+        private HedgedCall(RequestContext context, HedgingState hedging, EventLoop eventLoop) {
+            this.context = context;
+            this.hedging = hedging;
+            this.eventLoop = eventLoop;
+        }
+
+        private CompletableFuture<Message> start(long delayNanos) {
+            if (eventLoop.inEventLoop()) {
+                begin(delayNanos);
+            } else {
+                try {
+                    eventLoop.execute(() -> begin(delayNanos));
+                } catch (RejectedExecutionException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+            return result;
+        }
+
+        private void begin(long delayNanos) {
+            startNanos = System.nanoTime();
+            hedgeTimer = eventLoop.schedule(this::launchHedge, delayNanos, TimeUnit.NANOSECONDS);
+            CompletableFuture<Void> outcome = context.getAttribute(Constant.REQUEST_FUTURE);
+            if (outcome != null) {
+                outcome.whenCompleteAsync((ignored, error) -> onRequestEnd(), eventLoop);
+            }
+            send(context, primaryAbandoned).whenCompleteAsync(this::onPrimary, eventLoop);
+        }
+
+        /**
+         * 请求已结束（包括被取消）：停止对冲，进行中的对冲请求直接关闭连接
+         */
+        private void onRequestEnd() {
+            hedgeTimer.cancel(false);
+            abandonHedge();
+        }
+
+        private void onPrimary(Message response, Throwable error) {
+            hedgeTimer.cancel(false);
+            if (result.isDone()) {
+                // 对冲请求已胜出
+                releaseResponse(response);
+                return;
+            }
+            if (error == null) {
+                hedging.recordLatency(System.nanoTime() - startNanos);
+                result.complete(response);
+                abandonHedge();
+                return;
+            }
+            if (hedge != null && !hedgeFinished) {
+                // 对冲请求仍在进行，首个请求的失败单独记录
+                primaryError = error;
+                recordAttemptFailure(context.getSelectedEndpoint());
+                return;
+            }
+            result.completeExceptionally(error);
+        }
+
+        private void launchHedge() {
+            if (result.isDone() || !running || context.isCompleted()) {
+                return;
+            }
+            Route route = context.getMatchedRoute();
+            LoadBalanceStrategy strategy = route.getLoadBalanceStrategy();
+            AttemptRequestContext attempt = selectHedgeAttempt(route, strategy);
+            if (attempt == null) {
+                return;
+            }
+            if (!hedging.tryHedge()) {
+                strategy.onComplete(attempt, null);
+                log.debug("[GatewayProcessor] 对冲预算不足: {}", context.requestId());
+                return;
+            }
+            hedge = attempt;
+            EndpointAddress endpoint = attempt.getSelectedEndpoint();
+            log.debug("[GatewayProcessor] 发出对冲请求: {} -> {}", context.requestId(), endpoint.toUri());
+            acquire(attempt, endpoint).whenCompleteAsync(this::onHedgeConnection, eventLoop);
+        }
+
+        /**
+         * 用路由的负载均衡策略选择一个与首个请求不同的端点
+         */
+        private AttemptRequestContext selectHedgeAttempt(Route route, LoadBalanceStrategy strategy) {
+            List<EndpointAddress> addresses = route.getService().getTargetAddresses();
+            EndpointAddress primary = context.getSelectedEndpoint();
+            if (addresses == null || addresses.size() < 2 || primary == null) {
+                return null;
+            }
+            for (int i = 0; i < ENDPOINT_SELECT_ATTEMPTS; i++) {
+                AttemptRequestContext attempt = new AttemptRequestContext(context);
+                EndpointAddress endpoint = strategy.selectAvailable(addresses, attempt);
+                if (endpoint != null && !endpoint.toUri().equals(primary.toUri())) {
+                    attempt.setSelectedEndpoint(endpoint);
+                    return attempt;
+                }
+                strategy.onComplete(attempt, null);
+            }
+            return null;
+        }
+
+        private void onHedgeConnection(ClientConnection connection, Throwable error) {
+            if (error != null || connection == null) {
+                onHedge(null, error != null ? error : new ProcessingException("连接获取失败", context.requestId()));
+                return;
+            }
+            if (hedgeFinished || result.isDone() || context.isCompleted()) {
+                connectionPoolManager.returnConnection(connection);
+                finishHedge(new CancellationException("对冲请求已取消"), true);
+                return;
+            }
+            hedge.setClientConnection(connection);
+            hedgeSent = true;
+            send(hedge, hedgeAbandoned).whenCompleteAsync(this::onHedge, eventLoop);
+        }
+
+        private void onHedge(Message response, Throwable error) {
+            if (result.isDone() || context.isCompleted()) {
+                // 首个请求已返回，或请求已超时结束
+                releaseResponse(response);
+                finishHedge(error, error == null);
+                return;
+            }
+            if (error == null) {
+                hedging.onHedgeWin();
+                promote();
+                result.complete(response);
+                return;
+            }
+            recordAttemptFailure(hedge.getSelectedEndpoint());
+            finishHedge(error, false);
+            if (primaryError != null) {
+                result.completeExceptionally(primaryError);
+            }
+        }
+
+        /**
+         * 对冲请求胜出：原始上下文改用对冲请求的端点和连接，释放首个请求的连接
+         * 首个请求的负载均衡在途状态仍在原始上下文中，由请求结束时的清理统一释放
+         */
+        private void promote() {
+            primaryAbandoned.set(true);
+            hedging.recordLatency(System.nanoTime() - startNanos);
+            ClientConnection loser = context.clientConnection();
+            context.setClientConnection(hedge.clientConnection());
+            context.setSelectedEndpoint(hedge.getSelectedEndpoint());
+            if (loser != null) {
+                connectionPoolManager.releaseConnection(loser);
+            }
+            hedgeFinished = true;
+            notifyAttemptComplete(hedge, null);
+            log.debug("[GatewayProcessor] 对冲请求胜出: {} -> {}",
+                    context.requestId(), hedge.getSelectedEndpoint().toUri());
+        }
+
+        private void abandonHedge() {
+            if (hedge != null && !hedgeFinished) {
+                finishHedge(new CancellationException("对冲请求已取消"), false);
+            }
+        }
+
+        /**
+         * 结束对冲请求：归还或释放连接并通知负载均衡策略，只执行一次
+         *
+         * @param reusable 连接上没有未完成的响应，可以归还连接池
+         */
+        private void finishHedge(Throwable error, boolean reusable) {
+            if (hedgeFinished) {
+                return;
+            }
+            hedgeFinished = true;
+            hedgeAbandoned.set(true);
+            ClientConnection connection = hedgeSent ? hedge.clientConnection() : null;
+            if (connection != null) {
+                if (reusable && connection.isActive()) {
+                    connectionPoolManager.returnConnection(connection);
+                } else {
+                    connectionPoolManager.releaseConnection(connection);
+                }
+            }
+            notifyAttemptComplete(hedge, error);
+        }
+
+        private void notifyAttemptComplete(AttemptRequestContext attempt, Throwable error) {
+            try {
+                context.getMatchedRoute().getLoadBalanceStrategy().onComplete(attempt, error);
+            } catch (Exception e) {
+                log.warn("[GatewayProcessor] 负载均衡策略完成回调异常: {}", context.requestId(), e);
+            }
+        }
+
+        private void recordAttemptFailure(EndpointAddress endpoint) {
+            recordEndpointOutcome(context, endpoint, true);
+        }
+    }
+
+    /**
+     * 一次带重试的后端调用
+     * <p>
+     * 每次尝试复用原始上下文：失败的尝试先通知负载均衡策略并归还或释放连接，退避后重新选择端点并获取连接。
+     * 重新选择时避开已尝试过的端点，只剩已尝试过的端点时仍使用它。
+     * 不可重试、次数用尽、预算不足或超出路由总超时时间时，以最后一次的响应或异常结束
+     */
+    private final class RetryCall {
+
+        private final RequestContext context;
+        private final RetryState retry;
+        private final RetryConfig config;
+        private final CompletableFuture<Message> result = new CompletableFuture<>();
+        private final Set<String> triedEndpoints = new HashSet<>(4);
+
+        private int attempts;
+
+        private RetryCall(RequestContext context, RetryState retry) {
+            this.context = context;
+            this.retry = retry;
+            this.config = retry.config();
+        }
+
+        private CompletableFuture<Message> start() {
+            attempt(sendToBackend(context));
+            return result;
+        }
+
+        private void attempt(CompletableFuture<Message> call) {
+            attempts++;
+            triedEndpoints.add(context.getSelectedEndpoint().toUri());
+            call.whenComplete((response, error) -> {
+                try {
+                    onAttempt(response, error);
+                } catch (Exception e) {
+                    releaseResponse(response);
+                    result.completeExceptionally(e);
+                }
+            });
+        }
+
+        private void onAttempt(Message response, Throwable error) {
+            boolean retryable = isRetryable(response, error);
+            if (!retryable || attempts >= config.getMaxAttempts() || !running || context.isCompleted()) {
+                if (!retryable && error == null && attempts > 1) {
+                    retry.onRetrySuccess();
+                }
+                complete(response, error);
+                return;
+            }
+            long backoffNanos = config.backoffNanos(attempts);
+            if (!withinDeadline(backoffNanos) || !retry.tryRetry()) {
+                log.debug("[GatewayProcessor] 超出总超时或重试预算不足，不再重试: {}", context.requestId());
+                complete(response, error);
+                return;
+            }
+
+            log.debug("[GatewayProcessor] 后端调用失败，{}纳秒后重试({}/{}): {} - {}", backoffNanos, attempts,
+                    config.getMaxAttempts(), context.requestId(), error != null ? error.getMessage() : statusOf(response));
+            recordEndpointOutcome(context, context.getSelectedEndpoint(), isFailure(response, error));
+            releaseResponse(response);
+            releaseAttempt(context, error);
+            schedule(backoffNanos, this::retryAttempt);
+        }
+
+        private boolean isRetryable(Message response, Throwable error) {
+            if (error != null) {
+                return config.isRetryableException(error);
+            }
+            return response instanceof HttpResponseMessage httpResponse && httpResponse.status() != null
+                    && config.isRetryableStatus(httpResponse.status().code());
+        }
+
+        /**
+         * 退避后的重试仍在请求截止时间之前
+         */
+        private boolean withinDeadline(long backoffNanos) {
+            RequestDeadline deadline = context.getAttribute(Constant.DEADLINE);
+            return deadline == null || backoffNanos < deadline.remainingNanos();
+        }
+
+        private void schedule(long delayNanos, Runnable task) {
+            EventLoop eventLoop = context.getAttribute(Constant.EVENT_LOOP);
+            try {
+                if (delayNanos <= 0) {
+                    task.run();
+                } else if (eventLoop != null) {
+                    eventLoop.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+                } else {
+                    CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS).execute(task);
+                }
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        private void retryAttempt() {
+            if (context.isCompleted()) {
+                // 退避期间请求已超时结束
+                result.completeExceptionally(new CancellationException("请求已结束: " + context.requestId()));
+                return;
+            }
+            try {
+                selectRetryEndpoint();
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            attempt(acquireConnection(context).thenCompose(connection -> sendToBackend(context)));
+        }
+
+        /**
+         * 用路由的负载均衡策略重新选择端点，尽量避开已尝试过的端点
+         */
+        private void selectRetryEndpoint() {
+            Route route = context.getMatchedRoute();
+            LoadBalanceStrategy strategy = route.getLoadBalanceStrategy();
+            EndpointAddress endpoint = null;
+            for (int i = 0; i < ENDPOINT_SELECT_ATTEMPTS; i++) {
+                endpoint = route.getService().selectTarget(context, strategy);
+                if (endpoint == null || !triedEndpoints.contains(endpoint.toUri()) || i == ENDPOINT_SELECT_ATTEMPTS - 1) {
+                    break;
+                }
+                // 选中已尝试过的端点时撤销本次选择的在途状态，再选一次
+                context.setSelectedEndpoint(endpoint);
+                notifyLoadBalanceStrategy(context, null);
+            }
+            requireNonNull(endpoint, () -> new ProcessingException("重试端点选择失败", context.requestId()));
+            context.setSelectedEndpoint(endpoint);
+        }
+
+        private void complete(Message response, Throwable error) {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(response);
+            }
+        }
+
+        private Object statusOf(Message response) {
+            return response instanceof HttpResponseMessage httpResponse ? httpResponse.status() : null;
+        }
+    }
+
     /**
      * 处理异常 - 携带请求ID便于追踪
      */
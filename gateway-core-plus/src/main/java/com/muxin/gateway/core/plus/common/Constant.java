@@ -10,4 +10,24 @@ public class Constant {
 
     public static final String CTX = "ctx";
 
+    /**
+     * 入站Channel所属的事件循环
+     */
+    public static final String EVENT_LOOP = "eventLoop";
+
+    /**
+     * 请求的总截止时间
+     */
+    public static final String DEADLINE = "deadline";
+
+    /**
+     * 请求的处理结果，取消请求时以异常提前完成
+     */
+    public static final String REQUEST_FUTURE = "requestFuture";
+
+    /**
+     * 交换对象上的客户端地址（SocketAddress），供按客户端限流等过滤器使用
+     */
+    public static final String CLIENT_ADDRESS = "clientAddress";
+
 }
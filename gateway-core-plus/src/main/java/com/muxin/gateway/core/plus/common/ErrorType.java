@@ -15,6 +15,7 @@ public enum ErrorType {
     AUTHENTICATION_ERROR("E005", "认证失败，请检查权限", 401),
     PROTOCOL_ERROR("E006", "协议转换失败", 400),
     LOAD_BALANCE_ERROR("E007", "负载均衡失败", 502),
+    TOO_MANY_REQUESTS("E008", "请求过于频繁，请稍后重试", 429),
     INTERNAL_ERROR("E500", "系统内部错误", 500),
     UNKNOWN("E999", "未知错误", 500);
 
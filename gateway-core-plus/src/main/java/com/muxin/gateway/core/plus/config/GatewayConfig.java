@@ -34,6 +34,9 @@ public class GatewayConfig {
     @Builder.Default
     private NodeManagerConfig nodeManagerConfig = NodeManagerConfig.defaultConfig();
 
+    @Builder.Default
+    private OutlierDetectionConfig outlierDetectionConfig = OutlierDetectionConfig.defaultConfig();
+
     @Builder.Default
     private ProtocolConverterConfig protocolConverterConfig = ProtocolConverterConfig.defaultConfig();
 
@@ -118,6 +121,7 @@ public class GatewayConfig {
         filterConfig.validate();
         loadBalanceConfig.validate();
         nodeManagerConfig.validate();
+        outlierDetectionConfig.validate();
         protocolConverterConfig.validate();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.muxin.gateway.core.plus.config;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * 被动异常检测配置
+ * 根据真实请求的结果统计每个端点的连续失败次数和滑动窗口错误率，超过阈值时临时摘除端点
+ *
+ * @author muxin
+ */
+@Data
+@Builder
+public class OutlierDetectionConfig {
+
+    @Builder.Default
+    private boolean enabled = true;
+
+    /**
+     * 连续失败多少次后摘除
+     */
+    @Builder.Default
+    private int consecutiveFailures = 5;
+
+    /**
+     * 滑动窗口内错误率达到多少（百分比）后摘除
+     */
+    @Builder.Default
+    private int failureRateThreshold = 50;
+
+    /**
+     * 滑动窗口内请求数达到多少后才按错误率判断
+     */
+    @Builder.Default
+    private int minimumRequests = 20;
+
+    /**
+     * 错误率统计窗口
+     */
+    @Builder.Default
+    private Duration window = Duration.ofSeconds(10);
+
+    /**
+     * 窗口分桶数
+     */
+    @Builder.Default
+    private int windowBuckets = 10;
+
+    /**
+     * 首次摘除时长，之后每次摘除翻倍
+     */
+    @Builder.Default
+    private Duration baseEjectionTime = Duration.ofSeconds(30);
+
+    /**
+     * 单次摘除的最长时长，恢复后超过该时长没有再被摘除时，摘除时长重新从基础值开始
+     */
+    @Builder.Default
+    private Duration maxEjectionTime = Duration.ofMinutes(5);
+
+    /**
+     * 同一服务的地址中最多摘除的百分比，至少允许摘除一个
+     */
+    @Builder.Default
+    private int maxEjectionPercent = 10;
+
+    public static OutlierDetectionConfig defaultConfig() {
+        return OutlierDetectionConfig.builder().build();
+    }
+
+    public void validate() {
+        if (consecutiveFailures <= 0) {
+            throw new IllegalArgumentException("consecutiveFailures必须大于0");
+        }
+        if (failureRateThreshold <= 0 || failureRateThreshold > 100) {
+            throw new IllegalArgumentException("failureRateThreshold必须在1-100之间");
+        }
+        if (minimumRequests <= 0) {
+            throw new IllegalArgumentException("minimumRequests必须大于0");
+        }
+        if (window == null || window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("window必须大于0");
+        }
+        if (windowBuckets <= 0) {
+            throw new IllegalArgumentException("windowBuckets必须大于0");
+        }
+        if (baseEjectionTime == null || baseEjectionTime.isNegative() || baseEjectionTime.isZero()) {
+            throw new IllegalArgumentException("baseEjectionTime必须大于0");
+        }
+        if (maxEjectionTime == null || maxEjectionTime.compareTo(baseEjectionTime) < 0) {
+            throw new IllegalArgumentException("maxEjectionTime不能小于baseEjectionTime");
+        }
+        if (maxEjectionPercent < 0 || maxEjectionPercent > 100) {
+            throw new IllegalArgumentException("maxEjectionPercent必须在0-100之间");
+        }
+    }
+}
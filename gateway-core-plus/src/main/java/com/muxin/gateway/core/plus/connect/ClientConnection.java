@@ -2,6 +2,8 @@ package com.muxin.gateway.core.plus.connect;
 
 
 import com.muxin.gateway.core.plus.message.Message;
+import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import io.netty.channel.EventLoop;
 
 import java.util.concurrent.CompletableFuture;
 
@@ -19,7 +21,26 @@ public interface ClientConnection extends Connection {
      * 检查连接是否健康
      */
     boolean isHealthy();
-    
+
+    /**
+     * 连接上是否还有未收完响应的请求，有时不能归还连接池复用
+     */
+    default boolean hasInflightRequests() {
+        return false;
+    }
+
+    /**
+     * 获取连接的目标地址
+     */
+    EndpointAddress getTarget();
+
+    /**
+     * 获取连接所注册的事件循环，非Netty实现返回null
+     */
+    default EventLoop getEventLoop() {
+        return null;
+    }
+
     // ========== 请求发送 ==========
     
     /**
@@ -15,6 +15,11 @@ import java.util.concurrent.CompletableFuture;
  */
 public interface ConnectionFactory {
 
+    /**
+     * 连接选项：出站Channel要注册到的EventLoop（io.netty.channel.EventLoop）
+     */
+    String OPTION_EVENT_LOOP = "eventLoop";
+
     /**
      * 获取工厂支持的协议
      * 
@@ -3,8 +3,10 @@ package com.muxin.gateway.core.plus.connect;
 import com.muxin.gateway.core.plus.common.LifeCycle;
 import com.muxin.gateway.core.plus.route.service.EndpointAddress;
 import com.muxin.gateway.core.plus.message.Protocol;
+import io.netty.channel.EventLoop;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 连接池接口
@@ -34,7 +36,30 @@ public interface ConnectionPool extends LifeCycle {
      * @throws RuntimeException 如果获取连接失败或超时
      */
     Connection getConnection(EndpointAddress target, Protocol protocol, long timeoutMs);
-    
+
+    /**
+     * 异步获取连接
+     * 不阻塞调用线程；连接数达到上限时进入有界等待队列，超过acquireTimeout后以TimeoutException失败
+     *
+     * @param target 目标地址
+     * @param protocol 协议类型
+     * @return 客户端连接的Future
+     */
+    default CompletableFuture<ClientConnection> acquire(EndpointAddress target, Protocol protocol) {
+        return acquire(target, protocol, null);
+    }
+
+    /**
+     * 异步获取连接 - 事件循环亲和
+     * 亲和模式下优先返回注册在eventLoop上的连接，新建连接也注册到该eventLoop
+     *
+     * @param target 目标地址
+     * @param protocol 协议类型
+     * @param eventLoop 调用方所在的事件循环，为null时不区分
+     * @return 客户端连接的Future
+     */
+    CompletableFuture<ClientConnection> acquire(EndpointAddress target, Protocol protocol, EventLoop eventLoop);
+
     /**
      * 归还连接到池中
      * 
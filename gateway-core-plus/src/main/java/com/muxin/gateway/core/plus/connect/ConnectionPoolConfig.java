@@ -43,7 +43,13 @@ public class ConnectionPoolConfig {
      */
     @Builder.Default
     private Duration acquireTimeout = Duration.ofSeconds(10);
-    
+
+    /**
+     * 每个目标地址允许排队等待连接的最大请求数
+     */
+    @Builder.Default
+    private int maxPendingAcquires = 1024;
+
     /**
      * 连接存活时间
      */
@@ -73,6 +79,14 @@ public class ConnectionPoolConfig {
      */
     @Builder.Default
     private boolean enableConnectionReuse = true;
+
+    /**
+     * 是否启用事件循环亲和模式
+     * 启用后每个目标按入站Channel所属的EventLoop划分空闲子池，出站连接注册到同一个EventLoop，
+     * 转发全程不切换线程；本地子池为空时才从其他EventLoop的子池窃取
+     */
+    @Builder.Default
+    private boolean eventLoopAffinity = false;
     
     /**
      * 清理空闲连接的频率
@@ -3,9 +3,11 @@ package com.muxin.gateway.core.plus.connect;
 import com.muxin.gateway.core.plus.common.LifeCycle;
 import com.muxin.gateway.core.plus.message.Protocol;
 import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import io.netty.channel.EventLoop;
 
 import java.time.Duration;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 连接池管理器接口
@@ -40,6 +42,28 @@ public interface ConnectionPoolManager extends LifeCycle {
                                          Protocol protocol,
                                          Duration timeout);
 
+    /**
+     * 获取客户端连接 - 异步
+     * 请求处理线程（Netty worker）应使用此方法，避免阻塞事件循环
+     *
+     * @param target   目标地址
+     * @param protocol 协议类型
+     * @return 客户端连接的Future
+     */
+    default CompletableFuture<ClientConnection> acquire(EndpointAddress target, Protocol protocol) {
+        return acquire(target, protocol, null);
+    }
+
+    /**
+     * 获取客户端连接 - 异步，事件循环亲和
+     *
+     * @param target    目标地址
+     * @param protocol  协议类型
+     * @param eventLoop 入站Channel所属的事件循环，为null时不区分
+     * @return 客户端连接的Future
+     */
+    CompletableFuture<ClientConnection> acquire(EndpointAddress target, Protocol protocol, EventLoop eventLoop);
+
     // ========== 连接生命周期管理 ==========
 
     /**
@@ -2,26 +2,50 @@ package com.muxin.gateway.core.plus.connect;
 
 import com.muxin.gateway.core.plus.message.Protocol;
 import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import io.netty.channel.EventLoop;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 默认连接池实现
  * 负责管理和复用网络连接，提高网关性能
+ * <p>
+ * 获取连接全程异步：空闲连接直接复用，未达上限时异步建连，
+ * 达到maxConnectionsPerTarget后进入每个目标独立的有界等待队列，由时间轮执行acquireTimeout。
+ * 归还的健康连接优先交给等待者，否则放回空闲队列（LIFO），超过maxLifetime或idleTimeout的连接会被淘汰。
+ * 有等待者时新的获取请求排在其后，空闲连接和名额按排队顺序分派。连接池关闭后归还的连接直接关闭。
+ * 开启eventLoopAffinity后空闲连接按EventLoop分组，获取时优先使用调用方EventLoop上的连接
  *
  * @author muxin
  */
 @Slf4j
 public class DefaultConnectionPool implements ConnectionPool {
 
+    /**
+     * 非亲和模式下所有空闲连接共享的分组键
+     */
+    private static final Object SHARED_LOOP = new Object();
+
+    /**
+     * 没有可用资源的等待者放回队首后，同一次分派中最多再尝试的轮数
+     */
+    private static final int DISPATCH_RETRIES = 2;
+
     private final ConnectionFactory connectionFactory;
     private final ConnectionPoolConfig config;
-    private final Map<String, BlockingQueue<Connection>> pools;
+    private final Map<String, TargetPool> pools;
     private final ScheduledExecutorService cleanupExecutor;
+    private final HashedWheelTimer acquireTimer;
     private final AtomicBoolean initialized = new AtomicBoolean(false);
     private final AtomicBoolean started = new AtomicBoolean(false);
     private final AtomicBoolean closed = new AtomicBoolean(false);
@@ -30,6 +54,12 @@ public class DefaultConnectionPool implements ConnectionPool {
     private final AtomicLong totalConnections = new AtomicLong(0);
     private final AtomicLong totalRequests = new AtomicLong(0);
     private final AtomicLong totalFailures = new AtomicLong(0);
+    private final AtomicLong totalTimeouts = new AtomicLong(0);
+    private final AtomicLong totalRejected = new AtomicLong(0);
+    private final AtomicLong totalReused = new AtomicLong(0);
+    private final AtomicLong totalReturned = new AtomicLong(0);
+    private final AtomicLong totalDestroyed = new AtomicLong(0);
+    private final AtomicLong totalStolen = new AtomicLong(0);
 
     public DefaultConnectionPool(ConnectionFactory connectionFactory) {
         this(connectionFactory, ConnectionPoolConfig.defaultConfig());
@@ -44,6 +74,9 @@ public class DefaultConnectionPool implements ConnectionPool {
             t.setDaemon(true);
             return t;
         });
+        this.acquireTimer = new HashedWheelTimer(
+                new DefaultThreadFactory("ConnectionPool-AcquireTimer", true),
+                10, TimeUnit.MILLISECONDS);
     }
 
     @Override
@@ -52,10 +85,11 @@ public class DefaultConnectionPool implements ConnectionPool {
             log.info("[DefaultConnectionPool] 连接池初始化");
 
             // 启动清理任务
+            long cleanupIntervalMs = config.getCleanupInterval().toMillis();
             cleanupExecutor.scheduleWithFixedDelay(
                     this::cleanupIdleConnections,
-                    30000, // 30秒后开始
-                    30000, // 每30秒执行一次
+                    cleanupIntervalMs,
+                    cleanupIntervalMs,
                     TimeUnit.MILLISECONDS
             );
         }
@@ -73,74 +107,145 @@ public class DefaultConnectionPool implements ConnectionPool {
         if (closed.compareAndSet(false, true)) {
             log.info("[DefaultConnectionPool] 关闭连接池");
             cleanupExecutor.shutdown();
-
-            // 关闭所有连接
-            for (BlockingQueue<Connection> pool : pools.values()) {
-                Connection conn;
-                while ((conn = pool.poll()) != null) {
-                    try {
-                        conn.close();
-                    } catch (Exception e) {
-                        log.debug("关闭连接异常", e);
-                    }
+            acquireTimer.stop();
+
+            IllegalStateException closedException = new IllegalStateException("连接池已关闭");
+            for (TargetPool pool : pools.values()) {
+                // 唤醒所有等待者
+                PendingAcquire waiter;
+                while ((waiter = pool.pollPending()) != null) {
+                    waiter.cancelTimeout();
+                    waiter.promise.completeExceptionally(closedException);
                 }
+
+                closeIdle(pool);
             }
             pools.clear();
         }
     }
 
+    /**
+     * 关闭子池中的所有空闲连接
+     */
+    private void closeIdle(TargetPool pool) {
+        for (Deque<ClientConnection> idle : pool.idle.values()) {
+            ClientConnection conn;
+            while ((conn = idle.pollFirst()) != null) {
+                closeQuietly(conn);
+            }
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (Exception e) {
+            log.debug("关闭连接异常", e);
+        }
+    }
+
     @Override
     public Connection getConnection(EndpointAddress target, Protocol protocol) {
-        return getConnection(target, protocol, 5000L);
+        return getConnection(target, protocol, config.getAcquireTimeout().toMillis());
     }
 
     @Override
     public Connection getConnection(EndpointAddress target, Protocol protocol, long timeoutMs) {
+        CompletableFuture<ClientConnection> future = acquire(target, protocol);
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // 超时后连接可能随后到达：取消成功时由建连回调交还给池，取消前已到达的连接在这里交还
+            if (!future.cancel(false) && !future.isCompletedExceptionally()) {
+                returnConnection(future.getNow(null));
+            }
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new RuntimeException("获取连接失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<ClientConnection> acquire(EndpointAddress target, Protocol protocol, EventLoop eventLoop) {
         if (isClosed()) {
-            throw new IllegalStateException("连接池已关闭");
+            return CompletableFuture.failedFuture(new IllegalStateException("连接池已关闭"));
         }
 
         totalRequests.incrementAndGet();
-        String poolKey = generatePoolKey(target, protocol);
-
-        try {
-            BlockingQueue<Connection> pool = getOrCreatePool(poolKey);
-
-            // 尝试从池中获取连接
-            Connection connection = pool.poll();
-            if (connection != null && connection.isActive()) {
-                if (connection instanceof ClientConnection && ((ClientConnection) connection).isHealthy()) {
-                    ((ClientConnection) connection).markInUse();
-                    return connection;
-                } else {
-                    // 连接不健康，销毁它
-                    connection.close();
-                }
+        TargetPool pool = getOrCreatePool(target);
+        CompletableFuture<ClientConnection> promise = new CompletableFuture<>();
+        PendingAcquire waiter = new PendingAcquire(target, eventLoop, promise);
+
+        // 已有等待者时直接排队：归还的连接在放回空闲队列到分派给等待者之间，不能被新来的请求抢走
+        if (pool.pendingCount.get() == 0) {
+            // 1. 复用空闲连接
+            ClientConnection idleConnection = pollIdle(pool, eventLoop);
+            if (idleConnection != null) {
+                idleConnection.markInUse();
+                totalReused.incrementAndGet();
+                promise.complete(idleConnection);
+                return promise;
             }
 
-            // 创建新连接
-            CompletableFuture<ClientConnection> future = connectionFactory.createClientConnection(target);
-            ClientConnection newConnection = future.get(timeoutMs, TimeUnit.MILLISECONDS);
-            newConnection.markInUse();
-            totalConnections.incrementAndGet();
-
-            return newConnection;
+            // 2. 未达上限，异步建立新连接
+            if (pool.tryReserve()) {
+                scheduleTimeout(pool, waiter, false);
+                connect(pool, waiter);
+                return promise;
+            }
+        }
 
-        } catch (Exception e) {
+        // 3. 达到上限或已有等待者，进入有界等待队列
+        if (!pool.offerPending(waiter)) {
+            totalRejected.incrementAndGet();
             totalFailures.incrementAndGet();
-            throw new RuntimeException("获取连接失败: " + e.getMessage(), e);
+            promise.completeExceptionally(new RejectedExecutionException(
+                    "等待连接的请求过多: " + pool.key + " (上限: " + config.getMaxPendingAcquires() + ")"));
+            return promise;
         }
+        scheduleTimeout(pool, waiter, true);
+
+        // 入队期间可能有连接被释放，重新分派一次避免等待者饿死
+        dispatchPending(pool);
+        return promise;
     }
 
     @Override
     public void returnConnection(Connection connection) {
-        if (connection == null || isClosed()) {
+        if (connection == null) {
+            return;
+        }
+        if (isClosed()) {
+            // 关闭前借出的连接不再复用，直接关闭
+            closeQuietly(connection);
             return;
         }
 
         try {
-            // 无法归还，直接关闭
-            connection.close();
+            TargetPool pool = ownerPool(connection);
+            if (pool == null) {
+                // 不属于本池的连接，直接关闭
+                connection.close();
+                return;
+            }
+
+            ClientConnection clientConnection = (ClientConnection) connection;
+            if (!config.isEnableConnectionReuse() || !isReusable(clientConnection, System.currentTimeMillis())) {
+                closeAndRelease(pool, clientConnection);
+                return;
+            }
+
+            totalReturned.incrementAndGet();
+            parkIdle(pool, clientConnection);
+            if (isClosed()) {
+                // 与关闭并发：关闭时可能已清空过空闲队列
+                closeIdle(pool);
+                return;
+            }
+
+            // 有等待者时直接移交
+            dispatchPending(pool);
         } catch (Exception e) {
             log.error("归还连接异常", e);
         }
@@ -150,7 +255,7 @@ public class DefaultConnectionPool implements ConnectionPool {
     public void releaseConnection(Connection connection) {
         if (connection != null) {
             try {
-                connection.close();
+                destroy(connection);
             } catch (Exception e) {
                 log.debug("释放连接异常", e);
             }
@@ -163,11 +268,34 @@ public class DefaultConnectionPool implements ConnectionPool {
         stats.put("totalConnections", totalConnections.get());
         stats.put("totalRequests", totalRequests.get());
         stats.put("totalFailures", totalFailures.get());
+        stats.put("totalTimeouts", totalTimeouts.get());
+        stats.put("totalRejected", totalRejected.get());
+        stats.put("totalReused", totalReused.get());
+        stats.put("totalReturned", totalReturned.get());
+        stats.put("totalDestroyed", totalDestroyed.get());
+        stats.put("totalStolen", totalStolen.get());
+        stats.put("eventLoopAffinity", config.isEventLoopAffinity());
         stats.put("activePools", pools.size());
 
+        int pending = 0;
+        int idle = 0;
+        for (TargetPool pool : pools.values()) {
+            pending += pool.pendingCount.get();
+            idle += pool.idleCount();
+        }
+        stats.put("pendingAcquires", pending);
+        stats.put("idleConnections", idle);
+
         long requests = totalRequests.get();
         if (requests > 0) {
             stats.put("successRate", 1.0 - (double) totalFailures.get() / requests);
+            // 每个请求平均新建的连接数（即握手次数），复用良好时趋近于0
+            stats.put("connectionsPerRequest", (double) totalConnections.get() / requests);
+        }
+
+        long served = totalReused.get() + totalConnections.get();
+        if (served > 0) {
+            stats.put("reuseRatio", (double) totalReused.get() / served);
         }
 
         return stats;
@@ -178,10 +306,12 @@ public class DefaultConnectionPool implements ConnectionPool {
         Map<String, Object> status = new ConcurrentHashMap<>();
         status.put("target", target.toUri());
 
-        String poolKey = generatePoolKey(target, null);
-        BlockingQueue<Connection> pool = pools.get(poolKey);
+        TargetPool pool = pools.get(generatePoolKey(target));
         if (pool != null) {
-            status.put("idleConnections", pool.size());
+            status.put("idleConnections", pool.idleCount());
+            status.put("idleGroups", pool.idle.size());
+            status.put("allocatedConnections", pool.allocated.get());
+            status.put("pendingAcquires", pool.pendingCount.get());
             status.put("exists", true);
         } else {
             status.put("idleConnections", 0);
@@ -193,17 +323,19 @@ public class DefaultConnectionPool implements ConnectionPool {
 
     @Override
     public void warmup(EndpointAddress target, Protocol protocol, int minConnections) {
-        String poolKey = generatePoolKey(target, protocol);
-        BlockingQueue<Connection> pool = getOrCreatePool(poolKey);
+        TargetPool pool = getOrCreatePool(target);
 
         for (int i = 0; i < minConnections; i++) {
+            if (!pool.tryReserve()) {
+                break;
+            }
             try {
                 CompletableFuture<ClientConnection> future = connectionFactory.createClientConnection(target);
-                ClientConnection connection = future.get(5, TimeUnit.SECONDS);
-                connection.markIdle();
-                pool.offer(connection);
+                ClientConnection connection = future.get(config.getConnectionTimeout().toMillis(), TimeUnit.MILLISECONDS);
                 totalConnections.incrementAndGet();
+                parkIdle(pool, connection);
             } catch (Exception e) {
+                pool.release();
                 log.warn("预热连接创建失败: {}", target.toUri(), e);
                 break;
             }
@@ -218,21 +350,16 @@ public class DefaultConnectionPool implements ConnectionPool {
             return;
         }
 
-        for (Map.Entry<String, BlockingQueue<Connection>> entry : pools.entrySet()) {
-            BlockingQueue<Connection> pool = entry.getValue();
-            Connection connection;
-
-            while ((connection = pool.peek()) != null) {
-                long idleTime = System.currentTimeMillis() - connection.getLastActiveTime();
-                if (idleTime > 60000) { // 60秒空闲超时
-                    pool.poll();
-                    try {
-                        connection.close();
-                    } catch (Exception e) {
-                        log.debug("清理连接异常", e);
+        long now = System.currentTimeMillis();
+        for (TargetPool pool : pools.values()) {
+            // 空闲队列按归还时间排列，尾部最久未使用；超过maxLifetime的连接可能位于任意位置
+            for (Deque<ClientConnection> idle : pool.idle.values()) {
+                for (ClientConnection connection : idle) {
+                    if (!isReusable(connection, now) || isIdleExpired(connection, now)) {
+                        if (idle.removeFirstOccurrence(connection)) {
+                            closeAndRelease(pool, connection);
+                        }
                     }
-                } else {
-                    break;
                 }
             }
         }
@@ -258,14 +385,335 @@ public class DefaultConnectionPool implements ConnectionPool {
         return config;
     }
 
-    private String generatePoolKey(EndpointAddress target, Protocol protocol) {
-        if (protocol != null) {
-            return target.toUri() + "#" + protocol.type();
+    // ========== 内部方法 ==========
+
+    /**
+     * 获取可用空闲连接：先查调用方EventLoop的子池，为空时再从其他EventLoop窃取
+     * 亲和模式下没有EventLoop的调用方没有自己的子池，直接从任意EventLoop的子池窃取
+     */
+    private ClientConnection pollIdle(TargetPool pool, EventLoop eventLoop) {
+        Object loopKey = loopKey(eventLoop);
+        Deque<ClientConnection> local = pool.idle.get(loopKey);
+        ClientConnection connection = local != null ? pollIdle(pool, local, true) : null;
+        if (connection != null || !config.isEventLoopAffinity()) {
+            return connection;
+        }
+
+        for (Map.Entry<Object, Deque<ClientConnection>> entry : pool.idle.entrySet()) {
+            if (entry.getKey() == loopKey) {
+                continue;
+            }
+            // 从尾部窃取最久未使用的连接，避免与所属EventLoop争抢热连接
+            connection = pollIdle(pool, entry.getValue(), false);
+            if (connection != null) {
+                totalStolen.incrementAndGet();
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 从空闲队列获取可用连接，顺带销毁失效连接
+     */
+    private ClientConnection pollIdle(TargetPool pool, Deque<ClientConnection> idle, boolean fromHead) {
+        ClientConnection connection;
+        long now = System.currentTimeMillis();
+        while ((connection = fromHead ? idle.pollFirst() : idle.pollLast()) != null) {
+            if (isReusable(connection, now) && !isIdleExpired(connection, now)) {
+                return connection;
+            }
+            // 连接不健康或已过期，销毁它
+            closeAndRelease(pool, connection);
         }
+        return null;
+    }
+
+    /**
+     * 把连接放回所属EventLoop的空闲子池头部
+     */
+    private void parkIdle(TargetPool pool, ClientConnection connection) {
+        connection.markIdle();
+        pool.idleOf(loopKey(connection.getEventLoop())).offerFirst(connection);
+    }
+
+    private Object loopKey(EventLoop eventLoop) {
+        return config.isEventLoopAffinity() && eventLoop != null ? eventLoop : SHARED_LOOP;
+    }
+
+    /**
+     * 连接是否仍可复用：活跃、健康、没有未收完的响应且未超过最大存活时间
+     */
+    private boolean isReusable(ClientConnection connection, long now) {
+        return connection.isActive()
+                && connection.isHealthy()
+                && !connection.hasInflightRequests()
+                && now - connection.getCreatedTime() < config.getMaxLifetime().toMillis();
+    }
+
+    private boolean isIdleExpired(ClientConnection connection, long now) {
+        return now - connection.getLastActiveTime() > config.getIdleTimeout().toMillis();
+    }
+
+    /**
+     * 异步建立连接，结果交给等待者；等待者已放弃时把连接交还给池
+     */
+    private void connect(TargetPool pool, PendingAcquire waiter) {
+        CompletableFuture<ClientConnection> future;
+        try {
+            future = createConnection(waiter.target, waiter.eventLoop);
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        future.whenComplete((connection, error) -> {
+            if (error != null) {
+                pool.release();
+                totalFailures.incrementAndGet();
+                waiter.cancelTimeout();
+                waiter.promise.completeExceptionally(error);
+                dispatchPending(pool);
+                return;
+            }
+
+            totalConnections.incrementAndGet();
+            connection.markInUse();
+            waiter.cancelTimeout();
+            if (!waiter.promise.complete(connection)) {
+                // 获取已超时或被取消
+                returnConnection(connection);
+            }
+        });
+    }
+
+    /**
+     * 让出站Channel注册到调用方的EventLoop，与入站Channel共用线程
+     */
+    private CompletableFuture<ClientConnection> createConnection(EndpointAddress target, EventLoop eventLoop) {
+        if (eventLoop == null) {
+            return connectionFactory.createClientConnection(target);
+        }
+        Map<String, Object> options = new HashMap<>();
+        Map<String, Object> defaults = connectionFactory.getDefaultConnectionOptions();
+        if (defaults != null) {
+            options.putAll(defaults);
+        }
+        options.put(ConnectionFactory.OPTION_EVENT_LOOP, eventLoop);
+        return connectionFactory.createClientConnection(target, options);
+    }
+
+    /**
+     * 为等待者分配空闲连接或被释放出来的连接名额
+     * 等待者放回队首后最多再分派{@link #DISPATCH_RETRIES}轮，之后由下一次归还或释放连接继续分派，不会空转
+     */
+    private void dispatchPending(TargetPool pool) {
+        int retries = 0;
+        while (pool.pendingCount.get() > 0 && !isClosed()) {
+            PendingAcquire waiter = pool.pollPending();
+            if (waiter == null) {
+                // 入队尚未完成，由入队方随后自行分派
+                return;
+            }
+            if (waiter.promise.isDone()) {
+                continue;
+            }
+
+            // 优先移交空闲连接（同一EventLoop优先）
+            ClientConnection idleConnection = pollIdle(pool, waiter.eventLoop);
+            if (idleConnection != null) {
+                handOff(pool, waiter, idleConnection);
+                continue;
+            }
+
+            if (pool.tryReserve()) {
+                connect(pool, waiter);
+                continue;
+            }
+
+            // 没有可用资源，放回队首继续等待
+            pool.requeuePending(waiter);
+            if (pool.idleCount() == 0 && pool.allocated.get() >= pool.maxConnections || ++retries > DISPATCH_RETRIES) {
+                return;
+            }
+            // 放回期间有连接被归还或释放，再分派一轮
+        }
+    }
+
+    /**
+     * 把连接直接交给等待者，等待者已放弃时放回空闲子池
+     */
+    private void handOff(TargetPool pool, PendingAcquire waiter, ClientConnection connection) {
+        waiter.cancelTimeout();
+        connection.markInUse();
+        if (waiter.promise.complete(connection)) {
+            totalReused.incrementAndGet();
+        } else {
+            parkIdle(pool, connection);
+        }
+    }
+
+    /**
+     * 注册获取超时
+     *
+     * @param queued 是否位于等待队列中（超时需要出队）
+     */
+    private void scheduleTimeout(TargetPool pool, PendingAcquire waiter, boolean queued) {
+        long timeoutMs = config.getAcquireTimeout().toMillis();
+        waiter.timeout = acquireTimer.newTimeout(t -> {
+            if (queued) {
+                pool.removePending(waiter);
+            }
+            if (waiter.promise.completeExceptionally(new TimeoutException(
+                    "获取连接超时: " + pool.key + " (" + timeoutMs + "ms)"))) {
+                totalTimeouts.incrementAndGet();
+                totalFailures.incrementAndGet();
+            }
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 销毁连接并释放其占用的名额
+     */
+    private void destroy(Connection connection) {
+        TargetPool pool = ownerPool(connection);
+        if (pool != null) {
+            closeAndRelease(pool, (ClientConnection) connection);
+            return;
+        }
+        connection.close();
+    }
+
+    /**
+     * 查找连接所属的子池
+     */
+    private TargetPool ownerPool(Connection connection) {
+        if (connection instanceof ClientConnection clientConnection && clientConnection.getTarget() != null) {
+            return pools.get(generatePoolKey(clientConnection.getTarget()));
+        }
+        return null;
+    }
+
+    private void closeAndRelease(TargetPool pool, ClientConnection connection) {
+        try {
+            connection.close();
+        } catch (Exception e) {
+            log.debug("关闭连接异常", e);
+        }
+        totalDestroyed.incrementAndGet();
+        pool.release();
+        dispatchPending(pool);
+    }
+
+    private String generatePoolKey(EndpointAddress target) {
+        // 连接池已按协议划分（见DefaultConnectionPoolManager），目标地址即可唯一确定子池
         return target.toUri();
     }
 
-    private BlockingQueue<Connection> getOrCreatePool(String poolKey) {
-        return pools.computeIfAbsent(poolKey, k -> new LinkedBlockingQueue<>());
+    private TargetPool getOrCreatePool(EndpointAddress target) {
+        return pools.computeIfAbsent(generatePoolKey(target), k -> new TargetPool(k, config));
+    }
+
+    /**
+     * 单个目标地址的连接子池
+     */
+    private static final class TargetPool {
+        final String key;
+        final int maxConnections;
+        final int maxPending;
+        /**
+         * 空闲连接按EventLoop分组（非亲和模式只有SHARED_LOOP一组），每组头部为最近归还的连接
+         */
+        final Map<Object, Deque<ClientConnection>> idle = new ConcurrentHashMap<>();
+        final Deque<PendingAcquire> pending = new ConcurrentLinkedDeque<>();
+        /**
+         * 已分配名额（建立中 + 使用中 + 空闲）
+         */
+        final AtomicInteger allocated = new AtomicInteger(0);
+        final AtomicInteger pendingCount = new AtomicInteger(0);
+
+        TargetPool(String key, ConnectionPoolConfig config) {
+            this.key = key;
+            this.maxConnections = Math.max(1, config.getMaxConnectionsPerTarget());
+            this.maxPending = Math.max(0, config.getMaxPendingAcquires());
+        }
+
+        boolean tryReserve() {
+            for (;;) {
+                int current = allocated.get();
+                if (current >= maxConnections) {
+                    return false;
+                }
+                if (allocated.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            allocated.decrementAndGet();
+        }
+
+        Deque<ClientConnection> idleOf(Object loopKey) {
+            return idle.computeIfAbsent(loopKey, k -> new ConcurrentLinkedDeque<>());
+        }
+
+        int idleCount() {
+            int count = 0;
+            for (Deque<ClientConnection> queue : idle.values()) {
+                count += queue.size();
+            }
+            return count;
+        }
+
+        boolean offerPending(PendingAcquire waiter) {
+            if (pendingCount.incrementAndGet() > maxPending) {
+                pendingCount.decrementAndGet();
+                return false;
+            }
+            pending.offer(waiter);
+            return true;
+        }
+
+        PendingAcquire pollPending() {
+            PendingAcquire waiter = pending.poll();
+            if (waiter != null) {
+                pendingCount.decrementAndGet();
+            }
+            return waiter;
+        }
+
+        void requeuePending(PendingAcquire waiter) {
+            pendingCount.incrementAndGet();
+            pending.offerFirst(waiter);
+        }
+
+        void removePending(PendingAcquire waiter) {
+            if (pending.remove(waiter)) {
+                pendingCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 等待获取连接的请求
+     */
+    private static final class PendingAcquire {
+        final EndpointAddress target;
+        final EventLoop eventLoop;
+        final CompletableFuture<ClientConnection> promise;
+        volatile Timeout timeout;
+
+        PendingAcquire(EndpointAddress target, EventLoop eventLoop, CompletableFuture<ClientConnection> promise) {
+            this.target = target;
+            this.eventLoop = eventLoop;
+            this.promise = promise;
+        }
+
+        void cancelTimeout() {
+            Timeout t = timeout;
+            if (t != null) {
+                t.cancel();
+            }
+        }
     }
-}
\ No newline at end of file
+}
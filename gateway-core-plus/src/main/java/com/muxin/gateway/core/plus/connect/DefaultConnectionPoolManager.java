@@ -1,12 +1,16 @@
 package com.muxin.gateway.core.plus.connect;
 
+import com.muxin.gateway.core.plus.connect.http.HttpConnectionFactory;
 import com.muxin.gateway.core.plus.message.Protocol;
+import com.muxin.gateway.core.plus.message.ProtocolEnum;
 import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import io.netty.channel.EventLoop;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.Duration;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -38,8 +42,11 @@ public class DefaultConnectionPoolManager implements ConnectionPoolManager {
     public void init() {
         if (initialized.compareAndSet(false, true)) {
             log.info("[DefaultConnectionPoolManager] 连接池管理器初始化");
-            
-            // todo 注册默认的HTTP连接工厂
+
+            // 注册默认的HTTP连接工厂，出站Channel注册在入站请求所在的worker EventLoop上
+            if (!connectionFactories.containsKey(ProtocolEnum.HTTP)) {
+                registerConnectionFactory(new HttpConnectionFactory());
+            }
         }
     }
 
@@ -105,6 +112,23 @@ public class DefaultConnectionPoolManager implements ConnectionPoolManager {
         }
     }
 
+    @Override
+    public CompletableFuture<ClientConnection> acquire(EndpointAddress target, Protocol protocol, EventLoop eventLoop) {
+        if (isShutdown()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("连接池管理器已关闭"));
+        }
+
+        if (!supportsProtocol(protocol)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("不支持的协议: " + protocol.type()));
+        }
+
+        try {
+            return getOrCreateConnectionPool(protocol).acquire(target, protocol, eventLoop);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     @Override
     public void returnConnection(Connection connection) {
         if (connection == null || isShutdown()) {
@@ -252,6 +276,21 @@ public class DefaultConnectionPoolManager implements ConnectionPoolManager {
         return stats;
     }
 
+    /**
+     * 获取指定目标的连接池状态
+     */
+    public Map<String, Object> getPoolStatus(EndpointAddress target, Protocol protocol) {
+        ConnectionPool pool = connectionPools.get(protocol);
+        if (pool == null) {
+            Map<String, Object> status = new ConcurrentHashMap<>();
+            status.put("target", target.toUri());
+            status.put("idleConnections", 0);
+            status.put("exists", false);
+            return status;
+        }
+        return pool.getPoolStatus(target);
+    }
+
     /**
      * 获取或创建连接池
      */
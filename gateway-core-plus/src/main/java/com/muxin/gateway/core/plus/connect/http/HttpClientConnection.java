@@ -0,0 +1,454 @@
+package com.muxin.gateway.core.plus.connect.http;
+
+import com.muxin.gateway.core.plus.connect.ClientConnection;
+import com.muxin.gateway.core.plus.message.Message;
+import com.muxin.gateway.core.plus.message.Protocol;
+import com.muxin.gateway.core.plus.message.http.DefaultHttpServerExchange;
+import com.muxin.gateway.core.plus.message.http.HttpRequestMessage;
+import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import com.muxin.gateway.core.plus.utils.HttpHeaderUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoop;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.*;
+import io.netty.util.ReferenceCountUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于Netty Channel的HTTP/1.1客户端连接
+ * <p>
+ * send不阻塞调用线程：请求在Channel所属的EventLoop上写出，
+ * HTTP/1.1响应按请求顺序返回，按FIFO与已发送的请求对应，因此同一连接上可以流水线发送多个请求。
+ * 请求体以retainedDuplicate转发，不发生字节拷贝。
+ * 流式转发（{@link #stream}）时响应不经聚合，头和各个HttpContent依次交给{@link HttpStreamListener}
+ *
+ * @author muxin
+ */
+@Slf4j
+public class HttpClientConnection implements ClientConnection {
+
+    static final String AGGREGATOR_NAME = "httpClientAggregator";
+    static final String HANDLER_NAME = "httpClientResponseHandler";
+
+    private final String connectionId;
+    private final Channel channel;
+    private final EndpointAddress target;
+    private final Protocol protocol;
+    private final int maxPipelinedRequests;
+    private final String hostHeader;
+
+    private final long createdTime;
+    private volatile long lastActiveTime;
+    private final AtomicBoolean inUse = new AtomicBoolean(false);
+    private volatile boolean healthy = true;
+
+    /**
+     * 已发送、尚未收到响应的请求（聚合请求为CompletableFuture，流式请求为HttpStreamListener），
+     * 只在Channel所属的EventLoop上访问
+     */
+    private final Deque<Object> inflight = new ArrayDeque<>();
+
+    /**
+     * inflight的大小，在EventLoop上随inflight一起更新，供连接池在其他线程判断连接能否复用
+     */
+    private volatile int inflightCount;
+
+    // 统计信息
+    private final AtomicLong totalRequests = new AtomicLong(0);
+    private final AtomicLong totalFailures = new AtomicLong(0);
+
+    HttpClientConnection(Channel channel, EndpointAddress target, Protocol protocol,
+                         int maxPipelinedRequests, int maxContentLength) {
+        this.channel = channel;
+        this.target = target;
+        this.protocol = protocol;
+        this.maxPipelinedRequests = Math.max(1, maxPipelinedRequests);
+        this.connectionId = "http-" + channel.id().asShortText();
+        this.hostHeader = target.getPort() == 80 ? target.getHost() : target.getHost() + ":" + target.getPort();
+        this.createdTime = System.currentTimeMillis();
+        this.lastActiveTime = createdTime;
+
+        channel.pipeline()
+                .addLast(AGGREGATOR_NAME, new SelectiveHttpObjectAggregator(maxContentLength,
+                        message -> inflight.peek() instanceof HttpStreamListener))
+                .addLast(HANDLER_NAME, new ResponseHandler());
+    }
+
+    // ========== 请求发送 ==========
+
+    @Override
+    public CompletableFuture<Message> send(Message request) {
+        if (!(request instanceof HttpRequestMessage httpRequest)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    "HTTP连接不支持的消息类型: " + (request == null ? "null" : request.getClass().getName())));
+        }
+        if (!channel.isActive()) {
+            return CompletableFuture.failedFuture(new IOException("后端连接已关闭: " + connectionId));
+        }
+
+        totalRequests.incrementAndGet();
+        lastActiveTime = System.currentTimeMillis();
+
+        CompletableFuture<Message> promise = new CompletableFuture<>();
+        FullHttpRequest outbound = toOutboundRequest(httpRequest);
+
+        EventLoop eventLoop = channel.eventLoop();
+        if (eventLoop.inEventLoop()) {
+            write(outbound, promise);
+        } else {
+            try {
+                eventLoop.execute(() -> write(outbound, promise));
+            } catch (RejectedExecutionException e) {
+                outbound.release();
+                totalFailures.incrementAndGet();
+                promise.completeExceptionally(e);
+            }
+        }
+        return promise;
+    }
+
+    /**
+     * 在EventLoop上写出请求并登记等待响应
+     */
+    private void write(FullHttpRequest outbound, CompletableFuture<Message> promise) {
+        if (inflight.size() >= maxPipelinedRequests) {
+            outbound.release();
+            totalFailures.incrementAndGet();
+            promise.completeExceptionally(new RejectedExecutionException(
+                    "连接流水线请求数已达上限: " + connectionId + " (" + maxPipelinedRequests + ")"));
+            return;
+        }
+
+        offerInflight(promise);
+        channel.writeAndFlush(outbound).addListener(this::onWriteComplete);
+    }
+
+    // ========== 流式转发 ==========
+
+    /**
+     * 开始流式转发：写出请求头，请求体由调用方通过{@link #streamContent}逐块写出
+     * 要求连接上没有未完成的请求
+     *
+     * @param head     请求头（Content-Length/Transfer-Encoding保持与请求体一致）
+     * @param listener 响应监听器
+     */
+    public void stream(HttpRequest head, HttpStreamListener listener) {
+        totalRequests.incrementAndGet();
+        lastActiveTime = System.currentTimeMillis();
+
+        EventLoop eventLoop = channel.eventLoop();
+        if (eventLoop.inEventLoop()) {
+            writeStreamHead(head, listener);
+        } else {
+            try {
+                eventLoop.execute(() -> writeStreamHead(head, listener));
+            } catch (RejectedExecutionException e) {
+                // EventLoop已关闭，请求头不会再写出
+                ReferenceCountUtil.release(head);
+                totalFailures.incrementAndGet();
+                listener.onError(e);
+            }
+        }
+    }
+
+    private void writeStreamHead(HttpRequest head, HttpStreamListener listener) {
+        if (!inflight.isEmpty()) {
+            totalFailures.incrementAndGet();
+            listener.onError(new IllegalStateException("流式转发要求连接空闲: " + connectionId));
+            return;
+        }
+        if (!channel.isActive()) {
+            totalFailures.incrementAndGet();
+            listener.onError(new IOException("后端连接已关闭: " + connectionId));
+            return;
+        }
+
+        offerInflight(listener);
+        channel.writeAndFlush(head).addListener(this::onWriteComplete);
+    }
+
+    /**
+     * 写出一块请求体，引用计数转移给连接
+     */
+    public void streamContent(HttpContent content) {
+        lastActiveTime = System.currentTimeMillis();
+        channel.writeAndFlush(content).addListener(this::onWriteComplete);
+    }
+
+    /**
+     * 后端Channel当前是否可写（写缓冲区低于高水位）
+     */
+    public boolean isWritable() {
+        return channel.isWritable();
+    }
+
+    /**
+     * 控制是否继续读取后端响应，用于对客户端做反压
+     */
+    public void setAutoRead(boolean autoRead) {
+        channel.config().setAutoRead(autoRead);
+    }
+
+    private void onWriteComplete(io.netty.util.concurrent.Future<? super Void> future) {
+        if (!future.isSuccess()) {
+            failAll(future.cause());
+            channel.close();
+        }
+    }
+
+    /**
+     * 构造发往后端的请求：共享请求体缓冲区，剔除逐跳头部
+     */
+    private FullHttpRequest toOutboundRequest(HttpRequestMessage request) {
+        ByteBuf content = request.content().retainedDuplicate();
+
+        HttpHeaders headers = request.headers().copy();
+        HttpHeaderUtils.removeHopByHopHeaders(headers);
+        headers.remove(HttpHeaderNames.TRANSFER_ENCODING);
+        headers.set(HttpHeaderNames.HOST, hostHeader);
+        headers.set(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+
+        return new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, request.method(), request.uri(),
+                content, headers, EmptyHttpHeaders.INSTANCE);
+    }
+
+    private void offerInflight(Object pending) {
+        inflight.offer(pending);
+        inflightCount = inflight.size();
+    }
+
+    private Object pollInflight() {
+        Object pending = inflight.poll();
+        inflightCount = inflight.size();
+        return pending;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void failAll(Throwable cause) {
+        healthy = false;
+        Object pending;
+        while ((pending = pollInflight()) != null) {
+            totalFailures.incrementAndGet();
+            if (pending instanceof HttpStreamListener listener) {
+                listener.onError(cause);
+            } else {
+                ((CompletableFuture<Message>) pending).completeExceptionally(cause);
+            }
+        }
+    }
+
+    // ========== Connection 接口实现 ==========
+
+    @Override
+    public String getConnectionId() {
+        return connectionId;
+    }
+
+    @Override
+    public boolean isActive() {
+        return channel.isActive();
+    }
+
+    @Override
+    public CompletableFuture<Void> close() {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        channel.close().addListener(future -> {
+            if (future.isSuccess()) {
+                result.complete(null);
+            } else {
+                result.completeExceptionally(future.cause());
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public long getCreatedTime() {
+        return createdTime;
+    }
+
+    @Override
+    public long getLastActiveTime() {
+        return lastActiveTime;
+    }
+
+    @Override
+    public Protocol getProtocol() {
+        return protocol;
+    }
+
+    // ========== ClientConnection 接口实现 ==========
+
+    @Override
+    public boolean isHealthy() {
+        return healthy && channel.isActive();
+    }
+
+    @Override
+    public boolean hasInflightRequests() {
+        return inflightCount > 0;
+    }
+
+    @Override
+    public EndpointAddress getTarget() {
+        return target;
+    }
+
+    @Override
+    public EventLoop getEventLoop() {
+        return channel.eventLoop();
+    }
+
+    @Override
+    public void markInUse() {
+        inUse.set(true);
+        lastActiveTime = System.currentTimeMillis();
+    }
+
+    @Override
+    public void markIdle() {
+        inUse.set(false);
+        lastActiveTime = System.currentTimeMillis();
+    }
+
+    @Override
+    public boolean isInUse() {
+        return inUse.get();
+    }
+
+    /**
+     * 连接由ConnectionPoolManager统一归还，这里只重置使用状态
+     */
+    @Override
+    public void returnToPool() {
+        markIdle();
+    }
+
+    @Override
+    public void destroy() {
+        healthy = false;
+        channel.close();
+    }
+
+    @Override
+    public long getTotalRequests() {
+        return totalRequests.get();
+    }
+
+    @Override
+    public long getTotalFailures() {
+        return totalFailures.get();
+    }
+
+    /**
+     * 发往后端时使用的Host头
+     */
+    public String hostHeader() {
+        return hostHeader;
+    }
+
+    /**
+     * 获取底层Channel
+     */
+    public Channel channel() {
+        return channel;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpClientConnection{" +
+                "id='" + connectionId + '\'' +
+                ", target=" + target.toUri() +
+                ", active=" + channel.isActive() +
+                ", inUse=" + inUse.get() +
+                '}';
+    }
+
+    // ========== 响应处理 ==========
+
+    /**
+     * 按FIFO把响应交给对应的请求，响应的引用计数转移给响应消息或流式监听器
+     */
+    private class ResponseHandler extends SimpleChannelInboundHandler<HttpObject> {
+
+        ResponseHandler() {
+            super(false);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void channelRead0(ChannelHandlerContext ctx, HttpObject msg) {
+            lastActiveTime = System.currentTimeMillis();
+
+            Object pending = inflight.peek();
+            if (pending == null) {
+                log.warn("[HttpClientConnection] 收到无对应请求的响应，关闭连接: {}", connectionId);
+                ReferenceCountUtil.release(msg);
+                healthy = false;
+                ctx.close();
+                return;
+            }
+
+            if (msg instanceof HttpResponse response && !HttpUtil.isKeepAlive(response)) {
+                // 后端要求关闭连接，不再复用
+                healthy = false;
+            }
+
+            if (pending instanceof HttpStreamListener listener) {
+                if (msg instanceof LastHttpContent) {
+                    pollInflight();
+                }
+                listener.onResponsePart(msg);
+                return;
+            }
+
+            pollInflight();
+            if (!(msg instanceof FullHttpResponse response)) {
+                // 聚合模式下只应收到完整响应
+                ReferenceCountUtil.release(msg);
+                failAll(new IllegalStateException("收到未聚合的响应: " + connectionId));
+                ctx.close();
+                return;
+            }
+            if (!((CompletableFuture<Message>) pending).complete(DefaultHttpServerExchange.wrapResponse(response))) {
+                // 请求方已放弃（超时或取消）
+                response.release();
+            }
+        }
+
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+            if (inflight.peek() instanceof HttpStreamListener listener) {
+                listener.onWritabilityChanged(ctx.channel().isWritable());
+            }
+            super.channelWritabilityChanged(ctx);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            if (!inflight.isEmpty()) {
+                failAll(new IOException("后端连接已断开: " + connectionId));
+            }
+            healthy = false;
+            log.debug("[HttpClientConnection] 连接关闭: {}", connectionId);
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.warn("[HttpClientConnection] 连接异常: {} - {}", connectionId, cause.getMessage());
+            failAll(cause);
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.muxin.gateway.core.plus.connect.http;
+
+import com.muxin.gateway.core.plus.connect.ClientConnection;
+import com.muxin.gateway.core.plus.connect.Connection;
+import com.muxin.gateway.core.plus.connect.ConnectionFactory;
+import com.muxin.gateway.core.plus.connect.ServerConnection;
+import com.muxin.gateway.core.plus.message.Protocol;
+import com.muxin.gateway.core.plus.message.ProtocolEnum;
+import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.*;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于Netty Bootstrap的HTTP/1.1连接工厂
+ * <p>
+ * 出站Channel优先注册到调用方指定的EventLoop（{@link ConnectionFactory#OPTION_EVENT_LOOP}，
+ * 即入站Channel所在的服务端worker），与入站请求共用线程，不需要额外的线程池；
+ * 未指定时使用构造时传入的共享线程组，都没有时才按需创建自己的线程组。
+ * 传输层与线程组类型一致（Epoll/NIO），缓冲区使用PooledByteBufAllocator
+ *
+ * @author muxin
+ */
+@Slf4j
+public class HttpConnectionFactory implements ConnectionFactory {
+
+    private volatile HttpConnectionFactoryConfig config;
+    private final EventLoopGroup sharedGroup;
+    private volatile EventLoopGroup ownGroup;
+    private final AtomicBoolean shutdown = new AtomicBoolean(false);
+
+    // 统计信息
+    private final AtomicLong connectionsCreated = new AtomicLong(0);
+    private final AtomicLong connectionsFailed = new AtomicLong(0);
+    private final AtomicLong totalConnectTimeNanos = new AtomicLong(0);
+
+    public HttpConnectionFactory() {
+        this(HttpConnectionFactoryConfig.defaultConfig(), null);
+    }
+
+    /**
+     * @param config      工厂配置
+     * @param sharedGroup 共享的线程组（如服务端worker组），可为null
+     */
+    public HttpConnectionFactory(HttpConnectionFactoryConfig config, EventLoopGroup sharedGroup) {
+        this.config = config != null ? config : HttpConnectionFactoryConfig.defaultConfig();
+        this.sharedGroup = sharedGroup;
+    }
+
+    // ========== 协议支持 ==========
+
+    @Override
+    public Protocol getSupportedProtocol() {
+        return ProtocolEnum.HTTP;
+    }
+
+    @Override
+    public boolean supports(Protocol protocol) {
+        return protocol != null && ProtocolEnum.HTTP.type().equalsIgnoreCase(protocol.type());
+    }
+
+    // ========== 连接创建 ==========
+
+    @Override
+    public ServerConnection createServerConnection(Object protocolContext) throws ConnectionCreationException {
+        if (protocolContext instanceof ChannelHandlerContext ctx) {
+            return new HttpServerConnection(ctx.channel(), true);
+        }
+        if (protocolContext instanceof Channel channel) {
+            return new HttpServerConnection(channel, true);
+        }
+        throw new ConnectionCreationException("不支持的协议上下文: "
+                + (protocolContext == null ? "null" : protocolContext.getClass().getName()), getSupportedProtocol());
+    }
+
+    @Override
+    public CompletableFuture<ClientConnection> createClientConnection(EndpointAddress target, Map<String, Object> options) {
+        if (isShutdown()) {
+            return CompletableFuture.failedFuture(
+                    new ConnectionCreationException("连接工厂已关闭", getSupportedProtocol(), target));
+        }
+
+        HttpConnectionFactoryConfig currentConfig = config;
+        EventLoopGroup group = resolveEventLoop(options);
+        int connectTimeout = (int) resolveConnectTimeout(options, currentConfig);
+
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(channelClass(group))
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+                .option(ChannelOption.TCP_NODELAY, currentConfig.isTcpNoDelay())
+                .option(ChannelOption.SO_KEEPALIVE, currentConfig.isKeepAliveEnabled())
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        // 聚合器和响应处理器在连接建立后由HttpClientConnection添加
+                        ch.pipeline().addLast(new HttpClientCodec(
+                                currentConfig.getMaxInitialLineLength(),
+                                currentConfig.getMaxHeaderSize(),
+                                currentConfig.getMaxChunkSize()));
+                    }
+                });
+
+        CompletableFuture<ClientConnection> result = new CompletableFuture<>();
+        long start = System.nanoTime();
+        bootstrap.connect(target.getHost(), target.getPort()).addListener((ChannelFutureListener) future -> {
+            totalConnectTimeNanos.addAndGet(System.nanoTime() - start);
+            if (!future.isSuccess()) {
+                connectionsFailed.incrementAndGet();
+                result.completeExceptionally(new ConnectionCreationException(
+                        "连接后端失败: " + target.toUri(), future.cause(), getSupportedProtocol(), target));
+                return;
+            }
+
+            connectionsCreated.incrementAndGet();
+            HttpClientConnection connection = new HttpClientConnection(future.channel(), target,
+                    getSupportedProtocol(), currentConfig.getMaxPipelinedRequests(),
+                    currentConfig.getMaxContentLength());
+            if (!result.complete(connection)) {
+                connection.destroy();
+            }
+            log.debug("[HttpConnectionFactory] 建立后端连接: {} -> {}", connection.getConnectionId(), target.toUri());
+        });
+        return result;
+    }
+
+    // ========== 连接校验 ==========
+
+    @Override
+    public CompletableFuture<Boolean> validateConnection(Connection connection) {
+        return CompletableFuture.completedFuture(getConnectionHealth(connection) == ConnectionHealthStatus.HEALTHY);
+    }
+
+    @Override
+    public ConnectionHealthStatus getConnectionHealth(Connection connection) {
+        if (connection == null) {
+            return ConnectionHealthStatus.UNKNOWN;
+        }
+        if (!connection.isActive()) {
+            return ConnectionHealthStatus.UNHEALTHY;
+        }
+        if (connection instanceof ClientConnection clientConnection && !clientConnection.isHealthy()) {
+            return ConnectionHealthStatus.WARNING;
+        }
+        return ConnectionHealthStatus.HEALTHY;
+    }
+
+    // ========== 配置与统计 ==========
+
+    @Override
+    public Map<String, Object> getDefaultConnectionOptions() {
+        Map<String, Object> options = new HashMap<>();
+        options.put("connectTimeout", config.getConnectionTimeout());
+        options.put("keepAlive", config.isKeepAliveEnabled());
+        return options;
+    }
+
+    @Override
+    public ConnectionFactoryConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public void updateConfig(ConnectionFactoryConfig config) {
+        if (config instanceof HttpConnectionFactoryConfig httpConfig) {
+            this.config = httpConfig;
+            log.info("[HttpConnectionFactory] 配置已更新: {}", httpConfig.getName());
+        } else {
+            log.warn("[HttpConnectionFactory] 忽略不支持的配置类型: {}",
+                    config == null ? "null" : config.getClass().getName());
+        }
+    }
+
+    @Override
+    public ConnectionFactoryStats getStats() {
+        long created = connectionsCreated.get();
+        long failed = connectionsFailed.get();
+        long attempts = created + failed;
+        double averageMs = attempts == 0 ? 0 : totalConnectTimeNanos.get() / 1_000_000.0 / attempts;
+        double successRate = attempts == 0 ? 1.0 : (double) created / attempts;
+
+        return new ConnectionFactoryStats() {
+            @Override
+            public long getConnectionsCreated() {
+                return created;
+            }
+
+            @Override
+            public long getConnectionsFailed() {
+                return failed;
+            }
+
+            @Override
+            public double getAverageConnectionTime() {
+                return averageMs;
+            }
+
+            @Override
+            public double getSuccessRate() {
+                return successRate;
+            }
+        };
+    }
+
+    // ========== 生命周期 ==========
+
+    @Override
+    public CompletableFuture<Void> warmup() {
+        if (sharedGroup == null) {
+            ownGroup();
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> shutdown() {
+        if (!shutdown.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        log.info("[HttpConnectionFactory] 关闭HTTP连接工厂");
+        EventLoopGroup group = ownGroup;
+        if (group == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // 共享线程组由其所有者关闭，这里只关闭自建的线程组
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        group.shutdownGracefully().addListener(f -> result.complete(null));
+        return result;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown.get();
+    }
+
+    // ========== 内部方法 ==========
+
+    private EventLoopGroup resolveEventLoop(Map<String, Object> options) {
+        Object eventLoop = options != null ? options.get(OPTION_EVENT_LOOP) : null;
+        if (eventLoop instanceof EventLoop loop && !loop.isShuttingDown()) {
+            return loop;
+        }
+        return sharedGroup != null ? sharedGroup : ownGroup();
+    }
+
+    private long resolveConnectTimeout(Map<String, Object> options, HttpConnectionFactoryConfig currentConfig) {
+        Object timeout = options != null ? options.get("connectTimeout") : null;
+        return timeout instanceof Number number ? number.longValue() : currentConfig.getConnectionTimeout();
+    }
+
+    private EventLoopGroup ownGroup() {
+        EventLoopGroup group = ownGroup;
+        if (group == null) {
+            synchronized (this) {
+                group = ownGroup;
+                if (group == null) {
+                    DefaultThreadFactory threadFactory = new DefaultThreadFactory(config.getIoThreadName(), true);
+                    group = config.isUseNativeTransport() && Epoll.isAvailable()
+                            ? new EpollEventLoopGroup(config.getIoThreads(), threadFactory)
+                            : new NioEventLoopGroup(config.getIoThreads(), threadFactory);
+                    ownGroup = group;
+                    log.info("[HttpConnectionFactory] 创建HTTP客户端线程组: {}", group.getClass().getSimpleName());
+                }
+            }
+        }
+        return group;
+    }
+
+    /**
+     * Channel类型必须与注册的线程组一致
+     */
+    private static Class<? extends SocketChannel> channelClass(EventLoopGroup group) {
+        EventLoopGroup owner = group instanceof EventLoop loop && loop.parent() != null ? loop.parent() : group;
+        return owner instanceof EpollEventLoopGroup ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+}
@@ -0,0 +1,77 @@
+package com.muxin.gateway.core.plus.connect.http;
+
+import com.muxin.gateway.core.plus.connect.ConnectionFactory;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HTTP连接工厂配置
+ *
+ * @author muxin
+ */
+@Data
+@Builder
+public class HttpConnectionFactoryConfig implements ConnectionFactory.ConnectionFactoryConfig {
+
+    // ========== 基础配置 ==========
+    @Builder.Default
+    private String name = "http";
+
+    @Builder.Default
+    private long connectionTimeout = 5000;
+
+    @Builder.Default
+    private boolean keepAliveEnabled = true;
+
+    @Builder.Default
+    private boolean tcpNoDelay = true;
+
+    // ========== 线程配置 ==========
+
+    /**
+     * 未指定EventLoop且没有共享线程组时，工厂自建线程组的线程数（0表示Netty默认值）
+     */
+    @Builder.Default
+    private int ioThreads = 0;
+
+    @Builder.Default
+    private String ioThreadName = "http-client-io";
+
+    @Builder.Default
+    private boolean useNativeTransport = true;
+
+    // ========== HTTP协议配置 ==========
+    @Builder.Default
+    private int maxInitialLineLength = 4096;
+
+    @Builder.Default
+    private int maxHeaderSize = 8192;
+
+    @Builder.Default
+    private int maxChunkSize = 8192;
+
+    /**
+     * 聚合响应体的最大长度
+     */
+    @Builder.Default
+    private int maxContentLength = 10 * 1024 * 1024;
+
+    /**
+     * 单个连接上允许流水线发送、尚未收到响应的最大请求数
+     */
+    @Builder.Default
+    private int maxPipelinedRequests = 1;
+
+    @Builder.Default
+    private Map<String, Object> properties = new HashMap<>();
+
+    /**
+     * 创建默认配置
+     */
+    public static HttpConnectionFactoryConfig defaultConfig() {
+        return HttpConnectionFactoryConfig.builder().build();
+    }
+}
@@ -0,0 +1,251 @@
+package com.muxin.gateway.core.plus.connect.http;
+
+import com.muxin.gateway.core.plus.common.ErrorType;
+import com.muxin.gateway.core.plus.connect.ServerConnection;
+import com.muxin.gateway.core.plus.message.Message;
+import com.muxin.gateway.core.plus.message.Protocol;
+import com.muxin.gateway.core.plus.message.ProtocolEnum;
+import com.muxin.gateway.core.plus.message.http.HttpResponseMessage;
+import com.muxin.gateway.core.plus.route.filter.RequestRejectedException;
+import com.muxin.gateway.core.plus.utils.HttpHeaderUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelOutboundInvoker;
+import io.netty.handler.codec.http.*;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 基于Netty Channel的HTTP服务端连接
+ * 每个入站请求一个实例，负责把响应写回客户端并按请求的Keep-Alive决定是否关闭连接
+ *
+ * @author muxin
+ */
+@Slf4j
+public class HttpServerConnection implements ServerConnection {
+
+    private static final Map<ErrorType, ByteBuf> REJECTION_BODIES = preallocateBodies();
+
+    private final Channel channel;
+    private final ChannelOutboundInvoker outbound;
+    private final boolean keepAlive;
+    private final boolean headRequest;
+    private final long createdTime;
+    private volatile long lastActiveTime;
+
+    public HttpServerConnection(Channel channel, boolean keepAlive) {
+        this(channel, channel, keepAlive, false);
+    }
+
+    public HttpServerConnection(Channel channel, boolean keepAlive, boolean headRequest) {
+        this(channel, channel, keepAlive, headRequest);
+    }
+
+    /**
+     * @param outbound 响应写出的起点，流式转发时为处理器自身的ChannelHandlerContext，跳过其后的处理器
+     */
+    public HttpServerConnection(Channel channel, ChannelOutboundInvoker outbound, boolean keepAlive) {
+        this(channel, outbound, keepAlive, false);
+    }
+
+    /**
+     * @param outbound    响应写出的起点，流式转发时为处理器自身的ChannelHandlerContext，跳过其后的处理器
+     * @param headRequest 请求方法为HEAD，响应没有消息体，保留后端的Content-Length
+     */
+    public HttpServerConnection(Channel channel, ChannelOutboundInvoker outbound, boolean keepAlive,
+                                boolean headRequest) {
+        this.channel = channel;
+        this.outbound = outbound;
+        this.keepAlive = keepAlive;
+        this.headRequest = headRequest;
+        this.createdTime = System.currentTimeMillis();
+        this.lastActiveTime = createdTime;
+    }
+
+    // ========== 响应发送 ==========
+
+    @Override
+    public CompletableFuture<Void> sendResponse(Message response) {
+        if (!(response instanceof HttpResponseMessage httpResponse)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    "HTTP连接不支持的消息类型: " + (response == null ? "null" : response.getClass().getName())));
+        }
+
+        // 与响应消息共享缓冲区，响应消息自身的引用由交换对象释放
+        ByteBuf content = httpResponse.content().retainedDuplicate();
+        HttpHeaders headers = httpResponse.headers();
+        HttpHeaderUtils.removeHopByHopHeaders(headers);
+        if (!isBodiless(httpResponse.status()) && isReframed(headers, content.readableBytes())) {
+            // 消息体已聚合为完整内容（或被过滤器改写），按实际长度重新分帧
+            headers.remove(HttpHeaderNames.TRANSFER_ENCODING);
+            headers.set(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+        }
+
+        FullHttpResponse outbound = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, httpResponse.status(),
+                content, headers, EmptyHttpHeaders.INSTANCE);
+        return write(outbound);
+    }
+
+    /**
+     * HEAD请求以及1xx、204、304响应没有消息体，后端的分帧头部原样保留
+     */
+    private boolean isBodiless(HttpResponseStatus status) {
+        int code = status != null ? status.code() : 0;
+        return headRequest || code / 100 == 1 || code == HttpResponseStatus.NO_CONTENT.code()
+                || code == HttpResponseStatus.NOT_MODIFIED.code();
+    }
+
+    /**
+     * 后端以chunked或无长度方式发送的消息体已被聚合，或Content-Length与实际内容不一致
+     */
+    private static boolean isReframed(HttpHeaders headers, int contentLength) {
+        return headers.contains(HttpHeaderNames.TRANSFER_ENCODING)
+                || headers.getInt(HttpHeaderNames.CONTENT_LENGTH, -1) != contentLength;
+    }
+
+    @Override
+    public CompletableFuture<Void> sendError(Throwable error) {
+        ErrorType errorType = resolveErrorType(error);
+        if (unwrap(error) instanceof RequestRejectedException) {
+            // 过滤器拒绝的请求可能在短时间内大量出现，直接复用预先生成的响应体
+            return write(newErrorResponse(errorType, REJECTION_BODIES.get(errorType).duplicate()));
+        }
+        String body = String.format(
+                "{\"error\":{\"code\":\"%s\",\"status\":%d,\"message\":\"%s\",\"timestamp\":%d}}",
+                errorType.getCode(), errorType.getHttpStatus(), errorType.getUserMessage(),
+                System.currentTimeMillis());
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        return write(newErrorResponse(errorType, channel.alloc().buffer(bytes.length).writeBytes(bytes)));
+    }
+
+    private static FullHttpResponse newErrorResponse(ErrorType errorType, ByteBuf body) {
+        FullHttpResponse outbound = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                HttpResponseStatus.valueOf(errorType.getHttpStatus()), body);
+        outbound.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/json;charset=UTF-8");
+        outbound.headers().set(HttpHeaderNames.CONTENT_LENGTH, body.readableBytes());
+        return outbound;
+    }
+
+    private CompletableFuture<Void> write(FullHttpResponse response) {
+        lastActiveTime = System.currentTimeMillis();
+        HttpUtil.setKeepAlive(response, keepAlive);
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        ChannelFuture future = outbound.writeAndFlush(response);
+        if (!keepAlive) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+        future.addListener(f -> {
+            if (f.isSuccess()) {
+                result.complete(null);
+            } else {
+                result.completeExceptionally(f.cause());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 把异常映射为对外的错误类型
+     */
+    static ErrorType resolveErrorType(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof RequestRejectedException rejected) {
+            return rejected.getErrorType();
+        }
+        if (cause instanceof TimeoutException) {
+            return ErrorType.TIMEOUT;
+        }
+        if (cause instanceof RejectedExecutionException) {
+            return ErrorType.SERVICE_UNAVAILABLE;
+        }
+        if (cause instanceof ConnectException || cause instanceof IOException) {
+            return ErrorType.CONNECTION_ERROR;
+        }
+        return ErrorType.INTERNAL_ERROR;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * 各错误类型预先生成的响应体（不含时间戳），只读且不会被释放，写出时使用duplicate
+     */
+    private static Map<ErrorType, ByteBuf> preallocateBodies() {
+        Map<ErrorType, ByteBuf> bodies = new EnumMap<>(ErrorType.class);
+        for (ErrorType errorType : ErrorType.values()) {
+            byte[] bytes = String.format("{\"error\":{\"code\":\"%s\",\"status\":%d,\"message\":\"%s\"}}",
+                    errorType.getCode(), errorType.getHttpStatus(), errorType.getUserMessage())
+                    .getBytes(StandardCharsets.UTF_8);
+            bodies.put(errorType, Unpooled.unreleasableBuffer(
+                    Unpooled.directBuffer(bytes.length).writeBytes(bytes).asReadOnly()));
+        }
+        return bodies;
+    }
+
+    // ========== 连接管理 ==========
+
+    @Override
+    public String getClientAddress() {
+        return String.valueOf(channel.remoteAddress());
+    }
+
+    @Override
+    public String getConnectionId() {
+        return "http-server-" + channel.id().asShortText();
+    }
+
+    @Override
+    public boolean isActive() {
+        return channel.isActive();
+    }
+
+    @Override
+    public CompletableFuture<Void> close() {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        channel.close().addListener(f -> result.complete(null));
+        return result;
+    }
+
+    @Override
+    public long getCreatedTime() {
+        return createdTime;
+    }
+
+    @Override
+    public long getLastActiveTime() {
+        return lastActiveTime;
+    }
+
+    @Override
+    public Protocol getProtocol() {
+        return ProtocolEnum.HTTP;
+    }
+
+    /**
+     * 获取底层Channel
+     */
+    public Channel channel() {
+        return channel;
+    }
+}
@@ -0,0 +1,29 @@
+package com.muxin.gateway.core.plus.connect.http;
+
+import io.netty.handler.codec.http.HttpObject;
+
+/**
+ * 流式响应监听器
+ * 回调在后端Channel所属的EventLoop上执行
+ *
+ * @author muxin
+ */
+public interface HttpStreamListener {
+
+    /**
+     * 收到响应头或响应体块，引用计数随之转移给监听器
+     * 收到LastHttpContent表示响应结束
+     */
+    void onResponsePart(HttpObject part);
+
+    /**
+     * 转发失败（写请求失败、连接断开等）
+     */
+    void onError(Throwable cause);
+
+    /**
+     * 后端Channel可写状态变化，用于对入站Channel做反压
+     */
+    default void onWritabilityChanged(boolean writable) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.muxin.gateway.core.plus.connect.http;
+
+import io.netty.handler.codec.http.FullHttpMessage;
+import io.netty.handler.codec.http.HttpMessage;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+
+import java.util.function.Predicate;
+
+/**
+ * 可按消息选择是否聚合的HttpObjectAggregator
+ * 消息头被判定为流式时，该消息的头和所有HttpContent原样向后传递，直到下一个消息头
+ *
+ * @author muxin
+ */
+public class SelectiveHttpObjectAggregator extends HttpObjectAggregator {
+
+    private final Predicate<HttpMessage> streamingDecider;
+    private boolean passThrough;
+
+    public SelectiveHttpObjectAggregator(int maxContentLength, Predicate<HttpMessage> streamingDecider) {
+        super(maxContentLength);
+        this.streamingDecider = streamingDecider;
+    }
+
+    @Override
+    public boolean acceptInboundMessage(Object msg) throws Exception {
+        if (msg instanceof HttpMessage message && !(msg instanceof FullHttpMessage)) {
+            passThrough = streamingDecider.test(message);
+        }
+        return !passThrough && super.acceptInboundMessage(msg);
+    }
+}
@@ -0,0 +1,665 @@
+package com.muxin.gateway.core.plus.health;
+
+import com.muxin.gateway.core.plus.common.LifeCycle;
+import com.muxin.gateway.core.plus.connect.ClientConnection;
+import com.muxin.gateway.core.plus.connect.ConnectionPoolManager;
+import com.muxin.gateway.core.plus.message.Message;
+import com.muxin.gateway.core.plus.message.ProtocolEnum;
+import com.muxin.gateway.core.plus.message.http.DefaultHttpServerExchange;
+import com.muxin.gateway.core.plus.message.http.HttpMessage;
+import com.muxin.gateway.core.plus.message.http.HttpRequestMessage;
+import com.muxin.gateway.core.plus.message.http.HttpResponseMessage;
+import com.muxin.gateway.core.plus.route.DefaultRouteManager;
+import com.muxin.gateway.core.plus.route.Route;
+import com.muxin.gateway.core.plus.route.RouteService;
+import com.muxin.gateway.core.plus.route.ServiceDefinition;
+import com.muxin.gateway.core.plus.route.loadbalance.LoadBalanceStrategy;
+import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import com.muxin.gateway.core.plus.route.service.InstanceManager;
+import com.muxin.gateway.core.plus.route.service.NodeStatus;
+import com.muxin.gateway.core.plus.route.service.ServiceChangeListener;
+import com.muxin.gateway.core.plus.route.service.ServiceInstance;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 主动健康检查器
+ * <p>
+ * 所有探测共用一个单线程EventLoop做调度和状态维护，探测连接也注册在这个EventLoop上，与请求使用的连接
+ * 按EventLoop分开，全程异步，不会为每个探测占用线程，数千个端点也只需要一个线程。每个端点首次探测在
+ * [0, interval)内随机错开，之后按interval ±10%的抖动调度，避免所有端点同时探测。
+ * <p>
+ * 探测通过连接池获取连接发送HTTP GET，2xx/3xx视为成功；连续失败fall次在{@link EndpointStateTable}中
+ * 标记端点不健康，负载均衡选择地址时即跳过该端点，连续成功rise次后清除标记。
+ * 来自{@link InstanceManager}的实例同时通过{@link InstanceManager#updateInstanceStatus}更新为
+ * {@link NodeStatus#UNAVAILABLE}或{@link NodeStatus#HEALTHY}；人工下线（OFFLINE、SHUTTING_DOWN）的实例不探测、不修改状态。
+ * <p>
+ * 探测目标有两类：实例管理器中的实例，以及路由服务的目标地址。前者通过实例变更监听维护，后者通过
+ * {@link #bindRoutes}绑定的路由变更监听维护，路由服务配置或负载均衡配置中的health-check在路由添加时生效；
+ * 另有一个按默认间隔执行的全量对账兜底，同时跟进服务发现带来的地址变化。
+ * 目标状态只在EventLoop上读写，不需要加锁
+ *
+ * @author muxin
+ */
+@Slf4j
+public class ActiveHealthChecker implements LifeCycle {
+
+    private static final double JITTER_RATIO = 0.1;
+
+    private static final String USER_AGENT = "muxin-gateway-health-check";
+
+    private static final String HEALTH_CHECK = "health-check";
+
+    private final InstanceManager instanceManager;
+    private final ConnectionPoolManager connectionPoolManager;
+    private final HealthCheckConfig defaultConfig;
+    private final EndpointStateTable endpointStates;
+
+    /**
+     * 按服务配置的健康检查，未配置的服务使用服务元数据中的health-check或默认配置
+     */
+    private final Map<String, HealthCheckConfig> serviceConfigs = new ConcurrentHashMap<>();
+
+    /**
+     * 路由的后端服务，key为路由ID，其目标地址作为探测目标
+     */
+    private final Map<String, RouteService> routeServices = new ConcurrentHashMap<>();
+
+    /**
+     * 探测目标，实例的key为serviceId#instanceId，路由服务地址的key为serviceId@uri，只在EventLoop上修改
+     */
+    private final Map<String, ProbeTarget> targets = new ConcurrentHashMap<>();
+
+    private final ServiceChangeListener instanceListener = new InstanceListener();
+
+    private final DefaultRouteManager.RouteChangeListener routeListener = new RouteListener();
+
+    // ========== 统计 ==========
+    private final LongAdder totalProbes = new LongAdder();
+    private final LongAdder failedProbes = new LongAdder();
+    private final LongAdder statusChanges = new LongAdder();
+
+    private EventLoopGroup eventLoopGroup;
+    private EventLoop eventLoop;
+    private ScheduledFuture<?> reconcileTask;
+    private DefaultRouteManager routeManager;
+
+    private volatile boolean running = false;
+
+    public ActiveHealthChecker(InstanceManager instanceManager,
+                               ConnectionPoolManager connectionPoolManager,
+                               HealthCheckConfig defaultConfig) {
+        this(instanceManager, connectionPoolManager, defaultConfig, EndpointStateTable.shared());
+    }
+
+    public ActiveHealthChecker(InstanceManager instanceManager,
+                               ConnectionPoolManager connectionPoolManager,
+                               HealthCheckConfig defaultConfig,
+                               EndpointStateTable endpointStates) {
+        this.instanceManager = Objects.requireNonNull(instanceManager, "instanceManager不能为空");
+        this.connectionPoolManager = Objects.requireNonNull(connectionPoolManager, "connectionPoolManager不能为空");
+        this.defaultConfig = defaultConfig != null ? defaultConfig : HealthCheckConfig.defaultConfig();
+        this.defaultConfig.validate();
+        this.endpointStates = Objects.requireNonNull(endpointStates, "endpointStates不能为空");
+    }
+
+    // ========== 生命周期 ==========
+
+    @Override
+    public void init() {
+        if (eventLoopGroup != null) {
+            return;
+        }
+        eventLoopGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("health-check", true));
+        eventLoop = eventLoopGroup.next();
+        log.info("[ActiveHealthChecker] 初始化完成, interval: {}, timeout: {}, path: {}",
+                defaultConfig.getInterval(), defaultConfig.getTimeout(), defaultConfig.getPath());
+    }
+
+    @Override
+    public void start() {
+        if (running) {
+            return;
+        }
+        if (eventLoopGroup == null) {
+            init();
+        }
+        running = true;
+        instanceManager.addServiceChangeListener(instanceListener);
+        long reconcileMillis = defaultConfig.getInterval().toMillis();
+        reconcileTask = eventLoop.scheduleWithFixedDelay(this::reconcile, 0, reconcileMillis, TimeUnit.MILLISECONDS);
+        log.info("[ActiveHealthChecker] 已启动");
+    }
+
+    @Override
+    public void shutdown() {
+        if (!running && eventLoopGroup == null) {
+            return;
+        }
+        running = false;
+        instanceManager.removeServiceChangeListener(instanceListener);
+        if (routeManager != null) {
+            routeManager.removeRouteChangeListener(routeListener);
+            routeManager = null;
+        }
+        if (reconcileTask != null) {
+            reconcileTask.cancel(false);
+        }
+        // 检查停止后不再有恢复的机会，清除所有不健康标记
+        targets.values().forEach(target -> {
+            target.cancel();
+            endpointStates.markHealthy(target.address);
+        });
+        targets.clear();
+        routeServices.clear();
+        if (eventLoopGroup != null) {
+            eventLoopGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+            eventLoopGroup = null;
+        }
+        log.info("[ActiveHealthChecker] 已关闭");
+    }
+
+    // ========== 路由绑定 ==========
+
+    /**
+     * 绑定路由管理器：已有路由和之后添加的路由的后端服务地址都作为探测目标
+     */
+    public void bindRoutes(DefaultRouteManager routeManager) {
+        this.routeManager = Objects.requireNonNull(routeManager, "routeManager不能为空");
+        routeManager.addRouteChangeListener(routeListener);
+        routeManager.selectAll().forEach(this::addRoute);
+    }
+
+    private void addRoute(Route route) {
+        RouteService service = route.getService();
+        if (service == null) {
+            return;
+        }
+        configureService(serviceId(service), healthCheckOf(route));
+        routeServices.put(route.getId(), service);
+        execute(this::reconcile);
+    }
+
+    private void removeRoute(Route route) {
+        if (routeServices.remove(route.getId()) != null) {
+            execute(this::reconcile);
+        }
+    }
+
+    /**
+     * 路由的health-check配置：优先取服务配置，其次取负载均衡配置
+     */
+    private static Map<?, ?> healthCheckOf(Route route) {
+        ServiceDefinition definition = route.getService().serviceDefinition();
+        if (definition != null && definition.getConfigValue(HEALTH_CHECK) instanceof Map<?, ?> healthCheck) {
+            return healthCheck;
+        }
+        LoadBalanceStrategy strategy = route.getLoadBalanceStrategy();
+        Map<String, Object> config = strategy != null ? strategy.getDefinition().getConfig() : null;
+        if (config != null && config.get(HEALTH_CHECK) instanceof Map<?, ?> healthCheck) {
+            return healthCheck;
+        }
+        return null;
+    }
+
+    private static String serviceId(RouteService service) {
+        ServiceDefinition definition = service.serviceDefinition();
+        if (definition == null) {
+            return String.valueOf(System.identityHashCode(service));
+        }
+        return definition.getId() != null ? definition.getId() : definition.getName();
+    }
+
+    // ========== 配置 ==========
+
+    /**
+     * 设置服务的健康检查配置，对应服务或负载均衡配置下的health-check，已有的探测目标按新配置重建
+     */
+    public void configureService(String serviceId, Map<?, ?> healthCheck) {
+        if (serviceId == null) {
+            return;
+        }
+        HealthCheckConfig previous;
+        if (healthCheck == null) {
+            previous = serviceConfigs.remove(serviceId);
+        } else {
+            HealthCheckConfig config = defaultConfig.merge(healthCheck);
+            previous = serviceConfigs.put(serviceId, config);
+            if (config.equals(previous)) {
+                return;
+            }
+        }
+        if (previous == null && healthCheck == null) {
+            return;
+        }
+        execute(() -> {
+            targets.values().removeIf(target -> {
+                if (target.serviceId.equals(serviceId)) {
+                    release(target);
+                    return true;
+                }
+                return false;
+            });
+            reconcile();
+        });
+    }
+
+    private HealthCheckConfig configFor(String serviceId, Map<String, Object> metadata) {
+        HealthCheckConfig config = serviceConfigs.get(serviceId);
+        if (config != null) {
+            return config;
+        }
+        if (metadata != null && metadata.get(HEALTH_CHECK) instanceof Map<?, ?> healthCheck) {
+            try {
+                return defaultConfig.merge(healthCheck);
+            } catch (IllegalArgumentException e) {
+                log.warn("[ActiveHealthChecker] 服务{}的健康检查配置无效，使用默认配置: {}", serviceId, e.getMessage());
+            }
+        }
+        return defaultConfig;
+    }
+
+    // ========== 目标维护（EventLoop线程） ==========
+
+    /**
+     * 全量对账：补齐漏掉的实例，清理已移除的实例
+     */
+    private void reconcile() {
+        if (!running) {
+            return;
+        }
+        try {
+            Set<String> alive = new HashSet<>();
+            for (String serviceId : instanceManager.getAllServiceIds()) {
+                for (ServiceInstance instance : instanceManager.getByServiceId(serviceId)) {
+                    alive.add(track(instance));
+                }
+            }
+            for (RouteService service : routeServices.values()) {
+                String serviceId = serviceId(service);
+                HealthCheckConfig config = configFor(serviceId, null);
+                for (EndpointAddress address : service.getTargetAddresses()) {
+                    alive.add(track(serviceId, address, config));
+                }
+            }
+            targets.values().removeIf(target -> {
+                if (!alive.contains(target.key)) {
+                    release(target);
+                    return true;
+                }
+                return false;
+            });
+        } catch (Exception e) {
+            log.warn("[ActiveHealthChecker] 探测目标对账失败", e);
+        }
+    }
+
+    /**
+     * 登记实例为探测目标，实例地址变化时重建
+     *
+     * @return 目标key
+     */
+    private String track(ServiceInstance instance) {
+        String serviceId = instance.serviceMeta().getServiceId();
+        String key = key(serviceId, instance.instanceId());
+        ProbeTarget existing = targets.get(key);
+        if (existing != null && existing.address.equals(instance.getAddress())) {
+            return key;
+        }
+        if (existing != null) {
+            targets.remove(key);
+            release(existing);
+        }
+        HealthCheckConfig config = configFor(serviceId, instance.serviceMeta().getMetadata());
+        if (config.isEnabled() && instance.getAddress() != null) {
+            startProbing(new ProbeTarget(key, serviceId, instance.instanceId(), instance.getAddress(), config));
+        }
+        return key;
+    }
+
+    /**
+     * 登记路由服务的目标地址为探测目标，配置变化时由{@link #configureService}重建
+     *
+     * @return 目标key
+     */
+    private String track(String serviceId, EndpointAddress address, HealthCheckConfig config) {
+        String key = serviceId + '@' + address.toUri();
+        if (config.isEnabled() && !targets.containsKey(key)) {
+            startProbing(new ProbeTarget(key, serviceId, null, address, config));
+        }
+        return key;
+    }
+
+    private void startProbing(ProbeTarget target) {
+        targets.put(target.key, target);
+        // 首次探测在一个间隔内随机错开
+        target.schedule(ThreadLocalRandom.current().nextLong(target.config.getInterval().toMillis()));
+    }
+
+    private void untrack(String serviceId, String instanceId) {
+        ProbeTarget target = targets.remove(key(serviceId, instanceId));
+        if (target != null) {
+            release(target);
+        }
+    }
+
+    /**
+     * 停止探测已移除的目标，没有其他目标探测同一地址时清除其不健康标记
+     */
+    private void release(ProbeTarget target) {
+        target.cancel();
+        String uri = target.address.toUri();
+        for (ProbeTarget other : targets.values()) {
+            if (other != target && other.address.toUri().equals(uri)) {
+                return;
+            }
+        }
+        endpointStates.markHealthy(target.address);
+    }
+
+    private void execute(Runnable task) {
+        EventLoop loop = eventLoop;
+        if (!running || loop == null) {
+            return;
+        }
+        try {
+            loop.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.debug("[ActiveHealthChecker] 已关闭，忽略任务");
+        }
+    }
+
+    private static String key(String serviceId, String instanceId) {
+        return serviceId + '#' + instanceId;
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getClass().getSimpleName() + ": " + cause.getMessage();
+    }
+
+    // ========== 统计 ==========
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("targets", targets.size());
+        stats.put("totalProbes", totalProbes.sum());
+        stats.put("failedProbes", failedProbes.sum());
+        stats.put("statusChanges", statusChanges.sum());
+        return stats;
+    }
+
+    // ========== 探测目标 ==========
+
+    private final class ProbeTarget {
+
+        private final String key;
+        private final String serviceId;
+        /**
+         * 实例ID，路由服务地址为null
+         */
+        private final String instanceId;
+        private final EndpointAddress address;
+        private final HealthCheckConfig config;
+
+        /**
+         * 探测请求只读，每次发送时由连接复制出站请求，可以复用
+         */
+        private final HttpRequestMessage request;
+
+        private int consecutiveSuccesses;
+        private int consecutiveFailures;
+        private boolean cancelled;
+        private ScheduledFuture<?> nextProbe;
+
+        private ProbeTarget(String key, String serviceId, String instanceId,
+                            EndpointAddress address, HealthCheckConfig config) {
+            this.key = key;
+            this.serviceId = serviceId;
+            this.instanceId = instanceId;
+            this.address = address;
+            this.config = config;
+            DefaultFullHttpRequest probeRequest = new DefaultFullHttpRequest(
+                    HttpVersion.HTTP_1_1, HttpMethod.GET, config.getPath(), Unpooled.EMPTY_BUFFER);
+            probeRequest.headers().set(HttpHeaderNames.USER_AGENT, USER_AGENT);
+            this.request = new DefaultHttpServerExchange(probeRequest, ProtocolEnum.HTTP).request();
+        }
+
+        private void schedule(long delayMillis) {
+            if (cancelled || !running) {
+                return;
+            }
+            try {
+                nextProbe = eventLoop.schedule(this::probe, delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                cancelled = true;
+            }
+        }
+
+        private void scheduleNext() {
+            long interval = config.getInterval().toMillis();
+            long jitter = (long) (interval * JITTER_RATIO);
+            long delay = interval + (jitter > 0 ? ThreadLocalRandom.current().nextLong(-jitter, jitter + 1) : 0);
+            schedule(Math.max(1, delay));
+        }
+
+        private void cancel() {
+            cancelled = true;
+            if (nextProbe != null) {
+                nextProbe.cancel(false);
+            }
+        }
+
+        private void probe() {
+            if (cancelled || !running) {
+                return;
+            }
+            if (instanceId != null) {
+                ServiceInstance instance = instanceManager.getByInstance(serviceId, instanceId);
+                if (instance == null) {
+                    if (targets.remove(key, this)) {
+                        release(this);
+                    }
+                    cancel();
+                    return;
+                }
+                NodeStatus status = instance.getStatus();
+                if (status == NodeStatus.OFFLINE || status == NodeStatus.SHUTTING_DOWN) {
+                    scheduleNext();
+                    return;
+                }
+            }
+            totalProbes.increment();
+            new Probe(this).start();
+        }
+
+        /**
+         * 记录探测结果，达到阈值时更新节点状态
+         */
+        private void onResult(boolean healthy, String reason) {
+            if (cancelled) {
+                return;
+            }
+            if (healthy) {
+                consecutiveFailures = 0;
+                consecutiveSuccesses = Math.min(consecutiveSuccesses + 1, config.getRise());
+                if (consecutiveSuccesses >= config.getRise()) {
+                    transition(NodeStatus.HEALTHY, null);
+                }
+            } else {
+                failedProbes.increment();
+                consecutiveSuccesses = 0;
+                consecutiveFailures = Math.min(consecutiveFailures + 1, config.getFall());
+                log.debug("[ActiveHealthChecker] 探测失败: {} {}, {}", serviceId, address.toUri(), reason);
+                if (consecutiveFailures >= config.getFall()) {
+                    transition(NodeStatus.UNAVAILABLE, reason);
+                }
+            }
+            scheduleNext();
+        }
+
+        private void transition(NodeStatus target, String reason) {
+            NodeStatus current = null;
+            if (instanceId != null) {
+                ServiceInstance instance = instanceManager.getByInstance(serviceId, instanceId);
+                if (instance == null) {
+                    return;
+                }
+                current = instance.getStatus();
+                if (current == NodeStatus.OFFLINE || current == NodeStatus.SHUTTING_DOWN) {
+                    return;
+                }
+            }
+            boolean changed = target == NodeStatus.HEALTHY
+                    ? endpointStates.markHealthy(address)
+                    : endpointStates.markUnhealthy(address);
+            if (current != null && current != target) {
+                instanceManager.updateInstanceStatus(serviceId, instanceId, target);
+                changed = true;
+            }
+            if (!changed) {
+                return;
+            }
+            statusChanges.increment();
+            if (target == NodeStatus.HEALTHY) {
+                log.info("[ActiveHealthChecker] 节点恢复健康: {} {}", serviceId, address.toUri());
+            } else {
+                log.warn("[ActiveHealthChecker] 节点标记为不可用: {} {}, 原因: {}", serviceId, address.toUri(), reason);
+            }
+        }
+    }
+
+    /**
+     * 一次探测，所有回调都切回检查器的EventLoop执行
+     */
+    private final class Probe {
+
+        private final ProbeTarget target;
+        private final ScheduledFuture<?> timeoutTask;
+        private ClientConnection connection;
+        private boolean done;
+
+        private Probe(ProbeTarget target) {
+            this.target = target;
+            this.timeoutTask = eventLoop.schedule(() -> finish(false, "探测超时"),
+                    target.config.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        private void start() {
+            EndpointAddress address = target.address;
+            // 探测连接注册在检查器的EventLoop上，不占用请求所在EventLoop的连接
+            connectionPoolManager.acquire(address, address.getProtocol(), eventLoop)
+                    .whenCompleteAsync(this::onAcquired, eventLoop);
+        }
+
+        private void onAcquired(ClientConnection acquired, Throwable error) {
+            if (done) {
+                // 已超时，连接直接归还
+                if (acquired != null) {
+                    connectionPoolManager.returnConnection(acquired);
+                }
+                return;
+            }
+            if (error != null || acquired == null) {
+                finish(false, "连接失败: " + (error != null ? rootMessage(error) : "null"));
+                return;
+            }
+            connection = acquired;
+            connection.send(target.request).whenCompleteAsync(this::onResponse, eventLoop);
+        }
+
+        private void onResponse(Message response, Throwable error) {
+            try {
+                if (done) {
+                    return;
+                }
+                if (error != null) {
+                    finish(false, "请求失败: " + rootMessage(error));
+                } else if (response instanceof HttpResponseMessage httpResponse) {
+                    int code = httpResponse.status().code();
+                    finish(code >= 200 && code < 400, "响应状态码: " + code);
+                } else {
+                    finish(false, "非HTTP响应");
+                }
+            } finally {
+                if (response instanceof HttpMessage httpMessage) {
+                    ReferenceCountUtil.safeRelease(httpMessage.content());
+                }
+            }
+        }
+
+        private void finish(boolean healthy, String reason) {
+            if (done) {
+                return;
+            }
+            done = true;
+            timeoutTask.cancel(false);
+            if (connection != null) {
+                // 成功的连接可复用；失败或超时时连接上可能还有未完成的响应，直接销毁
+                if (healthy && connection.isActive()) {
+                    connectionPoolManager.returnConnection(connection);
+                } else {
+                    connectionPoolManager.releaseConnection(connection);
+                }
+            }
+            target.onResult(healthy, reason);
+        }
+    }
+
+    // ========== 路由与实例变更监听 ==========
+
+    private final class RouteListener implements DefaultRouteManager.RouteChangeListener {
+
+        @Override
+        public void onRouteAdded(Route route) {
+            addRoute(route);
+        }
+
+        @Override
+        public void onRouteRemoved(Route route) {
+            removeRoute(route);
+        }
+    }
+
+    private final class InstanceListener implements ServiceChangeListener {
+
+        @Override
+        public void onNodeAdded(String serviceId, ServiceInstance node) {
+            execute(() -> track(node));
+        }
+
+        @Override
+        public void onNodeRemoved(String serviceId, String nodeId) {
+            execute(() -> untrack(serviceId, nodeId));
+        }
+
+        @Override
+        public void onNodeStatusChanged(String serviceId, String nodeId, NodeStatus oldStatus, NodeStatus newStatus) {
+            // 状态变化不影响探测计划，下线节点在探测时跳过
+        }
+    }
+}
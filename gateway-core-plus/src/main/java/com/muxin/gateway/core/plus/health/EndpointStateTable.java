@@ -0,0 +1,220 @@
+package com.muxin.gateway.core.plus.health;
+
+import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 端点状态表
+ * <p>
+ * 记录被摘除的端点及其恢复时间，由异常检测和主动健康检查写入，所有负载均衡策略在选择地址前读取。
+ * 按{@link EndpointAddress#toUri()}索引，读写都不加锁：没有端点被摘除时查询只读计数器；
+ * 异常检测的摘除到期后由下一次查询惰性恢复，健康检查标记的不健康没有到期时间，由健康检查恢复。
+ * 每次摘除或恢复都会递增版本号，供调用方缓存过滤后的地址列表。
+ * 表中只保留处于摘除或不健康状态的端点，恢复后移除；已下线的地址不会再被查询，到期的摘除由{@link #sweepExpired}清理
+ *
+ * @author muxin
+ */
+@Slf4j
+public class EndpointStateTable {
+
+    private static final EndpointStateTable SHARED = new EndpointStateTable();
+
+    /**
+     * 不健康端点的截止时间跨度，足够远即可，恢复时由版本号变化使缓存失效
+     */
+    private static final long UNHEALTHY_HORIZON_NANOS = Long.MAX_VALUE / 4;
+
+    private final Map<String, EndpointState> states = new ConcurrentHashMap<>();
+
+    private final AtomicInteger ejectedCount = new AtomicInteger();
+
+    private final AtomicInteger unhealthyCount = new AtomicInteger();
+
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * 网关共享的端点状态表
+     */
+    public static EndpointStateTable shared() {
+        return SHARED;
+    }
+
+    /**
+     * 端点当前是否被摘除
+     */
+    public boolean isEjected(EndpointAddress address) {
+        return ejectedUntil(address, System.nanoTime()) != 0;
+    }
+
+    /**
+     * 获取端点的摘除截止时间（{@link System#nanoTime()}），未被摘除时返回0，已到期的摘除在此恢复
+     */
+    public long ejectedUntil(EndpointAddress address, long nowNanos) {
+        if (address == null || (ejectedCount.get() == 0 && unhealthyCount.get() == 0)) {
+            return 0;
+        }
+        EndpointState state = states.get(address.toUri());
+        if (state == null) {
+            return 0;
+        }
+        if (state.unhealthy.get()) {
+            return nowNanos + UNHEALTHY_HORIZON_NANOS;
+        }
+        if (!state.ejected.get()) {
+            return 0;
+        }
+        long until = state.ejectedUntilNanos;
+        if (nowNanos - until < 0) {
+            return until;
+        }
+        readmit(state);
+        return 0;
+    }
+
+    /**
+     * 摘除端点
+     *
+     * @param durationNanos 摘除时长
+     * @return 本次是否新摘除，端点已处于摘除状态时返回false
+     */
+    public boolean eject(EndpointAddress address, long durationNanos) {
+        long until = System.nanoTime() + durationNanos;
+        boolean[] ejected = new boolean[1];
+        // 在compute中修改状态，与恢复后的移除互斥，状态不会写到已移出表的对象上
+        states.compute(address.toUri(), (uri, state) -> {
+            EndpointState target = state != null ? state : new EndpointState(uri);
+            target.ejectedUntilNanos = until;
+            ejected[0] = target.ejected.compareAndSet(false, true);
+            return target;
+        });
+        if (!ejected[0]) {
+            return false;
+        }
+        ejectedCount.incrementAndGet();
+        version.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 立即恢复端点
+     */
+    public void readmit(EndpointAddress address) {
+        EndpointState state = states.get(address.toUri());
+        if (state != null) {
+            readmit(state);
+        }
+    }
+
+    private void readmit(EndpointState state) {
+        if (state.ejected.compareAndSet(true, false)) {
+            ejectedCount.decrementAndGet();
+            version.incrementAndGet();
+            log.info("[EndpointStateTable] 端点恢复: {}", state.uri);
+            prune(state);
+        }
+    }
+
+    /**
+     * 端点既未被摘除也未被标记不健康时移出表
+     */
+    private void prune(EndpointState state) {
+        states.computeIfPresent(state.uri, (uri, current)
+                -> current == state && !current.ejected.get() && !current.unhealthy.get() ? null : current);
+    }
+
+    /**
+     * 恢复所有摘除已到期的端点，已下线的地址不会再被查询，由异常检测定期调用
+     */
+    public void sweepExpired(long nowNanos) {
+        if (ejectedCount.get() == 0) {
+            return;
+        }
+        for (EndpointState state : states.values()) {
+            if (state.ejected.get() && nowNanos - state.ejectedUntilNanos >= 0) {
+                readmit(state);
+            }
+        }
+    }
+
+    /**
+     * 健康检查标记端点不健康，直到{@link #markHealthy}前一直被摘除
+     *
+     * @return 本次是否新标记
+     */
+    public boolean markUnhealthy(EndpointAddress address) {
+        boolean[] marked = new boolean[1];
+        states.compute(address.toUri(), (uri, state) -> {
+            EndpointState target = state != null ? state : new EndpointState(uri);
+            marked[0] = target.unhealthy.compareAndSet(false, true);
+            return target;
+        });
+        if (!marked[0]) {
+            return false;
+        }
+        unhealthyCount.incrementAndGet();
+        version.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 清除健康检查的不健康标记，异常检测的摘除不受影响
+     *
+     * @return 端点之前是否被标记为不健康
+     */
+    public boolean markHealthy(EndpointAddress address) {
+        EndpointState state = states.get(address.toUri());
+        if (state == null || !state.unhealthy.compareAndSet(true, false)) {
+            return false;
+        }
+        unhealthyCount.decrementAndGet();
+        version.incrementAndGet();
+        prune(state);
+        return true;
+    }
+
+    /**
+     * 当前被摘除的端点数，包括已到期但尚未被查询恢复的端点和健康检查标记的不健康端点，
+     * 同时处于两种状态的端点计两次
+     */
+    public int ejectedCount() {
+        return ejectedCount.get() + unhealthyCount.get();
+    }
+
+    /**
+     * 状态版本，每次摘除或恢复时递增
+     */
+    public long version() {
+        return version.get();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("trackedEndpoints", states.size());
+        stats.put("ejectedEndpoints", ejectedCount.get());
+        stats.put("unhealthyEndpoints", unhealthyCount.get());
+        stats.put("version", version.get());
+        return stats;
+    }
+
+    private static final class EndpointState {
+
+        private final String uri;
+
+        private final AtomicBoolean ejected = new AtomicBoolean(false);
+
+        private final AtomicBoolean unhealthy = new AtomicBoolean(false);
+
+        private volatile long ejectedUntilNanos;
+
+        private EndpointState(String uri) {
+            this.uri = uri;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.muxin.gateway.core.plus.health;
+
+import com.muxin.gateway.core.plus.config.NodeManagerConfig;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 主动健康检查配置
+ * <p>
+ * 对应YAML中服务或负载均衡配置下的{@code health-check: {enabled, interval, timeout, path, rise, fall}}，
+ * interval、timeout以秒为单位；未配置的项取{@link NodeManagerConfig}中的默认值
+ *
+ * @author muxin
+ */
+@Data
+@Builder(toBuilder = true)
+public class HealthCheckConfig {
+
+    @Builder.Default
+    private boolean enabled = true;
+
+    /**
+     * 探测间隔
+     */
+    @Builder.Default
+    private Duration interval = Duration.ofSeconds(30);
+
+    /**
+     * 单次探测超时（含获取连接）
+     */
+    @Builder.Default
+    private Duration timeout = Duration.ofSeconds(5);
+
+    /**
+     * 探测路径
+     */
+    @Builder.Default
+    private String path = "/health";
+
+    /**
+     * 连续成功多少次后标记为健康
+     */
+    @Builder.Default
+    private int rise = 2;
+
+    /**
+     * 连续失败多少次后标记为不可用
+     */
+    @Builder.Default
+    private int fall = 1;
+
+    public static HealthCheckConfig defaultConfig() {
+        return HealthCheckConfig.builder().build();
+    }
+
+    /**
+     * 以节点管理器配置作为默认值
+     */
+    public static HealthCheckConfig from(NodeManagerConfig nodeManagerConfig) {
+        if (nodeManagerConfig == null) {
+            return defaultConfig();
+        }
+        return HealthCheckConfig.builder()
+                .enabled(nodeManagerConfig.isEnableHealthCheck())
+                .interval(nodeManagerConfig.getHealthCheckInterval())
+                .timeout(nodeManagerConfig.getHealthCheckTimeout())
+                .build();
+    }
+
+    /**
+     * 用YAML中的health-check配置覆盖当前配置，返回新对象
+     */
+    public HealthCheckConfig merge(Map<?, ?> config) {
+        if (config == null || config.isEmpty()) {
+            return this;
+        }
+        HealthCheckConfigBuilder builder = toBuilder();
+        Object value = config.get("enabled");
+        if (value != null) {
+            builder.enabled(Boolean.parseBoolean(value.toString()));
+        }
+        value = config.get("interval");
+        if (value != null) {
+            builder.interval(Duration.ofSeconds(parseInt("interval", value)));
+        }
+        value = config.get("timeout");
+        if (value != null) {
+            builder.timeout(Duration.ofSeconds(parseInt("timeout", value)));
+        }
+        value = config.get("path");
+        if (value != null) {
+            builder.path(value.toString());
+        }
+        value = config.get("rise");
+        if (value != null) {
+            builder.rise(parseInt("rise", value));
+        }
+        value = config.get("fall");
+        if (value != null) {
+            builder.fall(parseInt("fall", value));
+        }
+        HealthCheckConfig merged = builder.build();
+        merged.validate();
+        return merged;
+    }
+
+    public void validate() {
+        if (interval == null || interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("健康检查间隔必须大于0");
+        }
+        if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("健康检查超时时间必须大于0");
+        }
+        if (rise <= 0 || fall <= 0) {
+            throw new IllegalArgumentException("rise和fall必须大于0");
+        }
+        if (path == null || !path.startsWith("/")) {
+            throw new IllegalArgumentException("健康检查路径必须以/开头: " + path);
+        }
+    }
+
+    private static int parseInt(String name, Object value) {
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("健康检查配置" + name + "必须是数字: " + value);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.muxin.gateway.core.plus.health;
+
+import com.muxin.gateway.core.plus.config.OutlierDetectionConfig;
+import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 被动异常检测
+ * <p>
+ * 由网关处理器在每个请求结束时记录结果：连接失败、超时等异常以及5xx响应视为失败。
+ * 端点连续失败达到阈值，或滑动窗口内请求数足够且错误率超过阈值时，写入{@link EndpointStateTable}摘除一段时间；
+ * 摘除时长从基础值开始每次翻倍，不超过最大值，恢复后较长时间没有再被摘除则重新从基础值开始。
+ * 同一服务中被摘除的地址不超过最大摘除比例，避免整个服务被摘空。
+ * 超过统计窗口加最大摘除时长没有请求的端点（通常是已下线的地址）定期移除统计，并恢复其已到期的摘除。
+ * <p>
+ * 统计全部基于原子变量，记录结果不加锁
+ *
+ * @author muxin
+ */
+@Slf4j
+public class OutlierDetector {
+
+    /**
+     * 摘除时长最多翻倍的次数
+     */
+    private static final int MAX_EJECTION_LEVEL = 16;
+
+    private final OutlierDetectionConfig config;
+    private final EndpointStateTable endpointStates;
+
+    private final long windowBucketNanos;
+    private final long baseEjectionNanos;
+    private final long maxEjectionNanos;
+
+    /**
+     * 端点统计的保留时长：窗口内的错误率和摘除时长的翻倍等级都不再有意义后移除
+     */
+    private final long retentionNanos;
+    private final AtomicLong nextSweepNanos;
+
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    private final LongAdder totalEjections = new LongAdder();
+    private final LongAdder skippedEjections = new LongAdder();
+
+    public OutlierDetector(OutlierDetectionConfig config, EndpointStateTable endpointStates) {
+        this.config = config != null ? config : OutlierDetectionConfig.defaultConfig();
+        this.config.validate();
+        this.endpointStates = Objects.requireNonNull(endpointStates, "endpointStates不能为空");
+        this.windowBucketNanos = Math.max(1, this.config.getWindow().toNanos() / this.config.getWindowBuckets());
+        this.baseEjectionNanos = this.config.getBaseEjectionTime().toNanos();
+        this.maxEjectionNanos = this.config.getMaxEjectionTime().toNanos();
+        this.retentionNanos = this.config.getWindow().toNanos() + maxEjectionNanos;
+        this.nextSweepNanos = new AtomicLong(System.nanoTime() + retentionNanos);
+    }
+
+    /**
+     * 记录一次请求结果
+     *
+     * @param endpoint 请求的端点
+     * @param pool     端点所属服务的全部地址，用于限制摘除比例，为null时不限制
+     * @param failed   是否失败
+     */
+    public void record(EndpointAddress endpoint, List<EndpointAddress> pool, boolean failed) {
+        if (!config.isEnabled() || endpoint == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        sweepIfDue(now);
+        EndpointStats endpointStats = stats.computeIfAbsent(endpoint.toUri(), key -> new EndpointStats(now));
+        endpointStats.record(failed, now);
+        if (!failed) {
+            if (endpointStats.consecutiveFailures.get() != 0) {
+                endpointStats.consecutiveFailures.set(0);
+            }
+            return;
+        }
+
+        String reason = endpointStats.tripReason(now);
+        if (reason == null || endpointStates.isEjected(endpoint)) {
+            return;
+        }
+        if (!allowEjection(pool, now)) {
+            skippedEjections.increment();
+            log.debug("[OutlierDetector] 已达到最大摘除比例，暂不摘除: {} ({})", endpoint.toUri(), reason);
+            return;
+        }
+        long duration = endpointStats.nextEjectionNanos(now);
+        if (endpointStates.eject(endpoint, duration)) {
+            endpointStats.reset();
+            totalEjections.increment();
+            log.warn("[OutlierDetector] 摘除端点: {}, 原因: {}, 时长: {}ms",
+                    endpoint.toUri(), reason, duration / 1_000_000);
+        }
+    }
+
+    /**
+     * 每个保留周期清理一次，只有一个线程执行
+     */
+    private void sweepIfDue(long now) {
+        long due = nextSweepNanos.get();
+        if (now - due < 0 || !nextSweepNanos.compareAndSet(due, now + retentionNanos)) {
+            return;
+        }
+        sweep(now);
+    }
+
+    /**
+     * 移除长时间没有请求的端点统计，并恢复摘除已到期的端点
+     * 与并发的记录竞争时最多丢失一次计数
+     */
+    void sweep(long now) {
+        stats.values().removeIf(endpointStats -> endpointStats.idleSince(now) > retentionNanos);
+        endpointStates.sweepExpired(now);
+    }
+
+    /**
+     * 当前统计的端点数
+     */
+    int trackedEndpoints() {
+        return stats.size();
+    }
+
+    /**
+     * 同一服务中已摘除的地址数未达到上限时允许摘除，至少允许摘除一个
+     */
+    private boolean allowEjection(List<EndpointAddress> pool, long now) {
+        if (pool == null || pool.isEmpty()) {
+            return true;
+        }
+        int ejected = 0;
+        for (EndpointAddress address : pool) {
+            if (endpointStates.ejectedUntil(address, now) != 0) {
+                ejected++;
+            }
+        }
+        int limit = Math.max(1, pool.size() * config.getMaxEjectionPercent() / 100);
+        return ejected < limit;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> result = new HashMap<>(endpointStates.getStatistics());
+        result.put("totalEjections", totalEjections.sum());
+        result.put("skippedEjections", skippedEjections.sum());
+        return result;
+    }
+
+    // ========== 端点统计 ==========
+
+    private final class EndpointStats {
+
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+        /**
+         * 滑动窗口：每个桶记录所属的时间片编号和计数，计数高32位为请求数、低32位为失败数
+         */
+        private final AtomicLongArray bucketEpochs;
+        private final AtomicLongArray bucketCounts;
+        private final long origin;
+
+        private final AtomicInteger ejectionLevel = new AtomicInteger();
+        private volatile long lastEjectionEndNanos;
+        private volatile long lastRecordNanos;
+
+        private EndpointStats(long now) {
+            int buckets = config.getWindowBuckets();
+            this.bucketEpochs = new AtomicLongArray(buckets);
+            this.bucketCounts = new AtomicLongArray(buckets);
+            this.origin = now;
+            this.lastRecordNanos = now;
+            this.lastEjectionEndNanos = now;
+            for (int i = 0; i < buckets; i++) {
+                bucketEpochs.set(i, -1);
+            }
+        }
+
+        private void record(boolean failed, long now) {
+            lastRecordNanos = now;
+            if (failed) {
+                consecutiveFailures.incrementAndGet();
+            }
+            long epoch = (now - origin) / windowBucketNanos;
+            int index = (int) (epoch % bucketEpochs.length());
+            long current = bucketEpochs.get(index);
+            if (current != epoch && bucketEpochs.compareAndSet(index, current, epoch)) {
+                // 桶过期，重新计数；并发下可能丢失少量计数，对阈值判断影响可以忽略
+                bucketCounts.set(index, 0);
+            }
+            bucketCounts.addAndGet(index, (1L << 32) | (failed ? 1 : 0));
+        }
+
+        /**
+         * 判断是否达到摘除条件，返回原因，未达到时返回null
+         */
+        private String tripReason(long now) {
+            int consecutive = consecutiveFailures.get();
+            if (consecutive >= config.getConsecutiveFailures()) {
+                return "连续失败" + consecutive + "次";
+            }
+            long epoch = (now - origin) / windowBucketNanos;
+            long total = 0;
+            long failures = 0;
+            for (int i = 0; i < bucketEpochs.length(); i++) {
+                if (epoch - bucketEpochs.get(i) < bucketEpochs.length()) {
+                    long counts = bucketCounts.get(i);
+                    total += counts >>> 32;
+                    failures += counts & 0xFFFFFFFFL;
+                }
+            }
+            if (total >= config.getMinimumRequests() && failures * 100 >= total * config.getFailureRateThreshold()) {
+                return "错误率" + (failures * 100 / total) + "% (" + failures + "/" + total + ")";
+            }
+            return null;
+        }
+
+        /**
+         * 计算本次摘除时长：基础时长 * 2^level，不超过最大值
+         */
+        private long nextEjectionNanos(long now) {
+            if (now - lastEjectionEndNanos > maxEjectionNanos) {
+                ejectionLevel.set(0);
+            }
+            int level = ejectionLevel.getAndUpdate(value -> Math.min(value + 1, MAX_EJECTION_LEVEL));
+            long duration = Math.min(baseEjectionNanos << level, maxEjectionNanos);
+            if (duration <= 0) {
+                duration = maxEjectionNanos;
+            }
+            lastEjectionEndNanos = now + duration;
+            return duration;
+        }
+
+        /**
+         * 最近一次请求或摘除结束至今的时长
+         */
+        private long idleSince(long now) {
+            long lastRecord = lastRecordNanos;
+            long lastEjectionEnd = lastEjectionEndNanos;
+            return now - (lastEjectionEnd - lastRecord > 0 ? lastEjectionEnd : lastRecord);
+        }
+
+        /**
+         * 摘除后清空统计，恢复时重新开始计数
+         */
+        private void reset() {
+            consecutiveFailures.set(0);
+            for (int i = 0; i < bucketEpochs.length(); i++) {
+                bucketEpochs.set(i, -1);
+                bucketCounts.set(i, 0);
+            }
+        }
+    }
+}
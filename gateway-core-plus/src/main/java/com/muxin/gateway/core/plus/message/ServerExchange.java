@@ -17,4 +17,10 @@ public interface ServerExchange<Req extends Message, Res extends Message> extend
     Res response();
 
     Res setResponse(Res response);
+
+    /**
+     * 释放交换对象持有的资源（如池化的请求缓冲区），请求完成时调用
+     */
+    default void release() {
+    }
 }
@@ -5,6 +5,7 @@ import com.muxin.gateway.core.plus.message.Protocol;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.*;
+import io.netty.util.ReferenceCountUtil;
 import lombok.extern.slf4j.Slf4j;
 
 import java.nio.charset.StandardCharsets;
@@ -82,6 +83,16 @@ public class DefaultHttpServerExchange implements HttpServerExchange {
         return response;
     }
 
+    @Override
+    public void release() {
+        releaseQuietly(httpRequestAdapter.nettyRequest);
+        NettyHttpResponseAdapter responseAdapter = httpResponseAdapter;
+        if (responseAdapter != null) {
+            // 写出和转发使用的都是retainedDuplicate，这里只释放交换对象自身持有的引用
+            releaseQuietly(responseAdapter.nettyResponse);
+        }
+    }
+
     // ========== AttributesHolder 接口实现 ==========
 
     @Override
@@ -89,6 +100,22 @@ public class DefaultHttpServerExchange implements HttpServerExchange {
         return attributes;
     }
 
+    /**
+     * 将后端返回的Netty响应包装为HttpResponseMessage，响应的引用计数随之转移
+     *
+     * @param response Netty HTTP响应对象
+     * @return 响应消息
+     */
+    public static HttpResponseMessage wrapResponse(FullHttpResponse response) {
+        return new NettyHttpResponseAdapter(response, new HashMap<>());
+    }
+
+    private static void releaseQuietly(FullHttpMessage message) {
+        if (message != null && message.refCnt() > 0) {
+            ReferenceCountUtil.safeRelease(message);
+        }
+    }
+
     // ========== 内部方法 ==========
 
 
@@ -186,6 +213,11 @@ public class DefaultHttpServerExchange implements HttpServerExchange {
             nettyRequest.headers().set(name, value);
         }
 
+        @Override
+        public ByteBuf content() {
+            return nettyRequest.content();
+        }
+
         @Override
         public MessageType messageType() {
             return MessageType.REQUEST;
@@ -282,6 +314,11 @@ public class DefaultHttpServerExchange implements HttpServerExchange {
             nettyResponse.headers().set(name, value);
         }
 
+        @Override
+        public ByteBuf content() {
+            return nettyResponse.content();
+        }
+
         @Override
         public MessageType messageType() {
             return MessageType.RESPONSE;
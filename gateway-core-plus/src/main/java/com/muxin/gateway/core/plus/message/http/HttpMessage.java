@@ -1,6 +1,7 @@
 package com.muxin.gateway.core.plus.message.http;
 
 import com.muxin.gateway.core.plus.message.Message;
+import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpVersion;
 
@@ -20,4 +21,9 @@ public interface HttpMessage extends Message {
     HttpHeaders headers();
 
     void header(CharSequence name, CharSequence value);
+
+    /**
+     * 消息体，引用计数由消息持有者管理，转发时请使用retainedDuplicate
+     */
+    ByteBuf content();
 }
@@ -0,0 +1,101 @@
+package com.muxin.gateway.core.plus.resilience;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 请求超时定时器
+ * <p>
+ * 整个网关共享一个{@link HashedWheelTimer}：登记和取消超时都是O(1)，不为每个请求创建调度任务。
+ * 精度为一个tick（10ms），对请求级超时足够。到期回调在定时器线程上执行，
+ * 需要与连接状态同步的处理通过{@code executor}切回对应的EventLoop
+ *
+ * @author muxin
+ */
+public final class DeadlineTimer {
+
+    private static final long TICK_MILLIS = 10;
+    private static final int TICKS_PER_WHEEL = 512;
+
+    private static final DeadlineTimer SHARED = new DeadlineTimer();
+
+    private final HashedWheelTimer timer = new HashedWheelTimer(
+            new DefaultThreadFactory("gateway-deadline", true), TICK_MILLIS, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL);
+
+    private DeadlineTimer() {
+    }
+
+    /**
+     * 网关共享的超时定时器
+     */
+    public static DeadlineTimer shared() {
+        return SHARED;
+    }
+
+    /**
+     * 登记一个超时任务
+     */
+    public Timeout schedule(Runnable task, long delayNanos) {
+        return timer.newTimeout(timeout -> task.run(), Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 为异步结果加上超时
+     *
+     * @param source       原始异步结果
+     * @param timeoutNanos 超时时间，小于0表示不限时
+     * @param onTimeout    超时时使用的异常
+     * @param executor     执行超时处理的线程，为null时在定时器线程上执行
+     * @param onLate       原始结果在超时之后才成功完成时，用于释放结果，可以为null
+     * @return 在原始结果完成或超时时先发生者完成的结果
+     */
+    public <T> CompletableFuture<T> within(CompletableFuture<T> source, long timeoutNanos,
+                                           Supplier<? extends Throwable> onTimeout, Executor executor,
+                                           Consumer<? super T> onLate) {
+        if (timeoutNanos < 0 || source.isDone()) {
+            return source;
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Timeout timeout = schedule(() -> expire(result, onTimeout, executor), timeoutNanos);
+        source.whenComplete((value, error) -> {
+            timeout.cancel();
+            boolean completed = error != null ? result.completeExceptionally(error) : result.complete(value);
+            if (!completed && error == null && onLate != null) {
+                onLate.accept(value);
+            }
+        });
+        return result;
+    }
+
+    private static void expire(CompletableFuture<?> result, Supplier<? extends Throwable> onTimeout,
+                               Executor executor) {
+        if (result.isDone()) {
+            return;
+        }
+        Runnable task = () -> result.completeExceptionally(onTimeout.get());
+        if (executor == null) {
+            task.run();
+            return;
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    /**
+     * 当前等待到期的超时数
+     */
+    public long pendingTimeouts() {
+        return timer.pendingTimeouts();
+    }
+}
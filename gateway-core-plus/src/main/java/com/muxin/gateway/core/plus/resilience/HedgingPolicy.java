@@ -0,0 +1,116 @@
+package com.muxin.gateway.core.plus.resilience;
+
+import com.muxin.gateway.core.plus.route.Route;
+import com.muxin.gateway.core.plus.route.predicate.MethodPredicateFactory.MethodPredicate;
+import com.muxin.gateway.core.plus.route.predicate.Predicate;
+import io.netty.handler.codec.http.HttpMethod;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 请求对冲策略，由路由元数据{@code hedging}开启：
+ * <pre>
+ * metadata:
+ *   hedging:
+ *     enabled: true
+ *     delay: 50          # 毫秒，不配置时使用路由观测到的p95延迟
+ *     max-percent: 10    # 对冲请求不超过请求数的百分比，同时开启重试时与重试共用预算
+ *     min-samples: 100   # 按分位数计算延迟时所需的最少样本数
+ * </pre>
+ * 也可以简写为{@code hedging: true}。只有METHOD断言限定为GET/HEAD的路由才会对冲
+ *
+ * @author muxin
+ */
+@Getter
+@Builder
+public class HedgingPolicy {
+
+    /**
+     * 开启对冲的路由元数据键
+     */
+    public static final String METADATA_KEY = "hedging";
+
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD);
+
+    private static final double DEFAULT_QUANTILE = 0.95;
+
+    /**
+     * 固定的对冲延迟，为null时使用观测到的分位数延迟
+     */
+    private final Duration delay;
+
+    @Builder.Default
+    private final double quantile = DEFAULT_QUANTILE;
+
+    @Builder.Default
+    private final int maxPercent = 10;
+
+    @Builder.Default
+    private final int minSamples = 100;
+
+    /**
+     * 解析路由的对冲策略，未开启或路由不是幂等路由时返回null
+     */
+    public static HedgingPolicy from(Route route) {
+        Map<String, Object> metadata = route.getMetadata();
+        Object value = metadata != null ? metadata.get(METADATA_KEY) : null;
+        if (value == null || !isIdempotent(route)) {
+            return null;
+        }
+        if (!(value instanceof Map<?, ?> config)) {
+            return Boolean.parseBoolean(value.toString()) ? HedgingPolicy.builder().build() : null;
+        }
+        Object enabled = config.get("enabled");
+        if (enabled != null && !Boolean.parseBoolean(enabled.toString())) {
+            return null;
+        }
+        HedgingPolicyBuilder builder = HedgingPolicy.builder();
+        Object delay = config.get("delay");
+        if (delay != null) {
+            builder.delay(Duration.ofMillis(parseInt(route, "delay", delay)));
+        }
+        Object maxPercent = config.get("max-percent");
+        if (maxPercent != null) {
+            int percent = parseInt(route, "max-percent", maxPercent);
+            if (percent < 0 || percent > 100) {
+                throw new IllegalArgumentException("路由" + route.getId() + "的hedging.max-percent必须在0-100之间");
+            }
+            builder.maxPercent(percent);
+        }
+        Object minSamples = config.get("min-samples");
+        if (minSamples != null) {
+            builder.minSamples(parseInt(route, "min-samples", minSamples));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 路由的METHOD断言只允许GET/HEAD时视为幂等路由
+     */
+    public static boolean isIdempotent(Route route) {
+        if (route.getPredicates() == null) {
+            return false;
+        }
+        for (Predicate predicate : route.getPredicates()) {
+            // 断言之间是AND关系，任意一个METHOD断言限定为GET/HEAD即可
+            if (predicate instanceof MethodPredicate methodPredicate
+                    && !methodPredicate.getMethods().isEmpty()
+                    && IDEMPOTENT_METHODS.containsAll(methodPredicate.getMethods())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int parseInt(Route route, String name, Object value) {
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("路由" + route.getId() + "的hedging." + name + "必须是数字: " + value);
+        }
+    }
+}
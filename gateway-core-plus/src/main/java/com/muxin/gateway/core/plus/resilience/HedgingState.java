@@ -0,0 +1,98 @@
+package com.muxin.gateway.core.plus.resilience;
+
+import com.muxin.gateway.core.plus.route.Route;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个路由的对冲状态：延迟直方图、对冲预算和计数
+ * 预算与同一路由的重试共用，由网关处理器每个请求存入一次。路由重建后随路由一起重建
+ *
+ * @author muxin
+ */
+public final class HedgingState {
+
+    private static final long LATENCY_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    /**
+     * 对冲预算允许的突发对冲数
+     */
+    public static final int BUDGET_BURST = 10;
+
+    private final Route route;
+    private final HedgingPolicy policy;
+    private final LatencyHistogram latencies = new LatencyHistogram(LATENCY_WINDOW_NANOS);
+    private final TokenBudget budget;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+
+    public HedgingState(Route route, HedgingPolicy policy, TokenBudget budget) {
+        this.route = route;
+        this.policy = policy;
+        this.budget = budget;
+    }
+
+    public Route route() {
+        return route;
+    }
+
+    /**
+     * 记录一个请求，每个请求只记录一次，重试的各次尝试不再记录
+     */
+    public void onRequest() {
+        requests.increment();
+    }
+
+    /**
+     * 本次尝试的对冲延迟（纳秒），样本不足无法确定延迟时返回-1
+     */
+    public long hedgeDelayNanos() {
+        if (policy.getDelay() != null) {
+            return policy.getDelay().toNanos();
+        }
+        return latencies.quantileNanos(policy.getQuantile(), policy.getMinSamples());
+    }
+
+    /**
+     * 记录首个请求的延迟；首个请求被对冲请求抢先时记录放弃时已等待的时间
+     */
+    public void recordLatency(long latencyNanos) {
+        latencies.record(latencyNanos);
+    }
+
+    /**
+     * 申请发出一次对冲请求
+     */
+    public boolean tryHedge() {
+        if (!budget.tryAcquire()) {
+            budgetExhausted.increment();
+            return false;
+        }
+        hedges.increment();
+        return true;
+    }
+
+    /**
+     * 对冲请求先于首个请求返回
+     */
+    public void onHedgeWin() {
+        hedgeWins.increment();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("requests", requests.sum());
+        stats.put("hedges", hedges.sum());
+        stats.put("hedgeWins", hedgeWins.sum());
+        stats.put("budgetExhausted", budgetExhausted.sum());
+        long quantile = latencies.quantileNanos(policy.getQuantile(), 1);
+        stats.put("latencyQuantileMillis", quantile < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(quantile));
+        return stats;
+    }
+}
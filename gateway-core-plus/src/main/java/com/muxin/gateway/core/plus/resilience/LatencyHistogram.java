@@ -0,0 +1,154 @@
+package com.muxin.gateway.core.plus.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 滑动窗口延迟直方图，用于估算路由的延迟分位数
+ * <p>
+ * 以微秒为单位按对数分桶，每个2的幂区间再分8个子桶，相对误差不超过12.5%，最大约67秒。
+ * 记录只做一次原子加；保留当前和上一个两个窗口，窗口到期时整体替换，分位数由两个窗口合并计算，
+ * 计算结果缓存一段时间，读路径通常只读一个volatile变量
+ *
+ * @author muxin
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 26;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private static final long QUANTILE_CACHE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long windowNanos;
+    private final AtomicReference<Window> window;
+
+    private volatile CachedQuantile cached;
+
+    public LatencyHistogram(long windowNanos) {
+        if (windowNanos <= 0) {
+            throw new IllegalArgumentException("windowNanos必须大于0");
+        }
+        this.windowNanos = windowNanos;
+        this.window = new AtomicReference<>(new Window(System.nanoTime(), null));
+    }
+
+    /**
+     * 记录一次延迟
+     */
+    public void record(long latencyNanos) {
+        long now = System.nanoTime();
+        currentWindow(now).buckets.incrementAndGet(bucketIndex(Math.max(0, latencyNanos) / 1000));
+    }
+
+    /**
+     * 估算延迟分位数
+     *
+     * @param quantile   分位数，如0.95
+     * @param minSamples 样本数不足时返回-1
+     * @return 分位数对应的延迟（纳秒），样本不足时返回-1
+     */
+    public long quantileNanos(double quantile, long minSamples) {
+        long now = System.nanoTime();
+        CachedQuantile current = cached;
+        if (current != null && current.quantile == quantile && now - current.computedAt < QUANTILE_CACHE_NANOS) {
+            return current.samples >= minSamples ? current.valueNanos : -1;
+        }
+
+        Window latest = currentWindow(now);
+        Window previous = latest.previous;
+        long total = latest.total() + (previous != null ? previous.total() : 0);
+        long valueNanos = -1;
+        if (total > 0) {
+            long rank = (long) Math.ceil(total * quantile);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += latest.buckets.get(i) + (previous != null ? previous.buckets.get(i) : 0);
+                if (seen >= rank) {
+                    valueNanos = bucketUpperBoundMicros(i) * 1000;
+                    break;
+                }
+            }
+        }
+        cached = new CachedQuantile(quantile, now, total, valueNanos);
+        return total >= minSamples ? valueNanos : -1;
+    }
+
+    private Window currentWindow(long now) {
+        Window current = window.get();
+        while (now - current.startNanos >= windowNanos) {
+            // 上一个窗口也已过期时直接丢弃
+            Window previous = now - current.startNanos >= 2 * windowNanos ? null : current;
+            Window next = new Window(now, previous);
+            if (window.compareAndSet(current, next)) {
+                return next;
+            }
+            current = window.get();
+        }
+        return current;
+    }
+
+    // ========== 分桶 ==========
+
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBoundMicros(int index) {
+        if (index < SUB_BUCKETS) {
+            return index + 1;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        long lower = (1L << exponent) + ((long) subBucket << (exponent - SUB_BUCKET_BITS));
+        return lower + (1L << (exponent - SUB_BUCKET_BITS));
+    }
+
+    private static final class Window {
+
+        private final long startNanos;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+        /**
+         * 上一个窗口，只读；替换时断开更早的窗口，避免形成链表
+         */
+        private final Window previous;
+
+        private Window(long startNanos, Window previous) {
+            this.startNanos = startNanos;
+            this.previous = previous != null ? previous.detach() : null;
+        }
+
+        private Window detach() {
+            if (previous == null) {
+                return this;
+            }
+            Window copy = new Window(startNanos, null);
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                copy.buckets.set(i, buckets.get(i));
+            }
+            return copy;
+        }
+
+        private long total() {
+            long total = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                total += buckets.get(i);
+            }
+            return total;
+        }
+    }
+
+    private record CachedQuantile(double quantile, long computedAt, long samples, long valueNanos) {
+    }
+}
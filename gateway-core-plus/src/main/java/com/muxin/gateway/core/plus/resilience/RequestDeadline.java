@@ -0,0 +1,63 @@
+package com.muxin.gateway.core.plus.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求的总截止时间，按路由的总超时时间从请求到达时开始计算
+ * 保存在请求上下文属性中，连接获取、每次后端调用和重试都以剩余时间为上限
+ *
+ * @author muxin
+ */
+public final class RequestDeadline {
+
+    /**
+     * 向后端传递剩余时间（毫秒）的请求头，后端可据此提前放弃来不及完成的工作
+     */
+    public static final String HEADER = "X-Request-Timeout-Ms";
+
+    private final long deadlineNanos;
+
+    /**
+     * @param budgetNanos 从现在起的剩余时间
+     */
+    public RequestDeadline(long budgetNanos) {
+        this.deadlineNanos = System.nanoTime() + Math.max(0, budgetNanos);
+    }
+
+    /**
+     * 剩余时间（纳秒），已到期时返回0
+     */
+    public long remainingNanos() {
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() == 0;
+    }
+
+    /**
+     * 以剩余时间为上限的超时时间（纳秒）
+     *
+     * @param timeout 单项超时时间，为null或不大于0表示只受剩余时间限制
+     */
+    public long bound(Duration timeout) {
+        long remaining = remainingNanos();
+        long nanos = toNanos(timeout);
+        return nanos < 0 ? remaining : Math.min(nanos, remaining);
+    }
+
+    /**
+     * 转换为纳秒，为null或不大于0时返回-1表示不限时
+     */
+    public static long toNanos(Duration timeout) {
+        return timeout == null || timeout.isZero() || timeout.isNegative() ? -1 : timeout.toNanos();
+    }
+
+    /**
+     * 向后端传递的剩余时间（毫秒），不足1毫秒按1毫秒计
+     */
+    public static long headerValue(long budgetNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(budgetNanos));
+    }
+}
@@ -0,0 +1,77 @@
+package com.muxin.gateway.core.plus.resilience;
+
+import com.muxin.gateway.core.plus.route.RetryConfig;
+import com.muxin.gateway.core.plus.route.Route;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个路由的重试状态：重试预算和计数
+ * 预算与同一路由的对冲共用，由网关处理器每个请求存入一次，每次重试消耗一个令牌，
+ * 后端整体故障时重试和对冲合计被限制在请求数的固定比例内，不会放大成重试风暴。路由重建后随路由一起重建
+ *
+ * @author muxin
+ */
+public final class RetryState {
+
+    private final Route route;
+    private final RetryConfig config;
+    private final TokenBudget budget;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder retrySuccesses = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+
+    public RetryState(Route route, RetryConfig config, TokenBudget budget) {
+        this.route = route;
+        this.config = config;
+        this.budget = budget;
+    }
+
+    public Route route() {
+        return route;
+    }
+
+    public RetryConfig config() {
+        return config;
+    }
+
+    /**
+     * 记录一个可重试的请求
+     */
+    public void onRequest() {
+        requests.increment();
+    }
+
+    /**
+     * 申请一次重试
+     */
+    public boolean tryRetry() {
+        if (!budget.tryAcquire()) {
+            budgetExhausted.increment();
+            return false;
+        }
+        retries.increment();
+        return true;
+    }
+
+    /**
+     * 重试后请求成功
+     */
+    public void onRetrySuccess() {
+        retrySuccesses.increment();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("requests", requests.sum());
+        stats.put("retries", retries.sum());
+        stats.put("retrySuccesses", retrySuccesses.sum());
+        stats.put("budgetExhausted", budgetExhausted.sum());
+        stats.put("budgetAvailable", budget.available());
+        return stats;
+    }
+}
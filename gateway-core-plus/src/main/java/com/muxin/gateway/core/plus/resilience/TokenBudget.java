@@ -0,0 +1,76 @@
+package com.muxin.gateway.core.plus.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按请求比例补充的令牌预算，用于限制对冲、重试等额外请求
+ * <p>
+ * 每个正常请求存入{@code ratio}个令牌，每次额外请求消耗一个令牌，余额不超过上限。
+ * 长期来看额外请求数不超过正常请求数的{@code ratio}倍，余额上限允许短时间的突发。
+ * 余额以千分之一令牌为单位保存在一个原子变量中，无锁
+ *
+ * @author muxin
+ */
+public final class TokenBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long depositPerRequest;
+    private final long maxBalance;
+    private final AtomicLong balance;
+
+    /**
+     * @param ratio     额外请求占正常请求的最大比例，如0.2表示不超过20%
+     * @param maxTokens 余额上限（令牌数），同时也是初始余额
+     */
+    public TokenBudget(double ratio, int maxTokens) {
+        if (ratio < 0 || ratio > 1) {
+            throw new IllegalArgumentException("ratio必须在0-1之间: " + ratio);
+        }
+        if (maxTokens < 0) {
+            throw new IllegalArgumentException("maxTokens不能小于0: " + maxTokens);
+        }
+        this.depositPerRequest = Math.round(ratio * SCALE);
+        this.maxBalance = maxTokens * SCALE;
+        this.balance = new AtomicLong(depositPerRequest > 0 ? maxBalance : 0);
+    }
+
+    /**
+     * 记录一个正常请求，存入令牌
+     */
+    public void deposit() {
+        if (depositPerRequest == 0) {
+            return;
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current >= maxBalance) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(maxBalance, current + depositPerRequest)));
+    }
+
+    /**
+     * 尝试消耗一个令牌
+     *
+     * @return 余额不足时返回false
+     */
+    public boolean tryAcquire() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    /**
+     * 当前余额（令牌数）
+     */
+    public double available() {
+        return (double) balance.get() / SCALE;
+    }
+}
@@ -0,0 +1,141 @@
+package com.muxin.gateway.core.plus.route;
+
+import com.muxin.gateway.core.plus.common.Constant;
+import com.muxin.gateway.core.plus.connect.ClientConnection;
+import com.muxin.gateway.core.plus.connect.ServerConnection;
+import com.muxin.gateway.core.plus.message.Message;
+import com.muxin.gateway.core.plus.message.ServerExchange;
+import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一次额外的后端调用（对冲、重试）使用的请求上下文
+ * <p>
+ * 请求、路由和入站连接取自原始上下文；选中的端点、后端连接和属性独立保存，
+ * 负载均衡策略在属性中记录的在途状态不会与原始请求互相覆盖；EventLoop和截止时间属性取自原始上下文
+ *
+ * @author muxin
+ */
+public class AttemptRequestContext implements RequestContext {
+
+    private final RequestContext parent;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>(4);
+
+    private volatile ClientConnection clientConnection;
+    private volatile EndpointAddress selectedEndpoint;
+    private volatile Throwable error;
+    private volatile boolean completed;
+
+    public AttemptRequestContext(RequestContext parent) {
+        this.parent = Objects.requireNonNull(parent, "原始请求上下文不能为空");
+        copyAttribute(Constant.EVENT_LOOP);
+        copyAttribute(Constant.DEADLINE);
+    }
+
+    private void copyAttribute(String key) {
+        Object value = parent.getAttribute(key);
+        if (value != null) {
+            attributes.put(key, value);
+        }
+    }
+
+    /**
+     * 原始请求上下文
+     */
+    public RequestContext parent() {
+        return parent;
+    }
+
+    @Override
+    public String requestId() {
+        return parent.requestId();
+    }
+
+    @Override
+    public ServerExchange<? extends Message, ? extends Message> exchange() {
+        return parent.exchange();
+    }
+
+    @Override
+    public ServerConnection serverConnection() {
+        return parent.serverConnection();
+    }
+
+    @Override
+    public void setServerConnection(ServerConnection connection) {
+        throw new UnsupportedOperationException("不能修改原始请求的入站连接");
+    }
+
+    @Override
+    public ClientConnection clientConnection() {
+        return clientConnection;
+    }
+
+    @Override
+    public void setClientConnection(ClientConnection connection) {
+        this.clientConnection = connection;
+    }
+
+    @Override
+    public Route getMatchedRoute() {
+        return parent.getMatchedRoute();
+    }
+
+    @Override
+    public void setMatchedRoute(Route route) {
+        throw new UnsupportedOperationException("不能修改原始请求的路由");
+    }
+
+    @Override
+    public EndpointAddress getSelectedEndpoint() {
+        return selectedEndpoint;
+    }
+
+    @Override
+    public void setSelectedEndpoint(EndpointAddress endpoint) {
+        this.selectedEndpoint = endpoint;
+    }
+
+    @Override
+    public boolean needsProtocolConversion() {
+        return parent.needsProtocolConversion();
+    }
+
+    @Override
+    public long getStartTime() {
+        return parent.getStartTime();
+    }
+
+    @Override
+    public void markComplete() {
+        completed = true;
+    }
+
+    @Override
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    @Override
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public void setError(Throwable error) {
+        this.error = error;
+    }
+
+    @Override
+    public boolean hasError() {
+        return error != null;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+}
@@ -0,0 +1,178 @@
+package com.muxin.gateway.core.plus.route;
+
+import com.muxin.gateway.core.plus.message.http.HttpRequestMessage;
+import com.muxin.gateway.core.plus.route.predicate.PathPattern;
+import com.muxin.gateway.core.plus.route.predicate.PathPredicateFactory.PathPredicate;
+import com.muxin.gateway.core.plus.route.predicate.Predicate;
+
+import java.util.*;
+
+/**
+ * 预编译的路由匹配器（单一协议，不可变）
+ * <p>
+ * 路由按(order, id)排序后编号，PATH断言可索引的路由放入按路径段组织的前缀树，
+ * 匹配时只对路径命中的候选路由执行其余断言，再按编号取优先级最高的一个；
+ * 路径模式无法索引（段内通配、中间的{@code **}）或没有PATH断言的路由逐个匹配。
+ * 匹配结果与按顺序逐个调用{@link Route#matches(RequestContext)}一致。
+ * 路由变更时整体重建，读路径无锁
+ *
+ * @author muxin
+ */
+final class CompiledRouteMatcher {
+
+    private final List<Route> routes;
+    private final Node root = new Node();
+    private final List<Entry> fallbackEntries = new ArrayList<>();
+
+    private CompiledRouteMatcher(List<Route> routes) {
+        this.routes = routes;
+    }
+
+    /**
+     * 编译路由，忽略已禁用的路由
+     */
+    static CompiledRouteMatcher compile(Collection<Route> routes) {
+        List<Route> sorted = routes.stream()
+                .filter(Objects::nonNull)
+                .filter(Route::isEnabled)
+                .sorted(Comparator.comparingInt(Route::getOrder).thenComparing(Route::getId))
+                .toList();
+
+        CompiledRouteMatcher matcher = new CompiledRouteMatcher(sorted);
+        for (int rank = 0; rank < sorted.size(); rank++) {
+            matcher.add(sorted.get(rank), rank);
+        }
+        return matcher;
+    }
+
+    private void add(Route route, int rank) {
+        List<Predicate> predicates = route.getPredicates() != null ? route.getPredicates() : List.of();
+        PathPredicate pathPredicate = null;
+        for (Predicate predicate : predicates) {
+            if (predicate instanceof PathPredicate candidate
+                    && candidate.getPatterns().stream().allMatch(PathPattern::isIndexable)) {
+                pathPredicate = candidate;
+                break;
+            }
+        }
+        if (pathPredicate == null) {
+            fallbackEntries.add(new Entry(route, rank, null));
+            return;
+        }
+
+        List<Predicate> residual = new ArrayList<>(predicates);
+        residual.remove(pathPredicate);
+        Entry entry = new Entry(route, rank, residual.toArray(new Predicate[0]));
+        for (PathPattern pattern : pathPredicate.getPatterns()) {
+            insert(pattern, entry);
+        }
+    }
+
+    private void insert(PathPattern pattern, Entry entry) {
+        Node node = root;
+        for (int i = 0; i < pattern.segmentCount(); i++) {
+            switch (pattern.segmentType(i)) {
+                case LITERAL -> node = node.literals.computeIfAbsent(pattern.segment(i), key -> new Node());
+                case ANY -> {
+                    if (node.wildcard == null) {
+                        node.wildcard = new Node();
+                    }
+                    node = node.wildcard;
+                }
+                case MULTI -> {
+                    // isIndexable保证**只出现在末尾
+                    node.prefixEntries.add(entry);
+                    return;
+                }
+                default -> throw new IllegalStateException("不可索引的路径模式: " + pattern);
+            }
+        }
+        node.exactEntries.add(entry);
+    }
+
+    // ========== 匹配 ==========
+
+    /**
+     * 返回优先级最高的匹配路由，没有匹配时返回null
+     */
+    Route match(RequestContext context) {
+        if (!(context.exchange().request() instanceof HttpRequestMessage request)) {
+            // 非HTTP请求没有路径，按优先级逐个匹配
+            for (Route route : routes) {
+                if (route.matches(context)) {
+                    return route;
+                }
+            }
+            return null;
+        }
+
+        List<Entry> candidates = new ArrayList<>();
+        collect(root, PathPattern.split(request.fullPath()), 0, candidates);
+        candidates.addAll(fallbackEntries);
+        if (candidates.size() > 1) {
+            candidates.sort(Comparator.comparingInt(Entry::rank));
+        }
+
+        int lastRank = -1;
+        for (Entry entry : candidates) {
+            if (entry.rank() == lastRank) {
+                // 同一路由的多个模式同时命中
+                continue;
+            }
+            lastRank = entry.rank();
+            if (entry.test(context)) {
+                return entry.route();
+            }
+        }
+        return null;
+    }
+
+    private static void collect(Node node, String[] segments, int index, List<Entry> candidates) {
+        candidates.addAll(node.prefixEntries);
+        if (index == segments.length) {
+            candidates.addAll(node.exactEntries);
+            return;
+        }
+        Node literal = node.literals.get(segments[index]);
+        if (literal != null) {
+            collect(literal, segments, index + 1, candidates);
+        }
+        if (node.wildcard != null) {
+            collect(node.wildcard, segments, index + 1, candidates);
+        }
+    }
+
+    /**
+     * 已排序的启用路由
+     */
+    List<Route> routes() {
+        return routes;
+    }
+
+    // ========== 内部结构 ==========
+
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private Node wildcard;
+        private final List<Entry> prefixEntries = new ArrayList<>(1);
+        private final List<Entry> exactEntries = new ArrayList<>(1);
+    }
+
+    /**
+     * @param residual 除已索引的PATH断言外的断言，为null时表示未索引，执行完整的路由匹配
+     */
+    private record Entry(Route route, int rank, Predicate[] residual) {
+
+        boolean test(RequestContext context) {
+            if (residual == null) {
+                return route.matches(context);
+            }
+            for (Predicate predicate : residual) {
+                if (!predicate.test(context.exchange())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -74,7 +74,7 @@ public class ConfigRouteService implements RouteService {
     public EndpointAddress selectTarget(RequestContext context, LoadBalanceStrategy strategy) {
         // 使用外部提供的负载均衡策略选择目标
         try {
-            EndpointAddress selected = strategy.select(addresses, context);
+            EndpointAddress selected = strategy.selectAvailable(addresses, context);
             log.debug("选择目标地址: {} (策略: {})", selected.toUri(), strategy.getStrategyName());
             return selected;
         } catch (Exception e) {
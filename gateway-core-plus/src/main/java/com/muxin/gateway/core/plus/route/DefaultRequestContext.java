@@ -375,7 +375,8 @@ public class DefaultRequestContext implements RequestContext {
     private void performCleanup() {
         try {
             // 清理非核心属性，保留重要信息用于日志和监控
-            // 这里可以添加特定的清理逻辑
+            // 释放请求/响应持有的池化缓冲区
+            exchange.release();
             
             log.debug("请求上下文资源清理完成: {}", requestId);
         } catch (Exception e) {
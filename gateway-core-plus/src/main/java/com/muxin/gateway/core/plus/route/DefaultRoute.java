@@ -84,13 +84,18 @@ public class DefaultRoute implements Route {
      */
     private final TimeoutConfig timeoutConfig;
     
+    /**
+     * 重试配置，为null时不重试
+     */
+    private final RetryConfig retryConfig;
+    
     /**
      * 构造函数中的验证
      */
     public DefaultRoute(String id, String name, String description, int order, boolean enabled,
                        Protocol supportedProtocol, List<Predicate> predicates, List<Filter> filters,
                        RouteService service, LoadBalanceStrategy loadBalanceStrategy,
-                       Map<String, Object> metadata, TimeoutConfig timeoutConfig) {
+                       Map<String, Object> metadata, TimeoutConfig timeoutConfig, RetryConfig retryConfig) {
         this.id = Objects.requireNonNull(id, "路由ID不能为空");
         this.name = Objects.requireNonNull(name, "路由名称不能为空");
         this.description = description;
@@ -103,6 +108,10 @@ public class DefaultRoute implements Route {
         this.loadBalanceStrategy = Objects.requireNonNull(loadBalanceStrategy, "负载均衡策略不能为空");
         this.metadata = metadata != null ? metadata : java.util.Collections.emptyMap();
         this.timeoutConfig = timeoutConfig;
+        this.retryConfig = retryConfig;
+        
+        // 地址快照发布时让负载均衡策略预先计算选择所需的状态，不放在请求线程上
+        service.addAddressListener(loadBalanceStrategy::onAddressesChanged);
         
         log.debug("创建路由: {} (协议: {}, 策略: {})", 
                 id, supportedProtocol.type(), loadBalanceStrategy.getStrategyName());
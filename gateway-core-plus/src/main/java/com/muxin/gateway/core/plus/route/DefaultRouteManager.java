@@ -4,8 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
@@ -20,11 +19,11 @@ public class DefaultRouteManager implements RouteManager {
     // 路由存储：按ID索引
     private final Map<String, Route> routeStorage = new ConcurrentHashMap<>();
     
-    // 路由缓存：按协议类型分组，按优先级排序
-    private final Map<String, List<Route>> routeCache = new ConcurrentHashMap<>();
+    // 路由快照：按协议类型分组，路由变更时替换受影响协议的条目后整体发布，匹配时无锁读取
+    private volatile Map<String, ProtocolRoutes> snapshots = Map.of();
     
-    // 读写锁，用于缓存更新
-    private final ReadWriteLock cacheLock = new ReentrantReadWriteLock();
+    // 串行化路由变更
+    private final ReentrantLock updateLock = new ReentrantLock();
     
     // 路由变更监听器
     private final List<RouteChangeListener> listeners = new ArrayList<>();
@@ -67,8 +66,15 @@ public class DefaultRouteManager implements RouteManager {
             started = false;
             
             // 清理资源
-            routeStorage.clear();
-            routeCache.clear();
+            updateLock.lock();
+            try {
+                List<Route> removedRoutes = new ArrayList<>(routeStorage.values());
+                routeStorage.clear();
+                snapshots = Map.of();
+                removedRoutes.forEach(this::closeService);
+            } finally {
+                updateLock.unlock();
+            }
             listeners.clear();
         }
     }
@@ -79,8 +85,8 @@ public class DefaultRouteManager implements RouteManager {
             throw new IllegalStateException("路由管理器未启动或已关闭");
         }
         try {
-
-            return null;
+            ProtocolRoutes protocolRoutes = snapshots.get(context.exchange().protocol().type());
+            return protocolRoutes != null ? protocolRoutes.matcher().match(context) : null;
         } catch (Exception e) {
             log.error("[DefaultRouteManager] 路由匹配异常", e);
             return null;
@@ -96,13 +102,18 @@ public class DefaultRouteManager implements RouteManager {
         validateRoute(route);
 
         try {
-            cacheLock.writeLock().lock();
+            updateLock.lock();
             
             // 存储路由
             Route existingRoute = routeStorage.put(route.getId(), route);
             
-            // 更新缓存
-            refreshCache();
+            // 只重建路由所属协议（及被替换路由原来的协议）的匹配器
+            refreshCache(affectedProtocols(route, existingRoute));
+            
+            // 被替换的路由不再使用其服务，释放订阅等资源
+            if (existingRoute != null) {
+                closeService(existingRoute);
+            }
             
             // 通知监听器
             notifyRouteAdded(route);
@@ -113,7 +124,7 @@ public class DefaultRouteManager implements RouteManager {
             return existingRoute;
             
         } finally {
-            cacheLock.writeLock().unlock();
+            updateLock.unlock();
         }
     }
 
@@ -124,12 +135,13 @@ public class DefaultRouteManager implements RouteManager {
         }
 
         try {
-            cacheLock.writeLock().lock();
+            updateLock.lock();
             
             Route removedRoute = routeStorage.remove(routeId);
             if (removedRoute != null) {
                 // 更新缓存
-                refreshCache();
+                refreshCache(Set.of(removedRoute.getProtocolType()));
+                closeService(removedRoute);
                 
                 // 通知监听器
                 notifyRouteRemoved(removedRoute);
@@ -140,7 +152,48 @@ public class DefaultRouteManager implements RouteManager {
             }
             
         } finally {
-            cacheLock.writeLock().unlock();
+            updateLock.unlock();
+        }
+    }
+
+    /**
+     * 批量添加路由，全部存入后每个受影响的协议只重建一次匹配器
+     * 任一路由校验失败时整批不添加
+     *
+     * @return 被替换的同ID路由
+     */
+    public List<Route> insertAll(Collection<Route> routes) {
+        if (routes == null || routes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        for (Route route : routes) {
+            if (route == null) {
+                throw new IllegalArgumentException("路由不能为空");
+            }
+            validateRoute(route);
+        }
+
+        updateLock.lock();
+        try {
+            Set<String> protocols = new HashSet<>();
+            List<Route> replacedRoutes = new ArrayList<>();
+            for (Route route : routes) {
+                Route existingRoute = routeStorage.put(route.getId(), route);
+                protocols.addAll(affectedProtocols(route, existingRoute));
+                if (existingRoute != null && existingRoute != route) {
+                    replacedRoutes.add(existingRoute);
+                }
+            }
+
+            refreshCache(protocols);
+
+            replacedRoutes.forEach(this::closeService);
+            routes.forEach(this::notifyRouteAdded);
+
+            log.info("[DefaultRouteManager] 批量添加路由成功: {} 条", routes.size());
+            return replacedRoutes;
+        } finally {
+            updateLock.unlock();
         }
     }
 
@@ -155,27 +208,18 @@ public class DefaultRouteManager implements RouteManager {
     }
 
     /**
-     * 获取指定协议的路由列表（已按优先级排序）
+     * 获取指定协议的路由列表（已按优先级排序，包含已禁用的路由）
      */
     public List<Route> getRoutesByProtocol(String protocolType) {
-        try {
-            cacheLock.readLock().lock();
-            return routeCache.getOrDefault(protocolType, Collections.emptyList());
-        } finally {
-            cacheLock.readLock().unlock();
-        }
+        ProtocolRoutes protocolRoutes = snapshots.get(protocolType);
+        return protocolRoutes != null ? protocolRoutes.routes() : Collections.emptyList();
     }
 
     /**
      * 获取所有协议类型
      */
     public Set<String> getSupportedProtocols() {
-        try {
-            cacheLock.readLock().lock();
-            return new HashSet<>(routeCache.keySet());
-        } finally {
-            cacheLock.readLock().unlock();
-        }
+        return new HashSet<>(snapshots.keySet());
     }
 
     /**
@@ -195,27 +239,61 @@ public class DefaultRouteManager implements RouteManager {
     }
 
     /**
-     * 刷新路由缓存
+     * 重建指定协议的路由快照，其余协议沿用原快照，调用方持有updateLock
      */
-    private void refreshCache() {
-        // 清空旧缓存
-        routeCache.clear();
-        
-        // 按协议类型分组并排序
+    private void refreshCache(Set<String> protocolTypes) {
+        // 受影响的协议各自编译后整体发布，正在进行的匹配继续使用旧快照
         Map<String, List<Route>> groupedRoutes = routeStorage.values().stream()
             .filter(Objects::nonNull)
+            .filter(route -> protocolTypes.contains(route.getProtocolType()))
             .collect(Collectors.groupingBy(Route::getProtocolType));
         
-        // 对每个协议的路由按优先级排序
-        for (Map.Entry<String, List<Route>> entry : groupedRoutes.entrySet()) {
-            List<Route> sortedRoutes = entry.getValue().stream()
-                .sorted(Comparator.comparingInt(Route::getOrder))
-                .collect(Collectors.toList());
-            routeCache.put(entry.getKey(), sortedRoutes);
+        Map<String, ProtocolRoutes> updated = new HashMap<>(snapshots);
+        for (String protocolType : protocolTypes) {
+            List<Route> routes = groupedRoutes.get(protocolType);
+            if (routes == null) {
+                updated.remove(protocolType);
+                continue;
+            }
+            List<Route> sortedRoutes = routes.stream()
+                .sorted(Comparator.comparingInt(Route::getOrder).thenComparing(Route::getId))
+                .toList();
+            updated.put(protocolType, new ProtocolRoutes(sortedRoutes, CompiledRouteMatcher.compile(sortedRoutes)));
         }
+        snapshots = Map.copyOf(updated);
         
-        log.debug("[DefaultRouteManager] 路由缓存刷新完成，协议数: {}, 总路由数: {}", 
-            routeCache.size(), routeStorage.size());
+        log.debug("[DefaultRouteManager] 路由匹配器重建完成，重建协议: {}, 协议数: {}, 总路由数: {}", 
+            protocolTypes, updated.size(), routeStorage.size());
+    }
+
+    /**
+     * 路由变更影响的协议：新路由的协议，以及被替换路由原来的协议
+     */
+    private static Set<String> affectedProtocols(Route route, Route existingRoute) {
+        if (existingRoute == null || existingRoute.getProtocolType().equals(route.getProtocolType())) {
+            return Set.of(route.getProtocolType());
+        }
+        return Set.of(route.getProtocolType(), existingRoute.getProtocolType());
+    }
+
+    /**
+     * 关闭已移出路由表的路由的服务，服务仍被其他路由引用时保留，调用方持有updateLock
+     */
+    private void closeService(Route route) {
+        RouteService service = route.getService();
+        if (service == null) {
+            return;
+        }
+        for (Route current : routeStorage.values()) {
+            if (current.getService() == service) {
+                return;
+            }
+        }
+        try {
+            service.close();
+        } catch (Exception e) {
+            log.warn("[DefaultRouteManager] 关闭路由服务失败: {}", route.getId(), e);
+        }
     }
 
     /**
@@ -275,6 +353,12 @@ public class DefaultRouteManager implements RouteManager {
 
 
 
+    /**
+     * 单一协议的路由快照：按优先级排序的全部路由（含已禁用的）及只包含已启用路由的匹配器
+     */
+    private record ProtocolRoutes(List<Route> routes, CompiledRouteMatcher matcher) {
+    }
+
     /**
      * 路由变更监听器接口
      */
@@ -4,16 +4,28 @@ import com.muxin.gateway.core.plus.common.ServiceRegistry;
 import com.muxin.gateway.core.plus.message.Protocol;
 import com.muxin.gateway.core.plus.route.loadbalance.LoadBalanceStrategy;
 import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import com.muxin.gateway.core.plus.route.service.NodeStatus;
+import com.muxin.gateway.core.plus.route.service.ServiceChangeListener;
 import com.muxin.gateway.core.plus.route.service.ServiceInstance;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * DISCOVERY类型路由服务实现
@@ -35,10 +47,30 @@ public class DiscoveryRouteService implements RouteService {
     private final Map<String, Object> config;
     
     // ========== 缓存和性能优化 ==========
-    private volatile List<EndpointAddress> cachedAddresses;
-    private volatile long lastRefreshTime;
+    /**
+     * 刷新合并窗口：窗口内的多个变更事件只触发一次拉取
+     */
+    private static final long REFRESH_COALESCE_MILLIS = 50;
+    
+    /**
+     * 所有DISCOVERY服务共用的后台刷新线程，请求线程不访问注册中心
+     */
+    private static final ScheduledExecutorService REFRESH_SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "discovery-address-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * 当前地址快照，只在服务变更或定期刷新时整体替换
+     */
+    private volatile AddressSnapshot snapshot = AddressSnapshot.EMPTY;
     private final Duration cacheExpireTime;
     private final Object refreshLock = new Object();
+    private final AtomicBoolean refreshPending = new AtomicBoolean(false);
+    private final ServiceChangeListener changeListener = new AddressRefreshListener();
+    private final List<Consumer<List<EndpointAddress>>> addressListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledFuture<?> periodicRefresh;
     
     public DiscoveryRouteService(ServiceDefinition serviceDefinition,
                                  Protocol supportProtocol,
@@ -54,10 +86,15 @@ public class DiscoveryRouteService implements RouteService {
             throw new IllegalArgumentException("DiscoveryRouteService只支持DISCOVERY类型服务");
         }
         
-        // 缓存过期时间，默认30秒
+        // 缓存过期时间，默认30秒，作为兜底的定期刷新间隔
         this.cacheExpireTime = getCacheExpireTime(config);
-        this.cachedAddresses = new ArrayList<>();
-        this.lastRefreshTime = 0;
+        
+        // 订阅服务变更，首次同步加载地址（在路由创建时，不在请求线程上）
+        subscribe();
+        refreshAddresses();
+        long expireMillis = Math.max(1, cacheExpireTime.toMillis());
+        this.periodicRefresh = REFRESH_SCHEDULER.scheduleWithFixedDelay(
+                this::requestRefresh, expireMillis, expireMillis, TimeUnit.MILLISECONDS);
         
         log.info("创建DISCOVERY路由服务: {} - 缓存过期时间: {}秒", 
                 serviceDefinition.getName(), cacheExpireTime.getSeconds());
@@ -73,14 +110,12 @@ public class DiscoveryRouteService implements RouteService {
         return supportProtocol;
     }
     
+    /**
+     * 当前地址快照（只读），地址未变化时返回同一个列表
+     */
     @Override
     public List<EndpointAddress> getTargetAddresses() {
-        // 检查缓存是否需要刷新
-        if (needsRefresh()) {
-            refreshAddresses();
-        }
-        
-        return new ArrayList<>(cachedAddresses); // 返回副本避免并发修改
+        return snapshot.list;
     }
     
     @Override
@@ -88,18 +123,29 @@ public class DiscoveryRouteService implements RouteService {
         return config;
     }
     
+    /**
+     * 注册地址快照监听，快照替换时在刷新线程上回调
+     */
+    @Override
+    public void addAddressListener(Consumer<List<EndpointAddress>> listener) {
+        synchronized (refreshLock) {
+            addressListeners.add(listener);
+            notifyAddressListener(listener, snapshot.list);
+        }
+    }
+    
     @Override
     public EndpointAddress selectTarget(RequestContext context, LoadBalanceStrategy strategy) {
         try {
-            // 获取最新的地址列表
-            List<EndpointAddress> addresses = getTargetAddresses();
+            // 读取当前地址快照，无复制、不访问注册中心
+            List<EndpointAddress> addresses = snapshot.list;
             
             if (addresses.isEmpty()) {
                 throw new IllegalStateException("服务 " + serviceDefinition.getName() + " 没有可用的实例");
             }
             
             // 使用外部提供的负载均衡策略选择地址
-            EndpointAddress selected = strategy.select(addresses, context);
+            EndpointAddress selected = strategy.selectAvailable(addresses, context);
             
             log.debug("选择服务实例: {} -> {} (策略: {}, 可用实例: {})", 
                     serviceDefinition.getName(), selected.toUri(), strategy.getStrategyName(), addresses.size());
@@ -112,36 +158,62 @@ public class DiscoveryRouteService implements RouteService {
         }
     }
     
+    // ========== 地址快照刷新 ==========
+    
+    /**
+     * 订阅服务变更事件，订阅失败时依赖定期刷新
+     */
+    private void subscribe() {
+        try {
+            serviceRegistry.subscribeServiceChange(serviceDefinition.getName(), changeListener);
+        } catch (Exception e) {
+            log.error("订阅DISCOVERY服务变更失败: {}, 仅依赖定期刷新", serviceDefinition.getName(), e);
+        }
+    }
+    
     /**
-     * 检查缓存是否需要刷新
+     * 请求一次异步刷新，合并窗口内的重复请求
      */
-    private boolean needsRefresh() {
-        long currentTime = System.currentTimeMillis();
-        return (currentTime - lastRefreshTime) > cacheExpireTime.toMillis() || cachedAddresses.isEmpty();
+    private void requestRefresh() {
+        if (!refreshPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            REFRESH_SCHEDULER.schedule(() -> {
+                // 先清除标记，刷新期间到达的事件会再触发一次刷新
+                refreshPending.set(false);
+                refreshAddresses();
+            }, REFRESH_COALESCE_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            refreshPending.set(false);
+            log.warn("DISCOVERY服务地址刷新任务提交失败: {}", serviceDefinition.getName());
+        }
     }
     
     /**
-     * 刷新地址缓存
+     * 从注册中心拉取实例并替换地址快照
      */
     private void refreshAddresses() {
         synchronized (refreshLock) {
-            // 双重检查锁定
-            if (!needsRefresh()) {
-                return;
-            }
-            
             try {
                 log.debug("刷新DISCOVERY服务地址缓存: {}", serviceDefinition.getName());
                 
                 // 从服务发现中心获取实例
                 List<ServiceInstance> instances = serviceRegistry.selectInstances(serviceDefinition.getName());
-                List<EndpointAddress> newAddresses = convertInstancesToAddresses(instances);
+                AddressSnapshot refreshed = buildSnapshot(instances != null ? instances : List.of());
                 
-                // 更新缓存
-                this.cachedAddresses = newAddresses;
-                this.lastRefreshTime = System.currentTimeMillis();
+                // 地址、权重、元数据和状态都未变化时保留原快照，便于负载均衡策略按列表引用判断是否需要重建
+                AddressSnapshot current = snapshot;
+                if (current.sameInstances(refreshed)) {
+                    snapshot = current.touch();
+                    return;
+                }
+                snapshot = refreshed;
+                for (Consumer<List<EndpointAddress>> listener : addressListeners) {
+                    notifyAddressListener(listener, refreshed.list);
+                }
                 
-                log.info("DISCOVERY服务 {} 地址缓存已更新，实例数量: {}", serviceDefinition.getName(), newAddresses.size());
+                log.info("DISCOVERY服务 {} 地址缓存已更新，实例数量: {}", serviceDefinition.getName(), refreshed.addresses.length);
                 
             } catch (Exception e) {
                 log.error("刷新DISCOVERY服务地址缓存失败: {}", serviceDefinition.getName(), e);
@@ -150,11 +222,19 @@ public class DiscoveryRouteService implements RouteService {
         }
     }
     
+    private void notifyAddressListener(Consumer<List<EndpointAddress>> listener, List<EndpointAddress> addresses) {
+        try {
+            listener.accept(addresses);
+        } catch (Exception e) {
+            log.warn("地址快照监听处理失败: {}", serviceDefinition.getName(), e);
+        }
+    }
+    
     /**
      * 异步刷新地址缓存
      */
     public CompletableFuture<Void> refreshAddressesAsync() {
-        return CompletableFuture.runAsync(() -> refreshAddresses())
+        return CompletableFuture.runAsync(this::refreshAddresses, REFRESH_SCHEDULER)
                 .orTimeout(5, TimeUnit.SECONDS)
                 .exceptionally(throwable -> {
                     log.warn("异步刷新地址缓存失败: {}", serviceDefinition.getName(), throwable);
@@ -163,17 +243,33 @@ public class DiscoveryRouteService implements RouteService {
     }
     
     /**
-     * 将服务实例转换为端点地址
+     * 取消订阅并停止定期刷新，路由被替换或删除时由路由管理器调用
+     */
+    @Override
+    public void close() {
+        periodicRefresh.cancel(false);
+        try {
+            serviceRegistry.unsubscribeServiceChange(serviceDefinition.getName(), changeListener);
+        } catch (Exception e) {
+            log.warn("取消订阅DISCOVERY服务变更失败: {}", serviceDefinition.getName(), e);
+        }
+    }
+    
+    /**
+     * 将服务实例转换为端点地址快照，同时记录实例状态用于变化比较
      */
-    private List<EndpointAddress> convertInstancesToAddresses(List<ServiceInstance> instances) {
+    private AddressSnapshot buildSnapshot(List<ServiceInstance> instances) {
         List<EndpointAddress> addresses = new ArrayList<>();
+        List<InstanceState> states = new ArrayList<>();
         
         for (ServiceInstance instance : instances) {
             try {
                 // 只转换健康的实例
                 if (isHealthyInstance(instance)) {
                     EndpointAddress address = instance.getAddress();
+                    InstanceState state = InstanceState.of(instance, address);
                     addresses.add(address);
+                    states.add(state);
                     
                     log.debug("转换服务实例: {} -> {}", instance.instanceId(), address.toUri());
                 }
@@ -182,7 +278,7 @@ public class DiscoveryRouteService implements RouteService {
             }
         }
         
-        return addresses;
+        return new AddressSnapshot(addresses.toArray(new EndpointAddress[0]), states.toArray(new InstanceState[0]));
     }
     
     /**
@@ -235,19 +331,17 @@ public class DiscoveryRouteService implements RouteService {
      * 获取缓存统计信息
      */
     public String getCacheStats() {
-        long cacheAge = System.currentTimeMillis() - lastRefreshTime;
+        AddressSnapshot current = snapshot;
+        long cacheAge = System.currentTimeMillis() - current.refreshTime;
         return String.format("缓存年龄: %dms, 地址数量: %d, 过期时间: %dms", 
-                cacheAge, cachedAddresses.size(), cacheExpireTime.toMillis());
+                cacheAge, current.addresses.length, cacheExpireTime.toMillis());
     }
     
     /**
      * 强制刷新缓存
      */
     public void forceRefresh() {
-        synchronized (refreshLock) {
-            this.lastRefreshTime = 0; // 强制过期
-            refreshAddresses();
-        }
+        refreshAddresses();
         log.info("强制刷新DISCOVERY服务缓存: {}", serviceDefinition.getName());
     }
     
@@ -256,9 +350,9 @@ public class DiscoveryRouteService implements RouteService {
      */
     public void clearCache() {
         synchronized (refreshLock) {
-            this.cachedAddresses.clear();
-            this.lastRefreshTime = 0;
+            this.snapshot = AddressSnapshot.EMPTY;
         }
+        requestRefresh();
         log.info("清空DISCOVERY服务缓存: {}", serviceDefinition.getName());
     }
     
@@ -294,8 +388,85 @@ public class DiscoveryRouteService implements RouteService {
     public String toString() {
         return String.format(
             "DiscoveryRouteTarget{serviceId='%s', serviceName='%s', protocol=%s, instances=%d, strategy='%s', cache='%s'}",
-            serviceDefinition.getId(), serviceDefinition.getName(), supportProtocol.type(), cachedAddresses.size(),
+            serviceDefinition.getId(), serviceDefinition.getName(), supportProtocol.type(), snapshot.addresses.length,
             "External", getCacheStats()
         );
     }
-} 
\ No newline at end of file
+    
+    // ========== 内部类 ==========
+    
+    /**
+     * 服务变更监听：任何节点变化都触发一次合并后的刷新
+     */
+    private class AddressRefreshListener implements ServiceChangeListener {
+        
+        @Override
+        public void onNodeAdded(String serviceId, ServiceInstance node) {
+            requestRefresh();
+        }
+        
+        @Override
+        public void onNodeRemoved(String serviceId, String nodeId) {
+            requestRefresh();
+        }
+        
+        @Override
+        public void onNodeStatusChanged(String serviceId, String nodeId, NodeStatus oldStatus, NodeStatus newStatus) {
+            requestRefresh();
+        }
+    }
+    
+    /**
+     * 不可变的地址快照
+     */
+    private static final class AddressSnapshot {
+        
+        static final AddressSnapshot EMPTY = new AddressSnapshot(new EndpointAddress[0], new InstanceState[0], 0L);
+        
+        private final EndpointAddress[] addresses;
+        private final InstanceState[] states;
+        private final List<EndpointAddress> list;
+        private volatile long refreshTime;
+        
+        AddressSnapshot(EndpointAddress[] addresses, InstanceState[] states) {
+            this(addresses, states, System.currentTimeMillis());
+        }
+        
+        private AddressSnapshot(EndpointAddress[] addresses, InstanceState[] states, long refreshTime) {
+            this.addresses = addresses;
+            this.states = states;
+            this.list = Collections.unmodifiableList(Arrays.asList(addresses));
+            this.refreshTime = refreshTime;
+        }
+        
+        /**
+         * 地址未变化，只更新刷新时间，列表引用保持不变
+         */
+        AddressSnapshot touch() {
+            if (this != EMPTY) {
+                refreshTime = System.currentTimeMillis();
+            }
+            return this;
+        }
+        
+        boolean sameInstances(AddressSnapshot other) {
+            return Arrays.equals(states, other.states);
+        }
+    }
+    
+    /**
+     * 实例在快照时刻的状态：地址、协议信息（含权重）、元数据和节点状态，实例对象可能被原地修改，因此复制保存
+     */
+    private record InstanceState(String uri, Map<String, Object> protocolInfo,
+                                 Map<String, Object> metadata, NodeStatus status) {
+        
+        static InstanceState of(ServiceInstance instance, EndpointAddress address) {
+            return new InstanceState(address.toUri(), copy(address.getProtocolSpecificInfo()),
+                    copy(instance.getMetadata()), instance.getStatus());
+        }
+        
+        private static Map<String, Object> copy(Map<String, Object> source) {
+            return source == null || source.isEmpty() ? Map.of() : new HashMap<>(source);
+        }
+    }
+}
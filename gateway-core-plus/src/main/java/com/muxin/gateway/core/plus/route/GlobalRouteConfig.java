@@ -50,6 +50,11 @@ public class GlobalRouteConfig {
     @Builder.Default
     private TimeoutConfig defaultTimeouts = TimeoutConfig.defaultConfig();
     
+    /**
+     * 默认重试配置，为null时未配置重试的路由不重试
+     */
+    private RetryConfig defaultRetries;
+    
     /**
      * 全局元数据
      */
@@ -110,6 +115,11 @@ public class GlobalRouteConfig {
                 routeDefinition.getTimeouts() : defaultTimeouts;
         builder.timeouts(timeouts);
         
+        // 合并重试配置：路由配置优先
+        RetryConfig retries = routeDefinition.getRetries() != null ?
+                routeDefinition.getRetries() : defaultRetries;
+        builder.retries(retries);
+        
         // 合并负载均衡配置：路由级别的负载均衡优先，如果没有则使用默认配置
         LoadBalanceDefinition loadBalance = routeDefinition.getLoadBalance() != null ? 
                 routeDefinition.getLoadBalance() : defaultLoadBalance;
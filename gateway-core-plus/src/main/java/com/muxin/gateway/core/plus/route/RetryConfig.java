@@ -0,0 +1,176 @@
+package com.muxin.gateway.core.plus.route;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 重试配置类，与超时配置并列配置在路由上：
+ * <pre>
+ * retries:
+ *   maxAttempts: 3          # 包含首次请求
+ *   statuses: [502, 503, 504]
+ *   exceptions: [java.net.ConnectException, java.io.IOException]
+ *   methods: [GET, HEAD, OPTIONS, PUT, DELETE]
+ *   backoff: 25ms            # 首次重试的最大退避，之后翻倍，实际退避在[0, 上限)内随机
+ *   maxBackoff: 250ms
+ *   budgetPercent: 20       # 重试和对冲合计不超过请求数的百分比
+ *   budgetBurst: 10
+ * </pre>
+ * 重试优先选择尚未尝试过的端点，重试和退避都计入路由的总超时时间
+ *
+ * @author muxin
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetryConfig {
+
+    /**
+     * 是否启用重试
+     */
+    @Builder.Default
+    private boolean enabled = true;
+
+    /**
+     * 最大尝试次数（包含首次请求）
+     */
+    @Builder.Default
+    private int maxAttempts = 3;
+
+    /**
+     * 可重试的响应状态码
+     */
+    @Builder.Default
+    private List<Integer> statuses = List.of(502, 503, 504);
+
+    /**
+     * 可重试的异常，按类全名或简单类名匹配异常及其父类，检查整个cause链
+     */
+    @Builder.Default
+    private List<String> exceptions = List.of("java.net.ConnectException", "java.io.IOException",
+            "java.util.concurrent.TimeoutException");
+
+    /**
+     * 可重试的请求方法，默认只重试幂等方法
+     */
+    @Builder.Default
+    private List<String> methods = List.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE");
+
+    /**
+     * 首次重试的退避上限
+     */
+    @Builder.Default
+    private Duration backoff = Duration.ofMillis(25);
+
+    /**
+     * 退避上限的最大值
+     */
+    @Builder.Default
+    private Duration maxBackoff = Duration.ofMillis(250);
+
+    /**
+     * 重试预算：重试数占请求数的最大百分比，路由同时开启对冲时与对冲的max-percent取较大值作为共用预算
+     */
+    @Builder.Default
+    private int budgetPercent = 20;
+
+    /**
+     * 重试预算允许的突发重试数，与对冲共用预算时取两者的较大值
+     */
+    @Builder.Default
+    private int budgetBurst = 10;
+
+    // ========== 判断方法 ==========
+
+    /**
+     * 请求方法是否允许重试
+     */
+    public boolean isRetryableMethod(String method) {
+        if (method == null || methods == null) {
+            return false;
+        }
+        for (String candidate : methods) {
+            if (candidate.equalsIgnoreCase(method)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 响应状态码是否允许重试
+     */
+    public boolean isRetryableStatus(int status) {
+        return statuses != null && statuses.contains(status);
+    }
+
+    /**
+     * 异常是否允许重试
+     */
+    public boolean isRetryableException(Throwable error) {
+        if (exceptions == null || exceptions.isEmpty()) {
+            return false;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CompletionException || cause instanceof ExecutionException) {
+                continue;
+            }
+            for (Class<?> type = cause.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+                if (exceptions.contains(type.getName()) || exceptions.contains(type.getSimpleName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 第retry次重试前的退避时间（纳秒）
+     * 指数增长的上限内均匀随机，避免多个网关实例同时重试
+     */
+    public long backoffNanos(int retry) {
+        long base = backoff != null ? backoff.toNanos() : 0;
+        if (base <= 0) {
+            return 0;
+        }
+        long cap = maxBackoff != null ? Math.max(base, maxBackoff.toNanos()) : base;
+        int shift = Math.min(Math.max(retry - 1, 0), 20);
+        // 先与上限比较再移位，配置的退避很大时移位不会溢出
+        long bound = base > cap >> shift ? cap : base << shift;
+        return ThreadLocalRandom.current().nextLong(bound);
+    }
+
+    /**
+     * 验证配置
+     */
+    public void validate() {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("重试最大尝试次数必须大于0");
+        }
+        if (budgetPercent < 0 || budgetPercent > 100) {
+            throw new IllegalArgumentException("重试预算百分比必须在0-100之间");
+        }
+        if (budgetBurst < 0) {
+            throw new IllegalArgumentException("重试预算突发数不能小于0");
+        }
+        if (backoff != null && backoff.isNegative() || maxBackoff != null && maxBackoff.isNegative()) {
+            throw new IllegalArgumentException("重试退避时间不能为负数");
+        }
+    }
+
+    /**
+     * 创建默认重试配置
+     */
+    public static RetryConfig defaultConfig() {
+        return RetryConfig.builder().build();
+    }
+}
@@ -16,6 +16,11 @@ import java.util.Map;
  * @author muxin
  */
 public interface Route {
+
+    /**
+     * 开启流式转发的路由元数据键
+     */
+    String STREAMING_METADATA_KEY = "streaming";
     
     /**
      * 路由ID
@@ -74,6 +79,17 @@ public interface Route {
      */
     Map<String, Object> getMetadata();
     
+    /**
+     * 是否流式转发：请求体和响应体不在内存中聚合，按块在客户端与后端之间转发
+     * 由路由元数据streaming开启，需要检查消息体的路由应保持聚合模式
+     */
+    default boolean isStreaming() {
+        Map<String, Object> metadata = getMetadata();
+        Object streaming = metadata != null ? metadata.get(STREAMING_METADATA_KEY) : null;
+        return streaming instanceof Boolean enabled ? enabled
+                : streaming != null && Boolean.parseBoolean(streaming.toString());
+    }
+
     /**
      * 匹配请求上下文
      */
@@ -136,6 +152,13 @@ public interface Route {
      */
     Duration getCircuitBreakerTimeout();
     
+    /**
+     * 获取重试配置，为null时不重试
+     */
+    default RetryConfig getRetryConfig() {
+        return null;
+    }
+    
     /**
      * 是否启用超时控制
      */
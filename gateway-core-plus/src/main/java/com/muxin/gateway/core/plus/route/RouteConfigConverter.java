@@ -2,6 +2,7 @@ package com.muxin.gateway.core.plus.route;
 
 import com.muxin.gateway.core.plus.message.Protocol;
 import com.muxin.gateway.core.plus.route.filter.*;
+import com.muxin.gateway.core.plus.route.filter.ratelimit.RateLimitFilterFactory;
 import com.muxin.gateway.core.plus.route.loadbalance.LoadBalanceStrategy;
 import com.muxin.gateway.core.plus.route.loadbalance.LoadBalanceStrategyFactory;
 import com.muxin.gateway.core.plus.route.predicate.*;
@@ -78,6 +79,8 @@ public class RouteConfigConverter {
      * 初始化FilterFactory映射
      */
     private void initFilterFactories() {
+        // 注册内置FilterFactory
+        registerFilterFactory(new RateLimitFilterFactory());
         // TODO: 后续可以注册更多内置FilterFactory
         log.info("[RouteConfigConverter] FilterFactory初始化完成，支持的Filter类型: {}", filterFactories.keySet());
     }
@@ -86,7 +89,11 @@ public class RouteConfigConverter {
      * 初始化PredicateFactory映射
      */
     private void initPredicateFactories() {
-        // TODO: 后续可以注册更多内置PredicateFactory
+        // 注册内置PredicateFactory
+        registerPredicateFactory(new PathPredicateFactory());
+        registerPredicateFactory(new MethodPredicateFactory());
+        registerPredicateFactory(new HeaderPredicateFactory());
+
         log.info("[RouteConfigConverter] PredicateFactory初始化完成，支持的Predicate类型: {}", predicateFactories.keySet());
     }
 
@@ -203,6 +210,9 @@ public class RouteConfigConverter {
 
             // 转换超时配置
             TimeoutConfig timeouts = convertTimeouts(config.getTimeouts());
+
+            // 转换重试配置
+            RetryConfig retries = convertRetries(config.getRetries());
             
             // 创建负载均衡策略（支持null配置）
             LoadBalanceStrategy loadBalanceStrategy = LoadBalanceStrategyFactory.createStrategy(
@@ -223,6 +233,7 @@ public class RouteConfigConverter {
                     .loadBalanceStrategy(loadBalanceStrategy)
                     .metadata(config.getMetadata())
                     .timeoutConfig(timeouts)
+                    .retryConfig(retries)
                     .build();
 
             log.debug("[RouteConfigConverter] 成功转换路由: {} (策略: {})", 
@@ -395,6 +406,17 @@ public class RouteConfigConverter {
         return config;
     }
 
+    /**
+     * 转换重试配置，未配置或已禁用时返回null
+     */
+    private RetryConfig convertRetries(RetryConfig config) {
+        if (config == null || !config.isEnabled()) {
+            return null;
+        }
+        config.validate();
+        return config;
+    }
+
     /**
      * 解析时间字符串为Duration
      */
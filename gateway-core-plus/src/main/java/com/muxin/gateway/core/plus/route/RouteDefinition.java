@@ -81,6 +81,11 @@ public class RouteDefinition {
      */
     private TimeoutConfig timeouts;
     
+    /**
+     * 重试配置，不配置时不重试
+     */
+    private RetryConfig retries;
+    
     /**
      * 路由元数据
      */
@@ -153,6 +158,11 @@ public class RouteDefinition {
         // 验证负载均衡配置
         validateLoadBalanceConfig();
         
+        // 验证重试配置
+        if (retries != null) {
+            retries.validate();
+        }
+        
         // 验证协议转换
         if (supportProtocol.needsConversion(service.getSupportProtocol())) {
             validateProtocolConversion();
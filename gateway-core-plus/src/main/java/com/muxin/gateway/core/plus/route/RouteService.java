@@ -6,14 +6,16 @@ import com.muxin.gateway.core.plus.route.service.EndpointAddress;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * 路由目标接口
  * 路由的后端服务目标抽象，负载均衡策略由Route级别管理
+ * 持有订阅或定时任务的实现需要在close中释放，路由被替换或删除时由路由管理器调用
  *
  * @author muxin
  */
-public interface RouteService {
+public interface RouteService extends AutoCloseable {
 
     /**
      * 获取服务定义配置
@@ -43,4 +45,21 @@ public interface RouteService {
      * @return 选择的目标地址
      */
     EndpointAddress selectTarget(RequestContext context, LoadBalanceStrategy loadBalanceStrategy);
+    
+    /**
+     * 注册地址快照监听，注册时先以当前地址回调一次，之后每次地址快照替换时在发布线程上回调
+     * 默认实现地址固定，只回调一次
+     *
+     * @param listener 地址快照监听器
+     */
+    default void addAddressListener(Consumer<List<EndpointAddress>> listener) {
+        listener.accept(getTargetAddresses());
+    }
+    
+    /**
+     * 释放服务持有的资源，默认无需释放
+     */
+    @Override
+    default void close() {
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.muxin.gateway.core.plus.route.filter;
+
+import com.muxin.gateway.core.plus.common.ErrorType;
+
+/**
+ * 过滤器拒绝请求时抛出，按错误类型直接返回错误响应，不再转发到后端
+ * 不记录堆栈，可以预先创建后重复抛出
+ *
+ * @author muxin
+ */
+public class RequestRejectedException extends RuntimeException {
+
+    private final ErrorType errorType;
+
+    public RequestRejectedException(ErrorType errorType, String message) {
+        super(message, null, false, false);
+        this.errorType = errorType;
+    }
+
+    public ErrorType getErrorType() {
+        return errorType;
+    }
+}
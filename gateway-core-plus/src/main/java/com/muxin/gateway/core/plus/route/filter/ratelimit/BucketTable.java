@@ -0,0 +1,68 @@
+package com.muxin.gateway.core.plus.route.filter.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按客户端键保存令牌桶的有界表
+ * <p>
+ * 已补满的桶与新建的桶等价，视为过期直接丢弃，不影响限流结果。插入新键时顺带清理已补满的桶（最多每秒一次），
+ * 表未满时也会清理，不再访问的键不会一直占用内存；表满时新的键共用一个溢出桶：大量不同的键只会争抢同一个桶，不会撑爆内存。
+ * 并发插入时表的大小可能略微超过上限
+ *
+ * @author muxin
+ */
+final class BucketTable {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ConcurrentHashMap<Object, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final double permitsPerSecond;
+    private final int capacity;
+    private final int maxKeys;
+    private final TokenBucket overflow;
+    private final AtomicLong nextSweepAt = new AtomicLong(System.nanoTime());
+
+    BucketTable(double permitsPerSecond, int capacity, int maxKeys) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = capacity;
+        this.maxKeys = maxKeys;
+        this.overflow = new TokenBucket(permitsPerSecond, capacity);
+    }
+
+    /**
+     * 获取键对应的令牌桶，不存在时创建
+     */
+    TokenBucket bucket(Object key) {
+        return bucket(key, System.nanoTime());
+    }
+
+    TokenBucket bucket(Object key, long nowNanos) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        sweepIfDue(nowNanos);
+        if (buckets.size() >= maxKeys) {
+            return overflow;
+        }
+        bucket = new TokenBucket(permitsPerSecond, capacity);
+        TokenBucket existing = buckets.putIfAbsent(key, bucket);
+        return existing != null ? existing : bucket;
+    }
+
+    /**
+     * 距上次清理超过清理间隔时清理已补满的桶，并发插入时只有一个线程执行清理
+     */
+    private void sweepIfDue(long now) {
+        long next = nextSweepAt.get();
+        if (now - next >= 0 && nextSweepAt.compareAndSet(next, now + SWEEP_INTERVAL_NANOS)) {
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+        }
+    }
+
+    int size() {
+        return buckets.size();
+    }
+}
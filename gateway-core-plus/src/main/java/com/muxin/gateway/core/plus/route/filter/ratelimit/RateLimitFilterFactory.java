@@ -0,0 +1,212 @@
+package com.muxin.gateway.core.plus.route.filter.ratelimit;
+
+import com.muxin.gateway.core.plus.common.Constant;
+import com.muxin.gateway.core.plus.common.ErrorType;
+import com.muxin.gateway.core.plus.message.Message;
+import com.muxin.gateway.core.plus.message.Protocol;
+import com.muxin.gateway.core.plus.message.ProtocolEnum;
+import com.muxin.gateway.core.plus.message.ServerExchange;
+import com.muxin.gateway.core.plus.message.http.HttpRequestMessage;
+import com.muxin.gateway.core.plus.route.filter.Filter;
+import com.muxin.gateway.core.plus.route.filter.FilterChain;
+import com.muxin.gateway.core.plus.route.filter.FilterDefinition;
+import com.muxin.gateway.core.plus.route.filter.FilterFactory;
+import com.muxin.gateway.core.plus.route.filter.FilterType;
+import com.muxin.gateway.core.plus.route.filter.RequestRejectedException;
+
+import java.net.InetSocketAddress;
+import java.util.Locale;
+
+/**
+ * 令牌桶限流过滤器工厂
+ * <pre>
+ * filters:
+ *   - type: RATE_LIMIT
+ *     config:
+ *       requests-per-second: 100   # 每秒补充的令牌数，可以是小数，不超过10亿
+ *       burst-capacity: 200        # 桶容量，整数，默认取每秒令牌数
+ *       key-resolver: IP           # ROUTE整个路由共用一个桶；IP按客户端地址；HEADER按请求头，缺少请求头时按客户端地址
+ *       header-name: X-Api-Key     # key-resolver为HEADER时必填
+ *       max-keys: 10000            # 最多保存的客户端桶数
+ * </pre>
+ * 过滤器与路由绑定，每个路由的桶相互独立。超出限流时直接返回429，不选择端点也不占用后端连接
+ *
+ * @author muxin
+ */
+public class RateLimitFilterFactory implements FilterFactory {
+
+    public static final String TYPE = "RATE_LIMIT";
+
+    private static final int DEFAULT_MAX_KEYS = 10000;
+
+    /**
+     * 每秒令牌数上限：令牌间隔最小为1纳秒，更高的速率无法表示
+     */
+    private static final double MAX_PERMITS_PER_SECOND = 1_000_000_000d;
+
+    /**
+     * 预先创建的拒绝异常，限流时重复抛出，不产生额外分配
+     */
+    private static final RequestRejectedException REJECTED =
+            new RequestRejectedException(ErrorType.TOO_MANY_REQUESTS, "请求超出路由限流");
+
+    @Override
+    public Filter createFilter(FilterDefinition definition) {
+        double permitsPerSecond = doubleConfig(definition, "requests-per-second", 0);
+        int capacity = (int) doubleConfig(definition, "burst-capacity", Math.max(1, Math.ceil(permitsPerSecond)));
+        KeyResolver keyResolver = keyResolver(definition);
+        int maxKeys = (int) doubleConfig(definition, "max-keys", DEFAULT_MAX_KEYS);
+        return new RateLimitFilter(definition, keyResolver, definition.getStringConfig("header-name"),
+                permitsPerSecond, capacity, maxKeys);
+    }
+
+    @Override
+    public String getSupportedFilterName() {
+        return TYPE;
+    }
+
+    @Override
+    public void validateConfig(FilterDefinition definition) {
+        double permitsPerSecond = doubleConfig(definition, "requests-per-second", 0);
+        // NaN与任何数比较都为false，这里一并拒绝
+        if (!(permitsPerSecond > 0 && permitsPerSecond <= MAX_PERMITS_PER_SECOND)) {
+            throw new IllegalArgumentException("RATE_LIMIT过滤器的requests-per-second必须大于0且不超过"
+                    + (long) MAX_PERMITS_PER_SECOND + ": " + permitsPerSecond);
+        }
+        validateCount(definition, "burst-capacity");
+        validateCount(definition, "max-keys");
+        String headerName = definition.getStringConfig("header-name");
+        if (keyResolver(definition) == KeyResolver.HEADER && (headerName == null || headerName.isBlank())) {
+            throw new IllegalArgumentException("RATE_LIMIT过滤器按请求头限流时必须配置header-name");
+        }
+    }
+
+    /**
+     * 校验整数配置，取值范围1到Integer.MAX_VALUE，未配置时使用默认值不做校验
+     */
+    private static void validateCount(FilterDefinition definition, String key) {
+        if (definition.getConfigValue(key) == null) {
+            return;
+        }
+        double value = doubleConfig(definition, key, 1);
+        if (!(value >= 1 && value <= Integer.MAX_VALUE && value == Math.rint(value))) {
+            throw new IllegalArgumentException("RATE_LIMIT过滤器的" + key + "必须是1到" + Integer.MAX_VALUE
+                    + "之间的整数: " + value);
+        }
+    }
+
+    private static KeyResolver keyResolver(FilterDefinition definition) {
+        String value = definition.getStringConfig("key-resolver", KeyResolver.IP.name());
+        try {
+            return KeyResolver.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("RATE_LIMIT过滤器不支持的key-resolver: " + value);
+        }
+    }
+
+    private static double doubleConfig(FilterDefinition definition, String key, double defaultValue) {
+        Object value = definition.getConfigValue(key);
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value != null) {
+            try {
+                return Double.parseDouble(value.toString().trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("RATE_LIMIT过滤器的" + key + "不是数字: " + value);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * 限流键的来源
+     */
+    enum KeyResolver {
+        ROUTE, IP, HEADER
+    }
+
+    static class RateLimitFilter implements Filter {
+
+        private final int order;
+        private final boolean enabled;
+        private final KeyResolver keyResolver;
+        private final String headerName;
+
+        /**
+         * 按路由限流时使用的桶
+         */
+        private final TokenBucket routeBucket;
+
+        /**
+         * 按客户端限流时使用的桶表
+         */
+        private final BucketTable clientBuckets;
+
+        RateLimitFilter(FilterDefinition definition, KeyResolver keyResolver, String headerName,
+                        double permitsPerSecond, int capacity, int maxKeys) {
+            this.order = definition.getOrder();
+            this.enabled = definition.isEnabled();
+            this.keyResolver = keyResolver;
+            this.headerName = headerName;
+            if (keyResolver == KeyResolver.ROUTE) {
+                this.routeBucket = new TokenBucket(permitsPerSecond, capacity);
+                this.clientBuckets = null;
+            } else {
+                this.routeBucket = null;
+                this.clientBuckets = new BucketTable(permitsPerSecond, capacity, maxKeys);
+            }
+        }
+
+        @Override
+        public void filter(ServerExchange<? extends Message, ? extends Message> exchange, FilterChain chain) {
+            TokenBucket bucket = routeBucket != null ? routeBucket : clientBuckets.bucket(resolveKey(exchange));
+            if (!bucket.tryAcquire()) {
+                throw REJECTED;
+            }
+            chain.filter(exchange, chain);
+        }
+
+        /**
+         * 解析客户端键：IP地址直接以InetAddress作为键，不生成字符串
+         */
+        private Object resolveKey(ServerExchange<? extends Message, ? extends Message> exchange) {
+            if (keyResolver == KeyResolver.HEADER && exchange.request() instanceof HttpRequestMessage request) {
+                String value = request.headers().get(headerName);
+                if (value != null) {
+                    return value;
+                }
+            }
+            Object address = exchange.getAttribute(Constant.CLIENT_ADDRESS);
+            if (address instanceof InetSocketAddress socketAddress) {
+                return socketAddress.getAddress() != null ? socketAddress.getAddress() : socketAddress.getHostString();
+            }
+            return address != null ? address : "";
+        }
+
+        @Override
+        public String getName() {
+            return TYPE;
+        }
+
+        @Override
+        public FilterType getType() {
+            return FilterType.PRE;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        @Override
+        public Protocol getSupportedProtocol() {
+            return ProtocolEnum.HTTP;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.muxin.gateway.core.plus.route.filter.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶
+ * <p>
+ * 不保存令牌数，只保存一个时间戳{@code emptyAt}：桶在这个时刻为空，之后按速率补充，
+ * 当前令牌数为{@code min(容量, (now - emptyAt) / 令牌间隔)}。取令牌时把时间戳后移一个令牌间隔，
+ * 一次CAS完成补充和扣减，不需要定时任务补充令牌
+ *
+ * @author muxin
+ */
+public final class TokenBucket {
+
+    /**
+     * 令牌间隔和补满时间的上限（约73年），速率极低或容量极大时截断，避免乘法溢出和时间戳运算回绕
+     */
+    private static final long MAX_SPAN_NANOS = Long.MAX_VALUE / 4;
+
+    /**
+     * 生成一个令牌的时间间隔（纳秒）
+     */
+    private final long intervalNanos;
+
+    /**
+     * 桶从空到满需要的时间（纳秒）
+     */
+    private final long capacityNanos;
+
+    private final AtomicLong emptyAt;
+
+    /**
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @param capacity         桶容量，即允许的突发请求数
+     */
+    public TokenBucket(double permitsPerSecond, int capacity) {
+        if (!(permitsPerSecond > 0) || capacity < 1) {
+            throw new IllegalArgumentException("令牌桶速率和容量必须大于0");
+        }
+        long interval = Math.round(TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.intervalNanos = Math.min(MAX_SPAN_NANOS, Math.max(1L, interval));
+        this.capacityNanos = intervalNanos > MAX_SPAN_NANOS / capacity ? MAX_SPAN_NANOS : intervalNanos * capacity;
+        // 初始为满桶
+        this.emptyAt = new AtomicLong(System.nanoTime() - capacityNanos);
+    }
+
+    /**
+     * 取一个令牌
+     *
+     * @return 桶内没有令牌时返回false
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    boolean tryAcquire(long nowNanos) {
+        for (;;) {
+            long current = emptyAt.get();
+            // 桶已满时多出的时间不累积令牌，按差值比较，nanoTime回绕时仍然正确
+            long fullAt = nowNanos - capacityNanos;
+            long next = (current - fullAt > 0 ? current : fullAt) + intervalNanos;
+            if (next - nowNanos > 0) {
+                return false;
+            }
+            if (emptyAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 桶是否已补满，补满的桶与新建的桶没有区别，可以直接丢弃
+     */
+    public boolean isFull(long nowNanos) {
+        return nowNanos - emptyAt.get() >= capacityNanos;
+    }
+}
@@ -21,6 +21,11 @@ public class LeastConnectionsLoadBalanceStrategy extends LoadBalanceStrategy {
     private static final String STRATEGY_NAME = "LEAST_CONNECTIONS";
     private static final String DESCRIPTION = "最少连接负载均衡，选择连接数最少的地址";
     
+    /**
+     * 请求上下文中保存选中地址的属性名，请求完成时据此减少连接计数
+     */
+    private static final String SELECTED_ADDRESS_ATTRIBUTE = LeastConnectionsLoadBalanceStrategy.class.getName() + ".selected";
+    
     private final ConcurrentHashMap<String, AtomicInteger> connectionCounts = new ConcurrentHashMap<>();
     
     /**
@@ -41,8 +46,11 @@ public class LeastConnectionsLoadBalanceStrategy extends LoadBalanceStrategy {
         // 选择连接数最少的地址
         EndpointAddress selected = selectLeastConnections(addresses);
         
-        // 增加连接计数
+        // 增加连接计数，请求完成时通过onComplete减少
         incrementConnectionCount(selected);
+        if (context != null) {
+            context.setAttribute(SELECTED_ADDRESS_ATTRIBUTE, selected);
+        }
         
         log.debug("最少连接选择地址: {} (当前连接数: {})", 
                 selected.toUri(), getConnectionCount(selected));
@@ -75,6 +83,15 @@ public class LeastConnectionsLoadBalanceStrategy extends LoadBalanceStrategy {
         connectionCounts.computeIfAbsent(key, k -> new AtomicInteger(0)).incrementAndGet();
     }
     
+    @Override
+    public void onComplete(RequestContext context, Throwable error) {
+        // 移除属性保证同一请求只减少一次
+        Object selected = context.getAttributes().remove(SELECTED_ADDRESS_ATTRIBUTE);
+        if (selected instanceof EndpointAddress address) {
+            decrementConnectionCount(address);
+        }
+    }
+    
     /**
      * 减少连接计数（当连接关闭时调用）
      */
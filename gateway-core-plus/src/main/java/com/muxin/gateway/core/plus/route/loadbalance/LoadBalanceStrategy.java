@@ -1,8 +1,11 @@
 package com.muxin.gateway.core.plus.route.loadbalance;
 
+import com.muxin.gateway.core.plus.health.EndpointStateTable;
 import com.muxin.gateway.core.plus.route.RequestContext;
 import com.muxin.gateway.core.plus.route.service.EndpointAddress;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -19,6 +22,16 @@ public abstract class LoadBalanceStrategy {
      */
     protected final LoadBalanceDefinition definition;
     
+    /**
+     * 端点状态表，选择地址前跳过其中被摘除的端点
+     */
+    private volatile EndpointStateTable endpointStates = EndpointStateTable.shared();
+    
+    /**
+     * 最近一次过滤结果，地址列表和状态表版本都未变化时复用，保证过滤后列表的引用稳定
+     */
+    private volatile AvailableView availableView;
+    
     /**
      * 构造函数
      * @param definition 负载均衡定义，不能为空
@@ -44,6 +57,93 @@ public abstract class LoadBalanceStrategy {
      */
     public abstract EndpointAddress select(List<EndpointAddress> addresses, RequestContext context);
     
+    /**
+     * 跳过被摘除的端点后选择目标地址，路由服务应通过此方法选择地址
+     * 全部地址都被摘除时不做过滤，仍从全部地址中选择
+     *
+     * @param addresses 服务的全部地址
+     * @param context   请求上下文
+     * @return 选中的目标地址
+     */
+    public EndpointAddress selectAvailable(List<EndpointAddress> addresses, RequestContext context) {
+        return select(availableAddresses(addresses), context);
+    }
+    
+    /**
+     * 过滤被摘除的端点，没有端点被摘除时直接返回原列表，不产生分配
+     */
+    protected List<EndpointAddress> availableAddresses(List<EndpointAddress> addresses) {
+        EndpointStateTable table = endpointStates;
+        if (addresses == null || addresses.isEmpty() || table.ejectedCount() == 0) {
+            return addresses;
+        }
+        long now = System.nanoTime();
+        long version = table.version();
+        AvailableView view = availableView;
+        if (view != null && view.source == addresses && view.version == version && now - view.expiresAt < 0) {
+            return view.available;
+        }
+        
+        List<EndpointAddress> available = new ArrayList<>(addresses.size());
+        long expiresAt = now + Long.MAX_VALUE / 2;
+        for (EndpointAddress address : addresses) {
+            long ejectedUntil = table.ejectedUntil(address, now);
+            if (ejectedUntil == 0) {
+                available.add(address);
+            } else if (ejectedUntil - expiresAt < 0) {
+                expiresAt = ejectedUntil;
+            }
+        }
+        if (available.size() == addresses.size() || available.isEmpty()) {
+            available = addresses;
+        } else {
+            available = Collections.unmodifiableList(available);
+        }
+        availableView = new AvailableView(addresses, version, expiresAt, available);
+        return available;
+    }
+    
+    /**
+     * 设置端点状态表，默认使用网关共享的状态表
+     */
+    public void setEndpointStates(EndpointStateTable endpointStates) {
+        this.endpointStates = Objects.requireNonNull(endpointStates, "EndpointStateTable不能为空");
+        this.availableView = null;
+    }
+    
+    /**
+     * 地址快照发布回调，路由创建时和服务地址快照替换时在发布线程上调用
+     * 需要按地址列表预先计算选择状态的策略覆盖此方法，避免在请求线程上计算
+     *
+     * @param addresses 新发布的地址列表
+     */
+    public void onAddressesChanged(List<EndpointAddress> addresses) {
+        // 默认实现：无操作
+    }
+    
+    /**
+     * 后端响应回调，后端调用（{@code ClientConnection.send}）完成或流式转发收到响应头时由网关处理器调用
+     * 需要按响应时间选择地址的策略覆盖此方法
+     *
+     * @param context      请求上下文
+     * @param latencyNanos 从发出请求到收到响应（或失败）的耗时，纳秒
+     * @param error        后端调用失败时的异常，成功时为null
+     */
+    public void onResponse(RequestContext context, long latencyNanos, Throwable error) {
+        // 默认实现：无操作
+    }
+    
+    /**
+     * 请求完成回调，请求结束（成功或失败）时由网关处理器调用
+     * 需要跟踪在途请求或响应时间的策略覆盖此方法，实现需保证同一请求重复调用无副作用
+     *
+     * @param context 请求上下文
+     * @param error   请求失败时的异常，成功时为null
+     */
+    public void onComplete(RequestContext context, Throwable error) {
+        // 默认实现：无操作
+    }
+    
     /**
      * 获取策略名称
      *
@@ -107,4 +207,16 @@ public abstract class LoadBalanceStrategy {
         }
         return defaultValue;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 过滤后的地址列表
+     *
+     * @param source    过滤前的地址列表
+     * @param version   过滤时的状态表版本
+     * @param expiresAt 最早到期的摘除时间，到期后重新过滤
+     * @param available 过滤后的地址列表
+     */
+    private record AvailableView(List<EndpointAddress> source, long version, long expiresAt,
+                                 List<EndpointAddress> available) {
+    }
+}
@@ -61,6 +61,11 @@ public class LoadBalanceStrategyFactory {
                     return new WeightedRoundRobinLoadBalanceStrategy(definition);
                 case "LEAST_CONNECTIONS":
                     return new LeastConnectionsLoadBalanceStrategy(definition);
+                case "POWER_OF_TWO_CHOICES":
+                case "P2C":
+                    return new PowerOfTwoChoicesLoadBalanceStrategy(definition);
+                case "PEAK_EWMA":
+                    return new PeakEwmaLoadBalanceStrategy(definition);
                 default:
                     log.warn("未知的负载均衡策略: {}, 使用默认策略: {}", strategyName, DEFAULT_STRATEGY);
                     // 创建默认策略，但保持原有的definition配置
@@ -128,7 +133,10 @@ public class LoadBalanceStrategyFactory {
         return "ROUND_ROBIN".equals(upperName) ||
                "RANDOM".equals(upperName) ||
                "WEIGHTED_ROUND_ROBIN".equals(upperName) ||
-               "LEAST_CONNECTIONS".equals(upperName);
+               "LEAST_CONNECTIONS".equals(upperName) ||
+               "POWER_OF_TWO_CHOICES".equals(upperName) ||
+               "P2C".equals(upperName) ||
+               "PEAK_EWMA".equals(upperName);
     }
     
     /**
@@ -139,7 +147,9 @@ public class LoadBalanceStrategyFactory {
             "ROUND_ROBIN",
             "RANDOM", 
             "WEIGHTED_ROUND_ROBIN",
-            "LEAST_CONNECTIONS"
+            "LEAST_CONNECTIONS",
+            "POWER_OF_TWO_CHOICES",
+            "PEAK_EWMA"
         };
     }
     
@@ -160,6 +170,11 @@ public class LoadBalanceStrategyFactory {
                 return "加权轮询负载均衡，根据权重选择地址";
             case "LEAST_CONNECTIONS":
                 return "最少连接负载均衡，选择连接数最少的地址";
+            case "POWER_OF_TWO_CHOICES":
+            case "P2C":
+                return "二选一最少请求负载均衡，随机抽取两个地址选择在途请求较少的一个";
+            case "PEAK_EWMA":
+                return "Peak-EWMA负载均衡，按响应延迟与在途请求数选择代价较低的地址";
             default:
                 return "未知策略: " + strategyName;
         }
@@ -0,0 +1,267 @@
+package com.muxin.gateway.core.plus.route.loadbalance;
+
+import com.muxin.gateway.core.plus.route.RequestContext;
+import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Peak-EWMA负载均衡策略
+ * 每个地址维护对峰值敏感的响应延迟指数加权移动平均：新样本高于当前值时直接取新样本，
+ * 否则按距上次更新的时间衰减后平滑；地址代价为延迟均值乘以(在途请求数 + 1)，
+ * 随机抽取两个地址选择代价较低的一个（Power of Two Choices）
+ * <p>
+ * 延迟均值与更新时间打包在一个long中以CAS更新，选择路径无锁
+ *
+ * @author muxin
+ */
+@Slf4j
+public class PeakEwmaLoadBalanceStrategy extends LoadBalanceStrategy {
+    
+    private static final String STRATEGY_NAME = "PEAK_EWMA";
+    private static final String DESCRIPTION = "Peak-EWMA负载均衡，按响应延迟与在途请求数选择代价较低的地址";
+    
+    /**
+     * 请求上下文中保存选中地址统计信息的属性名
+     */
+    private static final String STATS_ATTRIBUTE = PeakEwmaLoadBalanceStrategy.class.getName() + ".stats";
+    
+    /**
+     * 每个地址的延迟统计，以toUri()为键
+     */
+    private final ConcurrentHashMap<String, EndpointStats> endpointStats = new ConcurrentHashMap<>();
+    
+    /**
+     * 衰减时间常数（毫秒），越大历史延迟影响越久
+     */
+    private final double decayMillis;
+    
+    /**
+     * 新地址的初始延迟（微秒）
+     */
+    private final float initialLatencyMicros;
+    
+    /**
+     * 请求失败时计入的最小延迟（微秒），避免快速失败的地址显得更快
+     */
+    private final float errorPenaltyMicros;
+    
+    /**
+     * 时间戳基准，统计中只保存相对毫秒数
+     */
+    private final long epochNanos = System.nanoTime();
+    
+    /**
+     * 构造函数
+     * @param definition 负载均衡定义
+     */
+    public PeakEwmaLoadBalanceStrategy(LoadBalanceDefinition definition) {
+        super(definition);
+        this.decayMillis = Math.max(1, getConfigValue("decay-time", 10000));
+        this.initialLatencyMicros = TimeUnit.MILLISECONDS.toMicros(Math.max(0, getConfigValue("initial-latency", 100)));
+        this.errorPenaltyMicros = TimeUnit.MILLISECONDS.toMicros(Math.max(0, getConfigValue("error-penalty", 1000)));
+        log.debug("创建Peak-EWMA负载均衡策略，策略配置: {}, 衰减时间: {}ms", definition.getStrategy(), decayMillis);
+    }
+    
+    @Override
+    public EndpointAddress select(List<EndpointAddress> addresses, RequestContext context) {
+        if (addresses == null || addresses.isEmpty()) {
+            throw new IllegalArgumentException("地址列表不能为空");
+        }
+        
+        EndpointAddress selected;
+        EndpointStats stats;
+        int size = addresses.size();
+        if (size == 1) {
+            selected = addresses.get(0);
+            stats = statsOf(selected);
+        } else {
+            // 随机抽取两个不同的地址，选择代价较低的一个
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+                second++;
+            }
+            EndpointAddress a = addresses.get(first);
+            EndpointAddress b = addresses.get(second);
+            EndpointStats statsA = statsOf(a);
+            EndpointStats statsB = statsOf(b);
+            int now = now();
+            if (statsB.cost(now) < statsA.cost(now)) {
+                selected = b;
+                stats = statsB;
+            } else {
+                selected = a;
+                stats = statsA;
+            }
+        }
+        
+        // 增加在途计数，请求完成时通过onComplete减少
+        stats.pending.incrementAndGet();
+        if (context != null) {
+            context.setAttribute(STATS_ATTRIBUTE, stats);
+        }
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Peak-EWMA选择地址: {} (延迟均值: {}us, 在途请求数: {})", 
+                    selected.toUri(), stats.latencyMicros(now()), stats.pending.get());
+        }
+        return selected;
+    }
+    
+    @Override
+    public void onResponse(RequestContext context, long latencyNanos, Throwable error) {
+        Object stats = context.getAttribute(STATS_ATTRIBUTE);
+        if (stats instanceof EndpointStats endpoint) {
+            float latencyMicros = latencyNanos / 1000f;
+            if (error != null) {
+                latencyMicros = Math.max(latencyMicros, errorPenaltyMicros);
+            }
+            endpoint.observe(latencyMicros, now());
+        }
+    }
+    
+    @Override
+    public void onComplete(RequestContext context, Throwable error) {
+        // 移除属性保证同一请求只减少一次
+        Object stats = context.getAttributes().remove(STATS_ATTRIBUTE);
+        if (stats instanceof EndpointStats endpoint) {
+            endpoint.pending.decrementAndGet();
+        }
+    }
+    
+    private EndpointStats statsOf(EndpointAddress address) {
+        EndpointStats stats = endpointStats.get(address.toUri());
+        if (stats == null) {
+            stats = endpointStats.computeIfAbsent(address.toUri(), k -> new EndpointStats(initialLatencyMicros, now()));
+        }
+        return stats;
+    }
+    
+    /**
+     * 相对基准的毫秒数，按无符号32位回绕
+     */
+    private int now() {
+        return (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - epochNanos);
+    }
+    
+    /**
+     * 获取所有地址的延迟均值（微秒）
+     */
+    public Map<String, Float> getLatencies() {
+        Map<String, Float> result = new ConcurrentHashMap<>();
+        int now = now();
+        endpointStats.forEach((key, value) -> result.put(key, value.latencyMicros(now)));
+        return result;
+    }
+    
+    /**
+     * 清理已下线地址的统计（只清理没有在途请求的地址）
+     */
+    public void cleanupInvalidAddresses(List<EndpointAddress> validAddresses) {
+        java.util.Set<String> validUris = new java.util.HashSet<>();
+        if (validAddresses != null) {
+            validAddresses.forEach(addr -> validUris.add(addr.toUri()));
+        }
+        endpointStats.entrySet().removeIf(entry -> 
+                !validUris.contains(entry.getKey()) && entry.getValue().pending.get() <= 0);
+    }
+    
+    @Override
+    public String getStrategyName() {
+        return STRATEGY_NAME;
+    }
+    
+    @Override
+    public String getDescription() {
+        return DESCRIPTION;
+    }
+    
+    @Override
+    public boolean isStateful() {
+        return true; // 有延迟统计和在途请求计数状态
+    }
+    
+    @Override
+    public void reset() {
+        endpointStats.clear();
+        log.debug("Peak-EWMA策略状态已重置");
+    }
+    
+    /**
+     * 单个地址的延迟统计
+     * 高32位为延迟均值（微秒，float位表示），低32位为最后更新时间（相对毫秒）
+     */
+    private final class EndpointStats {
+        
+        private final AtomicLong state;
+        private final AtomicInteger pending = new AtomicInteger(0);
+        
+        EndpointStats(float latencyMicros, int now) {
+            this.state = new AtomicLong(pack(latencyMicros, now));
+        }
+        
+        /**
+         * 记录一次响应延迟
+         */
+        void observe(float latencyMicros, int now) {
+            while (true) {
+                long current = state.get();
+                float ewma = Float.intBitsToFloat((int) (current >>> 32));
+                float updated;
+                if (latencyMicros > ewma) {
+                    // 峰值敏感：延迟升高时立即生效
+                    updated = latencyMicros;
+                } else {
+                    double w = weight(elapsed(current, now));
+                    updated = (float) (ewma * w + latencyMicros * (1 - w));
+                }
+                if (state.compareAndSet(current, pack(updated, now))) {
+                    return;
+                }
+            }
+        }
+        
+        /**
+         * 当前延迟均值，距上次更新越久越向0衰减，避免偶发高延迟的地址长期得不到流量
+         */
+        float latencyMicros(int now) {
+            long current = state.get();
+            float ewma = Float.intBitsToFloat((int) (current >>> 32));
+            return (float) (ewma * weight(elapsed(current, now)));
+        }
+        
+        /**
+         * 代价 = 延迟均值 * (在途请求数 + 1)
+         */
+        double cost(int now) {
+            return (double) latencyMicros(now) * (pending.get() + 1);
+        }
+        
+        private double weight(long elapsedMillis) {
+            return Math.exp(-elapsedMillis / decayMillis);
+        }
+        
+        private static long elapsed(long state, int now) {
+            return (now - (int) state) & 0xFFFFFFFFL;
+        }
+        
+        private static long pack(float latencyMicros, int now) {
+            return ((long) Float.floatToRawIntBits(latencyMicros) << 32) | (now & 0xFFFFFFFFL);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("PeakEwmaLoadBalanceStrategy{strategy='%s', trackedAddresses=%d, decayTime=%.0fms}", 
+                getStrategyName(), endpointStats.size(), decayMillis);
+    }
+}
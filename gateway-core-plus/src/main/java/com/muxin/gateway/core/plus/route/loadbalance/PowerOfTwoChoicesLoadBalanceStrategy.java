@@ -0,0 +1,155 @@
+package com.muxin.gateway.core.plus.route.loadbalance;
+
+import com.muxin.gateway.core.plus.route.RequestContext;
+import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 二选一最少请求负载均衡策略（Power of Two Choices）
+ * 随机抽取两个地址，选择在途请求数较少的一个；在途请求数在选择时加一，请求完成时减一
+ * <p>
+ * 选择的开销与地址数量无关，负载分布接近全量扫描的最少连接
+ *
+ * @author muxin
+ */
+@Slf4j
+public class PowerOfTwoChoicesLoadBalanceStrategy extends LoadBalanceStrategy {
+    
+    private static final String STRATEGY_NAME = "POWER_OF_TWO_CHOICES";
+    private static final String DESCRIPTION = "二选一最少请求负载均衡，随机抽取两个地址选择在途请求较少的一个";
+    
+    /**
+     * 请求上下文中保存选中地址在途计数器的属性名
+     */
+    private static final String IN_FLIGHT_ATTRIBUTE = PowerOfTwoChoicesLoadBalanceStrategy.class.getName() + ".inFlight";
+    
+    /**
+     * 每个地址的在途请求数，以toUri()为键
+     */
+    private final ConcurrentHashMap<String, AtomicInteger> inFlightCounts = new ConcurrentHashMap<>();
+    
+    /**
+     * 构造函数
+     * @param definition 负载均衡定义
+     */
+    public PowerOfTwoChoicesLoadBalanceStrategy(LoadBalanceDefinition definition) {
+        super(definition);
+        log.debug("创建二选一最少请求负载均衡策略，策略配置: {}", definition.getStrategy());
+    }
+    
+    @Override
+    public EndpointAddress select(List<EndpointAddress> addresses, RequestContext context) {
+        if (addresses == null || addresses.isEmpty()) {
+            throw new IllegalArgumentException("地址列表不能为空");
+        }
+        
+        EndpointAddress selected;
+        AtomicInteger counter;
+        int size = addresses.size();
+        if (size == 1) {
+            selected = addresses.get(0);
+            counter = counterOf(selected);
+        } else {
+            // 随机抽取两个不同的地址
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+                second++;
+            }
+            EndpointAddress a = addresses.get(first);
+            EndpointAddress b = addresses.get(second);
+            AtomicInteger countA = counterOf(a);
+            AtomicInteger countB = counterOf(b);
+            if (countB.get() < countA.get()) {
+                selected = b;
+                counter = countB;
+            } else {
+                selected = a;
+                counter = countA;
+            }
+        }
+        
+        // 增加在途计数，请求完成时通过onComplete减少
+        counter.incrementAndGet();
+        if (context != null) {
+            context.setAttribute(IN_FLIGHT_ATTRIBUTE, counter);
+        }
+        
+        if (log.isDebugEnabled()) {
+            log.debug("二选一选择地址: {} (在途请求数: {})", selected.toUri(), counter.get());
+        }
+        return selected;
+    }
+    
+    @Override
+    public void onComplete(RequestContext context, Throwable error) {
+        // 移除属性保证同一请求只减少一次
+        Object counter = context.getAttributes().remove(IN_FLIGHT_ATTRIBUTE);
+        if (counter instanceof AtomicInteger inFlight) {
+            inFlight.decrementAndGet();
+        }
+    }
+    
+    private AtomicInteger counterOf(EndpointAddress address) {
+        AtomicInteger counter = inFlightCounts.get(address.toUri());
+        if (counter == null) {
+            counter = inFlightCounts.computeIfAbsent(address.toUri(), k -> new AtomicInteger(0));
+        }
+        return counter;
+    }
+    
+    /**
+     * 获取所有地址的在途请求数
+     */
+    public Map<String, Integer> getInFlightCounts() {
+        Map<String, Integer> result = new ConcurrentHashMap<>();
+        inFlightCounts.forEach((key, value) -> result.put(key, value.get()));
+        return result;
+    }
+    
+    /**
+     * 清理已下线地址的计数（只清理没有在途请求的地址）
+     */
+    public void cleanupInvalidAddresses(List<EndpointAddress> validAddresses) {
+        java.util.Set<String> validUris = new java.util.HashSet<>();
+        if (validAddresses != null) {
+            validAddresses.forEach(addr -> validUris.add(addr.toUri()));
+        }
+        inFlightCounts.entrySet().removeIf(entry -> 
+                !validUris.contains(entry.getKey()) && entry.getValue().get() <= 0);
+    }
+    
+    @Override
+    public String getStrategyName() {
+        return STRATEGY_NAME;
+    }
+    
+    @Override
+    public String getDescription() {
+        return DESCRIPTION;
+    }
+    
+    @Override
+    public boolean isStateful() {
+        return true; // 有在途请求计数状态
+    }
+    
+    @Override
+    public void reset() {
+        inFlightCounts.clear();
+        log.debug("二选一最少请求策略状态已重置");
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("PowerOfTwoChoicesLoadBalanceStrategy{strategy='%s', trackedAddresses=%d}", 
+                getStrategyName(), inFlightCounts.size());
+    }
+}
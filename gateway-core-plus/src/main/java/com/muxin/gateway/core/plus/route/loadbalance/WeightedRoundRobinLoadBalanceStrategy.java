@@ -7,6 +7,12 @@ import lombok.extern.slf4j.Slf4j;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
 
 
 /**
@@ -21,9 +27,47 @@ public class WeightedRoundRobinLoadBalanceStrategy extends LoadBalanceStrategy {
     private static final String STRATEGY_NAME = "WEIGHTED_ROUND_ROBIN";
     private static final String DESCRIPTION = "加权轮询负载均衡，根据权重选择地址";
     
-    private final ConcurrentHashMap<String, WeightedNode> weightedNodes = new ConcurrentHashMap<>();
+    /**
+     * 调度表长度上限，总权重超过时按比例缩减权重
+     */
+    private static final int MAX_SCHEDULE_LENGTH = 1 << 16;
+    
+    /**
+     * 每个策略缓存的摘除后调度表数量上限，超过时清空重建
+     */
+    private static final int MAX_FILTERED_SCHEDULES = 8;
+    
+    /**
+     * 所有加权轮询策略共用的调度表构建线程，不占用公共ForkJoinPool
+     */
+    private static final ExecutorService SCHEDULE_BUILDER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "wrr-schedule-builder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
     private final boolean smoothWeighted;
     
+    private final AtomicInteger counter = new AtomicInteger(0);
+    
+    /**
+     * 服务发布的地址列表对应的调度表，在地址快照发布线程上构建
+     */
+    private volatile Schedule schedule;
+    
+    /**
+     * 最近一次使用的摘除部分端点后的调度表
+     */
+    private volatile Schedule filteredSchedule;
+    
+    /**
+     * 按摘除后剩余的地址列表缓存的调度表，在后台线程上构建；
+     * 端点反复摘除和恢复时地址列表在几种组合间切换，直接复用已构建的调度表。发布新地址时清空
+     */
+    private final Map<List<EndpointAddress>, Schedule> filteredSchedules = new ConcurrentHashMap<>();
+    
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    
     /**
      * 构造函数
      * @param definition 负载均衡定义
@@ -36,90 +80,110 @@ public class WeightedRoundRobinLoadBalanceStrategy extends LoadBalanceStrategy {
                 definition.getStrategy(), smoothWeighted);
     }
     
+    /**
+     * 地址快照发布时构建调度表，请求线程不再承担O(总权重 × 地址数)的构建开销
+     */
+    @Override
+    public void onAddressesChanged(List<EndpointAddress> addresses) {
+        if (addresses == null || addresses.isEmpty()) {
+            return;
+        }
+        Schedule current = schedule;
+        if (current != null && current.matches(addresses)) {
+            return;
+        }
+        Schedule built = Schedule.build(addresses, this::getWeight, smoothWeighted);
+        schedule = built;
+        filteredSchedule = null;
+        filteredSchedules.clear();
+        log.debug("重建加权轮询调度表: {} 个地址, 调度表长度: {}", addresses.size(), built.sequence.length);
+    }
+    
     @Override
     public EndpointAddress select(List<EndpointAddress> addresses, RequestContext context) {
         if (addresses == null || addresses.isEmpty()) {
             throw new IllegalArgumentException("地址列表不能为空");
         }
         
-        // 更新权重节点
-        updateWeightedNodes(addresses);
+        Schedule current = schedule;
+        if (current == null || !current.matches(addresses)) {
+            current = filteredSchedule;
+            if (current == null || !current.matches(addresses)) {
+                // 地址列表元素没有重写equals，按引用逐个比较
+                current = filteredSchedules.get(addresses);
+                if (current == null) {
+                    // 这组地址（如部分端点被摘除）还没有调度表，后台构建，本次按权重区间选择
+                    rebuildAsync(addresses);
+                    return selectByWeight(addresses);
+                }
+                filteredSchedule = current;
+            }
+        }
         
-        // 平滑加权轮询算法
-        EndpointAddress selected = selectByWeight(addresses);
+        // 按调度表顺序选择，无锁
+        int position = (counter.getAndIncrement() & Integer.MAX_VALUE) % current.sequence.length;
+        EndpointAddress selected = current.addresses[current.sequence[position]];
         
-        log.debug("加权轮询选择地址: {} (权重: {})", 
-                selected.toUri(), getWeight(selected));
+        if (log.isDebugEnabled()) {
+            log.debug("加权轮询选择地址: {} (权重: {})", selected.toUri(), getWeight(selected));
+        }
         return selected;
     }
     
     /**
-     * 更新权重节点信息
+     * 调度表未就绪时的选择：计数器对总权重取模后落在哪个地址的权重区间就选哪个，O(地址数)且不分配
      */
-    private void updateWeightedNodes(List<EndpointAddress> addresses) {
+    private EndpointAddress selectByWeight(List<EndpointAddress> addresses) {
+        long totalWeight = 0;
         for (EndpointAddress address : addresses) {
-            String key = address.toUri();
-            
-            // 如果节点不存在，则创建新节点
-            if (!weightedNodes.containsKey(key)) {
-                int weight = getWeight(address);
-                WeightedNode node = new WeightedNode(address, weight, 0);
-                weightedNodes.put(key, node);
-                
-                log.debug("添加权重节点: {} (权重: {})", key, weight);
-            }
+            totalWeight += getWeight(address);
         }
-        
-        // 清理已删除的地址对应的节点
-        weightedNodes.entrySet().removeIf(entry -> {
-            String key = entry.getKey();
-            boolean exists = addresses.stream()
-                    .anyMatch(addr -> addr.toUri().equals(key));
-            
-            if (!exists) {
-                log.debug("移除权重节点: {}", key);
+        long position = (counter.getAndIncrement() & Integer.MAX_VALUE) % totalWeight;
+        for (EndpointAddress address : addresses) {
+            position -= getWeight(address);
+            if (position < 0) {
+                return address;
             }
-            
-            return !exists;
-        });
+        }
+        return addresses.get(addresses.size() - 1);
     }
     
     /**
-     * 根据权重选择地址（平滑加权轮询算法）
+     * 在构建线程上为当前地址列表构建调度表并缓存，同一时间只有一个构建任务
      */
-    private EndpointAddress selectByWeight(List<EndpointAddress> addresses) {
-        synchronized (this) {
-            int totalWeight = 0;
-            WeightedNode maxWeightNode = null;
-            
-            // 找到当前权重最大的节点，并计算总权重
-            for (EndpointAddress address : addresses) {
-                WeightedNode node = weightedNodes.get(address.toUri());
-                if (node != null) {
-                    // 增加当前权重
-                    node.increaseCurrent();
-                    totalWeight += node.getWeight();
-                    
-                    // 找到当前权重最大的节点
-                    if (maxWeightNode == null || node.getCurrentWeight() > maxWeightNode.getCurrentWeight()) {
-                        maxWeightNode = node;
+    private void rebuildAsync(List<EndpointAddress> addresses) {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        List<EndpointAddress> source = List.copyOf(addresses);
+        try {
+            SCHEDULE_BUILDER.execute(() -> {
+                try {
+                    Schedule built = Schedule.build(source, this::getWeight, smoothWeighted);
+                    if (filteredSchedules.size() >= MAX_FILTERED_SCHEDULES) {
+                        filteredSchedules.clear();
                     }
+                    filteredSchedules.put(source, built);
+                    filteredSchedule = built;
+                    log.debug("后台重建加权轮询调度表: {} 个地址", source.size());
+                } catch (Exception e) {
+                    log.warn("后台重建加权轮询调度表失败", e);
+                } finally {
+                    rebuilding.set(false);
                 }
-            }
-            
-            if (maxWeightNode == null) {
-                // 降级处理：如果没有权重信息，使用第一个地址
-                log.warn("未找到权重节点，使用第一个地址");
-                return addresses.get(0);
-            }
-            
-            // 减少选中节点的当前权重
-            maxWeightNode.decreaseCurrent(totalWeight);
-            
-            return maxWeightNode.getAddress();
+            });
+        } catch (RejectedExecutionException e) {
+            rebuilding.set(false);
         }
     }
     
+    /**
+     * 已缓存的摘除后调度表数量
+     */
+    int filteredScheduleCount() {
+        return filteredSchedules.size();
+    }
+    
     /**
      * 获取地址权重（从协议特定信息中获取）
      */
@@ -162,56 +226,126 @@ public class WeightedRoundRobinLoadBalanceStrategy extends LoadBalanceStrategy {
     
     @Override
     public void reset() {
-        synchronized (this) {
-            weightedNodes.clear();
-            log.debug("加权轮询策略状态已重置");
-        }
+        // 发布时构建的调度表只取决于地址列表，保留
+        filteredSchedule = null;
+        filteredSchedules.clear();
+        counter.set(0);
+        log.debug("加权轮询策略状态已重置");
     }
     
     /**
-     * 权重节点内部类
+     * 预计算的加权轮询调度表（不可变）
+     * 一个调度周期内按平滑加权轮询算法依次选出的地址下标，长度为总权重
      */
-    private static class WeightedNode {
-        private final EndpointAddress address;
-        private final int weight;
-        private int currentWeight;
-        
-        public WeightedNode(EndpointAddress address, int weight, int currentWeight) {
-            this.address = address;
-            this.weight = weight;
-            this.currentWeight = currentWeight;
-        }
-        
-        public EndpointAddress getAddress() {
-            return address;
-        }
+    private static final class Schedule {
+        /**
+         * 构建时的地址列表，用于判断地址列表是否变化
+         */
+        private final List<EndpointAddress> source;
+        private final EndpointAddress[] addresses;
+        private final int[] sequence;
         
-        public int getWeight() {
-            return weight;
+        private Schedule(List<EndpointAddress> source, EndpointAddress[] addresses, int[] sequence) {
+            this.source = source;
+            this.addresses = addresses;
+            this.sequence = sequence;
         }
         
-        public int getCurrentWeight() {
-            return currentWeight;
+        /**
+         * 地址列表是否与构建时一致：同一个列表，或元素逐个相同
+         */
+        boolean matches(List<EndpointAddress> candidates) {
+            if (candidates == source) {
+                return true;
+            }
+            if (candidates.size() != addresses.length) {
+                return false;
+            }
+            for (int i = 0; i < addresses.length; i++) {
+                if (candidates.get(i) != addresses[i]) {
+                    return false;
+                }
+            }
+            return true;
         }
         
-        public void increaseCurrent() {
-            this.currentWeight += weight;
+        static Schedule build(List<EndpointAddress> source, ToIntFunction<EndpointAddress> weigher,
+                              boolean smoothWeighted) {
+            EndpointAddress[] addresses = source.toArray(new EndpointAddress[0]);
+            int[] weights = new int[addresses.length];
+            for (int i = 0; i < addresses.length; i++) {
+                weights[i] = weigher.applyAsInt(addresses[i]);
+            }
+            normalize(weights);
+            
+            int totalWeight = 0;
+            for (int weight : weights) {
+                totalWeight += weight;
+            }
+            int[] sequence = new int[totalWeight];
+            if (smoothWeighted) {
+                // 平滑加权轮询：每轮所有节点当前权重加上自身权重，选出最大者并减去总权重
+                int[] currentWeights = new int[addresses.length];
+                for (int n = 0; n < totalWeight; n++) {
+                    int selected = 0;
+                    for (int i = 0; i < weights.length; i++) {
+                        currentWeights[i] += weights[i];
+                        if (currentWeights[i] > currentWeights[selected]) {
+                            selected = i;
+                        }
+                    }
+                    currentWeights[selected] -= totalWeight;
+                    sequence[n] = selected;
+                }
+            } else {
+                // 普通加权轮询：每个节点连续出现权重次
+                int n = 0;
+                for (int i = 0; i < weights.length; i++) {
+                    for (int w = 0; w < weights[i]; w++) {
+                        sequence[n++] = i;
+                    }
+                }
+            }
+            return new Schedule(source, addresses, sequence);
         }
         
-        public void decreaseCurrent(int totalWeight) {
-            this.currentWeight -= totalWeight;
+        /**
+         * 按最大公约数约简权重，总权重仍超过上限时按比例缩减（每个节点至少为1）
+         */
+        private static void normalize(int[] weights) {
+            int gcd = 0;
+            long total = 0;
+            for (int weight : weights) {
+                gcd = gcd(gcd, weight);
+                total += weight;
+            }
+            if (gcd > 1) {
+                for (int i = 0; i < weights.length; i++) {
+                    weights[i] /= gcd;
+                }
+                total /= gcd;
+            }
+            if (total > MAX_SCHEDULE_LENGTH) {
+                for (int i = 0; i < weights.length; i++) {
+                    weights[i] = (int) Math.max(1, (long) weights[i] * MAX_SCHEDULE_LENGTH / total);
+                }
+            }
         }
         
-        @Override
-        public String toString() {
-            return String.format("WeightedNode{address=%s, weight=%d, currentWeight=%d}", 
-                    address.toUri(), weight, currentWeight);
+        private static int gcd(int a, int b) {
+            while (b != 0) {
+                int t = a % b;
+                a = b;
+                b = t;
+            }
+            return a;
         }
     }
     
     @Override
     public String toString() {
+        Schedule current = schedule;
         return String.format("WeightedRoundRobinLoadBalanceStrategy{strategy='%s', nodes=%d, smoothWeighted=%s}", 
-                getStrategyName(), weightedNodes.size(), smoothWeighted);
+                getStrategyName(), current != null ? current.addresses.length : 0, smoothWeighted);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,76 @@
+package com.muxin.gateway.core.plus.route.predicate;
+
+import com.muxin.gateway.core.plus.message.Protocol;
+import com.muxin.gateway.core.plus.message.ProtocolEnum;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 内置HTTP断言的公共部分：类型、名称和配置
+ *
+ * @author muxin
+ */
+public abstract class AbstractPredicate implements Predicate {
+
+    private final String type;
+    private final Map<String, Object> config;
+
+    protected AbstractPredicate(String type, Map<String, Object> config) {
+        this.type = type;
+        this.config = config != null ? Collections.unmodifiableMap(config) : Collections.emptyMap();
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public String getName() {
+        return type + config;
+    }
+
+    @Override
+    public Set<Protocol> getSupportedProtocols() {
+        return Set.of(ProtocolEnum.HTTP);
+    }
+
+    @Override
+    public Map<String, Object> getConfig() {
+        return config;
+    }
+
+    /**
+     * 读取单值或列表形式的配置，列表支持List和逗号分隔的字符串
+     */
+    protected static List<String> stringList(PredicateDefinition definition, String listKey, String singleKey) {
+        List<String> values = new ArrayList<>();
+        Object value = definition.getConfigValue(listKey);
+        if (value == null && singleKey != null) {
+            value = definition.getConfigValue(singleKey);
+        }
+        if (value instanceof Iterable<?> iterable) {
+            for (Object item : iterable) {
+                addValue(values, item);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            // YAML中的列表在部分绑定方式下会变成以下标为键的Map
+            map.values().forEach(item -> addValue(values, item));
+        } else if (value != null) {
+            for (String item : value.toString().split(",")) {
+                addValue(values, item);
+            }
+        }
+        return values;
+    }
+
+    private static void addValue(List<String> values, Object item) {
+        if (item != null && !item.toString().isBlank()) {
+            values.add(item.toString().trim());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.muxin.gateway.core.plus.route.predicate;
+
+import com.muxin.gateway.core.plus.message.Message;
+import com.muxin.gateway.core.plus.message.ServerExchange;
+import com.muxin.gateway.core.plus.message.http.HttpRequestMessage;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 请求头断言工厂
+ * <p>
+ * 配置：{@code name}必填；{@code regexp}按正则匹配，或{@code value}精确匹配，两者都未配置时只要求请求头存在
+ *
+ * @author muxin
+ */
+public class HeaderPredicateFactory implements PredicateFactory {
+
+    public static final String TYPE = "HEADER";
+
+    @Override
+    public Predicate createPredicate(PredicateDefinition definition) {
+        String regexp = definition.getStringConfig("regexp");
+        return new HeaderPredicate(definition.getConfig(), definition.getStringConfig("name"),
+                regexp != null ? Pattern.compile(regexp) : null, definition.getStringConfig("value"));
+    }
+
+    @Override
+    public String getSupportedPredicateName() {
+        return TYPE;
+    }
+
+    @Override
+    public void validateConfig(PredicateDefinition definition) {
+        String name = definition.getStringConfig("name");
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("HEADER断言必须配置name");
+        }
+    }
+
+    static class HeaderPredicate extends AbstractPredicate {
+
+        private final String name;
+        private final Pattern regexp;
+        private final String value;
+
+        HeaderPredicate(Map<String, Object> config, String name, Pattern regexp, String value) {
+            super(TYPE, config);
+            this.name = name;
+            this.regexp = regexp;
+            this.value = value;
+        }
+
+        @Override
+        public boolean test(ServerExchange<? extends Message, ? extends Message> exchange) {
+            if (!(exchange.request() instanceof HttpRequestMessage request)) {
+                return false;
+            }
+            for (String actual : request.headers().getAll(name)) {
+                if (regexp != null ? regexp.matcher(actual).matches() : value == null || value.equals(actual)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.muxin.gateway.core.plus.route.predicate;
+
+import com.muxin.gateway.core.plus.message.Message;
+import com.muxin.gateway.core.plus.message.ServerExchange;
+import com.muxin.gateway.core.plus.message.http.HttpRequestMessage;
+import io.netty.handler.codec.http.HttpMethod;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 请求方法断言工厂
+ * <p>
+ * 配置：{@code methods}，列表或逗号分隔的字符串，如{@code GET,POST}
+ *
+ * @author muxin
+ */
+public class MethodPredicateFactory implements PredicateFactory {
+
+    public static final String TYPE = "METHOD";
+
+    @Override
+    public Predicate createPredicate(PredicateDefinition definition) {
+        Set<HttpMethod> methods = AbstractPredicate.stringList(definition, "methods", "method").stream()
+                .map(method -> HttpMethod.valueOf(method.toUpperCase()))
+                .collect(Collectors.toUnmodifiableSet());
+        return new MethodPredicate(definition.getConfig(), methods);
+    }
+
+    @Override
+    public String getSupportedPredicateName() {
+        return TYPE;
+    }
+
+    @Override
+    public void validateConfig(PredicateDefinition definition) {
+        if (AbstractPredicate.stringList(definition, "methods", "method").isEmpty()) {
+            throw new IllegalArgumentException("METHOD断言必须配置methods");
+        }
+    }
+
+    /**
+     * 请求方法断言；网关处理器会读取允许的方法判断路由是否幂等
+     */
+    public static class MethodPredicate extends AbstractPredicate {
+
+        private final Set<HttpMethod> methods;
+
+        public MethodPredicate(Map<String, Object> config, Set<HttpMethod> methods) {
+            super(TYPE, config);
+            this.methods = methods;
+        }
+
+        @Override
+        public boolean test(ServerExchange<? extends Message, ? extends Message> exchange) {
+            return exchange.request() instanceof HttpRequestMessage request && methods.contains(request.method());
+        }
+
+        public Set<HttpMethod> getMethods() {
+            return methods;
+        }
+    }
+}
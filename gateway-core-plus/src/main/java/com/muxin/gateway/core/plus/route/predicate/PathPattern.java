@@ -0,0 +1,225 @@
+package com.muxin.gateway.core.plus.route.predicate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 预编译的Ant风格路径模式
+ * <p>
+ * 支持：字面量段、{@code *}/{@code {var}}（匹配单个路径段）、{@code **}（匹配任意多个路径段）、
+ * 段内通配（如{@code *.json}、{@code v?}、{@code {id:\d+}}）。
+ * 路径按'/'切分，忽略空段，{@code /a//b/}与{@code /a/b}等价
+ *
+ * @author muxin
+ */
+public final class PathPattern {
+
+    /**
+     * 路径段类型
+     */
+    public enum SegmentType {
+        /**
+         * 字面量，精确匹配
+         */
+        LITERAL,
+        /**
+         * 任意单个路径段：{@code *}或{@code {var}}
+         */
+        ANY,
+        /**
+         * 任意多个路径段：{@code **}
+         */
+        MULTI,
+        /**
+         * 段内通配，按正则匹配单个路径段
+         */
+        GLOB
+    }
+
+    private final String pattern;
+    private final String[] segments;
+    private final SegmentType[] types;
+    private final Pattern[] globs;
+
+    private PathPattern(String pattern) {
+        this.pattern = pattern;
+        this.segments = split(pattern);
+        this.types = new SegmentType[segments.length];
+        this.globs = new Pattern[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if ("**".equals(segment)) {
+                types[i] = SegmentType.MULTI;
+            } else if ("*".equals(segment) || isPlainVariable(segment)) {
+                types[i] = SegmentType.ANY;
+            } else if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0) {
+                types[i] = SegmentType.GLOB;
+                globs[i] = toRegex(segment);
+            } else {
+                types[i] = SegmentType.LITERAL;
+            }
+        }
+    }
+
+    public static PathPattern compile(String pattern) {
+        if (pattern == null || pattern.isBlank()) {
+            throw new IllegalArgumentException("路径模式不能为空");
+        }
+        return new PathPattern(pattern.trim());
+    }
+
+    // ========== 匹配 ==========
+
+    public boolean matches(String path) {
+        return matches(split(path));
+    }
+
+    /**
+     * @param pathSegments 由{@link #split(String)}切分的路径段
+     */
+    public boolean matches(String[] pathSegments) {
+        return matchFrom(0, pathSegments, 0);
+    }
+
+    private boolean matchFrom(int patternIndex, String[] path, int pathIndex) {
+        while (patternIndex < segments.length) {
+            SegmentType type = types[patternIndex];
+            if (type == SegmentType.MULTI) {
+                // 连续的**等价于一个
+                while (patternIndex + 1 < segments.length && types[patternIndex + 1] == SegmentType.MULTI) {
+                    patternIndex++;
+                }
+                if (patternIndex == segments.length - 1) {
+                    return true;
+                }
+                for (int i = pathIndex; i <= path.length; i++) {
+                    if (matchFrom(patternIndex + 1, path, i)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            if (pathIndex >= path.length || !matchSegment(patternIndex, path[pathIndex])) {
+                return false;
+            }
+            patternIndex++;
+            pathIndex++;
+        }
+        return pathIndex == path.length;
+    }
+
+    private boolean matchSegment(int index, String pathSegment) {
+        return switch (types[index]) {
+            case LITERAL -> segments[index].equals(pathSegment);
+            case ANY -> true;
+            case GLOB -> globs[index].matcher(pathSegment).matches();
+            case MULTI -> false;
+        };
+    }
+
+    // ========== 结构信息（供路由索引使用） ==========
+
+    /**
+     * 是否可以放入按路径段索引的前缀树：
+     * 只包含字面量段和单段通配，且{@code **}只出现在末尾
+     */
+    public boolean isIndexable() {
+        for (int i = 0; i < types.length; i++) {
+            SegmentType type = types[i];
+            if (type == SegmentType.GLOB || (type == SegmentType.MULTI && i != types.length - 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int segmentCount() {
+        return segments.length;
+    }
+
+    public String segment(int index) {
+        return segments[index];
+    }
+
+    public SegmentType segmentType(int index) {
+        return types[index];
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    // ========== 工具方法 ==========
+
+    /**
+     * 按'/'切分路径，忽略空段
+     */
+    public static String[] split(String path) {
+        if (path == null || path.isEmpty()) {
+            return new String[0];
+        }
+        List<String> result = new ArrayList<>(8);
+        int length = path.length();
+        int start = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || path.charAt(i) == '/') {
+                if (i > start) {
+                    result.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+
+    private static boolean isPlainVariable(String segment) {
+        return segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}'
+                && segment.indexOf(':') < 0 && segment.indexOf('{', 1) < 0;
+    }
+
+    /**
+     * 段内通配转正则：{@code *}任意字符，{@code ?}单个字符，{@code {var}}任意字符，{@code {var:regex}}按regex匹配
+     */
+    private static Pattern toRegex(String segment) {
+        StringBuilder regex = new StringBuilder();
+        int literalStart = 0;
+        int i = 0;
+        while (i < segment.length()) {
+            char c = segment.charAt(i);
+            if (c == '*' || c == '?' || c == '{') {
+                if (i > literalStart) {
+                    regex.append(Pattern.quote(segment.substring(literalStart, i)));
+                }
+                if (c == '*') {
+                    regex.append(".*");
+                    i++;
+                } else if (c == '?') {
+                    regex.append('.');
+                    i++;
+                } else {
+                    int end = segment.indexOf('}', i);
+                    if (end < 0) {
+                        throw new IllegalArgumentException("路径变量缺少'}': " + segment);
+                    }
+                    String variable = segment.substring(i + 1, end);
+                    int colon = variable.indexOf(':');
+                    regex.append('(').append(colon >= 0 ? variable.substring(colon + 1) : ".*").append(')');
+                    i = end + 1;
+                }
+                literalStart = i;
+            } else {
+                i++;
+            }
+        }
+        if (literalStart < segment.length()) {
+            regex.append(Pattern.quote(segment.substring(literalStart)));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
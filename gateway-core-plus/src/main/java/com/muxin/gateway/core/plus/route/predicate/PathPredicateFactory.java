@@ -0,0 +1,71 @@
+package com.muxin.gateway.core.plus.route.predicate;
+
+import com.muxin.gateway.core.plus.message.Message;
+import com.muxin.gateway.core.plus.message.ServerExchange;
+import com.muxin.gateway.core.plus.message.http.HttpRequestMessage;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 路径断言工厂
+ * <p>
+ * 配置：{@code pattern}（单个）或{@code patterns}（多个，任一匹配即可），Ant风格，见{@link PathPattern}
+ *
+ * @author muxin
+ */
+public class PathPredicateFactory implements PredicateFactory {
+
+    public static final String TYPE = "PATH";
+
+    @Override
+    public Predicate createPredicate(PredicateDefinition definition) {
+        List<PathPattern> patterns = AbstractPredicate.stringList(definition, "patterns", "pattern").stream()
+                .map(PathPattern::compile)
+                .toList();
+        return new PathPredicate(definition.getConfig(), patterns);
+    }
+
+    @Override
+    public String getSupportedPredicateName() {
+        return TYPE;
+    }
+
+    @Override
+    public void validateConfig(PredicateDefinition definition) {
+        if (AbstractPredicate.stringList(definition, "patterns", "pattern").isEmpty()) {
+            throw new IllegalArgumentException("PATH断言必须配置pattern或patterns");
+        }
+    }
+
+    /**
+     * 路径断言，模式在创建时预编译；路由管理器会直接读取模式建立路径索引
+     */
+    public static class PathPredicate extends AbstractPredicate {
+
+        private final List<PathPattern> patterns;
+
+        public PathPredicate(Map<String, Object> config, List<PathPattern> patterns) {
+            super(TYPE, config);
+            this.patterns = List.copyOf(patterns);
+        }
+
+        @Override
+        public boolean test(ServerExchange<? extends Message, ? extends Message> exchange) {
+            if (!(exchange.request() instanceof HttpRequestMessage request)) {
+                return false;
+            }
+            String[] segments = PathPattern.split(request.fullPath());
+            for (PathPattern pattern : patterns) {
+                if (pattern.matches(segments)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public List<PathPattern> getPatterns() {
+            return patterns;
+        }
+    }
+}
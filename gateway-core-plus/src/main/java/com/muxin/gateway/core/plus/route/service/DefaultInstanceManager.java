@@ -4,12 +4,15 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 默认实例管理器实现
  * 负责服务实例的生命周期管理
+ * <p>
+ * 每个服务维护一个不可变的实例快照（全部实例与可用实例），在添加、删除、状态变更时整体替换，
+ * 读取时直接返回快照中的只读列表，不加锁也不产生分配
  * 
  * @author muxin
  */
@@ -19,15 +22,20 @@ public class DefaultInstanceManager implements InstanceManager {
     // 实例存储：instanceId -> ServiceInstance
     private final Map<String, ServiceInstance> instanceStorage = new ConcurrentHashMap<>();
     
-    // 服务分组索引：serviceId -> Set<instanceId>
-    private final Map<String, Set<String>> serviceIndex = new ConcurrentHashMap<>();
+    // 服务分组索引：serviceId -> 按添加顺序的instanceId，只在updateLock内访问
+    private final Map<String, Set<String>> serviceIndex = new HashMap<>();
     
-    // 健康实例索引：serviceId -> Set<instanceId>
-    private final Map<String, Set<String>> healthyIndex = new ConcurrentHashMap<>();
+    // 实例快照：serviceId -> 快照，变更时整体替换
+    private final Map<String, ServiceInstanceSnapshot> snapshots = new ConcurrentHashMap<>();
     
-    // 性能统计
-    private final AtomicLong totalInstances = new AtomicLong(0);
-    private final AtomicLong healthyInstances = new AtomicLong(0);
+    // 串行化实例变更
+    private final ReentrantLock updateLock = new ReentrantLock();
+    
+    // 快照版本，每次变更递增，只在updateLock内修改
+    private long version = 0;
+    
+    // 实例变更监听器，在新快照发布后通知
+    private final List<ServiceChangeListener> listeners = new CopyOnWriteArrayList<>();
     
     // 生命周期状态
     private volatile boolean initialized = false;
@@ -59,9 +67,14 @@ public class DefaultInstanceManager implements InstanceManager {
         if (!shutdown) {
             log.info("[DefaultInstanceManager] 实例管理器关闭");
             shutdown = true;
-            instanceStorage.clear();
-            serviceIndex.clear();
-            healthyIndex.clear();
+            updateLock.lock();
+            try {
+                instanceStorage.clear();
+                serviceIndex.clear();
+                snapshots.clear();
+            } finally {
+                updateLock.unlock();
+            }
         }
     }
 
@@ -74,19 +87,30 @@ public class DefaultInstanceManager implements InstanceManager {
         String instanceId = instance.instanceId();
         String serviceId = instance.serviceMeta().getServiceId();
 
-        ServiceInstance existingInstance = instanceStorage.put(instanceId, instance);
+        ServiceInstance existingInstance;
+        updateLock.lock();
+        try {
+            existingInstance = instanceStorage.put(instanceId, instance);
+
+            // 同一实例ID迁移到其他服务时，从原服务中移除
+            if (existingInstance != null) {
+                String oldServiceId = existingInstance.serviceMeta().getServiceId();
+                if (!oldServiceId.equals(serviceId)) {
+                    removeFromIndex(oldServiceId, instanceId);
+                    rebuildSnapshot(oldServiceId);
+                    notifyNodeRemoved(oldServiceId, instanceId);
+                }
+            }
 
-        // 更新服务索引
-        serviceIndex.computeIfAbsent(serviceId, k -> ConcurrentHashMap.newKeySet()).add(instanceId);
+            // 更新服务索引并发布快照
+            serviceIndex.computeIfAbsent(serviceId, k -> new LinkedHashSet<>()).add(instanceId);
+            rebuildSnapshot(serviceId);
 
-        // 更新健康索引
-        if (instance.getStatus().isAvailable()) {
-            healthyIndex.computeIfAbsent(serviceId, k -> ConcurrentHashMap.newKeySet()).add(instanceId);
-            healthyInstances.incrementAndGet();
+            notifyNodeAdded(serviceId, instance);
+        } finally {
+            updateLock.unlock();
         }
 
-        totalInstances.incrementAndGet();
-
         log.info("[DefaultInstanceManager] 实例添加: {} - {} - {}", 
             serviceId, instanceId, instance.getStatus());
 
@@ -99,32 +123,21 @@ public class DefaultInstanceManager implements InstanceManager {
             return;
         }
 
-        ServiceInstance removedInstance = instanceStorage.remove(instanceId);
-        if (removedInstance != null) {
-            String serviceId = removedInstance.serviceMeta().getServiceId();
+        updateLock.lock();
+        try {
+            ServiceInstance removedInstance = instanceStorage.remove(instanceId);
+            if (removedInstance != null) {
+                String serviceId = removedInstance.serviceMeta().getServiceId();
 
-            // 更新服务索引
-            Set<String> serviceInstances = serviceIndex.get(serviceId);
-            if (serviceInstances != null) {
-                serviceInstances.remove(instanceId);
-                if (serviceInstances.isEmpty()) {
-                    serviceIndex.remove(serviceId);
-                }
-            }
+                // 更新服务索引并发布快照
+                removeFromIndex(serviceId, instanceId);
+                rebuildSnapshot(serviceId);
 
-            // 更新健康索引
-            Set<String> healthyServiceInstances = healthyIndex.get(serviceId);
-            if (healthyServiceInstances != null) {
-                if (healthyServiceInstances.remove(instanceId)) {
-                    healthyInstances.decrementAndGet();
-                }
-                if (healthyServiceInstances.isEmpty()) {
-                    healthyIndex.remove(serviceId);
-                }
+                notifyNodeRemoved(serviceId, instanceId);
+                log.info("[DefaultInstanceManager] 实例删除: {} - {}", serviceId, instanceId);
             }
-
-            totalInstances.decrementAndGet();
-            log.info("[DefaultInstanceManager] 实例删除: {} - {}", serviceId, instanceId);
+        } finally {
+            updateLock.unlock();
         }
     }
 
@@ -140,19 +153,7 @@ public class DefaultInstanceManager implements InstanceManager {
 
     @Override
     public List<ServiceInstance> getByServiceId(String serviceId) {
-        if (serviceId == null) {
-            return Collections.emptyList();
-        }
-
-        Set<String> instanceIds = serviceIndex.get(serviceId);
-        if (instanceIds == null || instanceIds.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        return instanceIds.stream()
-            .map(instanceStorage::get)
-            .filter(Objects::nonNull)
-            .collect(Collectors.toList());
+        return getSnapshot(serviceId).getInstances();
     }
 
     @Override
@@ -170,20 +171,16 @@ public class DefaultInstanceManager implements InstanceManager {
 
     @Override
     public List<ServiceInstance> getHealthyInstances(String serviceId) {
-        if (serviceId == null) {
-            return Collections.emptyList();
-        }
+        return getSnapshot(serviceId).getHealthyInstances();
+    }
 
-        Set<String> healthyInstanceIds = healthyIndex.get(serviceId);
-        if (healthyInstanceIds == null || healthyInstanceIds.isEmpty()) {
-            return Collections.emptyList();
+    @Override
+    public ServiceInstanceSnapshot getSnapshot(String serviceId) {
+        if (serviceId == null) {
+            return ServiceInstanceSnapshot.empty(null);
         }
-
-        return healthyInstanceIds.stream()
-            .map(instanceStorage::get)
-            .filter(Objects::nonNull)
-            .filter(instance -> instance.getStatus().isAvailable())
-            .collect(Collectors.toList());
+        ServiceInstanceSnapshot snapshot = snapshots.get(serviceId);
+        return snapshot != null ? snapshot : ServiceInstanceSnapshot.empty(serviceId);
     }
 
     @Override
@@ -192,18 +189,27 @@ public class DefaultInstanceManager implements InstanceManager {
             return;
         }
 
-        ServiceInstance instance = instanceStorage.get(instanceId);
-        if (instance == null || !serviceName.equals(instance.serviceMeta().getServiceId())) {
-            return;
-        }
+        NodeStatus oldStatus;
+        updateLock.lock();
+        try {
+            ServiceInstance instance = instanceStorage.get(instanceId);
+            if (instance == null || !serviceName.equals(instance.serviceMeta().getServiceId())) {
+                return;
+            }
 
-        NodeStatus oldStatus = instance.getStatus();
-        if (oldStatus == status) {
-            return; // 状态未变化
-        }
+            oldStatus = instance.getStatus();
+            if (oldStatus == status) {
+                return; // 状态未变化
+            }
 
-        // 更新健康索引
-        updateHealthyIndex(serviceName, instanceId, oldStatus, status);
+            // 已发布的快照共享原实例，不能原地修改：替换为新状态的副本后重建快照，可用实例列表随之更新
+            instanceStorage.put(instanceId, instance.withStatus(status));
+            rebuildSnapshot(serviceName);
+
+            notifyNodeStatusChanged(serviceName, instanceId, oldStatus, status);
+        } finally {
+            updateLock.unlock();
+        }
 
         log.info("[DefaultInstanceManager] 实例状态更新: {} - {} - {} -> {}", 
             serviceName, instanceId, oldStatus, status);
@@ -211,21 +217,39 @@ public class DefaultInstanceManager implements InstanceManager {
 
     @Override
     public List<String> getAllServiceIds() {
-        return new ArrayList<>(serviceIndex.keySet());
+        return new ArrayList<>(snapshots.keySet());
+    }
+
+    @Override
+    public void addServiceChangeListener(ServiceChangeListener listener) {
+        if (listener != null) {
+            listeners.add(listener);
+        }
+    }
+
+    @Override
+    public void removeServiceChangeListener(ServiceChangeListener listener) {
+        listeners.remove(listener);
     }
 
     /**
      * 获取统计信息
      */
     public Map<String, Object> getStatistics() {
+        long total = 0;
+        long healthy = 0;
+        for (ServiceInstanceSnapshot snapshot : snapshots.values()) {
+            total += snapshot.getInstances().size();
+            healthy += snapshot.getHealthyInstances().size();
+        }
+
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalInstances", totalInstances.get());
-        stats.put("healthyInstances", healthyInstances.get());
-        stats.put("totalServices", serviceIndex.size());
+        stats.put("totalInstances", total);
+        stats.put("healthyInstances", healthy);
+        stats.put("totalServices", snapshots.size());
         
-        long total = totalInstances.get();
         if (total > 0) {
-            stats.put("healthyRate", (double) healthyInstances.get() / total);
+            stats.put("healthyRate", (double) healthy / total);
         } else {
             stats.put("healthyRate", 0.0);
         }
@@ -233,28 +257,71 @@ public class DefaultInstanceManager implements InstanceManager {
         return stats;
     }
 
+    // ========== 快照维护，调用方持有updateLock ==========
+
+    private void removeFromIndex(String serviceId, String instanceId) {
+        Set<String> serviceInstances = serviceIndex.get(serviceId);
+        if (serviceInstances != null) {
+            serviceInstances.remove(instanceId);
+            if (serviceInstances.isEmpty()) {
+                serviceIndex.remove(serviceId);
+            }
+        }
+    }
+
     /**
-     * 更新健康索引
+     * 按服务索引重建实例快照并发布，服务已没有实例时移除快照
      */
-    private void updateHealthyIndex(String serviceId, String instanceId, NodeStatus oldStatus, NodeStatus newStatus) {
-        Set<String> healthyServiceInstances = healthyIndex.get(serviceId);
-        
-        boolean wasHealthy = oldStatus.isAvailable();
-        boolean isHealthy = newStatus.isAvailable();
-        
-        if (wasHealthy && !isHealthy) {
-            // 从健康变为不健康
-            if (healthyServiceInstances != null) {
-                healthyServiceInstances.remove(instanceId);
-                healthyInstances.decrementAndGet();
-                if (healthyServiceInstances.isEmpty()) {
-                    healthyIndex.remove(serviceId);
-                }
+    private void rebuildSnapshot(String serviceId) {
+        Set<String> instanceIds = serviceIndex.get(serviceId);
+        if (instanceIds == null || instanceIds.isEmpty()) {
+            snapshots.remove(serviceId);
+            return;
+        }
+
+        ServiceInstance[] instances = new ServiceInstance[instanceIds.size()];
+        int count = 0;
+        for (String instanceId : instanceIds) {
+            ServiceInstance instance = instanceStorage.get(instanceId);
+            if (instance != null) {
+                instances[count++] = instance;
+            }
+        }
+        if (count < instances.length) {
+            instances = Arrays.copyOf(instances, count);
+        }
+        snapshots.put(serviceId, new ServiceInstanceSnapshot(serviceId, ++version, instances));
+    }
+
+    // ========== 监听器通知 ==========
+
+    private void notifyNodeAdded(String serviceId, ServiceInstance instance) {
+        for (ServiceChangeListener listener : listeners) {
+            try {
+                listener.onNodeAdded(serviceId, instance);
+            } catch (Exception e) {
+                log.error("[DefaultInstanceManager] 通知实例添加事件失败: {}", serviceId, e);
+            }
+        }
+    }
+
+    private void notifyNodeRemoved(String serviceId, String instanceId) {
+        for (ServiceChangeListener listener : listeners) {
+            try {
+                listener.onNodeRemoved(serviceId, instanceId);
+            } catch (Exception e) {
+                log.error("[DefaultInstanceManager] 通知实例删除事件失败: {}", serviceId, e);
+            }
+        }
+    }
+
+    private void notifyNodeStatusChanged(String serviceId, String instanceId, NodeStatus oldStatus, NodeStatus newStatus) {
+        for (ServiceChangeListener listener : listeners) {
+            try {
+                listener.onNodeStatusChanged(serviceId, instanceId, oldStatus, newStatus);
+            } catch (Exception e) {
+                log.error("[DefaultInstanceManager] 通知实例状态变更事件失败: {}", serviceId, e);
             }
-        } else if (!wasHealthy && isHealthy) {
-            // 从不健康变为健康
-            healthyIndex.computeIfAbsent(serviceId, k -> ConcurrentHashMap.newKeySet()).add(instanceId);
-            healthyInstances.incrementAndGet();
         }
     }
-} 
\ No newline at end of file
+}
@@ -23,7 +23,7 @@ public class HttpEndpointAddress implements EndpointAddress {
     
     public HttpEndpointAddress(String uri) {
         this.originalUri = uri;
-        this.protocol = ProtocolEnum.LB;
+        this.protocol = ProtocolEnum.HTTP;
         this.parameters = new HashMap<>();
         
         try {
@@ -40,7 +40,7 @@ public class HttpEndpointAddress implements EndpointAddress {
         this.host = host;
         this.port = port;
         this.path = "/";
-        this.protocol = ProtocolEnum.LB;
+        this.protocol = ProtocolEnum.HTTP;
         this.parameters = new HashMap<>();
         this.originalUri = "http://" + host + ":" + port;
     }
@@ -33,9 +33,24 @@ public interface InstanceManager extends Repository<String, ServiceInstance>, Li
      */
     void updateInstanceStatus(String serviceName, String instanceId, NodeStatus status);
 
+    /**
+     * 获取服务的实例快照，全部实例与可用实例来自同一次变更，服务不存在时返回空快照
+     */
+    ServiceInstanceSnapshot getSnapshot(String serviceId);
+
     /**
      * 获取所有服务ID
      */
     List<String> getAllServiceIds();
 
+    /**
+     * 添加实例变更监听器，监听器在实例变更发布后同步回调
+     */
+    void addServiceChangeListener(ServiceChangeListener listener);
+
+    /**
+     * 移除实例变更监听器
+     */
+    void removeServiceChangeListener(ServiceChangeListener listener);
+
 } 
\ No newline at end of file
@@ -40,4 +40,12 @@ public interface ServiceInstance {
      */
     boolean isHealthy();
 
+    /**
+     * 返回替换了节点状态的副本，原实例不变
+     * 默认副本除状态外的属性都委托原实例，实现类可以返回自己的副本类型
+     */
+    default ServiceInstance withStatus(NodeStatus status) {
+        return new StatusOverriddenServiceInstance(this, status);
+    }
+
 } 
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.muxin.gateway.core.plus.route.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 服务实例快照（不可变）
+ * 同一服务的全部实例和可用实例在同一次变更中一起生成，读取时不需要加锁或复制
+ *
+ * @author muxin
+ */
+public final class ServiceInstanceSnapshot {
+
+    private static final ServiceInstance[] NO_INSTANCES = new ServiceInstance[0];
+
+    private final String serviceId;
+    private final long version;
+    private final List<ServiceInstance> instances;
+    private final List<ServiceInstance> healthyInstances;
+
+    ServiceInstanceSnapshot(String serviceId, long version, ServiceInstance[] instances) {
+        this.serviceId = serviceId;
+        this.version = version;
+        this.instances = Collections.unmodifiableList(Arrays.asList(instances));
+
+        int healthyCount = 0;
+        for (ServiceInstance instance : instances) {
+            if (instance.getStatus().isAvailable()) {
+                healthyCount++;
+            }
+        }
+        ServiceInstance[] healthy;
+        if (healthyCount == instances.length) {
+            healthy = instances;
+        } else if (healthyCount == 0) {
+            healthy = NO_INSTANCES;
+        } else {
+            healthy = new ServiceInstance[healthyCount];
+            int i = 0;
+            for (ServiceInstance instance : instances) {
+                if (instance.getStatus().isAvailable()) {
+                    healthy[i++] = instance;
+                }
+            }
+        }
+        this.healthyInstances = healthy == instances ? this.instances
+                : Collections.unmodifiableList(Arrays.asList(healthy));
+    }
+
+    /**
+     * 空快照
+     */
+    static ServiceInstanceSnapshot empty(String serviceId) {
+        return new ServiceInstanceSnapshot(serviceId, 0L, NO_INSTANCES);
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    /**
+     * 快照版本，服务的实例或实例状态每变化一次递增
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 全部实例（只读）
+     */
+    public List<ServiceInstance> getInstances() {
+        return instances;
+    }
+
+    /**
+     * 可用实例（只读）
+     */
+    public List<ServiceInstance> getHealthyInstances() {
+        return healthyInstances;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ServiceInstanceSnapshot{serviceId='%s', version=%d, instances=%d, healthy=%d}",
+                serviceId, version, instances.size(), healthyInstances.size());
+    }
+}
@@ -0,0 +1,69 @@
+package com.muxin.gateway.core.plus.route.service;
+
+import java.util.Map;
+
+/**
+ * 替换了节点状态的实例副本
+ * 除状态外的属性委托原实例，状态变更时生成新副本，已发布快照中的实例不被修改
+ *
+ * @author muxin
+ */
+final class StatusOverriddenServiceInstance implements ServiceInstance {
+
+    private final ServiceInstance delegate;
+
+    private volatile NodeStatus status;
+
+    StatusOverriddenServiceInstance(ServiceInstance delegate, NodeStatus status) {
+        this.delegate = delegate;
+        this.status = status;
+    }
+
+    @Override
+    public ServiceMeta serviceMeta() {
+        return delegate.serviceMeta();
+    }
+
+    @Override
+    public String instanceId() {
+        return delegate.instanceId();
+    }
+
+    @Override
+    public EndpointAddress getAddress() {
+        return delegate.getAddress();
+    }
+
+    @Override
+    public NodeStatus getStatus() {
+        return status;
+    }
+
+    @Override
+    public void updateStatus(NodeStatus status) {
+        this.status = status;
+    }
+
+    @Override
+    public Map<String, Object> getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    @Override
+    public boolean isHealthy() {
+        return status.isHealthy();
+    }
+
+    /**
+     * 基于原实例生成副本，避免多次状态变更后层层嵌套
+     */
+    @Override
+    public ServiceInstance withStatus(NodeStatus status) {
+        return new StatusOverriddenServiceInstance(delegate, status);
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceInstance{instanceId='" + delegate.instanceId() + "', status=" + status + "}";
+    }
+}
@@ -58,6 +58,12 @@ public class HttpServerConfig {
     // ========== HTTP协议配置 ==========
     @Builder.Default
     private int maxContentLength = 65536;  // 64KB
+
+    /**
+     * 是否允许路由开启流式转发（路由元数据streaming=true），开启后按请求头匹配路由决定是否聚合
+     */
+    @Builder.Default
+    private boolean streamingEnabled = true;
     
     @Builder.Default
     private int maxInitialLineLength = 4096;  // 4KB
@@ -154,6 +160,9 @@ public class HttpServerConfig {
         if (configMap.containsKey("compressionEnabled")) {
             builder.compressionEnabled((Boolean) configMap.get("compressionEnabled"));
         }
+        if (configMap.containsKey("streamingEnabled")) {
+            builder.streamingEnabled((Boolean) configMap.get("streamingEnabled"));
+        }
         
         // 超时配置
         if (configMap.containsKey("requestTimeout")) {
@@ -184,6 +193,7 @@ public class HttpServerConfig {
         map.put("maxContentLength", maxContentLength);
         map.put("compressionEnabled", compressionEnabled);
         map.put("compressionLevel", compressionLevel);
+        map.put("streamingEnabled", streamingEnabled);
         map.put("requestTimeout", requestTimeout);
         map.put("connectionTimeout", connectionTimeout);
         map.put("enableAccessLog", enableAccessLog);
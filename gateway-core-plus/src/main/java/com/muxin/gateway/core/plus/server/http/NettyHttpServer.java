@@ -1,9 +1,13 @@
 package com.muxin.gateway.core.plus.server.http;
 
 import com.muxin.gateway.core.plus.GatewayProcessor;
+import com.muxin.gateway.core.plus.common.Constant;
+import com.muxin.gateway.core.plus.connect.http.HttpServerConnection;
 import com.muxin.gateway.core.plus.message.ProtocolEnum;
 import com.muxin.gateway.core.plus.message.http.DefaultHttpServerExchange;
 import com.muxin.gateway.core.plus.route.DefaultRequestContext;
+import com.muxin.gateway.core.plus.route.RequestContext;
+import com.muxin.gateway.core.plus.route.Route;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.*;
@@ -20,6 +24,9 @@ import io.netty.util.concurrent.DefaultThreadFactory;
 import lombok.extern.slf4j.Slf4j;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
 
 /**
  * 简化的 HTTP 服务器实现
@@ -200,6 +207,11 @@ public class NettyHttpServer {
                     httpConfig.getMaxChunkSize()
             ));
 
+            // 流式转发(可选)，须位于聚合器之前，按请求头决定是否绕过聚合
+            if (httpConfig.isStreamingEnabled()) {
+                pipeline.addLast(new StreamingProxyHandler(gatewayProcessor));
+            }
+
             // HTTP消息聚合器
             pipeline.addLast(new HttpObjectAggregator(httpConfig.getMaxContentLength()));
 
@@ -233,6 +245,11 @@ public class NettyHttpServer {
 
         private final GatewayProcessor gatewayProcessor;
 
+        /**
+         * 本连接上尚未结束的请求，连接断开时取消，只在Channel所属的EventLoop上访问
+         */
+        private final Deque<RequestContext> inflightRequests = new ArrayDeque<>(2);
+
         public DefaultHttpServerHandler(GatewayProcessor gatewayProcessor) {
             this.gatewayProcessor = gatewayProcessor;
         }
@@ -242,9 +259,21 @@ public class NettyHttpServer {
             // 存储请求到Channel属性中，用于后续判断Keep-Alive
             ctx.channel().attr(AttributeKey.<FullHttpRequest>valueOf("request")).set(request);
             try {
-                //todo context具体实现
                 DefaultHttpServerExchange exchange = new DefaultHttpServerExchange(request, ProtocolEnum.HTTP);
-                DefaultRequestContext context = new DefaultRequestContext(exchange, null);
+                exchange.setAttribute(Constant.CLIENT_ADDRESS, ctx.channel().remoteAddress());
+                DefaultRequestContext context = new DefaultRequestContext(exchange,
+                        new HttpServerConnection(ctx.channel(), HttpUtil.isKeepAlive(request),
+                                HttpMethod.HEAD.equals(request.method())));
+                context.setAttribute(Constant.EVENT_LOOP, ctx.channel().eventLoop());
+                // 流式转发处理器已按请求头匹配过路由时直接复用
+                Route matchedRoute = ctx.channel().attr(StreamingProxyHandler.MATCHED_ROUTE).getAndSet(null);
+                if (matchedRoute != null) {
+                    context.setMatchedRoute(matchedRoute);
+                }
+                // 请求在异步转发完成后由交换对象释放
+                request.retain();
+                inflightRequests.removeIf(RequestContext::isCompleted);
+                inflightRequests.add(context);
                 gatewayProcessor.processRequest(context);
             } catch (Exception e) {
                 log.error("[SimpleHttpServerHandler] 处理请求异常", e);
@@ -289,6 +318,13 @@ public class NettyHttpServer {
         @Override
         public void channelInactive(ChannelHandlerContext ctx) throws Exception {
             log.debug("[SimpleHttpServerHandler] 连接关闭 - 远程地址: {}", ctx.channel().remoteAddress());
+            // 客户端已断开，取消仍在等待后端的请求，释放后端连接
+            for (RequestContext context : inflightRequests) {
+                if (!context.isCompleted()) {
+                    gatewayProcessor.cancelRequest(context, new CancellationException("客户端连接已断开"));
+                }
+            }
+            inflightRequests.clear();
             super.channelInactive(ctx);
         }
 
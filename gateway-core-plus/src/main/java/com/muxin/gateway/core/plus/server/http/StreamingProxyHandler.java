@@ -0,0 +1,466 @@
+package com.muxin.gateway.core.plus.server.http;
+
+import com.muxin.gateway.core.plus.GatewayProcessor;
+import com.muxin.gateway.core.plus.common.Constant;
+import com.muxin.gateway.core.plus.connect.ClientConnection;
+import com.muxin.gateway.core.plus.connect.http.HttpClientConnection;
+import com.muxin.gateway.core.plus.connect.http.HttpServerConnection;
+import com.muxin.gateway.core.plus.connect.http.HttpStreamListener;
+import com.muxin.gateway.core.plus.message.ProtocolEnum;
+import com.muxin.gateway.core.plus.message.http.DefaultHttpServerExchange;
+import com.muxin.gateway.core.plus.resilience.DeadlineTimer;
+import com.muxin.gateway.core.plus.resilience.RequestDeadline;
+import com.muxin.gateway.core.plus.route.DefaultRequestContext;
+import com.muxin.gateway.core.plus.route.Route;
+import com.muxin.gateway.core.plus.utils.HttpHeaderUtils;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.*;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.Timeout;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 流式转发处理器
+ * <p>
+ * 位于HttpServerCodec之后、聚合器之前，按请求头匹配路由：
+ * 路由开启streaming时，请求体和响应体按HttpContent在入站Channel与后端连接之间直接转发，
+ * 通过autoRead和Channel可写性做双向反压，内存占用与消息体大小无关；
+ * 后端在路由请求超时（不超过请求剩余时间）内没有返回响应头时以504结束；
+ * 路由总超时到期时整个交换结束，响应已开始写出的同时关闭客户端连接和后端连接；
+ * 其余请求原样交给后续的聚合处理链，已匹配的路由通过Channel属性传递，避免重复匹配。
+ * 流式响应写完之前到达的流水线请求暂存，并停止读取，响应结束后按顺序处理，保证响应不交错。
+ * 所有状态只在入站Channel的EventLoop上访问
+ *
+ * @author muxin
+ */
+@Slf4j
+class StreamingProxyHandler extends ChannelInboundHandlerAdapter {
+
+    /**
+     * 按请求头预先匹配到的路由，由聚合处理链取出使用
+     */
+    static final AttributeKey<Route> MATCHED_ROUTE = AttributeKey.valueOf("matchedRoute");
+
+    private final GatewayProcessor gatewayProcessor;
+
+    /**
+     * 当前请求是否交给聚合处理链
+     */
+    private boolean passThrough;
+
+    /**
+     * 当前流式转发，请求体读完且响应写完后清空
+     */
+    private StreamingExchange current;
+
+    /**
+     * 当前流式请求读完后、响应写完前到达的消息（流水线请求），最多一次读取的量
+     */
+    private final Queue<Object> heldMessages = new ArrayDeque<>();
+
+    StreamingProxyHandler(GatewayProcessor gatewayProcessor) {
+        this.gatewayProcessor = gatewayProcessor;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (current != null && current.requestComplete) {
+            // 上一个流式响应还在转发，后续请求等响应结束后再处理
+            ctx.channel().config().setAutoRead(false);
+            heldMessages.offer(msg);
+            return;
+        }
+
+        if (msg instanceof HttpRequest request) {
+            passThrough = !startStreaming(ctx, request);
+            if (passThrough) {
+                ctx.fireChannelRead(msg);
+            }
+            return;
+        }
+
+        if (passThrough || current == null || !(msg instanceof HttpContent content)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        current.onRequestContent(content);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (current != null) {
+            current.onClientWritabilityChanged(ctx.channel().isWritable());
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        releaseHeldMessages();
+        if (current != null) {
+            current.fail(new IOException("客户端连接已断开"));
+        }
+        super.channelInactive(ctx);
+    }
+
+    /**
+     * 当前流式转发结束，按顺序处理暂存的请求，没有新的流式转发接管读取时恢复读取
+     */
+    private void exchangeDone(ChannelHandlerContext ctx) {
+        current = null;
+        List<Object> held = new ArrayList<>(heldMessages);
+        heldMessages.clear();
+        for (Object msg : held) {
+            // 其中的请求再次开始流式转发并读完时，其后的消息会重新暂存
+            channelRead(ctx, msg);
+        }
+        if (current == null) {
+            ctx.channel().config().setAutoRead(true);
+        }
+    }
+
+    private void releaseHeldMessages() {
+        Object held;
+        while ((held = heldMessages.poll()) != null) {
+            ReferenceCountUtil.release(held);
+        }
+    }
+
+    /**
+     * 按请求头匹配路由，流式路由在此开始转发
+     *
+     * @return 是否由本处理器流式转发
+     */
+    private boolean startStreaming(ChannelHandlerContext ctx, HttpRequest request) {
+        if (request instanceof FullHttpRequest || request.decoderResult().isFailure()) {
+            return false;
+        }
+
+        // 只含请求头的交换对象，头部与原始请求共享，过滤器的修改会随请求头一起转发
+        FullHttpRequest headOnly = new DefaultFullHttpRequest(request.protocolVersion(), request.method(),
+                request.uri(), Unpooled.EMPTY_BUFFER, request.headers(), EmptyHttpHeaders.INSTANCE);
+        DefaultHttpServerExchange exchange = new DefaultHttpServerExchange(headOnly, ProtocolEnum.HTTP);
+        exchange.setAttribute(Constant.CLIENT_ADDRESS, ctx.channel().remoteAddress());
+        DefaultRequestContext context = new DefaultRequestContext(exchange,
+                new HttpServerConnection(ctx.channel(), ctx, HttpUtil.isKeepAlive(request),
+                        HttpMethod.HEAD.equals(request.method())));
+        context.setAttribute(Constant.EVENT_LOOP, ctx.channel().eventLoop());
+
+        Route route;
+        try {
+            route = gatewayProcessor.matchRoute(context);
+        } catch (Exception e) {
+            log.debug("[StreamingProxyHandler] 请求头路由匹配异常，交给聚合处理链: {}", e.getMessage());
+            route = null;
+        }
+
+        if (route == null || !route.isStreaming()) {
+            ctx.channel().attr(MATCHED_ROUTE).set(route);
+            return false;
+        }
+
+        context.setMatchedRoute(route);
+        current = new StreamingExchange(ctx, context, request);
+        current.start();
+        return true;
+    }
+
+    /**
+     * 单个请求的流式转发
+     */
+    private class StreamingExchange implements HttpStreamListener {
+
+        private final ChannelHandlerContext ctx;
+        private final DefaultRequestContext context;
+        private final HttpRequest requestHead;
+        private final boolean keepAlive;
+
+        /**
+         * 后端连接就绪前到达的请求体块（最多一次读取的量）
+         */
+        private final Queue<HttpContent> pendingContents = new ArrayDeque<>();
+        private HttpClientConnection connection;
+
+        private boolean requestComplete;
+        private boolean responseStarted;
+        private boolean finished;
+
+        /**
+         * 开始向后端转发的时间，用于记录后端响应耗时
+         */
+        private long streamStartNanos;
+
+        /**
+         * 等待后端响应头的超时，收到响应头或转发结束时取消
+         */
+        private Timeout firstByteTimeout;
+
+        /**
+         * 路由总超时，覆盖响应体转发阶段，转发结束时取消
+         */
+        private Timeout totalTimeout;
+
+        StreamingExchange(ChannelHandlerContext ctx, DefaultRequestContext context, HttpRequest requestHead) {
+            this.ctx = ctx;
+            this.context = context;
+            this.requestHead = requestHead;
+            this.keepAlive = HttpUtil.isKeepAlive(requestHead);
+        }
+
+        void start() {
+            // 后端连接就绪前暂停读取请求体
+            ctx.channel().config().setAutoRead(false);
+
+            if (HttpUtil.is100ContinueExpected(requestHead)) {
+                ctx.writeAndFlush(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE,
+                        Unpooled.EMPTY_BUFFER));
+                requestHead.headers().remove(HttpHeaderNames.EXPECT);
+            }
+
+            CompletableFuture<ClientConnection> connected = gatewayProcessor.prepareStreaming(context);
+            scheduleTotalTimeout();
+            connected.whenComplete((conn, error) -> runOnLoop(() -> onConnected(conn, error)));
+        }
+
+        /**
+         * 按路由匹配时记录的请求截止时间安排总超时，未配置总超时时不限时
+         */
+        private void scheduleTotalTimeout() {
+            RequestDeadline deadline = context.getAttribute(Constant.DEADLINE);
+            if (deadline != null) {
+                totalTimeout = DeadlineTimer.shared()
+                        .schedule(() -> runOnLoop(this::onTotalTimeout), deadline.remainingNanos());
+            }
+        }
+
+        private void onConnected(ClientConnection conn, Throwable error) {
+            if (finished) {
+                // 客户端已断开，连接在completeStreaming中已处理或随上下文释放
+                if (conn != null && context.clientConnection() == conn) {
+                    gatewayProcessor.completeStreaming(context, new IOException("客户端连接已断开"));
+                }
+                return;
+            }
+            if (error != null) {
+                fail(error);
+                return;
+            }
+            if (!(conn instanceof HttpClientConnection httpConnection)) {
+                fail(new IllegalStateException("流式转发需要HTTP连接: " + conn));
+                return;
+            }
+
+            connection = httpConnection;
+            streamStartNanos = System.nanoTime();
+            long timeoutNanos = gatewayProcessor.prepareBackendDeadline(context);
+            connection.stream(forwardHead(), this);
+            if (timeoutNanos >= 0) {
+                firstByteTimeout = DeadlineTimer.shared()
+                        .schedule(() -> runOnLoop(this::onFirstByteTimeout), timeoutNanos);
+            }
+
+            HttpContent content;
+            while ((content = pendingContents.poll()) != null) {
+                connection.streamContent(content);
+            }
+            // 请求已读完时保持暂停，流水线上的下一个请求等响应写完后再读取
+            ctx.channel().config().setAutoRead(!requestComplete && connection.isWritable());
+        }
+
+        /**
+         * 发往后端的请求头：保持请求体的分帧方式，剔除逐跳头部
+         */
+        private HttpRequest forwardHead() {
+            HttpHeaders headers = requestHead.headers();
+            HttpHeaderUtils.removeHopByHopHeaders(headers);
+            headers.set(HttpHeaderNames.HOST, connection.hostHeader());
+            return new DefaultHttpRequest(HttpVersion.HTTP_1_1, requestHead.method(), requestHead.uri(), headers);
+        }
+
+        // ========== 请求方向 ==========
+
+        void onRequestContent(HttpContent content) {
+            boolean last = content instanceof LastHttpContent;
+            if (last) {
+                requestComplete = true;
+                if (!finished) {
+                    ctx.channel().config().setAutoRead(false);
+                }
+            }
+
+            if (finished) {
+                content.release();
+            } else if (connection == null) {
+                pendingContents.offer(content);
+            } else {
+                connection.streamContent(content);
+                if (!last && !connection.isWritable()) {
+                    // 后端写缓冲区已满，暂停读取客户端
+                    ctx.channel().config().setAutoRead(false);
+                }
+            }
+
+            if (last && finished) {
+                exchangeDone(ctx);
+            }
+        }
+
+        // ========== 响应方向 ==========
+
+        @Override
+        public void onResponsePart(HttpObject part) {
+            runOnLoop(() -> relayResponse(part));
+        }
+
+        @Override
+        public void onError(Throwable cause) {
+            runOnLoop(() -> fail(cause));
+        }
+
+        @Override
+        public void onWritabilityChanged(boolean writable) {
+            runOnLoop(() -> {
+                if (writable && !requestComplete && !finished) {
+                    ctx.channel().config().setAutoRead(true);
+                }
+            });
+        }
+
+        void onClientWritabilityChanged(boolean writable) {
+            if (connection != null && !finished) {
+                // 客户端写缓冲区满时暂停读取后端响应
+                connection.setAutoRead(writable);
+            }
+        }
+
+        private void relayResponse(HttpObject part) {
+            if (finished) {
+                ReferenceCountUtil.release(part);
+                return;
+            }
+
+            if (part instanceof HttpResponse response) {
+                responseStarted = true;
+                cancelFirstByteTimeout();
+                gatewayProcessor.recordBackendResponse(context, System.nanoTime() - streamStartNanos, null);
+                HttpHeaders headers = response.headers();
+                HttpHeaderUtils.removeHopByHopHeaders(headers);
+                if (!HttpUtil.isContentLengthSet(response) && !HttpUtil.isTransferEncodingChunked(response)) {
+                    // 后端以关闭连接界定响应体时，对客户端改用chunked
+                    HttpUtil.setTransferEncodingChunked(response, true);
+                }
+                HttpUtil.setKeepAlive(response, keepAlive);
+                response.setProtocolVersion(HttpVersion.HTTP_1_1);
+            }
+
+            ChannelFuture future = ctx.writeAndFlush(part);
+            if (part instanceof LastHttpContent) {
+                future.addListener(f -> finish(f.isSuccess() ? null : f.cause()));
+            } else if (!ctx.channel().isWritable()) {
+                connection.setAutoRead(false);
+            }
+        }
+
+        // ========== 结束处理 ==========
+
+        private void onFirstByteTimeout() {
+            if (!finished && !responseStarted) {
+                fail(new TimeoutException("后端响应超时: " + context.getSelectedEndpoint().toUri()));
+            }
+        }
+
+        private void onTotalTimeout() {
+            if (!finished) {
+                // 响应已开始时fail不再发送错误响应，由finish关闭两端连接
+                fail(new TimeoutException("请求总超时: " + context.requestId()));
+            }
+        }
+
+        private void cancelFirstByteTimeout() {
+            if (firstByteTimeout != null) {
+                firstByteTimeout.cancel();
+                firstByteTimeout = null;
+            }
+        }
+
+        void fail(Throwable cause) {
+            if (finished) {
+                return;
+            }
+            if (!responseStarted && connection != null) {
+                gatewayProcessor.recordBackendResponse(context, System.nanoTime() - streamStartNanos, cause);
+            }
+            if (!responseStarted && ctx.channel().isActive()) {
+                context.serverConnection().sendError(cause);
+            }
+            finish(cause);
+        }
+
+        private void finish(Throwable error) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            cancelFirstByteTimeout();
+            if (totalTimeout != null) {
+                totalTimeout.cancel();
+                totalTimeout = null;
+            }
+
+            HttpContent content;
+            while ((content = pendingContents.poll()) != null) {
+                content.release();
+            }
+
+            if (!requestComplete) {
+                // 继续读取并丢弃剩余的请求体
+                ctx.channel().config().setAutoRead(true);
+            }
+            if (connection != null) {
+                // 连接归还连接池前必须处于autoRead状态
+                connection.setAutoRead(true);
+                if (error == null && !requestComplete) {
+                    // 后端在请求体发送完之前已响应，连接上残留未发送完的请求体，不能复用
+                    connection.destroy();
+                }
+            }
+
+            gatewayProcessor.completeStreaming(context, error);
+
+            boolean close = !keepAlive || (error != null && (responseStarted || !requestComplete));
+            if (close) {
+                ctx.close();
+            }
+            if (requestComplete) {
+                if (close || !ctx.channel().isActive()) {
+                    current = null;
+                    releaseHeldMessages();
+                } else {
+                    exchangeDone(ctx);
+                }
+            }
+        }
+
+        private void runOnLoop(Runnable task) {
+            EventLoop eventLoop = ctx.channel().eventLoop();
+            if (eventLoop.inEventLoop()) {
+                task.run();
+            } else {
+                eventLoop.execute(task);
+            }
+        }
+    }
+}
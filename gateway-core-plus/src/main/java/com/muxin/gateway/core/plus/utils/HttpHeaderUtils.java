@@ -0,0 +1,37 @@
+package com.muxin.gateway.core.plus.utils;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+
+/**
+ * HTTP头部工具类
+ *
+ * @author muxin
+ */
+public class HttpHeaderUtils {
+
+    /**
+     * 移除代理不应转发的逐跳头部（RFC 7230 6.1）
+     * Transfer-Encoding描述消息体的分帧方式，是否保留由调用方根据是否改写消息体决定
+     */
+    public static void removeHopByHopHeaders(HttpHeaders headers) {
+        // Connection中列出的头部同样只对当前连接有效
+        for (String connection : headers.getAll(HttpHeaderNames.CONNECTION)) {
+            for (String token : connection.split(",")) {
+                String name = token.trim();
+                if (!name.isEmpty() && !HttpHeaderNames.TRANSFER_ENCODING.contentEqualsIgnoreCase(name)
+                        && !HttpHeaderNames.CONTENT_LENGTH.contentEqualsIgnoreCase(name)) {
+                    headers.remove(name);
+                }
+            }
+        }
+        headers.remove(HttpHeaderNames.CONNECTION);
+        headers.remove(HttpHeaderNames.KEEP_ALIVE);
+        headers.remove(HttpHeaderNames.PROXY_CONNECTION);
+        headers.remove(HttpHeaderNames.PROXY_AUTHENTICATE);
+        headers.remove(HttpHeaderNames.PROXY_AUTHORIZATION);
+        headers.remove(HttpHeaderNames.TE);
+        headers.remove(HttpHeaderNames.TRAILER);
+        headers.remove(HttpHeaderNames.UPGRADE);
+    }
+}
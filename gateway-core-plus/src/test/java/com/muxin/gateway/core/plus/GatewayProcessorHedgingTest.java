@@ -0,0 +1,266 @@
+package com.muxin.gateway.core.plus;
+
+import com.muxin.gateway.core.plus.common.Constant;
+import com.muxin.gateway.core.plus.connect.ClientConnection;
+import com.muxin.gateway.core.plus.connect.ConnectionPoolManager;
+import com.muxin.gateway.core.plus.message.Message;
+import com.muxin.gateway.core.plus.message.ProtocolEnum;
+import com.muxin.gateway.core.plus.message.ServerExchange;
+import com.muxin.gateway.core.plus.route.DefaultRequestContext;
+import com.muxin.gateway.core.plus.route.RequestContext;
+import com.muxin.gateway.core.plus.route.Route;
+import com.muxin.gateway.core.plus.route.RouteManager;
+import com.muxin.gateway.core.plus.route.RouteService;
+import com.muxin.gateway.core.plus.route.loadbalance.LoadBalanceStrategy;
+import com.muxin.gateway.core.plus.route.predicate.MethodPredicateFactory.MethodPredicate;
+import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import com.muxin.gateway.core.plus.route.service.HttpEndpointAddress;
+import com.muxin.gateway.core.plus.route.service.InstanceManager;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.HttpMethod;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 请求对冲测试
+ * 首个请求发往慢后端，对冲请求发往快后端，由测试控制两个后端何时返回
+ *
+ * @author muxin
+ */
+@DisplayName("请求对冲测试")
+public class GatewayProcessorHedgingTest {
+
+    private static final long HEDGE_DELAY_MS = 30;
+
+    private final EndpointAddress slow = new HttpEndpointAddress("http://127.0.0.1:18091");
+    private final EndpointAddress fast = new HttpEndpointAddress("http://127.0.0.1:18092");
+
+    /**
+     * 每个后端收到的调用，按到达顺序
+     */
+    private final List<CompletableFuture<Message>> slowCalls = new CopyOnWriteArrayList<>();
+    private final List<CompletableFuture<Message>> fastCalls = new CopyOnWriteArrayList<>();
+    private final List<ClientConnection> slowConnections = new CopyOnWriteArrayList<>();
+    private final List<ClientConnection> fastConnections = new CopyOnWriteArrayList<>();
+
+    private EventLoop eventLoop;
+    private ConnectionPoolManager connectionPoolManager;
+    private Route route;
+    private GatewayProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        eventLoop = new DefaultEventLoop();
+        connectionPoolManager = mock(ConnectionPoolManager.class);
+        when(connectionPoolManager.acquire(eq(slow), any(), any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(newConnection(slow, slowCalls, slowConnections)));
+        when(connectionPoolManager.acquire(eq(fast), any(), any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(newConnection(fast, fastCalls, fastConnections)));
+
+        route = route(Map.of("delay", HEDGE_DELAY_MS, "max-percent", 10));
+        RouteManager routeManager = mock(RouteManager.class);
+        when(routeManager.matchRoute(any())).thenAnswer(invocation -> route);
+        processor = new GatewayProcessor(null, connectionPoolManager, routeManager, mock(InstanceManager.class));
+        processor.running = true;
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventLoop.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    private ClientConnection newConnection(EndpointAddress target, List<CompletableFuture<Message>> calls,
+                                           List<ClientConnection> connections) {
+        ClientConnection connection = mock(ClientConnection.class);
+        when(connection.isActive()).thenReturn(true);
+        when(connection.getTarget()).thenReturn(target);
+        when(connection.send(any())).thenAnswer(invocation -> {
+            CompletableFuture<Message> call = new CompletableFuture<>();
+            calls.add(call);
+            return call;
+        });
+        connections.add(connection);
+        return connection;
+    }
+
+    private Route route(Map<String, Object> hedging) {
+        RouteService service = mock(RouteService.class);
+        when(service.getTargetAddresses()).thenReturn(List.of(slow, fast));
+        // 首个请求总是发往慢后端，对冲请求由负载均衡策略选到快后端
+        when(service.selectTarget(any(), any())).thenReturn(slow);
+        LoadBalanceStrategy strategy = mock(LoadBalanceStrategy.class);
+        when(strategy.selectAvailable(any(), any())).thenReturn(fast);
+        when(strategy.getStrategyName()).thenReturn("MOCK");
+
+        Route route = mock(Route.class);
+        when(route.getId()).thenReturn("hedged-route");
+        when(route.getService()).thenReturn(service);
+        when(route.getLoadBalanceStrategy()).thenReturn(strategy);
+        when(route.getFilters()).thenReturn(List.of());
+        when(route.getPredicates()).thenReturn(List.of(new MethodPredicate(Map.of(), Set.of(HttpMethod.GET))));
+        when(route.getMetadata()).thenReturn(Map.of("hedging", hedging));
+        when(route.getConnectionTimeout()).thenReturn(Duration.ofSeconds(5));
+        return route;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RequestContext send() {
+        ServerExchange<Message, Message> exchange = mock(ServerExchange.class);
+        when(exchange.protocol()).thenReturn(ProtocolEnum.HTTP);
+        when(exchange.request()).thenReturn(mock(Message.class));
+        RequestContext context = new DefaultRequestContext(exchange);
+        context.setAttribute(Constant.EVENT_LOOP, eventLoop);
+        processor.processRequest(context);
+        return context;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ServerExchange<Message, Message> exchange(RequestContext context) {
+        return (ServerExchange<Message, Message>) context.exchange();
+    }
+
+    private static CompletableFuture<Void> outcome(RequestContext context) {
+        return context.getAttribute(Constant.REQUEST_FUTURE);
+    }
+
+    private static void await(List<?> calls, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (calls.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, calls.size());
+    }
+
+    private static void awaitCompleted(RequestContext context) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!context.isCompleted() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(context.isCompleted());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> statistics() {
+        return (Map<String, Object>) processor.getHedgingStatistics().get("hedged-route");
+    }
+
+    @Test
+    @DisplayName("对冲请求胜出时使用对冲响应，首个请求的连接直接释放而不归还连接池")
+    void testHedgeWinsReleasesPrimaryConnection() throws Exception {
+        RequestContext context = send();
+        await(slowCalls, 1);
+        await(fastCalls, 1);
+
+        Message response = mock(Message.class);
+        fastCalls.get(0).complete(response);
+        outcome(context).get(1, TimeUnit.SECONDS);
+        awaitCompleted(context);
+
+        verify(exchange(context)).setResponse(response);
+        assertSame(fast, context.getSelectedEndpoint());
+        verify(connectionPoolManager, timeout(1000)).releaseConnection(slowConnections.get(0));
+        verify(connectionPoolManager, never()).returnConnection(slowConnections.get(0));
+        verify(connectionPoolManager, timeout(1000)).returnConnection(fastConnections.get(0));
+
+        // 首个请求之后才返回的响应被丢弃
+        slowCalls.get(0).complete(mock(Message.class));
+        Map<String, Object> stats = statistics();
+        assertEquals(1L, stats.get("requests"));
+        assertEquals(1L, stats.get("hedges"));
+        assertEquals(1L, stats.get("hedgeWins"));
+    }
+
+    @Test
+    @DisplayName("首个请求先返回时取消对冲请求，不计为对冲胜出")
+    void testPrimaryWinsCancelsHedge() throws Exception {
+        RequestContext context = send();
+        await(fastCalls, 1);
+
+        Message response = mock(Message.class);
+        slowCalls.get(0).complete(response);
+        outcome(context).get(1, TimeUnit.SECONDS);
+        awaitCompleted(context);
+
+        verify(exchange(context)).setResponse(response);
+        verify(connectionPoolManager, timeout(1000)).returnConnection(slowConnections.get(0));
+        // 对冲请求的响应未返回，连接不能复用
+        verify(connectionPoolManager, timeout(1000)).releaseConnection(fastConnections.get(0));
+        Map<String, Object> stats = statistics();
+        assertEquals(1L, stats.get("hedges"));
+        assertEquals(0L, stats.get("hedgeWins"));
+    }
+
+    @Test
+    @DisplayName("首个请求在对冲请求获取连接期间失败，以对冲请求的响应结束")
+    void testPrimaryFailureThenHedgeSuccess() throws Exception {
+        CompletableFuture<ClientConnection> hedgeConnection = new CompletableFuture<>();
+        when(connectionPoolManager.acquire(eq(fast), any(), any())).thenReturn(hedgeConnection);
+
+        RequestContext context = send();
+        await(slowCalls, 1);
+        verify(connectionPoolManager, timeout(1000)).acquire(eq(fast), any(), any());
+
+        slowCalls.get(0).completeExceptionally(new IOException("连接被重置"));
+        Thread.sleep(20);
+        assertFalse(outcome(context).isDone(), "对冲请求仍在进行时不应以首个请求的失败结束");
+
+        hedgeConnection.complete(newConnection(fast, fastCalls, fastConnections));
+        await(fastCalls, 1);
+        Message response = mock(Message.class);
+        fastCalls.get(0).complete(response);
+        outcome(context).get(1, TimeUnit.SECONDS);
+        awaitCompleted(context);
+
+        verify(exchange(context)).setResponse(response);
+        verify(connectionPoolManager, timeout(1000)).releaseConnection(slowConnections.get(0));
+        verify(connectionPoolManager, timeout(1000)).returnConnection(fastConnections.get(0));
+        Map<String, Object> stats = statistics();
+        assertEquals(1L, stats.get("hedges"));
+        assertEquals(1L, stats.get("hedgeWins"));
+    }
+
+    @Test
+    @DisplayName("对冲预算用尽后不再对冲")
+    void testBudgetExhaustionStopsHedging() throws Exception {
+        // 预算上限为10个突发令牌，每个请求只补充0.1个
+        int requests = 15;
+        List<RequestContext> contexts = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            contexts.add(send());
+        }
+        await(slowCalls, requests);
+        Thread.sleep(HEDGE_DELAY_MS * 3);
+
+        Map<String, Object> stats = statistics();
+        assertEquals((long) requests, stats.get("requests"));
+        assertEquals(10L, stats.get("hedges"));
+        assertEquals(5L, stats.get("budgetExhausted"));
+        assertEquals(10, fastCalls.size());
+
+        for (CompletableFuture<Message> call : slowCalls) {
+            call.complete(mock(Message.class));
+        }
+        for (RequestContext context : contexts) {
+            outcome(context).get(1, TimeUnit.SECONDS);
+        }
+        assertEquals(0L, statistics().get("hedgeWins"));
+    }
+}
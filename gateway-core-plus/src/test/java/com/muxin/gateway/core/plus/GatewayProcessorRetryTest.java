@@ -0,0 +1,232 @@
+package com.muxin.gateway.core.plus;
+
+import com.muxin.gateway.core.plus.common.Constant;
+import com.muxin.gateway.core.plus.connect.ClientConnection;
+import com.muxin.gateway.core.plus.connect.ConnectionPoolManager;
+import com.muxin.gateway.core.plus.message.Message;
+import com.muxin.gateway.core.plus.message.ProtocolEnum;
+import com.muxin.gateway.core.plus.message.ServerExchange;
+import com.muxin.gateway.core.plus.message.http.HttpRequestMessage;
+import com.muxin.gateway.core.plus.message.http.HttpResponseMessage;
+import com.muxin.gateway.core.plus.route.DefaultRequestContext;
+import com.muxin.gateway.core.plus.route.RequestContext;
+import com.muxin.gateway.core.plus.route.RetryConfig;
+import com.muxin.gateway.core.plus.route.Route;
+import com.muxin.gateway.core.plus.route.RouteManager;
+import com.muxin.gateway.core.plus.route.RouteService;
+import com.muxin.gateway.core.plus.route.loadbalance.LoadBalanceStrategy;
+import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import com.muxin.gateway.core.plus.route.service.HttpEndpointAddress;
+import com.muxin.gateway.core.plus.route.service.InstanceManager;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 请求重试测试
+ * 后端桩按状态码立即返回，记录每次调用发往的端点
+ *
+ * @author muxin
+ */
+@DisplayName("请求重试测试")
+public class GatewayProcessorRetryTest {
+
+    private final EndpointAddress first = new HttpEndpointAddress("http://127.0.0.1:18101");
+    private final EndpointAddress second = new HttpEndpointAddress("http://127.0.0.1:18102");
+    private final EndpointAddress third = new HttpEndpointAddress("http://127.0.0.1:18103");
+
+    /**
+     * 后端调用依次发往的端点
+     */
+    private final List<EndpointAddress> calls = new CopyOnWriteArrayList<>();
+
+    private volatile int backendStatus = 503;
+
+    private EventLoop eventLoop;
+    private ConnectionPoolManager connectionPoolManager;
+    private RouteService service;
+    private Route route;
+    private GatewayProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        eventLoop = new DefaultEventLoop();
+        connectionPoolManager = mock(ConnectionPoolManager.class);
+        when(connectionPoolManager.acquire(any(), any(), any())).thenAnswer(invocation
+                -> CompletableFuture.completedFuture(newConnection(invocation.getArgument(0))));
+
+        service = mock(RouteService.class);
+        when(service.getTargetAddresses()).thenReturn(List.of(first, second, third));
+        when(service.selectTarget(any(), any())).thenReturn(first);
+        route = route(RetryConfig.builder().backoff(Duration.ZERO).build());
+
+        RouteManager routeManager = mock(RouteManager.class);
+        when(routeManager.matchRoute(any())).thenAnswer(invocation -> route);
+        processor = new GatewayProcessor(null, connectionPoolManager, routeManager, mock(InstanceManager.class));
+        processor.running = true;
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventLoop.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    private ClientConnection newConnection(EndpointAddress target) {
+        ClientConnection connection = mock(ClientConnection.class);
+        when(connection.isActive()).thenReturn(true);
+        when(connection.getTarget()).thenReturn(target);
+        when(connection.send(any())).thenAnswer(invocation -> {
+            calls.add(target);
+            HttpResponseMessage response = mock(HttpResponseMessage.class);
+            when(response.status()).thenReturn(HttpResponseStatus.valueOf(backendStatus));
+            return CompletableFuture.completedFuture(response);
+        });
+        return connection;
+    }
+
+    private Route route(RetryConfig retryConfig) {
+        LoadBalanceStrategy strategy = mock(LoadBalanceStrategy.class);
+        when(strategy.getStrategyName()).thenReturn("MOCK");
+        Route route = mock(Route.class);
+        when(route.getId()).thenReturn("retry-route");
+        when(route.getService()).thenReturn(service);
+        when(route.getLoadBalanceStrategy()).thenReturn(strategy);
+        when(route.getFilters()).thenReturn(List.of());
+        when(route.getRetryConfig()).thenReturn(retryConfig);
+        when(route.getConnectionTimeout()).thenReturn(Duration.ofSeconds(5));
+        return route;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RequestContext send(HttpMethod method) throws Exception {
+        ServerExchange<Message, Message> exchange = mock(ServerExchange.class);
+        when(exchange.protocol()).thenReturn(ProtocolEnum.HTTP);
+        HttpRequestMessage request = mock(HttpRequestMessage.class);
+        when(request.method()).thenReturn(method);
+        when(request.headers()).thenReturn(new DefaultHttpHeaders());
+        when(exchange.request()).thenReturn(request);
+        AtomicReference<Message> response = new AtomicReference<>();
+        doAnswer(invocation -> {
+            response.set(invocation.getArgument(0));
+            return null;
+        }).when(exchange).setResponse(any());
+        when(exchange.response()).thenAnswer(invocation -> response.get());
+        RequestContext context = new DefaultRequestContext(exchange);
+        context.setAttribute(Constant.EVENT_LOOP, eventLoop);
+        processor.processRequest(context);
+        CompletableFuture<Void> outcome = context.getAttribute(Constant.REQUEST_FUTURE);
+        outcome.get(2, TimeUnit.SECONDS);
+        return context;
+    }
+
+    private static int status(RequestContext context) {
+        return ((HttpResponseMessage) context.exchange().response()).status().code();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> statistics() {
+        return (Map<String, Object>) processor.getRetryStatistics().get("retry-route");
+    }
+
+    @Test
+    @DisplayName("后端整体故障时重试数不超过预算：突发数加请求数的budgetPercent")
+    void testRetriesBoundedByBudgetDuringOutage() throws Exception {
+        int requests = 200;
+        for (int i = 0; i < requests; i++) {
+            assertEquals(503, status(send(HttpMethod.GET)));
+        }
+
+        Map<String, Object> stats = statistics();
+        long retries = (long) stats.get("retries");
+        // 默认budgetPercent=20、budgetBurst=10，没有预算时每个请求最多重试2次
+        assertTrue(retries <= 10 + requests * 20 / 100, "重试数超出预算: " + retries);
+        assertTrue(retries >= requests * 20 / 100, "预算内的重试应被执行: " + retries);
+        assertTrue((long) stats.get("budgetExhausted") > 0);
+        assertEquals(requests + retries, calls.size());
+        assertEquals((long) requests, stats.get("requests"));
+    }
+
+    @Test
+    @DisplayName("重试避开已尝试过的端点")
+    void testRetryAvoidsTriedEndpoints() throws Exception {
+        // 首次选中first，重试时负载均衡先后选出first、second、first、third
+        when(service.selectTarget(any(), any())).thenReturn(first, first, second, first, third);
+
+        assertEquals(503, status(send(HttpMethod.GET)));
+
+        assertEquals(List.of(first, second, third), calls);
+        assertEquals(2L, statistics().get("retries"));
+    }
+
+    @Test
+    @DisplayName("重试成功时以成功响应结束")
+    void testRetrySuccess() throws Exception {
+        when(service.selectTarget(any(), any())).thenReturn(first, second);
+        when(connectionPoolManager.acquire(any(), any(), any())).thenAnswer(invocation -> {
+            EndpointAddress target = invocation.getArgument(0);
+            backendStatus = target.equals(first) ? 503 : 200;
+            return CompletableFuture.completedFuture(newConnection(target));
+        });
+
+        assertEquals(200, status(send(HttpMethod.GET)));
+
+        assertEquals(List.of(first, second), calls);
+        assertEquals(1L, statistics().get("retrySuccesses"));
+    }
+
+    @Test
+    @DisplayName("退避超出请求剩余时间时不再重试")
+    void testBackoffRespectsDeadline() throws Exception {
+        route = route(RetryConfig.builder().backoff(Duration.ofSeconds(10)).maxBackoff(Duration.ofSeconds(10)).build());
+        when(route.getTotalTimeout()).thenReturn(Duration.ofMillis(500));
+
+        long start = System.nanoTime();
+        RequestContext context = send(HttpMethod.GET);
+
+        // 退避在[0, 10s)内随机，极小概率落在剩余时间内，此时仍应在总超时内结束
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        if (calls.size() == 1) {
+            assertEquals(503, status(context));
+            assertEquals(0L, statistics().get("retries"));
+        }
+    }
+
+    @Test
+    @DisplayName("不可重试的请求方法直接返回后端响应")
+    void testNonRetryableMethodPassesThrough() throws Exception {
+        assertEquals(503, status(send(HttpMethod.POST)));
+
+        assertEquals(1, calls.size());
+        assertEquals(0L, statistics().get("retries"));
+        assertEquals(0L, statistics().get("requests"));
+    }
+
+    @Test
+    @DisplayName("不可重试的状态码直接返回后端响应")
+    void testNonRetryableStatusPassesThrough() throws Exception {
+        backendStatus = 500;
+
+        assertEquals(500, status(send(HttpMethod.GET)));
+
+        assertEquals(1, calls.size());
+        assertEquals(0L, statistics().get("retries"));
+    }
+}
@@ -0,0 +1,167 @@
+package com.muxin.gateway.core.plus;
+
+import com.muxin.gateway.core.plus.common.Constant;
+import com.muxin.gateway.core.plus.connect.ClientConnection;
+import com.muxin.gateway.core.plus.connect.ConnectionFactory;
+import com.muxin.gateway.core.plus.connect.ConnectionPoolConfig;
+import com.muxin.gateway.core.plus.connect.DefaultConnectionPoolManager;
+import com.muxin.gateway.core.plus.message.Message;
+import com.muxin.gateway.core.plus.message.ProtocolEnum;
+import com.muxin.gateway.core.plus.message.ServerExchange;
+import com.muxin.gateway.core.plus.route.DefaultRequestContext;
+import com.muxin.gateway.core.plus.route.RequestContext;
+import com.muxin.gateway.core.plus.route.Route;
+import com.muxin.gateway.core.plus.route.RouteManager;
+import com.muxin.gateway.core.plus.route.RouteService;
+import com.muxin.gateway.core.plus.route.loadbalance.LoadBalanceStrategy;
+import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import com.muxin.gateway.core.plus.route.service.HttpEndpointAddress;
+import com.muxin.gateway.core.plus.route.service.InstanceManager;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 网关处理器超时测试
+ *
+ * @author muxin
+ */
+@DisplayName("网关处理器超时测试")
+public class GatewayProcessorTest {
+
+    private static final long TOTAL_TIMEOUT_MS = 100;
+
+    private final EndpointAddress target = new HttpEndpointAddress("http://127.0.0.1:18080");
+
+    private EventLoop eventLoop;
+    private DefaultConnectionPoolManager connectionPoolManager;
+    private GatewayProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        eventLoop = new DefaultEventLoop();
+        ConnectionFactory factory = mock(ConnectionFactory.class);
+        when(factory.getSupportedProtocol()).thenReturn(ProtocolEnum.HTTP);
+        when(factory.createClientConnection(any(), any())).thenAnswer(invocation -> newConnection());
+        when(factory.createClientConnection(any())).thenAnswer(invocation -> newConnection());
+        connectionPoolManager = new DefaultConnectionPoolManager(ConnectionPoolConfig.builder()
+                .maxConnectionsPerTarget(1)
+                .acquireTimeout(Duration.ofSeconds(2))
+                .build());
+        connectionPoolManager.registerConnectionFactory(factory);
+
+        RouteManager routeManager = mock(RouteManager.class);
+        Route route = route();
+        when(routeManager.matchRoute(any())).thenReturn(route);
+        processor = new GatewayProcessor(null, connectionPoolManager, routeManager, mock(InstanceManager.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionPoolManager.shutdown();
+        eventLoop.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    private CompletableFuture<ClientConnection> newConnection() {
+        long now = System.currentTimeMillis();
+        ClientConnection connection = mock(ClientConnection.class);
+        when(connection.isActive()).thenReturn(true);
+        when(connection.isHealthy()).thenReturn(true);
+        when(connection.getCreatedTime()).thenReturn(now);
+        when(connection.getLastActiveTime()).thenReturn(now);
+        when(connection.getProtocol()).thenReturn(ProtocolEnum.HTTP);
+        when(connection.getTarget()).thenReturn(target);
+        when(connection.send(any())).thenReturn(new CompletableFuture<>());
+        when(connection.close()).thenReturn(CompletableFuture.completedFuture(null));
+        return CompletableFuture.completedFuture(connection);
+    }
+
+    private Route route() {
+        RouteService service = mock(RouteService.class);
+        when(service.getTargetAddresses()).thenReturn(List.of(target));
+        when(service.selectTarget(any(), any())).thenReturn(target);
+        Route route = mock(Route.class);
+        when(route.getId()).thenReturn("timeout-route");
+        when(route.getService()).thenReturn(service);
+        when(route.getLoadBalanceStrategy()).thenReturn(mock(LoadBalanceStrategy.class));
+        when(route.getFilters()).thenReturn(List.of());
+        when(route.getConnectionTimeout()).thenReturn(Duration.ofSeconds(5));
+        when(route.getTotalTimeout()).thenReturn(Duration.ofMillis(TOTAL_TIMEOUT_MS));
+        return route;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RequestContext newContext() {
+        ServerExchange<Message, Message> exchange = mock(ServerExchange.class);
+        when(exchange.protocol()).thenReturn(ProtocolEnum.HTTP);
+        when(exchange.request()).thenReturn(mock(Message.class));
+        RequestContext context = new DefaultRequestContext(exchange);
+        context.setAttribute(Constant.EVENT_LOOP, eventLoop);
+        return context;
+    }
+
+    private void awaitCompleted(RequestContext context) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 3000;
+        while (!context.isCompleted() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(context.isCompleted());
+    }
+
+    private Map<String, Object> awaitPoolSettled() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 3000;
+        Map<String, Object> status = connectionPoolManager.getPoolStatus(target, ProtocolEnum.HTTP);
+        while (System.currentTimeMillis() < deadline
+                && (!status.get("pendingAcquires").equals(0)
+                || !status.get("idleConnections").equals(status.get("allocatedConnections")))) {
+            Thread.sleep(10);
+            status = connectionPoolManager.getPoolStatus(target, ProtocolEnum.HTTP);
+        }
+        return status;
+    }
+
+    @Test
+    @DisplayName("在满连接池中排队的请求总超时后，连接池可用连接数恢复")
+    void testTotalTimeoutWhileQueuedRestoresPool() throws Exception {
+        // 连接在总超时前后不同时刻归还，覆盖连接先到达和超时先发生两种顺序
+        for (long returnAfterMs = TOTAL_TIMEOUT_MS - 10; returnAfterMs <= TOTAL_TIMEOUT_MS + 10; returnAfterMs += 2) {
+            ClientConnection held = connectionPoolManager.acquire(target, ProtocolEnum.HTTP, null)
+                    .get(1, TimeUnit.SECONDS);
+            RequestContext context = newContext();
+
+            processor.processRequest(context);
+            CompletableFuture<Void> outcome = context.getAttribute(Constant.REQUEST_FUTURE);
+            assertNotNull(outcome);
+            assertFalse(outcome.isDone());
+
+            Thread.sleep(returnAfterMs);
+            connectionPoolManager.returnConnection(held);
+
+            try {
+                outcome.get(1, TimeUnit.SECONDS);
+                fail("请求应以总超时结束");
+            } catch (Exception expected) {
+                // 总超时
+            }
+            awaitCompleted(context);
+
+            Map<String, Object> status = awaitPoolSettled();
+            assertEquals(0, status.get("pendingAcquires"));
+            assertEquals(status.get("allocatedConnections"), status.get("idleConnections"));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.muxin.gateway.core.plus.connect;
+
+import com.muxin.gateway.core.plus.message.ProtocolEnum;
+import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import com.muxin.gateway.core.plus.route.service.HttpEndpointAddress;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 连接池EventLoop亲和测试
+ *
+ * @author muxin
+ */
+@DisplayName("连接池EventLoop亲和测试")
+public class DefaultConnectionPoolTest {
+
+    private final EndpointAddress target = new HttpEndpointAddress("http://127.0.0.1:18080");
+    private final AtomicInteger created = new AtomicInteger();
+
+    private EventLoop eventLoop;
+    private DefaultConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        eventLoop = new DefaultEventLoop();
+        ConnectionFactory factory = mock(ConnectionFactory.class);
+        when(factory.createClientConnection(any(), any())).thenAnswer(invocation -> newConnection());
+        when(factory.createClientConnection(any())).thenAnswer(invocation -> newConnection());
+        pool = new DefaultConnectionPool(factory, ConnectionPoolConfig.builder()
+                .eventLoopAffinity(true)
+                .maxConnectionsPerTarget(1)
+                .acquireTimeout(Duration.ofSeconds(2))
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+        eventLoop.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    private CompletableFuture<ClientConnection> newConnection() {
+        created.incrementAndGet();
+        long now = System.currentTimeMillis();
+        ClientConnection connection = mock(ClientConnection.class);
+        when(connection.isActive()).thenReturn(true);
+        when(connection.isHealthy()).thenReturn(true);
+        when(connection.getCreatedTime()).thenReturn(now);
+        when(connection.getLastActiveTime()).thenReturn(now);
+        when(connection.getEventLoop()).thenReturn(eventLoop);
+        when(connection.getTarget()).thenReturn(target);
+        when(connection.close()).thenReturn(CompletableFuture.completedFuture(null));
+        return CompletableFuture.completedFuture(connection);
+    }
+
+    @Test
+    @DisplayName("亲和模式下没有EventLoop的调用方复用其他EventLoop的空闲连接")
+    void testAcquireWithoutEventLoopReusesIdleConnection() throws Exception {
+        ClientConnection first = pool.acquire(target, ProtocolEnum.HTTP, eventLoop).get(1, TimeUnit.SECONDS);
+        pool.returnConnection(first);
+
+        ClientConnection second = pool.acquire(target, ProtocolEnum.HTTP, null).get(1, TimeUnit.SECONDS);
+
+        assertSame(first, second);
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    @DisplayName("亲和模式下没有EventLoop的等待者能拿到归还的连接")
+    void testPendingAcquireWithoutEventLoopReceivesReturnedConnection() throws Exception {
+        ClientConnection first = pool.acquire(target, ProtocolEnum.HTTP, eventLoop).get(1, TimeUnit.SECONDS);
+        CompletableFuture<ClientConnection> waiting = pool.acquire(target, ProtocolEnum.HTTP, null);
+        assertFalse(waiting.isDone());
+
+        pool.returnConnection(first);
+
+        assertSame(first, waiting.get(1, TimeUnit.SECONDS));
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    @DisplayName("已有等待者时新的获取请求排在其后")
+    void testWaitersServedInOrder() throws Exception {
+        ClientConnection first = pool.acquire(target, ProtocolEnum.HTTP, eventLoop).get(1, TimeUnit.SECONDS);
+        CompletableFuture<ClientConnection> queued = pool.acquire(target, ProtocolEnum.HTTP, eventLoop);
+        CompletableFuture<ClientConnection> later = pool.acquire(target, ProtocolEnum.HTTP, eventLoop);
+
+        pool.returnConnection(first);
+
+        assertSame(first, queued.get(1, TimeUnit.SECONDS));
+        assertFalse(later.isDone());
+        pool.returnConnection(first);
+        assertSame(first, later.get(1, TimeUnit.SECONDS));
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    @DisplayName("连接池关闭后归还的连接被关闭")
+    void testConnectionReturnedAfterShutdownIsClosed() throws Exception {
+        ClientConnection borrowed = pool.acquire(target, ProtocolEnum.HTTP, eventLoop).get(1, TimeUnit.SECONDS);
+
+        pool.shutdown();
+        pool.returnConnection(borrowed);
+
+        verify(borrowed).close();
+    }
+}
@@ -0,0 +1,142 @@
+package com.muxin.gateway.core.plus.health;
+
+import com.muxin.gateway.core.plus.connect.ClientConnection;
+import com.muxin.gateway.core.plus.connect.ConnectionPoolManager;
+import com.muxin.gateway.core.plus.message.ProtocolEnum;
+import com.muxin.gateway.core.plus.message.http.HttpResponseMessage;
+import com.muxin.gateway.core.plus.route.DefaultRouteManager;
+import com.muxin.gateway.core.plus.route.Route;
+import com.muxin.gateway.core.plus.route.RouteService;
+import com.muxin.gateway.core.plus.route.loadbalance.LoadBalanceDefinition;
+import com.muxin.gateway.core.plus.route.loadbalance.LoadBalanceStrategy;
+import com.muxin.gateway.core.plus.route.loadbalance.RoundRobinLoadBalanceStrategy;
+import com.muxin.gateway.core.plus.route.predicate.Predicate;
+import com.muxin.gateway.core.plus.route.service.DefaultInstanceManager;
+import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import com.muxin.gateway.core.plus.route.service.HttpEndpointAddress;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 主动健康检查测试
+ *
+ * @author muxin
+ */
+@DisplayName("主动健康检查测试")
+public class ActiveHealthCheckerTest {
+
+    private final EndpointAddress failing = new HttpEndpointAddress("http://127.0.0.1:18081");
+    private final EndpointAddress healthy = new HttpEndpointAddress("http://127.0.0.1:18082");
+    private final List<EndpointAddress> addresses = List.of(failing, healthy);
+
+    private final EndpointStateTable endpointStates = new EndpointStateTable();
+
+    private DefaultInstanceManager instanceManager;
+    private DefaultRouteManager routeManager;
+    private ActiveHealthChecker healthChecker;
+
+    @BeforeEach
+    void setUp() {
+        instanceManager = new DefaultInstanceManager();
+        instanceManager.init();
+        instanceManager.start();
+        routeManager = new DefaultRouteManager();
+        routeManager.init();
+        routeManager.start();
+
+        ConnectionPoolManager connectionPoolManager = mock(ConnectionPoolManager.class);
+        when(connectionPoolManager.acquire(eq(failing), any(), any(EventLoop.class)))
+                .thenReturn(CompletableFuture.failedFuture(new ConnectException("Connection refused")));
+        ClientConnection connection = mock(ClientConnection.class);
+        when(connection.isActive()).thenReturn(true);
+        HttpResponseMessage response = mock(HttpResponseMessage.class);
+        when(response.status()).thenReturn(HttpResponseStatus.OK);
+        when(response.content()).thenReturn(Unpooled.EMPTY_BUFFER);
+        when(connection.send(any())).thenReturn(CompletableFuture.completedFuture(response));
+        when(connectionPoolManager.acquire(eq(healthy), any(), any(EventLoop.class)))
+                .thenReturn(CompletableFuture.completedFuture(connection));
+
+        HealthCheckConfig config = HealthCheckConfig.builder()
+                .interval(Duration.ofMillis(100))
+                .timeout(Duration.ofMillis(500))
+                .rise(1)
+                .fall(1)
+                .build();
+        healthChecker = new ActiveHealthChecker(instanceManager, connectionPoolManager, config, endpointStates);
+        healthChecker.bindRoutes(routeManager);
+        healthChecker.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        healthChecker.shutdown();
+        routeManager.shutdown();
+        instanceManager.shutdown();
+    }
+
+    private Route route() {
+        RouteService service = mock(RouteService.class);
+        when(service.getTargetAddresses()).thenReturn(addresses);
+        Route route = mock(Route.class);
+        when(route.getId()).thenReturn("health-route");
+        when(route.getSupportedProtocol()).thenReturn(ProtocolEnum.HTTP);
+        when(route.getProtocolType()).thenReturn(ProtocolEnum.HTTP.type());
+        when(route.isConfigurationValid()).thenReturn(true);
+        when(route.getPredicates()).thenReturn(List.of(mock(Predicate.class)));
+        when(route.getService()).thenReturn(service);
+        return route;
+    }
+
+    private void awaitEjected(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 3000;
+        while (endpointStates.ejectedCount() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, endpointStates.ejectedCount());
+    }
+
+    @Test
+    @DisplayName("探测失败的路由地址不再被负载均衡选中")
+    void testFailingProbeRemovesEndpointFromSelection() throws Exception {
+        routeManager.insert(route());
+
+        awaitEjected(1);
+
+        assertTrue(endpointStates.isEjected(failing));
+        assertFalse(endpointStates.isEjected(healthy));
+        LoadBalanceStrategy strategy = new RoundRobinLoadBalanceStrategy(LoadBalanceDefinition.builder().build());
+        strategy.setEndpointStates(endpointStates);
+        for (int i = 0; i < 10; i++) {
+            assertSame(healthy, strategy.selectAvailable(addresses, null));
+        }
+    }
+
+    @Test
+    @DisplayName("路由删除后清除其地址的不健康标记")
+    void testRouteRemovalClearsUnhealthyMark() throws Exception {
+        Route route = route();
+        routeManager.insert(route);
+        awaitEjected(1);
+
+        routeManager.deleteById(route.getId());
+
+        awaitEjected(0);
+        assertFalse(endpointStates.isEjected(failing));
+    }
+}
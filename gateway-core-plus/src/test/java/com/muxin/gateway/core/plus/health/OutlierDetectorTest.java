@@ -0,0 +1,137 @@
+package com.muxin.gateway.core.plus.health;
+
+import com.muxin.gateway.core.plus.config.OutlierDetectionConfig;
+import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import com.muxin.gateway.core.plus.route.service.HttpEndpointAddress;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 被动异常检测测试
+ *
+ * @author muxin
+ */
+@DisplayName("被动异常检测测试")
+public class OutlierDetectorTest {
+
+    private static final Duration EJECTION_TIME = Duration.ofMillis(50);
+
+    private final EndpointStateTable endpointStates = new EndpointStateTable();
+    private final List<EndpointAddress> pool = new ArrayList<>();
+
+    private OutlierDetector detector(int maxEjectionPercent) {
+        for (int i = 0; i < 10; i++) {
+            pool.add(new HttpEndpointAddress("http://10.0.0." + i + ":8080"));
+        }
+        return new OutlierDetector(OutlierDetectionConfig.builder()
+                .consecutiveFailures(3)
+                .window(Duration.ofMillis(100))
+                .baseEjectionTime(EJECTION_TIME)
+                .maxEjectionTime(EJECTION_TIME.multipliedBy(4))
+                .maxEjectionPercent(maxEjectionPercent)
+                .build(), endpointStates);
+    }
+
+    private void fail(OutlierDetector detector, EndpointAddress endpoint, int times) {
+        for (int i = 0; i < times; i++) {
+            detector.record(endpoint, pool, true);
+        }
+    }
+
+    private Object trackedEndpoints() {
+        return endpointStates.getStatistics().get("trackedEndpoints");
+    }
+
+    @Test
+    @DisplayName("连续失败达到阈值时摘除，成功会清零连续失败次数")
+    void testEjectAfterConsecutiveFailures() {
+        OutlierDetector detector = detector(10);
+        EndpointAddress endpoint = pool.get(0);
+
+        fail(detector, endpoint, 2);
+        detector.record(endpoint, pool, false);
+        fail(detector, endpoint, 2);
+        assertFalse(endpointStates.isEjected(endpoint));
+
+        fail(detector, endpoint, 1);
+        assertTrue(endpointStates.isEjected(endpoint));
+        assertEquals(1, endpointStates.ejectedCount());
+        assertEquals(1L, detector.getStatistics().get("totalEjections"));
+    }
+
+    @Test
+    @DisplayName("摘除到期后恢复，恢复的端点移出状态表")
+    void testEjectionExpires() throws Exception {
+        OutlierDetector detector = detector(10);
+        EndpointAddress endpoint = pool.get(0);
+        fail(detector, endpoint, 3);
+        assertTrue(endpointStates.isEjected(endpoint));
+        long version = endpointStates.version();
+
+        Thread.sleep(EJECTION_TIME.toMillis() + 20);
+
+        assertFalse(endpointStates.isEjected(endpoint));
+        assertEquals(0, endpointStates.ejectedCount());
+        assertTrue(endpointStates.version() > version);
+        assertEquals(0, trackedEndpoints());
+    }
+
+    @Test
+    @DisplayName("同一服务被摘除的地址不超过最大摘除比例")
+    void testMaxEjectionPercent() {
+        OutlierDetector detector = detector(20);
+
+        fail(detector, pool.get(0), 3);
+        fail(detector, pool.get(1), 3);
+        fail(detector, pool.get(2), 3);
+
+        assertTrue(endpointStates.isEjected(pool.get(0)));
+        assertTrue(endpointStates.isEjected(pool.get(1)));
+        assertFalse(endpointStates.isEjected(pool.get(2)));
+        assertEquals(1L, detector.getStatistics().get("skippedEjections"));
+    }
+
+    @Test
+    @DisplayName("已下线地址的统计和到期的摘除被定期清理")
+    void testSweepRemovesDepartedEndpoints() {
+        OutlierDetector detector = detector(10);
+        EndpointAddress departed = pool.get(0);
+        fail(detector, departed, 3);
+        for (int i = 1; i < pool.size(); i++) {
+            detector.record(pool.get(i), pool, false);
+        }
+        assertEquals(10, detector.trackedEndpoints());
+        assertEquals(1, trackedEndpoints());
+
+        // 地址下线后不再被查询，摘除到期也不会被惰性恢复，由定期清理移除
+        long later = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        detector.sweep(later);
+
+        assertEquals(0, detector.trackedEndpoints());
+        assertEquals(0, trackedEndpoints());
+        assertEquals(0, endpointStates.ejectedCount());
+    }
+
+    @Test
+    @DisplayName("健康检查恢复的端点移出状态表，仍被异常检测摘除的保留")
+    void testMarkHealthyPrunesState() {
+        EndpointAddress endpoint = new HttpEndpointAddress("http://10.0.1.1:8080");
+        assertTrue(endpointStates.markUnhealthy(endpoint));
+        assertTrue(endpointStates.eject(endpoint, TimeUnit.SECONDS.toNanos(10)));
+
+        assertTrue(endpointStates.markHealthy(endpoint));
+        assertTrue(endpointStates.isEjected(endpoint));
+        assertEquals(1, trackedEndpoints());
+
+        endpointStates.readmit(endpoint);
+        assertFalse(endpointStates.isEjected(endpoint));
+        assertEquals(0, trackedEndpoints());
+    }
+}
@@ -0,0 +1,57 @@
+package com.muxin.gateway.core.plus.route;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 重试配置测试
+ *
+ * @author muxin
+ */
+@DisplayName("重试配置测试")
+public class RetryConfigTest {
+
+    @Test
+    @DisplayName("退避上限按次数翻倍，不超过最大退避")
+    void testBackoffDoublesUpToMaxBackoff() {
+        RetryConfig config = RetryConfig.builder()
+                .backoff(Duration.ofMillis(10))
+                .maxBackoff(Duration.ofMillis(30))
+                .build();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(config.backoffNanos(1) < Duration.ofMillis(10).toNanos());
+            assertTrue(config.backoffNanos(2) < Duration.ofMillis(20).toNanos());
+            assertTrue(config.backoffNanos(50) < Duration.ofMillis(30).toNanos());
+        }
+    }
+
+    @Test
+    @DisplayName("配置的退避很大时不会溢出")
+    void testLargeBackoffDoesNotOverflow() {
+        RetryConfig config = RetryConfig.builder()
+                .backoff(Duration.ofDays(365))
+                .maxBackoff(Duration.ofDays(3650))
+                .build();
+        long cap = Duration.ofDays(3650).toNanos();
+        for (int retry = 5; retry <= 30; retry++) {
+            // 翻倍后超过最大退避的次数，退避上限应为最大退避，在[0, cap)内均匀分布
+            long max = 0;
+            for (int i = 0; i < 200; i++) {
+                long backoff = config.backoffNanos(retry);
+                assertTrue(backoff >= 0 && backoff < cap, "第" + retry + "次重试的退避越界: " + backoff);
+                max = Math.max(max, backoff);
+            }
+            assertTrue(max > cap / 2, "第" + retry + "次重试的退避上限小于最大退避: " + max);
+        }
+    }
+
+    @Test
+    @DisplayName("未配置退避时立即重试")
+    void testZeroBackoff() {
+        assertEquals(0, RetryConfig.builder().backoff(Duration.ZERO).build().backoffNanos(3));
+    }
+}
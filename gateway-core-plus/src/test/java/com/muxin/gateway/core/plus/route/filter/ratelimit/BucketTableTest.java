@@ -0,0 +1,95 @@
+package com.muxin.gateway.core.plus.route.filter.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 客户端令牌桶表测试
+ * 每秒10个令牌、容量5，空桶500ms补满；清理最多每秒一次
+ *
+ * @author muxin
+ */
+@DisplayName("客户端令牌桶表测试")
+public class BucketTableTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static void drain(TokenBucket bucket, long nowNanos) {
+        while (bucket.tryAcquire(nowNanos)) {
+            // 取空
+        }
+    }
+
+    @Test
+    @DisplayName("同一个键返回同一个桶，不同的键相互独立")
+    void testBucketPerKey() {
+        BucketTable table = new BucketTable(10, 5, 100);
+        long start = System.nanoTime();
+
+        TokenBucket first = table.bucket("a", start);
+        drain(first, start);
+
+        assertSame(first, table.bucket("a", start));
+        assertTrue(table.bucket("b", start).tryAcquire(start));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    @DisplayName("插入新键时清理已补满的桶，未补满的桶保留")
+    void testSweepRemovesFullBuckets() {
+        BucketTable table = new BucketTable(10, 5, 100);
+        long start = System.nanoTime();
+
+        TokenBucket idle = table.bucket("idle", start);
+        drain(idle, start);
+        TokenBucket active = table.bucket("active", start + MILLIS);
+        drain(active, start + 1200 * MILLIS);
+
+        // 距上次清理超过1秒：idle已补满被清理，active刚取空仍保留
+        table.bucket("new", start + 1300 * MILLIS);
+
+        assertEquals(2, table.size());
+        assertSame(active, table.bucket("active", start + 1300 * MILLIS));
+        assertNotSame(idle, table.bucket("idle", start + 1300 * MILLIS));
+    }
+
+    @Test
+    @DisplayName("清理间隔内不重复清理")
+    void testSweepAtMostOncePerInterval() {
+        BucketTable table = new BucketTable(10, 5, 100);
+        long start = System.nanoTime();
+
+        table.bucket("a", start);
+        table.bucket("b", start + 600 * MILLIS);
+
+        // a从未取过令牌，一直是满桶，但距上次清理不足1秒
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    @DisplayName("表满后新的键共用溢出桶")
+    void testOverflowBucketOnceMaxKeysReached() {
+        BucketTable table = new BucketTable(10, 5, 2);
+        long start = System.nanoTime();
+
+        TokenBucket a = table.bucket("a", start);
+        TokenBucket b = table.bucket("b", start);
+        TokenBucket c = table.bucket("c", start);
+        TokenBucket d = table.bucket("d", start);
+
+        assertNotSame(a, b);
+        assertSame(c, d);
+        assertNotSame(a, c);
+        assertNotSame(b, c);
+        assertEquals(2, table.size());
+
+        // 溢出的键共用令牌
+        drain(c, start);
+        assertFalse(d.tryAcquire(start));
+        assertTrue(a.tryAcquire(start));
+    }
+}
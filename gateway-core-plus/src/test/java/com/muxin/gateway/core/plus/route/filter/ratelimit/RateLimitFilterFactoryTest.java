@@ -0,0 +1,115 @@
+package com.muxin.gateway.core.plus.route.filter.ratelimit;
+
+import com.muxin.gateway.core.plus.GatewayProcessor;
+import com.muxin.gateway.core.plus.common.Constant;
+import com.muxin.gateway.core.plus.connect.ConnectionPoolManager;
+import com.muxin.gateway.core.plus.connect.http.HttpServerConnection;
+import com.muxin.gateway.core.plus.message.Message;
+import com.muxin.gateway.core.plus.message.ProtocolEnum;
+import com.muxin.gateway.core.plus.message.ServerExchange;
+import com.muxin.gateway.core.plus.route.DefaultRequestContext;
+import com.muxin.gateway.core.plus.route.RequestContext;
+import com.muxin.gateway.core.plus.route.Route;
+import com.muxin.gateway.core.plus.route.RouteManager;
+import com.muxin.gateway.core.plus.route.RouteService;
+import com.muxin.gateway.core.plus.route.filter.FilterDefinition;
+import com.muxin.gateway.core.plus.route.loadbalance.LoadBalanceStrategy;
+import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import com.muxin.gateway.core.plus.route.service.HttpEndpointAddress;
+import com.muxin.gateway.core.plus.route.service.InstanceManager;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 限流过滤器测试
+ * 路由共用一个容量为1的桶，第二个请求被拒绝
+ *
+ * @author muxin
+ */
+@DisplayName("限流过滤器测试")
+public class RateLimitFilterFactoryTest {
+
+    private final EndpointAddress target = new HttpEndpointAddress("http://127.0.0.1:18080");
+
+    private EmbeddedChannel channel;
+    private ConnectionPoolManager connectionPoolManager;
+    private GatewayProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        channel = new EmbeddedChannel();
+        connectionPoolManager = mock(ConnectionPoolManager.class);
+        // 后端连接一直获取不到，放行的请求停在获取连接阶段
+        when(connectionPoolManager.acquire(any(), any(), any())).thenReturn(new CompletableFuture<>());
+
+        FilterDefinition definition = FilterDefinition.builder()
+                .type(RateLimitFilterFactory.TYPE)
+                .config(Map.of("requests-per-second", 0.001, "burst-capacity", 1, "key-resolver", "ROUTE"))
+                .build();
+        RateLimitFilterFactory factory = new RateLimitFilterFactory();
+        factory.validateConfig(definition);
+
+        RouteService service = mock(RouteService.class);
+        when(service.getTargetAddresses()).thenReturn(List.of(target));
+        when(service.selectTarget(any(), any())).thenReturn(target);
+        Route route = mock(Route.class);
+        when(route.getId()).thenReturn("rate-limited-route");
+        when(route.getService()).thenReturn(service);
+        when(route.getLoadBalanceStrategy()).thenReturn(mock(LoadBalanceStrategy.class));
+        when(route.getFilters()).thenReturn(List.of(factory.createFilter(definition)));
+        when(route.getConnectionTimeout()).thenReturn(Duration.ofSeconds(5));
+
+        RouteManager routeManager = mock(RouteManager.class);
+        when(routeManager.matchRoute(any())).thenReturn(route);
+        processor = new GatewayProcessor(null, connectionPoolManager, routeManager, mock(InstanceManager.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @SuppressWarnings("unchecked")
+    private RequestContext send() {
+        ServerExchange<Message, Message> exchange = mock(ServerExchange.class);
+        when(exchange.protocol()).thenReturn(ProtocolEnum.HTTP);
+        when(exchange.request()).thenReturn(mock(Message.class));
+        RequestContext context = new DefaultRequestContext(exchange, new HttpServerConnection(channel, true));
+        context.setAttribute(Constant.EVENT_LOOP, channel.eventLoop());
+        processor.processRequest(context);
+        channel.runPendingTasks();
+        return context;
+    }
+
+    @Test
+    @DisplayName("超出限流的请求直接返回429，不获取后端连接")
+    void testRejectedRequestReturns429WithoutBackendConnection() {
+        send();
+        verify(connectionPoolManager, times(1)).acquire(any(), any(), any());
+        assertNull(channel.readOutbound());
+
+        RequestContext rejected = send();
+
+        FullHttpResponse response = channel.readOutbound();
+        assertNotNull(response);
+        assertEquals(HttpResponseStatus.TOO_MANY_REQUESTS, response.status());
+        response.release();
+        assertTrue(rejected.isCompleted());
+        assertNull(rejected.clientConnection());
+        verify(connectionPoolManager, times(1)).acquire(any(), any(), any());
+    }
+}
@@ -0,0 +1,69 @@
+package com.muxin.gateway.core.plus.route.filter.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 令牌桶测试
+ * 每秒10个令牌（间隔100ms），容量5，时间由测试传入
+ *
+ * @author muxin
+ */
+@DisplayName("令牌桶测试")
+public class TokenBucketTest {
+
+    private static final long INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final TokenBucket bucket = new TokenBucket(10, 5);
+    private final long start = System.nanoTime();
+
+    private int drain(long nowNanos) {
+        int acquired = 0;
+        while (bucket.tryAcquire(nowNanos)) {
+            acquired++;
+        }
+        return acquired;
+    }
+
+    @Test
+    @DisplayName("新建的桶允许突发容量个请求，之后拒绝")
+    void testBurstThenRefusal() {
+        assertEquals(5, drain(start));
+        assertFalse(bucket.tryAcquire(start));
+        assertFalse(bucket.isFull(start));
+    }
+
+    @Test
+    @DisplayName("每过一个令牌间隔补充一个令牌")
+    void testRefillAfterInterval() {
+        drain(start);
+
+        assertFalse(bucket.tryAcquire(start + INTERVAL_NANOS - 1));
+        assertTrue(bucket.tryAcquire(start + INTERVAL_NANOS));
+        assertFalse(bucket.tryAcquire(start + INTERVAL_NANOS));
+        assertEquals(2, drain(start + 3 * INTERVAL_NANOS));
+    }
+
+    @Test
+    @DisplayName("空闲再久令牌也不超过容量")
+    void testNoBuildupBeyondCapacity() {
+        drain(start);
+
+        long later = start + TimeUnit.SECONDS.toNanos(60);
+        assertTrue(bucket.isFull(later));
+        assertEquals(5, drain(later));
+    }
+
+    @Test
+    @DisplayName("桶在补满一个容量的时间后视为已满")
+    void testFullAfterCapacityInterval() {
+        drain(start);
+
+        assertFalse(bucket.isFull(start + 5 * INTERVAL_NANOS - 1));
+        assertTrue(bucket.isFull(start + 5 * INTERVAL_NANOS));
+    }
+}
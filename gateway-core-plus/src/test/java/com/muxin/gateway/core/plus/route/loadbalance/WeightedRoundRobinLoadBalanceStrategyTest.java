@@ -0,0 +1,110 @@
+package com.muxin.gateway.core.plus.route.loadbalance;
+
+import com.muxin.gateway.core.plus.route.service.EndpointAddress;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 加权轮询负载均衡策略测试
+ *
+ * @author muxin
+ */
+@DisplayName("加权轮询负载均衡策略测试")
+public class WeightedRoundRobinLoadBalanceStrategyTest {
+
+    private final WeightedRoundRobinLoadBalanceStrategy strategy = new WeightedRoundRobinLoadBalanceStrategy(
+            LoadBalanceDefinition.builder().strategy("WEIGHTED_ROUND_ROBIN").config(Map.of()).build());
+
+    private EndpointAddress address(String uri, int weight) {
+        EndpointAddress address = mock(EndpointAddress.class);
+        when(address.toUri()).thenReturn(uri);
+        when(address.getProtocolSpecificInfo()).thenReturn(Map.of("weight", weight));
+        return address;
+    }
+
+    private Map<EndpointAddress, Integer> select(List<EndpointAddress> addresses, int times) {
+        Map<EndpointAddress, Integer> counts = new HashMap<>();
+        for (int i = 0; i < times; i++) {
+            counts.merge(strategy.select(addresses, null), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    @Test
+    @DisplayName("地址发布时构建的调度表按权重平滑分配")
+    void testScheduleBuiltOnPublish() {
+        EndpointAddress a = address("http://a:80", 3);
+        EndpointAddress b = address("http://b:80", 1);
+        List<EndpointAddress> addresses = List.of(a, b);
+        strategy.onAddressesChanged(addresses);
+
+        List<EndpointAddress> cycle = List.of(
+                strategy.select(addresses, null), strategy.select(addresses, null),
+                strategy.select(addresses, null), strategy.select(addresses, null));
+        assertEquals(List.of(a, a, b, a), cycle);
+    }
+
+    @Test
+    @DisplayName("地址列表与发布的不一致时不在请求线程上构建调度表，仍按权重选择")
+    void testUnpublishedAddressesSelectByWeight() {
+        EndpointAddress a = address("http://a:80", 3);
+        EndpointAddress b = address("http://b:80", 1);
+        EndpointAddress c = address("http://c:80", 4);
+        strategy.onAddressesChanged(List.of(a, b, c));
+
+        // 模拟摘除c之后的地址列表
+        Map<EndpointAddress, Integer> counts = select(List.of(a, b), 400);
+
+        assertFalse(counts.containsKey(c));
+        assertTrue(counts.get(a) >= 290 && counts.get(a) <= 310, "权重3的地址应约占3/4: " + counts);
+    }
+
+    /**
+     * 持续用这组地址选择，直到后台构建完成（上一次构建结束前发起的选择不会触发构建）
+     */
+    private void awaitFilteredSchedules(List<EndpointAddress> addresses, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (strategy.filteredScheduleCount() < count && System.currentTimeMillis() < deadline) {
+            strategy.select(addresses, null);
+            Thread.sleep(5);
+        }
+        assertEquals(count, strategy.filteredScheduleCount());
+    }
+
+    @Test
+    @DisplayName("摘除状态来回切换时复用已构建的调度表")
+    void testFilteredSchedulesCachedAcrossEjectionFlips() throws Exception {
+        EndpointAddress a = address("http://a:80", 2);
+        EndpointAddress b = address("http://b:80", 2);
+        EndpointAddress c = address("http://c:80", 1);
+        strategy.onAddressesChanged(List.of(a, b, c));
+
+        // c被摘除，再换成b被摘除，各构建一次
+        awaitFilteredSchedules(List.of(a, b), 1);
+        awaitFilteredSchedules(List.of(a, c), 2);
+
+        // c再次被摘除：新的列表对象，元素相同，直接使用缓存的平滑调度表（a、b交替），
+        // 按权重区间选择时会连续两次选中同一个地址
+        List<EndpointAddress> again = new ArrayList<>(List.of(a, b));
+        EndpointAddress previous = strategy.select(again, null);
+        for (int i = 0; i < 7; i++) {
+            EndpointAddress selected = strategy.select(again, null);
+            assertNotSame(previous, selected);
+            previous = selected;
+        }
+        assertEquals(2, strategy.filteredScheduleCount());
+
+        // 发布新地址后缓存失效
+        strategy.onAddressesChanged(List.of(a, b));
+        assertEquals(0, strategy.filteredScheduleCount());
+    }
+}
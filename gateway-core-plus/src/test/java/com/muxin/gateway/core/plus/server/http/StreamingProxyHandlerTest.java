@@ -0,0 +1,98 @@
+package com.muxin.gateway.core.plus.server.http;
+
+import com.muxin.gateway.core.plus.GatewayProcessor;
+import com.muxin.gateway.core.plus.connect.http.HttpClientConnection;
+import com.muxin.gateway.core.plus.connect.http.HttpStreamListener;
+import com.muxin.gateway.core.plus.route.Route;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 流式转发流水线请求测试
+ *
+ * @author muxin
+ */
+@DisplayName("流式转发流水线请求测试")
+public class StreamingProxyHandlerTest {
+
+    private GatewayProcessor gatewayProcessor;
+    private HttpClientConnection connection;
+    private EmbeddedChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        Route route = mock(Route.class);
+        when(route.isStreaming()).thenReturn(true);
+        connection = mock(HttpClientConnection.class);
+        when(connection.isWritable()).thenReturn(true);
+        when(connection.hostHeader()).thenReturn("backend:8080");
+
+        gatewayProcessor = mock(GatewayProcessor.class);
+        when(gatewayProcessor.matchRoute(any())).thenReturn(route);
+        when(gatewayProcessor.prepareStreaming(any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(connection));
+        when(gatewayProcessor.prepareBackendDeadline(any())).thenReturn(-1L);
+
+        channel = new EmbeddedChannel(new HttpServerCodec(), new StreamingProxyHandler(gatewayProcessor));
+    }
+
+    private void respond(HttpStreamListener listener, String body) {
+        HttpResponse head = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        HttpUtil.setContentLength(head, body.length());
+        listener.onResponsePart(head);
+        listener.onResponsePart(new DefaultLastHttpContent(Unpooled.copiedBuffer(body, StandardCharsets.US_ASCII)));
+    }
+
+    private String readOutbound() {
+        StringBuilder out = new StringBuilder();
+        ByteBuf buf;
+        while ((buf = channel.readOutbound()) != null) {
+            out.append(buf.toString(StandardCharsets.US_ASCII));
+            buf.release();
+        }
+        return out.toString();
+    }
+
+    @Test
+    @DisplayName("流水线上的第二个请求等第一个流式响应写完后再转发")
+    void testPipelinedRequestsAreSerialized() {
+        channel.writeInbound(Unpooled.copiedBuffer(
+                "GET /first HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                        + "GET /second HTTP/1.1\r\nHost: localhost\r\n\r\n", StandardCharsets.US_ASCII));
+
+        ArgumentCaptor<HttpStreamListener> listeners = ArgumentCaptor.forClass(HttpStreamListener.class);
+        ArgumentCaptor<HttpRequest> heads = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(connection, times(1)).stream(heads.capture(), listeners.capture());
+        assertEquals("/first", heads.getValue().uri());
+        assertFalse(channel.config().isAutoRead());
+
+        // 第一个响应写完后才开始第二个请求
+        respond(listeners.getValue(), "first");
+        verify(connection, times(2)).stream(heads.capture(), listeners.capture());
+        List<HttpRequest> forwarded = heads.getAllValues();
+        assertEquals("/second", forwarded.get(forwarded.size() - 1).uri());
+
+        respond(listeners.getValue(), "second");
+        String written = readOutbound();
+        assertTrue(written.indexOf("first") < written.indexOf("HTTP/1.1 200", written.indexOf("first")),
+                "响应应按请求顺序完整写出: " + written);
+        assertTrue(written.endsWith("second"), written);
+        assertTrue(channel.config().isAutoRead());
+        verify(gatewayProcessor, times(2)).completeStreaming(any(), isNull());
+        channel.finishAndReleaseAll();
+    }
+}
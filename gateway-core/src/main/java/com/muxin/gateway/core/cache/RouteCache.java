@@ -4,15 +4,24 @@ import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.muxin.gateway.core.monitor.PerformanceMetrics;
 import com.muxin.gateway.core.route.RouteRule;
+import io.netty.handler.codec.http.HttpMethod;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * 路由缓存
- * 使用Caffeine高性能缓存库缓存路由匹配结果
+ * 路由解析缓存
+ * <p>
+ * key为请求方法、Host和normalize后的路径（不含查询串），value为前缀树解析出的全部候选路由（按优先级排列）
+ * 及解析时一并提取的首个候选的路径变量，命中后调用方仍对候选逐个执行断言；没有候选的路径作为负缓存保存，避免404请求反复解析。
+ * 每个条目记录写入时的路由版本，路由变更后版本递增，旧版本的条目按未命中处理并被覆盖。
+ * 命中计数保存在条目自身的LongAdder上，读路径不做读-改-写
  */
 @Slf4j
 @Component
@@ -20,15 +29,16 @@ public class RouteCache {
     
     /**
      * 路由缓存
-     * key: 请求路径
-     * value: 匹配的路由规则
+     * key: 请求方法 + Host + 路径
+     * value: 候选路由及写入时的路由版本
      */
-    private final Cache<String, RouteRule> routeCache;
+    private final Cache<String, Entry> routeCache;
     
     /**
-     * 缓存统计信息
+     * 命中/未命中计数（过期版本的条目按未命中统计）
      */
-    private final Cache<String, Long> hitCountCache;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
     
     /**
      * 性能监控（可选）
@@ -39,59 +49,101 @@ public class RouteCache {
     public RouteCache() {
         // 初始化路由缓存
         this.routeCache = Caffeine.newBuilder()
-                .maximumSize(10000)  // 最大缓存10000个路由
+                .maximumSize(10000)  // 最大缓存10000个key
                 .expireAfterWrite(5, TimeUnit.MINUTES)  // 5分钟后过期
                 .recordStats()  // 记录统计信息
                 .build();
-        
-        // 初始化命中统计缓存
-        this.hitCountCache = Caffeine.newBuilder()
-                .maximumSize(10000)
-                .expireAfterWrite(1, TimeUnit.HOURS)
-                .build();
     }
     
     /**
-     * 获取缓存的路由规则
-     * @param path 请求路径
-     * @return 路由规则，如果不存在返回null
+     * 构建缓存key
+     * @param method 请求方法
+     * @param host 请求Host
+     * @param normalizedPath normalize后的路径，不含查询串
+     */
+    public static String key(HttpMethod method, String host, String normalizedPath) {
+        String methodName = method != null ? method.name() : "";
+        String hostName = host != null ? host : "";
+        return new StringBuilder(methodName.length() + hostName.length() + normalizedPath.length() + 2)
+                .append(methodName).append(' ').append(hostName).append(' ').append(normalizedPath)
+                .toString();
+    }
+    
+    /**
+     * 获取缓存的候选路由
+     * @param key 缓存key
+     * @param version 当前路由版本
+     * @return 候选路由，空列表表示负缓存命中；未命中或版本过期返回null
+     */
+    public List<RouteRule> get(String key, long version) {
+        Entry entry = lookup(key, version);
+        return entry != null ? entry.routes : null;
+    }
+
+    /**
+     * 获取缓存的候选路由及首个候选的路径变量
+     * @param key 缓存key
+     * @param version 当前路由版本
+     * @return 缓存条目；未命中或版本过期返回null
      */
-    public RouteRule get(String path) {
-        RouteRule rule = routeCache.getIfPresent(path);
-        if (rule != null) {
-            // 增加命中计数
-            hitCountCache.put(path, hitCountCache.get(path, k -> 0L) + 1);
+    public Entry lookup(String key, long version) {
+        Entry entry = routeCache.getIfPresent(key);
+        if (entry != null && entry.version == version) {
+            entry.hits.increment();
+            hitCount.increment();
             // 记录缓存命中
             if (performanceMetrics != null) {
                 performanceMetrics.recordCacheHit();
             }
-        } else {
-            // 记录缓存未命中
-            if (performanceMetrics != null) {
-                performanceMetrics.recordCacheMiss();
-            }
+            return entry;
+        }
+        missCount.increment();
+        // 记录缓存未命中
+        if (performanceMetrics != null) {
+            performanceMetrics.recordCacheMiss();
         }
-        return rule;
+        return null;
     }
     
     /**
-     * 缓存路由规则
-     * @param path 请求路径
-     * @param rule 路由规则
+     * 缓存候选路由
+     * @param key 缓存key
+     * @param version 解析时的路由版本，应在解析前读取
+     * @param routes 候选路由，空列表作为负缓存
+     */
+    public void put(String key, long version, List<RouteRule> routes) {
+        put(key, version, routes, Collections.emptyMap());
+    }
+
+    /**
+     * 缓存候选路由及首个候选的路径变量
+     * @param key 缓存key
+     * @param version 解析时的路由版本，应在解析前读取
+     * @param routes 候选路由，空列表作为负缓存
+     * @param uriVariables 首个候选的路径变量
      */
-    public void put(String path, RouteRule rule) {
-        if (path != null && rule != null) {
-            routeCache.put(path, rule);
+    public void put(String key, long version, List<RouteRule> routes, Map<String, String> uriVariables) {
+        if (key != null && routes != null) {
+            routeCache.put(key, new Entry(version, Collections.unmodifiableList(routes),
+                    uriVariables == null || uriVariables.isEmpty()
+                            ? Collections.emptyMap() : Collections.unmodifiableMap(uriVariables)));
         }
     }
     
     /**
-     * 清除指定路径的缓存
-     * @param path 请求路径
+     * 获取指定key的命中次数
+     */
+    public long getHitCount(String key) {
+        Entry entry = routeCache.getIfPresent(key);
+        return entry != null ? entry.hits.sum() : 0L;
+    }
+    
+    /**
+     * 清除指定key的缓存
+     * @param key 缓存key
      */
-    public void invalidate(String path) {
-        routeCache.invalidate(path);
-        hitCountCache.invalidate(path);
+    public void invalidate(String key) {
+        routeCache.invalidate(key);
     }
     
     /**
@@ -99,7 +151,6 @@ public class RouteCache {
      */
     public void invalidateAll() {
         routeCache.invalidateAll();
-        hitCountCache.invalidateAll();
         log.info("Route cache cleared");
     }
     
@@ -110,8 +161,8 @@ public class RouteCache {
     public CacheStats getStats() {
         com.github.benmanes.caffeine.cache.stats.CacheStats stats = routeCache.stats();
         return new CacheStats(
-                stats.hitCount(),
-                stats.missCount(),
+                hitCount.sum(),
+                missCount.sum(),
                 stats.loadSuccessCount(),
                 stats.loadFailureCount(),
                 stats.totalLoadTime(),
@@ -120,6 +171,36 @@ public class RouteCache {
         );
     }
     
+    /**
+     * 缓存条目
+     */
+    public static final class Entry {
+        private final long version;
+        private final List<RouteRule> routes;
+        private final Map<String, String> uriVariables;
+        private final LongAdder hits = new LongAdder();
+        
+        private Entry(long version, List<RouteRule> routes, Map<String, String> uriVariables) {
+            this.version = version;
+            this.routes = routes;
+            this.uriVariables = uriVariables;
+        }
+
+        /**
+         * 候选路由，只读
+         */
+        public List<RouteRule> routes() {
+            return routes;
+        }
+
+        /**
+         * 首个候选的路径变量，只读
+         */
+        public Map<String, String> uriVariables() {
+            return uriVariables;
+        }
+    }
+    
     /**
      * 缓存统计信息
      */
@@ -80,6 +80,12 @@ public final class GatewayConstants {
     // 请求ID
     public static final String GATEWAY_REQUEST_ID_ATTR = "gateway.request.id";
     
+    // 进行中的后端请求，客户端断开时用于取消
+    public static final String GATEWAY_BACKEND_REQUEST_ATTR = "gateway.backend.request";
+    
+    // 匹配路由的路径模式提取出的路径变量
+    public static final String GATEWAY_URI_TEMPLATE_VARIABLES_ATTR = "gateway.uri.template.variables";
+    
     // 默认超时时间（毫秒）
     public static final int DEFAULT_TIMEOUT = 30000;
     
@@ -10,6 +10,7 @@ import com.muxin.gateway.core.loadbalance.RoundRobinLoadBalancer;
 import com.muxin.gateway.core.netty.NettyHttpClient;
 import com.muxin.gateway.core.netty.NettyHttpServer;
 import com.muxin.gateway.core.registry.RegisterCenter;
+import com.muxin.gateway.core.registry.ServiceInstanceCache;
 import com.muxin.gateway.core.route.InMemoryRouteDefinitionRepository;
 import com.muxin.gateway.core.route.RouteDefinitionRepository;
 import com.muxin.gateway.core.route.RouteDefinitionRouteLocator;
@@ -87,11 +88,17 @@ public class GatewayAutoConfiguration {
     }
 
 
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public ServiceInstanceCache serviceInstanceCache(RegisterCenter registerCenter) {
+        return new ServiceInstanceCache(registerCenter);
+    }
+
     @Bean
     @ConditionalOnMissingBean
-    public GatewayLoadBalanceFactory loadBalanceFactory(RegisterCenter registerCenter) {
+    public GatewayLoadBalanceFactory loadBalanceFactory(ServiceInstanceCache serviceInstanceCache) {
         Map<String, GatewayLoadBalance> balancers = new HashMap<>();
-        balancers.put(ROUND_ROBIN_BALANCER, new RoundRobinLoadBalancer(registerCenter));
+        balancers.put(ROUND_ROBIN_BALANCER, new RoundRobinLoadBalancer(serviceInstanceCache));
 
         DefaultLoadBalanceFactory factory = new DefaultLoadBalanceFactory();
         factory.setGatewayLoadBalanceMap(balancers);
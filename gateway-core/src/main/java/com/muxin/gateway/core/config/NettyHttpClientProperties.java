@@ -48,7 +48,7 @@ public class NettyHttpClientProperties {
     //	最大重定向次数
     private int maxRedirects = 5;
 
-    //	是否异步
+    //	后端响应后的过滤器链和响应写出是否切回入站Channel的EventLoop执行，false时直接在客户端IO线程上执行
     private boolean whenComplete = true;
 
     //	是否启用TCP NoDelay
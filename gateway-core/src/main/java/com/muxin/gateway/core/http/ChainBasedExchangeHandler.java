@@ -9,8 +9,12 @@ import com.muxin.gateway.core.utils.ResponseUtil;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 
+import static com.muxin.gateway.core.common.GatewayConstants.GATEWAY_URI_TEMPLATE_VARIABLES_ATTR;
 import static com.muxin.gateway.core.common.GatewayConstants.SERVICE_ID;
 
 /**
@@ -44,22 +48,44 @@ public class ChainBasedExchangeHandler implements ExchangeHandler {
     @Override
     public void handle(ServerWebExchange exchange) {
         try {
-            doHandle(exchange);
+            buildFilterChain(exchange).filter(exchange);
         } catch (Throwable throwable) {
             log.error("Request handle failed.", throwable);
             exchange.setOriginalResponse(ResponseUtil.error(throwable.getMessage()));
         }
     }
 
+    /**
+     * 异步处理请求，过滤器异常转换为错误响应，返回的阶段总是正常完成
+     *
+     * @param exchange
+     */
+    @Override
+    public CompletionStage<Void> handleAsync(ServerWebExchange exchange) {
+        CompletionStage<Void> stage;
+        try {
+            stage = buildFilterChain(exchange).filterAsync(exchange);
+        } catch (Throwable throwable) {
+            stage = CompletableFuture.failedFuture(throwable);
+        }
+        return stage.exceptionally(throwable -> {
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause() : throwable;
+            log.error("Request handle failed.", cause);
+            exchange.setOriginalResponse(ResponseUtil.error(cause.getMessage()));
+            return null;
+        });
+    }
+
     /**
      * 1.查找路由
      * 2.拼装filter (合并GlobalFilter和RouteRuleFilter)
-     * 3.执行filter
+     * 3.执行filter（由调用方同步或异步执行）
      * 4.处理返回
      *
      * @param exchange
      */
-    private void doHandle(ServerWebExchange exchange) {
+    private GatewayFilterChain buildFilterChain(ServerWebExchange exchange) {
         //查找路由
         RouteRule routeRule = lookupRoute(exchange);
 
@@ -80,7 +106,7 @@ public class ChainBasedExchangeHandler implements ExchangeHandler {
         if (globalFilters != null) {
             allRouteFilters.addAll(globalFilters);
         }
-        new DefaultGatewayFilterChain(allRouteFilters).filter(exchange);
+        return new DefaultGatewayFilterChain(allRouteFilters);
     }
 
     /**
@@ -90,20 +116,31 @@ public class ChainBasedExchangeHandler implements ExchangeHandler {
      * @return
      */
     protected RouteRule lookupRoute(ServerWebExchange exchange) {
-        return Optional.of(routeLocator.getRoutes(exchange.getRequest().uri()))
-                .orElse(Collections.emptyList())
-                .stream()
-                .filter(r -> r.getPredicate().test(exchange))
-                .findFirst()
-                .orElse(RouteRule.ROUTE_404);
+        List<RouteRule> candidates = Optional.ofNullable(routeLocator.getRoutes(exchange))
+                .orElse(Collections.emptyList());
+        for (int i = 0; i < candidates.size(); i++) {
+            RouteRule candidate = candidates.get(i);
+            if (candidate.getPredicate().test(exchange)) {
+                if (i > 0) {
+                    // 路径变量是按首个候选提取的，改由命中路由的路径模式提取
+                    exchange.setAttribute(GATEWAY_URI_TEMPLATE_VARIABLES_ATTR,
+                            routeLocator.extractUriVariables(candidate, exchange.getRequest().uri()));
+                }
+                return candidate;
+            }
+        }
+        return RouteRule.ROUTE_404;
     }
 
     public static class DefaultGatewayFilterChain implements GatewayFilterChain {
 
-        private final Map<FilterTypeEnum, List<RouteFilter>> filterTypeEnumListMap;
+        /**
+         * 按阶段、阶段内按order排好序的过滤器
+         */
+        private final List<RouteFilter> orderedFilters;
 
         public DefaultGatewayFilterChain(List<RouteFilter> ruleFilters) {
-            this.filterTypeEnumListMap = ruleFilters.stream()
+            Map<FilterTypeEnum, List<RouteFilter>> filterTypeEnumListMap = ruleFilters.stream()
                     .collect(Collectors.groupingBy(
                             RouteFilter::filterType,
                             Collectors.collectingAndThen(
@@ -113,21 +150,51 @@ public class ChainBasedExchangeHandler implements ExchangeHandler {
                                             .collect(Collectors.toList())
                             )
                     ));
+            List<RouteFilter> filters = new ArrayList<>(ruleFilters.size());
+            for (FilterTypeEnum phase : FilterTypeEnum.values()) {
+                List<RouteFilter> phaseFilters = filterTypeEnumListMap.get(phase);
+                if (Objects.nonNull(phaseFilters)) {
+                    filters.addAll(phaseFilters);
+                }
+            }
+            this.orderedFilters = filters;
         }
 
         @Override
         public void filter(ServerWebExchange exchange) {
-            for (FilterTypeEnum phase : FilterTypeEnum.values()) {
-                List<RouteFilter> filters = filterTypeEnumListMap.get(phase);
-                if (Objects.nonNull(filters)) {
-                    for (RouteFilter filter : filters) {
-                        if (log.isDebugEnabled()) {
-                            log.debug("Executing filter: {} (order: {})", filter.getClass().getSimpleName(), filter.getOrder());
-                        }
-                        filter.filter(exchange);
-                    }
+            for (RouteFilter filter : orderedFilters) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Executing filter: {} (order: {})", filter.getClass().getSimpleName(), filter.getOrder());
+                }
+                filter.filter(exchange);
+            }
+        }
+
+        @Override
+        public CompletionStage<Void> filterAsync(ServerWebExchange exchange) {
+            return proceed(exchange, 0);
+        }
+
+        /**
+         * 从index开始执行过滤器，已完成的阶段直接继续循环，
+         * 遇到未完成的阶段时在其完成后（由完成它的线程）继续执行剩余过滤器
+         */
+        private CompletionStage<Void> proceed(ServerWebExchange exchange, int index) {
+            for (int i = index; i < orderedFilters.size(); i++) {
+                RouteFilter filter = orderedFilters.get(i);
+                if (log.isDebugEnabled()) {
+                    log.debug("Executing filter: {} (order: {})", filter.getClass().getSimpleName(), filter.getOrder());
+                }
+                CompletableFuture<Void> stage = filter.filterAsync(exchange).toCompletableFuture();
+                if (!stage.isDone()) {
+                    int next = i + 1;
+                    return stage.thenCompose(v -> proceed(exchange, next));
+                }
+                if (stage.isCompletedExceptionally()) {
+                    return stage;
                 }
             }
+            return CompletableFuture.completedFuture(null);
         }
     }
 
@@ -1,5 +1,8 @@
 package com.muxin.gateway.core.http;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 /**
  * [Class description]
  *
@@ -10,4 +13,15 @@ public interface ExchangeHandler {
 
    void handle(ServerWebExchange exchange);
 
+   /**
+    * 异步处理请求，返回的阶段完成后才能写出响应
+    *
+    * @param exchange 请求交换对象
+    * @return 处理完成阶段
+    */
+   default CompletionStage<Void> handleAsync(ServerWebExchange exchange) {
+      handle(exchange);
+      return CompletableFuture.completedFuture(null);
+   }
+
 }
@@ -1,16 +1,14 @@
 package com.muxin.gateway.core.loadbalance;
 
 import com.muxin.gateway.core.http.ServerWebExchange;
-import com.muxin.gateway.core.registry.RegisterCenter;
 import com.muxin.gateway.core.registry.ServiceInstance;
+import com.muxin.gateway.core.registry.ServiceInstanceCache;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.util.ObjectUtils;
 
 import java.net.SocketAddress;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.*;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static com.muxin.gateway.core.common.GatewayConstants.SERVICE_ID;
@@ -22,7 +20,7 @@ import static com.muxin.gateway.core.common.GatewayConstants.SERVICE_ID;
 @Slf4j
 public class ConsistentHashLoadBalancer implements GatewayLoadBalance {
 
-    private final RegisterCenter registerCenter;
+    private final ServiceInstanceCache instanceCache;
     
     // 每个服务的哈希环
     private final Map<String, ConsistentHashRing> hashRings = new ConcurrentHashMap<>();
@@ -30,29 +28,30 @@ public class ConsistentHashLoadBalancer implements GatewayLoadBalance {
     // 虚拟节点倍数
     private static final int VIRTUAL_NODE_FACTOR = 150;
     
-    public ConsistentHashLoadBalancer(RegisterCenter registerCenter) {
-        this.registerCenter = registerCenter;
+    public ConsistentHashLoadBalancer(ServiceInstanceCache instanceCache) {
+        this.instanceCache = instanceCache;
     }
 
     @Override
     public LbResponse<ServiceInstance> choose(LbRequest<ServerWebExchange> request) {
         String serviceId = request.getContext().getAttribute(SERVICE_ID);
-        List<ServiceInstance> selectInstances = registerCenter.selectInstances(serviceId);
+        ServiceInstanceCache.InstanceSnapshot snapshot = instanceCache.getSnapshot(serviceId);
         
-        if (ObjectUtils.isEmpty(selectInstances)) {
+        if (snapshot.isEmpty()) {
             return null;
         }
         
-        if (selectInstances.size() == 1) {
-            return new DefaultLbResponse(selectInstances.get(0));
+        if (snapshot.size() == 1) {
+            return new DefaultLbResponse(snapshot.get(0));
         }
         
-        // 获取或创建该服务的哈希环
-        ConsistentHashRing hashRing = hashRings.computeIfAbsent(serviceId, 
-            k -> new ConsistentHashRing(VIRTUAL_NODE_FACTOR));
-        
-        // 更新哈希环中的节点
-        hashRing.updateNodes(selectInstances);
+        // 实例快照版本变化时才重建哈希环，读路径无锁
+        ConsistentHashRing hashRing = hashRings.get(serviceId);
+        if (hashRing == null || hashRing.version != snapshot.version()) {
+            hashRing = hashRings.compute(serviceId, (k, current) ->
+                current != null && current.version == snapshot.version()
+                    ? current : ConsistentHashRing.build(snapshot, VIRTUAL_NODE_FACTOR));
+        }
         
         // 获取请求的哈希key
         String hashKey = getHashKey(request.getContext());
@@ -99,119 +98,107 @@ public class ConsistentHashLoadBalancer implements GatewayLoadBalance {
     
     /**
      * 一致性哈希环实现
+     * 构建后不可变：虚拟节点哈希值升序存放在long[]中，对应的实例下标存放在int[]中，
+     * 查找时二分搜索，无锁且不产生分配
      */
-    private static class ConsistentHashRing {
-        private final TreeMap<Long, ServiceInstance> ring = new TreeMap<>();
-        private final int virtualNodeFactor;
-        private List<ServiceInstance> currentNodes = new ArrayList<>();
-        
-        public ConsistentHashRing(int virtualNodeFactor) {
-            this.virtualNodeFactor = virtualNodeFactor;
+    private static final class ConsistentHashRing {
+        private final long version;
+        private final long[] hashes;
+        private final int[] owners;
+        private final ServiceInstance[] instances;
+        
+        private ConsistentHashRing(long version, long[] hashes, int[] owners, ServiceInstance[] instances) {
+            this.version = version;
+            this.hashes = hashes;
+            this.owners = owners;
+            this.instances = instances;
         }
         
         /**
-         * 更新哈希环中的节点
+         * 根据实例快照构建哈希环
          */
-        public synchronized void updateNodes(List<ServiceInstance> newNodes) {
-            // 如果节点列表没有变化，不需要更新
-            if (isSameNodes(currentNodes, newNodes)) {
-                return;
-            }
+        static ConsistentHashRing build(ServiceInstanceCache.InstanceSnapshot snapshot, int virtualNodeFactor) {
+            int size = snapshot.size();
+            ServiceInstance[] instances = new ServiceInstance[size];
+            int total = size * virtualNodeFactor;
+            long[] rawHashes = new long[total];
+            int[] rawOwners = new int[total];
+            Integer[] order = new Integer[total];
             
-            // 清空现有环
-            ring.clear();
-            
-            // 添加新节点
-            for (ServiceInstance instance : newNodes) {
-                addNode(instance);
+            for (int i = 0; i < size; i++) {
+                instances[i] = snapshot.get(i);
+                String nodeKey = getNodeKey(instances[i]);
+                // 添加虚拟节点
+                for (int v = 0; v < virtualNodeFactor; v++) {
+                    int slot = i * virtualNodeFactor + v;
+                    rawHashes[slot] = hash(nodeKey + "#" + v);
+                    rawOwners[slot] = i;
+                    order[slot] = slot;
+                }
             }
+            Arrays.sort(order, Comparator.comparingLong((Integer slot) -> rawHashes[slot]));
             
-            currentNodes = new ArrayList<>(newNodes);
-            log.debug("Updated hash ring with {} nodes", newNodes.size());
-        }
-        
-        /**
-         * 添加节点到哈希环
-         */
-        private void addNode(ServiceInstance instance) {
-            String nodeKey = getNodeKey(instance);
-            
-            // 添加虚拟节点
-            for (int i = 0; i < virtualNodeFactor; i++) {
-                String virtualKey = nodeKey + "#" + i;
-                long hash = hash(virtualKey);
-                ring.put(hash, instance);
+            // 哈希值冲突时只保留一个虚拟节点
+            long[] hashes = new long[total];
+            int[] owners = new int[total];
+            int count = 0;
+            for (int slot : order) {
+                if (count > 0 && hashes[count - 1] == rawHashes[slot]) {
+                    continue;
+                }
+                hashes[count] = rawHashes[slot];
+                owners[count] = rawOwners[slot];
+                count++;
+            }
+            if (count < total) {
+                hashes = Arrays.copyOf(hashes, count);
+                owners = Arrays.copyOf(owners, count);
             }
+            log.debug("Built hash ring with {} nodes, {} virtual nodes", size, count);
+            return new ConsistentHashRing(snapshot.version(), hashes, owners, instances);
         }
         
         /**
          * 根据key获取对应的节点
          */
         public ServiceInstance getNode(String key) {
-            if (ring.isEmpty()) {
+            if (hashes.length == 0) {
                 return null;
             }
             
-            long hash = hash(key);
-            
-            // 获取大于等于该hash值的第一个节点
-            Map.Entry<Long, ServiceInstance> entry = ring.ceilingEntry(hash);
-            
-            // 如果没有找到，则返回第一个节点（环形结构）
-            if (entry == null) {
-                entry = ring.firstEntry();
+            // 获取大于等于该hash值的第一个节点，没有则回到环首
+            int index = Arrays.binarySearch(hashes, hash(key));
+            if (index < 0) {
+                index = -index - 1;
+                if (index == hashes.length) {
+                    index = 0;
+                }
             }
-            
-            return entry.getValue();
+            return instances[owners[index]];
         }
         
         /**
          * 获取节点的唯一标识
          */
-        private String getNodeKey(ServiceInstance instance) {
+        private static String getNodeKey(ServiceInstance instance) {
             return instance.getHost() + ":" + instance.getPort();
         }
         
         /**
-         * 判断节点列表是否相同
-         */
-        private boolean isSameNodes(List<ServiceInstance> nodes1, List<ServiceInstance> nodes2) {
-            if (nodes1.size() != nodes2.size()) {
-                return false;
-            }
-            
-            Set<String> keys1 = new HashSet<>();
-            for (ServiceInstance node : nodes1) {
-                keys1.add(getNodeKey(node));
-            }
-            
-            Set<String> keys2 = new HashSet<>();
-            for (ServiceInstance node : nodes2) {
-                keys2.add(getNodeKey(node));
-            }
-            
-            return keys1.equals(keys2);
-        }
-        
-        /**
-         * 使用MD5计算哈希值
+         * 64位FNV-1a哈希，再做一次MurmurHash3的fmix64混淆，直接遍历字符不产生分配
          */
-        private long hash(String key) {
-            try {
-                MessageDigest md = MessageDigest.getInstance("MD5");
-                byte[] digest = md.digest(key.getBytes(StandardCharsets.UTF_8));
-                
-                // 取前8个字节作为long值
-                long hash = 0;
-                for (int i = 0; i < 8; i++) {
-                    hash = (hash << 8) | (digest[i] & 0xFF);
-                }
-                
-                return hash;
-            } catch (NoSuchAlgorithmException e) {
-                // 降级为简单哈希
-                return key.hashCode();
+        private static long hash(String key) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                h ^= key.charAt(i);
+                h *= 0x100000001b3L;
             }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
         }
     }
-} 
\ No newline at end of file
+}
@@ -1,8 +1,8 @@
 package com.muxin.gateway.core.loadbalance;
 
 import com.muxin.gateway.core.http.ServerWebExchange;
-import com.muxin.gateway.core.registry.RegisterCenter;
 import com.muxin.gateway.core.registry.ServiceInstance;
+import com.muxin.gateway.core.registry.ServiceInstanceCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.ObjectUtils;
 
@@ -20,19 +20,19 @@ import static com.muxin.gateway.core.common.GatewayConstants.SERVICE_ID;
 @Slf4j
 public class LeastConnectionsLoadBalancer implements GatewayLoadBalance {
 
-    private final RegisterCenter registerCenter;
+    private final ServiceInstanceCache instanceCache;
     
     // 记录每个实例的活跃连接数
     private final Map<String, AtomicInteger> connectionCounts = new ConcurrentHashMap<>();
     
-    public LeastConnectionsLoadBalancer(RegisterCenter registerCenter) {
-        this.registerCenter = registerCenter;
+    public LeastConnectionsLoadBalancer(ServiceInstanceCache instanceCache) {
+        this.instanceCache = instanceCache;
     }
 
     @Override
     public LbResponse<ServiceInstance> choose(LbRequest<ServerWebExchange> request) {
         String serviceId = request.getContext().getAttribute(SERVICE_ID);
-        List<ServiceInstance> selectInstances = registerCenter.selectInstances(serviceId);
+        List<ServiceInstance> selectInstances = instanceCache.getInstances(serviceId);
         
         if (ObjectUtils.isEmpty(selectInstances)) {
             return null;
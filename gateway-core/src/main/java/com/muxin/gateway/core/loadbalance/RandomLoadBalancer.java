@@ -1,8 +1,8 @@
 package com.muxin.gateway.core.loadbalance;
 
 import com.muxin.gateway.core.http.ServerWebExchange;
-import com.muxin.gateway.core.registry.RegisterCenter;
 import com.muxin.gateway.core.registry.ServiceInstance;
+import com.muxin.gateway.core.registry.ServiceInstanceCache;
 import org.springframework.util.ObjectUtils;
 
 import java.util.List;
@@ -16,16 +16,16 @@ import static com.muxin.gateway.core.common.GatewayConstants.SERVICE_ID;
  */
 public class RandomLoadBalancer implements GatewayLoadBalance {
 
-    private final RegisterCenter registerCenter;
+    private final ServiceInstanceCache instanceCache;
 
-    public RandomLoadBalancer(RegisterCenter registerCenter) {
-        this.registerCenter = registerCenter;
+    public RandomLoadBalancer(ServiceInstanceCache instanceCache) {
+        this.instanceCache = instanceCache;
     }
 
     @Override
     public LbResponse<ServiceInstance> choose(LbRequest<ServerWebExchange> request) {
         String serviceId = request.getContext().getAttribute(SERVICE_ID);
-        List<ServiceInstance> selectInstances = registerCenter.selectInstances(serviceId);
+        List<ServiceInstance> selectInstances = instanceCache.getInstances(serviceId);
         
         if (ObjectUtils.isEmpty(selectInstances)) {
             return null;
@@ -1,8 +1,8 @@
 package com.muxin.gateway.core.loadbalance;
 
 import com.muxin.gateway.core.http.ServerWebExchange;
-import com.muxin.gateway.core.registry.RegisterCenter;
 import com.muxin.gateway.core.registry.ServiceInstance;
+import com.muxin.gateway.core.registry.ServiceInstanceCache;
 import org.springframework.util.ObjectUtils;
 
 import java.util.List;
@@ -20,16 +20,16 @@ public class RoundRobinLoadBalancer implements GatewayLoadBalance {
 
     final AtomicInteger position = new AtomicInteger(0);
 
-    RegisterCenter registerCenter;
+    ServiceInstanceCache instanceCache;
 
-    public RoundRobinLoadBalancer(RegisterCenter registerCenter) {
-        this.registerCenter = registerCenter;
+    public RoundRobinLoadBalancer(ServiceInstanceCache instanceCache) {
+        this.instanceCache = instanceCache;
     }
 
     @Override
     public LbResponse<ServiceInstance> choose(LbRequest<ServerWebExchange> request) {
         String serviceId = request.getContext().getAttribute(SERVICE_ID);
-        List<ServiceInstance> selectInstances = registerCenter.selectInstances(serviceId);
+        List<ServiceInstance> selectInstances = instanceCache.getInstances(serviceId);
         if (ObjectUtils.isEmpty(selectInstances)) {
             return null;
         }
@@ -1,10 +1,9 @@
 package com.muxin.gateway.core.loadbalance;
 
 import com.muxin.gateway.core.http.ServerWebExchange;
-import com.muxin.gateway.core.registry.RegisterCenter;
 import com.muxin.gateway.core.registry.ServiceInstance;
+import com.muxin.gateway.core.registry.ServiceInstanceCache;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.util.ObjectUtils;
 
 import java.util.List;
 import java.util.Map;
@@ -19,30 +18,30 @@ import static com.muxin.gateway.core.common.GatewayConstants.SERVICE_ID;
 @Slf4j
 public class WeightedRoundRobinLoadBalancer implements GatewayLoadBalance {
 
-    private final RegisterCenter registerCenter;
+    private final ServiceInstanceCache instanceCache;
     
     // 每个服务的权重状态
     private final Map<String, WeightedRoundRobin> weightMap = new ConcurrentHashMap<>();
     
-    public WeightedRoundRobinLoadBalancer(RegisterCenter registerCenter) {
-        this.registerCenter = registerCenter;
+    public WeightedRoundRobinLoadBalancer(ServiceInstanceCache instanceCache) {
+        this.instanceCache = instanceCache;
     }
 
     @Override
     public LbResponse<ServiceInstance> choose(LbRequest<ServerWebExchange> request) {
         String serviceId = request.getContext().getAttribute(SERVICE_ID);
-        List<ServiceInstance> selectInstances = registerCenter.selectInstances(serviceId);
+        ServiceInstanceCache.InstanceSnapshot snapshot = instanceCache.getSnapshot(serviceId);
         
-        if (ObjectUtils.isEmpty(selectInstances)) {
+        if (snapshot.isEmpty()) {
             return null;
         }
         
         // 获取或创建该服务的权重轮询对象
         WeightedRoundRobin wrr = weightMap.computeIfAbsent(serviceId, 
-            k -> new WeightedRoundRobin(selectInstances));
+            k -> new WeightedRoundRobin(snapshot));
         
-        // 更新实例列表（处理实例变化的情况）
-        wrr.updateInstances(selectInstances);
+        // 快照版本变化时才更新实例列表，避免每次请求重置当前权重
+        wrr.updateInstances(snapshot);
         
         // 选择实例
         ServiceInstance instance = wrr.select();
@@ -63,13 +62,18 @@ public class WeightedRoundRobinLoadBalancer implements GatewayLoadBalance {
         private int[] weights;
         private int[] currentWeights;
         private int totalWeight;
+        private long version = -1;
         
-        public WeightedRoundRobin(List<ServiceInstance> instances) {
-            updateInstances(instances);
+        public WeightedRoundRobin(ServiceInstanceCache.InstanceSnapshot snapshot) {
+            updateInstances(snapshot);
         }
         
-        public synchronized void updateInstances(List<ServiceInstance> newInstances) {
-            this.instances = newInstances;
+        public synchronized void updateInstances(ServiceInstanceCache.InstanceSnapshot snapshot) {
+            if (snapshot.version() == version) {
+                return;
+            }
+            this.version = snapshot.version();
+            this.instances = snapshot.list();
             this.weights = new int[instances.size()];
             this.currentWeights = new int[instances.size()];
             this.totalWeight = 0;
@@ -0,0 +1,93 @@
+package com.muxin.gateway.core.netty;
+
+import io.netty.buffer.ByteBuf;
+import org.asynchttpclient.request.body.Body;
+import org.asynchttpclient.request.body.RandomAccessBody;
+import org.asynchttpclient.request.body.generator.BodyGenerator;
+
+import java.io.IOException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 直接以入站请求的ByteBuf作为转发请求体
+ * <p>
+ * 持有请求体的一个retained slice，由调用方在请求完成后{@link #release()}；
+ * 明文连接上AsyncHttpClient按FileRegion写出，ByteBuf的nio视图直接gather写入Socket，不经过中间拷贝
+ *
+ * @author Administrator
+ */
+public class ByteBufBodyGenerator implements BodyGenerator {
+
+    private final ByteBuf content;
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    /**
+     * @param content 请求体，内部持有其retained slice，不改变其读写索引
+     */
+    public ByteBufBodyGenerator(ByteBuf content) {
+        this.content = content.retainedSlice();
+    }
+
+    @Override
+    public Body createBody() {
+        // 重试时会再次创建，各自使用独立的读索引
+        return new ByteBufBody(content.duplicate());
+    }
+
+    /**
+     * 释放持有的请求体引用，在转发请求完成（成功、失败或超时）后调用
+     */
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            content.release();
+        }
+    }
+
+    /**
+     * 请求体，引用由生成器持有，这里不负责释放
+     */
+    private static final class ByteBufBody implements RandomAccessBody {
+
+        private final ByteBuf content;
+        private final long contentLength;
+
+        private ByteBufBody(ByteBuf content) {
+            this.content = content;
+            this.contentLength = content.readableBytes();
+        }
+
+        @Override
+        public long getContentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public long transferTo(WritableByteChannel target) throws IOException {
+            if (!content.isReadable()) {
+                return 0;
+            }
+            if (target instanceof GatheringByteChannel channel) {
+                return content.readBytes(channel, content.readableBytes());
+            }
+            int written = target.write(content.nioBuffer());
+            content.skipBytes(written);
+            return written;
+        }
+
+        @Override
+        public BodyState transferTo(ByteBuf target) {
+            // TLS连接不走FileRegion，按块拷贝到加密前的缓冲区
+            if (!content.isReadable()) {
+                return BodyState.STOP;
+            }
+            target.writeBytes(content, Math.min(content.readableBytes(), target.writableBytes()));
+            return BodyState.CONTINUE;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.muxin.gateway.core.netty;
+
+import com.muxin.gateway.core.utils.ResponseUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.netty.LazyResponseBodyPart;
+
+/**
+ * 把后端响应直接组装成Netty的FullHttpResponse
+ * <p>
+ * 配合{@code ResponseBodyPartFactory.LAZY}使用：每个响应体分片的ByteBuf被retain后作为CompositeByteBuf的组件，
+ * 不拷贝到堆内存，写回客户端时由Channel直接写出并释放。
+ * 回调可能来自IO线程和超时线程，状态变更统一加锁
+ *
+ * @author Administrator
+ */
+public class ByteBufResponseHandler implements AsyncHandler<FullHttpResponse> {
+
+    private org.asynchttpclient.HttpResponseStatus status;
+    private HttpHeaders headers;
+    private HttpHeaders trailingHeaders = EmptyHttpHeaders.INSTANCE;
+    private CompositeByteBuf body;
+
+    @Override
+    public synchronized State onStatusReceived(org.asynchttpclient.HttpResponseStatus responseStatus) {
+        this.status = responseStatus;
+        return State.CONTINUE;
+    }
+
+    @Override
+    public synchronized State onHeadersReceived(HttpHeaders responseHeaders) {
+        this.headers = responseHeaders;
+        return State.CONTINUE;
+    }
+
+    @Override
+    public synchronized State onBodyPartReceived(HttpResponseBodyPart bodyPart) {
+        ByteBuf part;
+        if (bodyPart instanceof LazyResponseBodyPart lazyPart) {
+            // 分片只在回调期间有效，retain后由组合缓冲区持有
+            part = lazyPart.getBuf().retain();
+        } else {
+            part = Unpooled.wrappedBuffer(bodyPart.getBodyPartBytes());
+        }
+        if (!part.isReadable()) {
+            part.release();
+            return State.CONTINUE;
+        }
+        if (body == null) {
+            // 组件数不设上限，避免超过上限时合并组件产生拷贝
+            body = PooledByteBufAllocator.DEFAULT.compositeDirectBuffer(Integer.MAX_VALUE);
+        }
+        body.addComponent(true, part);
+        return State.CONTINUE;
+    }
+
+    @Override
+    public synchronized State onTrailingHeadersReceived(HttpHeaders headers) {
+        this.trailingHeaders = headers;
+        return State.CONTINUE;
+    }
+
+    @Override
+    public synchronized void onRetry() {
+        // 重试时丢弃已收到的部分响应
+        releaseBody();
+        status = null;
+        headers = null;
+        trailingHeaders = EmptyHttpHeaders.INSTANCE;
+    }
+
+    @Override
+    public synchronized void onThrowable(Throwable t) {
+        releaseBody();
+    }
+
+    @Override
+    public synchronized FullHttpResponse onCompleted() {
+        if (status == null) {
+            releaseBody();
+            throw new IllegalStateException("No response status received");
+        }
+        ByteBuf content = body != null ? body : Unpooled.EMPTY_BUFFER;
+        // 所有权转移给返回的响应
+        body = null;
+        return ResponseUtil.createResponse(
+                HttpResponseStatus.valueOf(status.getStatusCode(), status.getStatusText()),
+                headers != null ? headers : new DefaultHttpHeaders(), trailingHeaders, content);
+    }
+
+    private void releaseBody() {
+        if (body != null) {
+            body.release();
+            body = null;
+        }
+    }
+}
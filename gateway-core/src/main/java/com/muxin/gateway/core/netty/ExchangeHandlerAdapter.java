@@ -7,11 +7,17 @@ import com.muxin.gateway.core.http.ServerWebExchange;
 import com.muxin.gateway.core.utils.ExchangeUtil;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoop;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.ReferenceCountUtil;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayDeque;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Exchange处理适配器
@@ -19,8 +25,25 @@ import java.util.UUID;
 @Slf4j
 public class ExchangeHandlerAdapter extends ChannelInboundHandlerAdapter implements ExchangeHandler {
 
+    /**
+     * 每个连接排队等待处理的流水线请求上限，达到上限时暂停读取
+     */
+    private static final int MAX_PENDING_REQUESTS = 16;
+
     private final ExchangeHandler delegate;
 
+    /**
+     * 以下状态只在所属Channel的EventLoop上访问
+     */
+    private boolean inFlight;
+
+    /**
+     * 正在处理的请求，客户端断开时取消其后端请求
+     */
+    private ServerWebExchange current;
+
+    private final Queue<FullHttpRequest> pendingRequests = new ArrayDeque<>();
+
     public ExchangeHandlerAdapter(ExchangeHandler delegate) {
         this.delegate = delegate;
     }
@@ -33,7 +56,25 @@ public class ExchangeHandlerAdapter extends ChannelInboundHandlerAdapter impleme
         }
 
         FullHttpRequest request = (FullHttpRequest) msg;
-        ServerWebExchange webExchange = null;
+        if (inFlight) {
+            // HTTP/1.1流水线请求，必须按接收顺序响应，等前一个请求写出后再处理
+            pendingRequests.offer(request);
+            if (pendingRequests.size() >= MAX_PENDING_REQUESTS) {
+                ctx.channel().config().setAutoRead(false);
+            }
+            return;
+        }
+        process(ctx, request);
+    }
+
+    /**
+     * 异步处理请求，处理链完成后才写出响应；每个连接同时只有一个请求在处理，后续请求排队。
+     * 处理期间保持读取，客户端断开能及时触发channelInactive取消后端请求（NIO在不读取时感知不到对端关闭）
+     */
+    private void process(ChannelHandlerContext ctx, FullHttpRequest request) {
+        inFlight = true;
+
+        ServerWebExchange webExchange;
         try {
             // 直接从Netty请求创建交换对象
             webExchange = DefaultServerWebExchange.fromNettyRequest(request, ctx);
@@ -41,19 +82,93 @@ public class ExchangeHandlerAdapter extends ChannelInboundHandlerAdapter impleme
             // 设置请求属性
             webExchange.setAttribute(GatewayConstants.GATEWAY_REQUEST_START_TIME_ATTR, System.currentTimeMillis());
             webExchange.setAttribute(GatewayConstants.GATEWAY_REQUEST_ID_ATTR, UUID.randomUUID().toString());
+        } catch (Exception e) {
+            log.error("Error processing request", e);
+            request.release();
+            ctx.close();
+            return;
+        }
 
+        ServerWebExchange exchange = webExchange;
+        current = exchange;
+        CompletionStage<Void> stage;
+        try {
             // 处理请求
-            handle(webExchange);
+            stage = handleAsync(exchange);
         } catch (Exception e) {
-            log.error("Error processing request", e);
-            // 发送错误响应
-            if (webExchange != null) {
-                sendErrorResponse(webExchange, e);
+            stage = CompletableFuture.failedFuture(e);
+        }
+        stage.whenComplete((v, throwable) -> {
+            try {
+                if (!ctx.channel().isActive()) {
+                    // 客户端已断开，响应无处可写
+                    discard(exchange);
+                } else if (throwable != null) {
+                    log.error("Error processing request", throwable);
+                    // 发送错误响应
+                    sendErrorResponse(exchange, throwable);
+                } else {
+                    ExchangeUtil.writeAndFlush(exchange);
+                }
+            } finally {
+                EventLoop eventLoop = ctx.channel().eventLoop();
+                if (eventLoop.inEventLoop()) {
+                    processNext(ctx);
+                } else {
+                    eventLoop.execute(() -> processNext(ctx));
+                }
             }
-        } finally {
-            ExchangeUtil.writeAndFlush(webExchange);
+        });
+    }
+
+    /**
+     * 当前请求完成后处理排队的流水线请求，排队请求低于上限时恢复读取
+     */
+    private void processNext(ChannelHandlerContext ctx) {
+        inFlight = false;
+        current = null;
+        FullHttpRequest next = pendingRequests.poll();
+        if (pendingRequests.size() < MAX_PENDING_REQUESTS && !ctx.channel().config().isAutoRead()) {
+            ctx.channel().config().setAutoRead(true);
+        }
+        if (next != null) {
+            process(ctx, next);
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (current != null) {
+            cancelBackendRequest(current);
+        }
+        FullHttpRequest request;
+        while ((request = pendingRequests.poll()) != null) {
+            request.release();
+        }
+        super.channelInactive(ctx);
+    }
+
+    /**
+     * 取消请求进行中的后端调用，后端连接随之关闭，不再占用后端的处理能力
+     */
+    private void cancelBackendRequest(ServerWebExchange exchange) {
+        CompletableFuture<?> backendRequest = exchange.getAttribute(GatewayConstants.GATEWAY_BACKEND_REQUEST_ATTR);
+        if (backendRequest != null && backendRequest.cancel(true)) {
+            String requestId = exchange.getAttribute(GatewayConstants.GATEWAY_REQUEST_ID_ATTR);
+            log.debug("Client disconnected, backend request cancelled: {}", requestId);
         }
+    }
 
+    /**
+     * 丢弃无法写出的响应并释放请求
+     */
+    private void discard(ServerWebExchange exchange) {
+        try {
+            ReferenceCountUtil.safeRelease(exchange.getOriginalResponse());
+            exchange.release();
+        } catch (Exception e) {
+            log.warn("Failed to release exchange resources", e);
+        }
     }
 
     @Override
@@ -65,10 +180,18 @@ public class ExchangeHandlerAdapter extends ChannelInboundHandlerAdapter impleme
         }
     }
 
+    @Override
+    public CompletionStage<Void> handleAsync(ServerWebExchange exchange) {
+        if (delegate == null) {
+            return CompletableFuture.failedFuture(new RuntimeException("ExchangeHandler not found"));
+        }
+        return delegate.handleAsync(exchange);
+    }
+
     /**
      * 发送错误响应
      */
-    private void sendErrorResponse(ServerWebExchange exchange, Exception e) {
+    private void sendErrorResponse(ServerWebExchange exchange, Throwable e) {
         try {
             exchange.status(HttpResponseStatus.INTERNAL_SERVER_ERROR)
                     .header("Content-Type", "application/json")
@@ -6,13 +6,16 @@ import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.handler.codec.http.FullHttpResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.AsyncHttpClientConfig;
 import org.asynchttpclient.DefaultAsyncHttpClient;
 import org.asynchttpclient.DefaultAsyncHttpClientConfig;
+import org.asynchttpclient.ListenableFuture;
 import org.asynchttpclient.Request;
-import org.asynchttpclient.Response;
 
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -56,6 +59,8 @@ public class NettyHttpClient implements LifeCycle {
                 .setKeepAlive(properties.isSoKeepAlive())
                 .setSoSndBuf(properties.getSoSndBuf())
                 .setSoRcvBuf(properties.getSoRcvBuf())
+                // 响应体分片不拷贝，由ByteBufResponseHandler直接持有Netty的ByteBuf
+                .setResponseBodyPartFactory(AsyncHttpClientConfig.ResponseBodyPartFactory.LAZY)
                 // 使用池化连接
                 .setUseNativeTransport(false);
 
@@ -84,17 +89,18 @@ public class NettyHttpClient implements LifeCycle {
         }
     }
 
-    public CompletableFuture<Response> executeRequest(Request request) {
-        if (properties.isWhenComplete()) {
-            return asyncHttpClient.executeRequest(request).toCompletableFuture();
-        } else {
-            return CompletableFuture.supplyAsync(() -> {
-                try {
-                    return asyncHttpClient.executeRequest(request).get();
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-            });
-        }
+    /**
+     * 执行请求，响应体直接引用后端连接读到的ByteBuf，返回的响应由调用方负责写出或释放
+     * 取消返回的结果会中止后端请求：未完成的后端连接被关闭，已收到的部分响应随之释放
+     */
+    public CompletableFuture<FullHttpResponse> executeRequest(Request request) {
+        ListenableFuture<FullHttpResponse> future = asyncHttpClient.executeRequest(request, new ByteBufResponseHandler());
+        CompletableFuture<FullHttpResponse> result = future.toCompletableFuture();
+        result.whenComplete((response, error) -> {
+            if (error instanceof CancellationException) {
+                future.cancel(true);
+            }
+        });
+        return result;
     }
 }
\ No newline at end of file
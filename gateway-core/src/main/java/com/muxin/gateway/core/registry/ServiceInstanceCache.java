@@ -0,0 +1,312 @@
+package com.muxin.gateway.core.registry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 服务实例本地快照
+ * <p>
+ * 首次访问某个服务时在后台线程订阅变更并从注册中心拉取实例，之后由注册中心推送更新，
+ * 每个服务持有一个不可变的实例快照，变更时整体替换，负载均衡选择实例时只读快照，不访问注册中心。
+ * 调用方通常是Netty的EventLoop，首次拉取完成前返回空快照而不是阻塞等待，负载均衡据此判定暂无可用实例；
+ * 已知的服务可以在启动时通过{@link #preload}提前加载。
+ * 快照超过刷新间隔后，下一次访问在后台线程重新拉取（stale-while-revalidate），期间继续使用旧快照；
+ * 拉取期间收到过推送时丢弃拉取结果，避免旧数据覆盖新推送；注册中心不可用时保留旧快照
+ *
+ * @author Administrator
+ */
+@Slf4j
+public class ServiceInstanceCache {
+
+    private static final long DEFAULT_REFRESH_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final RegisterCenter registerCenter;
+
+    private final long refreshIntervalMillis;
+
+    private final Map<String, ServiceEntry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 快照版本，全局递增，实例列表变化时更新
+     */
+    private final AtomicLong versionGenerator = new AtomicLong();
+
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "instance-cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ServiceInstanceCache(RegisterCenter registerCenter) {
+        this(registerCenter, DEFAULT_REFRESH_INTERVAL_MILLIS);
+    }
+
+    public ServiceInstanceCache(RegisterCenter registerCenter, long refreshIntervalMillis) {
+        this.registerCenter = registerCenter;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+    }
+
+    /**
+     * 获取服务的实例快照，不会返回null
+     */
+    public InstanceSnapshot getSnapshot(String serviceId) {
+        if (serviceId == null) {
+            return InstanceSnapshot.EMPTY;
+        }
+        ServiceEntry entry = entry(serviceId);
+        if (!entry.loaded.isDone()) {
+            startInitialLoad(entry);
+            return entry.snapshot;
+        }
+        InstanceSnapshot snapshot = entry.snapshot;
+        if (System.currentTimeMillis() - entry.refreshedAt > refreshIntervalMillis) {
+            revalidate(entry);
+        }
+        return snapshot;
+    }
+
+    /**
+     * 提前加载服务的实例，返回首次拉取完成（无论成功与否）的Future
+     */
+    public CompletableFuture<Void> preload(String serviceId) {
+        ServiceEntry entry = entry(serviceId);
+        startInitialLoad(entry);
+        return entry.loaded;
+    }
+
+    /**
+     * 获取服务的实例列表（只读）
+     */
+    public List<ServiceInstance> getInstances(String serviceId) {
+        return getSnapshot(serviceId).list();
+    }
+
+    /**
+     * 停止后台刷新并取消所有订阅
+     */
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+        entries.forEach((serviceId, entry) -> {
+            try {
+                registerCenter.unsubscribe(serviceId, entry.listener);
+            } catch (Exception e) {
+                log.warn("Failed to unsubscribe service: {}", serviceId, e);
+            }
+        });
+        entries.clear();
+    }
+
+    // ========== 快照维护 ==========
+
+    private ServiceEntry entry(String serviceId) {
+        ServiceEntry entry = entries.get(serviceId);
+        if (entry == null) {
+            entry = entries.computeIfAbsent(serviceId, ServiceEntry::new);
+        }
+        return entry;
+    }
+
+    private void startInitialLoad(ServiceEntry entry) {
+        if (!entry.loading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(entry::initialLoad);
+        } catch (RejectedExecutionException e) {
+            // 已关闭，保持空快照
+            entry.loaded.complete(null);
+        }
+    }
+
+    private void revalidate(ServiceEntry entry) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    long sequence = entry.pushSequence;
+                    List<ServiceInstance> instances = registerCenter.selectInstances(entry.serviceId);
+                    entry.onPull(instances, sequence, true);
+                } catch (Exception e) {
+                    log.warn("Failed to refresh instances for service: {}, keeping stale snapshot",
+                            entry.serviceId, e);
+                } finally {
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    private final class ServiceEntry {
+
+        private final String serviceId;
+
+        private final RegisterCenterListener listener = this::onChange;
+
+        private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+        private final AtomicBoolean loading = new AtomicBoolean(false);
+
+        /**
+         * 首次拉取完成（无论成功与否）
+         */
+        private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+
+        private volatile InstanceSnapshot snapshot = InstanceSnapshot.EMPTY;
+
+        private volatile long refreshedAt;
+
+        /**
+         * 推送次数，拉取开始时记录，结束时不一致说明拉取期间有更新的推送
+         */
+        private volatile long pushSequence;
+
+        private ServiceEntry(String serviceId) {
+            this.serviceId = serviceId;
+        }
+
+        /**
+         * 首次加载：先订阅再拉取，在刷新线程执行
+         */
+        private void initialLoad() {
+            try {
+                try {
+                    registerCenter.subscribe(serviceId, listener);
+                } catch (Exception e) {
+                    // 订阅失败时依赖定时重新拉取
+                    log.error("Failed to subscribe service: {}, falling back to periodic refresh", serviceId, e);
+                }
+                try {
+                    long sequence = pushSequence;
+                    onPull(registerCenter.selectInstances(serviceId), sequence, false);
+                } catch (Exception e) {
+                    log.error("Failed to load instances for service: {}", serviceId, e);
+                }
+            } finally {
+                loaded.complete(null);
+            }
+        }
+
+        /**
+         * 注册中心推送的是全量实例，包含不健康实例，与selectInstances保持一致只保留健康实例
+         */
+        private void onChange(List<ServiceInstance> instances) {
+            List<ServiceInstance> healthy = new ArrayList<>(instances != null ? instances.size() : 0);
+            if (instances != null) {
+                for (ServiceInstance instance : instances) {
+                    if (instance.isHealthy()) {
+                        healthy.add(instance);
+                    }
+                }
+            }
+            synchronized (this) {
+                pushSequence++;
+                update(healthy);
+            }
+            log.debug("Instances of service {} changed, size: {}", serviceId, healthy.size());
+        }
+
+        /**
+         * @param sequence  拉取开始时的推送次数
+         * @param keepStale 拉取结果为空且注册中心不可用时视为拉取失败，保留旧快照
+         */
+        private synchronized void onPull(List<ServiceInstance> instances, long sequence, boolean keepStale) {
+            if (sequence != pushSequence) {
+                log.debug("Instances of service {} pushed during pull, dropping pulled result", serviceId);
+                return;
+            }
+            List<ServiceInstance> newInstances = instances != null ? instances : Collections.emptyList();
+            if (keepStale && newInstances.isEmpty() && snapshot.size() > 0 && !registerCenter.isAvailable()) {
+                log.warn("Register center unavailable, keeping stale instances of service: {}", serviceId);
+                return;
+            }
+            update(newInstances);
+        }
+
+        private void update(List<ServiceInstance> newInstances) {
+            refreshedAt = System.currentTimeMillis();
+            ServiceInstance[] array = newInstances.toArray(new ServiceInstance[0]);
+            if (!snapshot.sameInstances(array)) {
+                snapshot = new InstanceSnapshot(array, versionGenerator.incrementAndGet());
+            }
+        }
+    }
+
+    /**
+     * 不可变的实例快照
+     */
+    public static final class InstanceSnapshot {
+
+        static final InstanceSnapshot EMPTY = new InstanceSnapshot(new ServiceInstance[0], 0L);
+
+        private final ServiceInstance[] instances;
+        private final List<ServiceInstance> list;
+        private final long version;
+
+        private InstanceSnapshot(ServiceInstance[] instances, long version) {
+            this.instances = instances;
+            this.list = Collections.unmodifiableList(Arrays.asList(instances));
+            this.version = version;
+        }
+
+        public int size() {
+            return instances.length;
+        }
+
+        public boolean isEmpty() {
+            return instances.length == 0;
+        }
+
+        public ServiceInstance get(int index) {
+            return instances[index];
+        }
+
+        /**
+         * 只读的实例列表视图
+         */
+        public List<ServiceInstance> list() {
+            return list;
+        }
+
+        /**
+         * 快照版本，实例列表变化时递增，可用于判断派生数据（如哈希环、权重表）是否需要重建
+         */
+        public long version() {
+            return version;
+        }
+
+        private boolean sameInstances(ServiceInstance[] other) {
+            if (other.length != instances.length) {
+                return false;
+            }
+            for (int i = 0; i < other.length; i++) {
+                if (!sameInstance(instances[i], other[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean sameInstance(ServiceInstance a, ServiceInstance b) {
+            return a == b || (Objects.equals(a.getHost(), b.getHost()) && a.getPort() == b.getPort()
+                    && a.getWeight() == b.getWeight() && Objects.equals(a.getMetadata(), b.getMetadata()));
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package com.muxin.gateway.core.route;
 
 import com.muxin.gateway.core.cache.RouteCache;
+import com.muxin.gateway.core.http.ServerWebExchange;
 import com.muxin.gateway.core.route.filter.factory.FilterFactory;
 import com.muxin.gateway.core.route.predicate.factory.PredicateFactory;
 import com.muxin.gateway.core.route.filter.PartFilter;
 import com.muxin.gateway.core.route.filter.FilterDefinition;
 import com.muxin.gateway.core.route.path.AntPathMatcher;
-import com.muxin.gateway.core.route.path.PathMatcher;
+import com.muxin.gateway.core.route.path.CompiledPathPattern;
+import com.muxin.gateway.core.route.path.PathTrie;
 import com.muxin.gateway.core.route.path.PathUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.CollectionUtils;
@@ -14,6 +16,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.muxin.gateway.core.common.GatewayConstants.*;
 
@@ -23,6 +26,8 @@ import static com.muxin.gateway.core.common.GatewayConstants.*;
 @Component
 @Slf4j
 public class RouteDefinitionRouteLocator implements RouteLocator {
+    private static final AntPathMatcher PATH_MATCHER = AntPathMatcher.getDefaultInstance();
+
     /**
      * 路由定义定位器
      */
@@ -39,20 +44,14 @@ public class RouteDefinitionRouteLocator implements RouteLocator {
     private final Map<String, RouteRule> allRoutes = new ConcurrentHashMap<>(8);
 
     /**
-     * Route配置的path都是常量，没有pattern，key就是normalize后的path
+     * 按路径段索引的路由前缀树，路由变更时整体重建后替换，匹配时无锁读取
      */
-    private final Map<String, RouteRuleGroup> constantPathRoutes = new ConcurrentHashMap<>(8);
+    private volatile PathTrie<RouteRule> routeTrie = new PathTrie<>();
 
     /**
-     * Route配置的path都不是常量，含有pattern，key是最长的常量前缀
-     * 比如一个Route的path是/foo/bar/{name}/info,那么它应该在key为/foo/bar的group中
+     * 路由版本，路由变更并重建前缀树后递增，用于淘汰路由缓存中的旧条目
      */
-    private final Map<String, RouteRuleGroup> patternPathRoutes = new ConcurrentHashMap<>(8);
-
-    /**
-     * AntPathMatcher
-     */
-    private final PathMatcher pathMatcher = AntPathMatcher.getDefaultInstance();
+    private final AtomicLong routeVersion = new AtomicLong();
     /**
      * 过滤器工厂Map集合
      */
@@ -82,66 +81,57 @@ public class RouteDefinitionRouteLocator implements RouteLocator {
             return Collections.emptyList();
         }
         
-        // 先从缓存中查找
-        RouteRule cachedRule = routeCache.get(path);
-        if (cachedRule != null) {
-            return Collections.singletonList(cachedRule);
-        }
-        
-        //先解决常量路径
-        String normalizePath = PathUtil.normalize(path);
-        log.debug("Looking for routes for path: {} (normalized: {})", path, normalizePath);
-        log.debug("Available constant paths: {}", constantPathRoutes.keySet());
-        log.debug("Available pattern paths: {}", patternPathRoutes.keySet());
-        
-        RouteRuleGroup routeRuleGroup = constantPathRoutes.get(normalizePath);
-        List<RouteRuleGroup> groups = findInPatternPathRoutes(normalizePath);
-        
-        if (Objects.nonNull(routeRuleGroup)) {
-            log.debug("Found constant path match for: {}", normalizePath);
-            groups.add(0, routeRuleGroup);
-        }
-        
-        if (groups.isEmpty()) {
-            log.debug("No routes found for path: {}", path);
-            return Collections.emptyList();
-        } else if (groups.size() == 1) {
-            List<RouteRule> routes = groups.get(0).getRoutes();
-            log.debug("Found {} routes for path: {}", routes.size(), path);
-            // 缓存第一个匹配的规则
-            if (!routes.isEmpty()) {
-                routeCache.put(path, routes.get(0));
-            }
-            return routes;
-        }
+        // 路径模式在前缀树中一次匹配，候选按具体程度排列
+        List<RouteRule> routes = routeTrie.match(path);
+        log.debug("Found {} routes for path: {}", routes.size(), path);
+        return routes;
+    }
 
-        // 合并多个组的路由规则
-        List<RouteRule> mergedRoutes = new ArrayList<>(groups.size() * 2);
-        for (RouteRuleGroup rg : groups) {
-            mergedRoutes.addAll(rg.getRoutes());
+    /**
+     * 根据请求获取候选路由，结果按请求方法、Host和路径缓存，没有候选的路径同样缓存。
+     * 首个候选的路径变量在前缀树匹配时一并提取，随候选一起缓存，写入交换对象的属性
+     */
+    @Override
+    public List<RouteRule> getRoutes(ServerWebExchange exchange) {
+        String uri = exchange.getRequest().uri();
+        if (uri == null || uri.isEmpty()) {
+            return Collections.emptyList();
         }
-        log.debug("Found {} merged routes for path: {}", mergedRoutes.size(), path);
-        
-        // 缓存第一个匹配的规则
-        if (!mergedRoutes.isEmpty()) {
-            routeCache.put(path, mergedRoutes.get(0));
+        int queryIndex = uri.indexOf('?');
+        String normalizePath = PathUtil.normalize(queryIndex >= 0 ? uri.substring(0, queryIndex) : uri);
+        String key = RouteCache.key(exchange.method(), exchange.hostName(), normalizePath);
+
+        // 先读版本再解析，解析期间路由发生变更时写入的条目会按旧版本失效
+        long version = routeVersion.get();
+        RouteCache.Entry cached = routeCache.lookup(key, version);
+        if (cached != null) {
+            exchange.setAttribute(GATEWAY_URI_TEMPLATE_VARIABLES_ATTR, cached.uriVariables());
+            return cached.routes();
         }
-        
-        return mergedRoutes;
+
+        Map<String, String> uriVariables = new LinkedHashMap<>(4);
+        List<RouteRule> routes = routeTrie.match(normalizePath, uriVariables);
+        log.debug("Found {} routes for path: {}", routes.size(), normalizePath);
+        routeCache.put(key, version, routes, uriVariables);
+        exchange.setAttribute(GATEWAY_URI_TEMPLATE_VARIABLES_ATTR,
+                uriVariables.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(uriVariables));
+        return routes;
     }
 
-    private List<RouteRuleGroup> findInPatternPathRoutes(String normalizePath) {
-        String prefix = PathUtil.removeLast(normalizePath);
-        List<RouteRuleGroup> groups = new LinkedList<>();
-        
-        while (!prefix.isEmpty()) {
-            RouteRuleGroup routeRuleGroup = patternPathRoutes.get(prefix);
-            if (Objects.nonNull(routeRuleGroup)) {
-                groups.add(routeRuleGroup);
-            }
-            prefix = PathUtil.removeLast(prefix);
+    /**
+     * 用路由自身的路径模式提取路径变量，只在首个候选未通过断言时使用
+     */
+    @Override
+    public Map<String, String> extractUriVariables(RouteRule route, String path) {
+        String routePath = extractPathFromRoute(route);
+        if (routePath == null || routePath.isEmpty() || path == null) {
+            return Collections.emptyMap();
         }
-        return groups;
+        int queryIndex = path.indexOf('?');
+        String normalizePath = PathUtil.normalize(queryIndex >= 0 ? path.substring(0, queryIndex) : path);
+        CompiledPathPattern pattern = PATH_MATCHER.compile(PathUtil.normalize(routePath));
+        return pattern.matches(normalizePath) ? pattern.extractUriTemplateVariables(normalizePath)
+                : Collections.emptyMap();
     }
 
     protected synchronized void addRoute(RouteRule route) {
@@ -150,45 +140,54 @@ public class RouteDefinitionRouteLocator implements RouteLocator {
             return;
         }
 
-        if (allRoutes.containsKey(route.getId())) {
-            // 是一个已经存在的api的更新动作，其path可能已经改变，要先根据id删除之
-            removeRouteById(route.getId());
+        // 已存在的路由是更新动作，其path可能已经改变，前缀树按全量路由重建
+        RouteRule previous = putRoute(route);
+        try {
+            rebuildRouteTrie();
+        } catch (Exception e) {
+            // 如果重建索引失败，需要回滚
+            if (previous != null) {
+                allRoutes.put(previous.getId(), previous);
+            } else {
+                allRoutes.remove(route.getId());
+            }
+            log.error("Failed to index route: {}", route, e);
+            throw e;
         }
+    }
 
-        //添加到全量routeRule
-        this.allRoutes.put(route.getId(), route);
-        
+    /**
+     * 添加到全量routeRule，不重建前缀树
+     *
+     * @return 被替换的同id路由
+     */
+    private RouteRule putRoute(RouteRule route) {
         // 从路由的metadata中获取path配置，如果没有则使用URI的path
         String routePath = extractPathFromRoute(route);
         if (routePath == null || routePath.isEmpty()) {
             log.warn("No valid path found for route: {}", route.getId());
-            return;
-        }
-        
-        String normalizePath = PathUtil.normalize(routePath);
-        log.debug("Adding route {} with normalized path: {}", route.getId(), normalizePath);
-        
-        try {
-            addRouteToGroup(route, normalizePath);
-        } catch (Exception e) {
-            // 如果添加到组失败，需要回滚
-            allRoutes.remove(route.getId());
-            log.error("Failed to add route to group: {}", route, e);
-            throw e;
+        } else {
+            log.debug("Adding route {} with normalized path: {}", route.getId(), PathUtil.normalize(routePath));
         }
+        return allRoutes.put(route.getId(), route);
     }
 
-    private void addRouteToGroup(RouteRule route, String normalizePath) {
-        RouteRuleGroup targetGroup;
-        if (pathMatcher.isPattern(normalizePath)) {
-            //带正则表达式的routeRule
-            String prefix = PathUtil.constantPrefix(normalizePath);
-            targetGroup = patternPathRoutes.computeIfAbsent(prefix, k -> new RouteRuleGroup());
-        } else {
-            //常量路径的routeRule
-            targetGroup = constantPathRoutes.computeIfAbsent(normalizePath, k -> new RouteRuleGroup());
+    /**
+     * 按全量路由重建前缀树，同一路径上的路由按order排列
+     */
+    private void rebuildRouteTrie() {
+        List<RouteRule> sortedRoutes = new ArrayList<>(allRoutes.values());
+        sortedRoutes.sort(Comparator.comparingInt(RouteRule::getOrder).thenComparing(RouteRule::getId));
+
+        PathTrie<RouteRule> trie = new PathTrie<>();
+        for (RouteRule rule : sortedRoutes) {
+            String routePath = extractPathFromRoute(rule);
+            if (routePath != null && !routePath.isEmpty()) {
+                trie.add(PathUtil.normalize(routePath), rule);
+            }
         }
-        targetGroup.addRoute(route);
+        routeTrie = trie;
+        routeVersion.incrementAndGet();
     }
 
     protected synchronized RouteRule removeRouteById(String routeId) {
@@ -197,16 +196,7 @@ public class RouteDefinitionRouteLocator implements RouteLocator {
         }
 
         RouteRule removedRoute = allRoutes.remove(routeId);
-        String routePath = extractPathFromRoute(removedRoute);
-        if (routePath != null && !routePath.isEmpty()) {
-            String normalizePath = PathUtil.normalize(routePath);
-
-            if (pathMatcher.isPattern(normalizePath)) {
-                removeFromPatternGroup(routeId, normalizePath);
-            } else {
-                removeFromConstantGroup(routeId, normalizePath);
-            }
-        }
+        rebuildRouteTrie();
 
         return removedRoute;
     }
@@ -258,27 +248,6 @@ public class RouteDefinitionRouteLocator implements RouteLocator {
         return null;
     }
 
-    private void removeFromPatternGroup(String routeId, String normalizePath) {
-        String prefix = PathUtil.constantPrefix(normalizePath);
-        RouteRuleGroup targetGroup = patternPathRoutes.get(prefix);
-        if (Objects.nonNull(targetGroup)) {
-            targetGroup.removeRouteById(routeId);
-            if (targetGroup.isEmpty()) {
-                patternPathRoutes.remove(prefix);
-            }
-        }
-    }
-
-    private void removeFromConstantGroup(String routeId, String normalizePath) {
-        RouteRuleGroup targetGroup = constantPathRoutes.get(normalizePath);
-        if (Objects.nonNull(targetGroup)) {
-            targetGroup.removeRouteById(routeId);
-            if (targetGroup.isEmpty()) {
-                constantPathRoutes.remove(normalizePath);
-            }
-        }
-    }
-
     /**
      * 初始化路由规则
      */
@@ -289,14 +258,12 @@ public class RouteDefinitionRouteLocator implements RouteLocator {
     }
 
     /**
-     * 加载路由配置
+     * 加载路由配置，全部路由加入后只构建一次前缀树
      */
-    private void loadRoutes() {
+    private synchronized void loadRoutes() {
         // 清空现有路由
         allRoutes.clear();
-        constantPathRoutes.clear();
-        patternPathRoutes.clear();
-        
+
         // 清空路由缓存
         routeCache.invalidateAll();
 
@@ -306,11 +273,16 @@ public class RouteDefinitionRouteLocator implements RouteLocator {
                 definitions.forEach(definition -> {
                     if (definition != null) {
                         RouteRule routeRule = convertToRouteRule(definition);
-                        addRoute(routeRule);
+                        if (routeRule.getId() != null) {
+                            putRoute(routeRule);
+                        } else {
+                            log.warn("Invalid route: {}", routeRule);
+                        }
                     }
                 });
             }
         }
+        rebuildRouteTrie();
     }
 
     /**
@@ -407,31 +379,4 @@ public class RouteDefinitionRouteLocator implements RouteLocator {
     public List<RouteRule> getAllRoutes() {
         return new ArrayList<>(allRoutes.values());
     }
-
-    private static class RouteRuleGroup {
-        private volatile boolean changed = false;
-        private final Map<String, RouteRule> routes = new HashMap<>(4);
-        private List<RouteRule> cachedRoutes = Collections.emptyList();
-
-        List<RouteRule> getRoutes() {
-            if (changed) {
-                cachedRoutes = new ArrayList<>(routes.values());
-                changed = false;
-            }
-            return cachedRoutes;
-        }
-
-        void addRoute(RouteRule route) {
-            routes.put(route.getId(), route);
-            changed = true;
-        }
-
-        void removeRouteById(String id) {
-            changed = Objects.nonNull(routes.remove(id));
-        }
-
-        boolean isEmpty() {
-            return routes.isEmpty();
-        }
-    }
 }
@@ -1,8 +1,11 @@
 package com.muxin.gateway.core.route;
 
 import com.muxin.gateway.core.LifeCycle;
+import com.muxin.gateway.core.http.ServerWebExchange;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 路由定位器接口
@@ -14,6 +17,21 @@ public interface RouteLocator extends LifeCycle {
      */
     List<RouteRule> getRoutes(String path);
 
+    /**
+     * 根据请求获取候选路由列表，调用方仍需对候选执行断言
+     */
+    default List<RouteRule> getRoutes(ServerWebExchange exchange) {
+        return getRoutes(exchange.getRequest().uri());
+    }
+
+    /**
+     * 提取指定路由的路径模式在请求路径上的路径变量
+     * 候选路由解析时已提取首个候选的路径变量，只有首个候选未通过断言时才需要单独提取
+     */
+    default Map<String, String> extractUriVariables(RouteRule route, String path) {
+        return Collections.emptyMap();
+    }
+
     /**
      * 获取所有路由列表
      */
@@ -2,6 +2,9 @@ package com.muxin.gateway.core.route.filter;
 
 import com.muxin.gateway.core.http.ServerWebExchange;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 /**
  * [Class description]
  *
@@ -12,4 +15,15 @@ public interface GatewayFilterChain {
 
     void filter(ServerWebExchange exchange);
 
+    /**
+     * 异步执行过滤器链，所有过滤器完成后返回的阶段完成
+     *
+     * @param exchange 请求交换对象
+     * @return 过滤器链完成阶段
+     */
+    default CompletionStage<Void> filterAsync(ServerWebExchange exchange) {
+        filter(exchange);
+        return CompletableFuture.completedFuture(null);
+    }
+
 }
@@ -4,8 +4,10 @@ import com.muxin.gateway.core.common.GatewayConstants;
 import com.muxin.gateway.core.config.NettyHttpClientProperties;
 import com.muxin.gateway.core.http.HttpServerRequest;
 import com.muxin.gateway.core.http.ServerWebExchange;
+import com.muxin.gateway.core.netty.ByteBufBodyGenerator;
 import com.muxin.gateway.core.netty.NettyHttpClient;
 import com.muxin.gateway.core.utils.ResponseUtil;
+import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.QueryStringDecoder;
 import lombok.AllArgsConstructor;
@@ -13,13 +15,16 @@ import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.asynchttpclient.Request;
 import org.asynchttpclient.RequestBuilder;
-import org.asynchttpclient.Response;
 
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -33,45 +38,77 @@ import java.util.concurrent.TimeoutException;
 @AllArgsConstructor
 public class HttpProxyFilter implements GlobalFilter {
 
+    /**
+     * 单个代理请求的超时时间（毫秒），与改为异步转发前同步等待后端响应的上限一致，
+     * 覆盖AsyncHttpClient全局的requestTimeout
+     */
+    private static final int PROXY_REQUEST_TIMEOUT_MS = 3000;
+
     private NettyHttpClient nettyHttpClient;
 
     private final NettyHttpClientProperties properties;
 
 
+    /**
+     * 同步转发，阻塞调用线程直到后端响应或请求超时，只用于不在EventLoop上的同步调用方
+     *
+     * @deprecated 网关请求链路使用{@link #filterAsync}；在入站Channel的EventLoop上调用会直接抛出异常
+     */
+    @Deprecated
     @Override
     public void filter(ServerWebExchange exchange) {
+        if (exchange.inboundContext() != null && exchange.inboundContext().channel().eventLoop().inEventLoop()) {
+            throw new IllegalStateException("HttpProxyFilter.filter blocks and must not be called on an event loop, use filterAsync");
+        }
+        forward(exchange, null).join();
+    }
+
+    /**
+     * 异步转发，后端响应后再继续过滤器链，不阻塞Netty worker线程
+     * whenComplete开启时后续处理切回入站Channel的EventLoop执行，否则直接在客户端IO线程上执行
+     */
+    @Override
+    public CompletionStage<Void> filterAsync(ServerWebExchange exchange) {
+        Executor executor = null;
+        if (properties.isWhenComplete() && exchange.inboundContext() != null) {
+            executor = exchange.inboundContext().channel().eventLoop();
+        }
+        return forward(exchange, executor);
+    }
+
+    private CompletableFuture<Void> forward(ServerWebExchange exchange, Executor executor) {
         //两种接口类型的转换
         Request request = buildRequest(exchange);
         //代理请求
         log.info("HTTP request for URL: {}", request.getUrl());
-        CompletableFuture<Response> future = nettyHttpClient.executeRequest(request);
-        try {
-            Response response1 = future.get(3, TimeUnit.SECONDS);
-            complete(request, response1, null, exchange);
-        } catch (Exception e) {
-            log.error("complete", e);
-        }
-//        if (properties.isWhenComplete()) {
-//            future.whenCompleteAsync((response, throwable) -> {
-//                complete(request, response, throwable, exchange);
-//            });
-//        } else {
-//            future.whenComplete((response, throwable) -> {
-//                complete(request, response, throwable, exchange);
-//            });
-//        }
+        CompletableFuture<FullHttpResponse> future = nettyHttpClient.executeRequest(request);
+        // 客户端断开时由ExchangeHandlerAdapter取消
+        exchange.setAttribute(GatewayConstants.GATEWAY_BACKEND_REQUEST_ATTR, future);
+        BiFunction<FullHttpResponse, Throwable, Void> continuation = (response, throwable) -> {
+            // 请求完成后释放转发请求体持有的引用
+            releaseBody(request);
+            complete(request, response, throwable, exchange);
+            return null;
+        };
+        return executor != null ? future.handleAsync(continuation, executor) : future.handle(continuation);
     }
 
 
     private void complete(Request request,
-                          Response response,
+                          FullHttpResponse response,
                           Throwable throwable,
                           ServerWebExchange exchange) {
 
         try {
             if (Objects.nonNull(throwable)) {
+                if (throwable instanceof CompletionException && throwable.getCause() != null) {
+                    throwable = throwable.getCause();
+                }
                 String url = request.getUrl();
-                if (throwable instanceof TimeoutException) {
+                if (throwable instanceof CancellationException) {
+                    log.debug("HTTP request cancelled for URL: {}", url);
+                    exchange.setOriginalResponse(ResponseUtil.createResponse(HttpResponseStatus.INTERNAL_SERVER_ERROR));
+                } else if (throwable instanceof TimeoutException) {
                     log.warn("HTTP request timeout for URL: {}", url);
                     exchange.setOriginalResponse(ResponseUtil.createResponse(HttpResponseStatus.INTERNAL_SERVER_ERROR));
                 } else {
@@ -79,7 +116,7 @@ public class HttpProxyFilter implements GlobalFilter {
                     exchange.setOriginalResponse(ResponseUtil.createResponse(HttpResponseStatus.INTERNAL_SERVER_ERROR));
                 }
             } else {
-                exchange.setOriginalResponse(ResponseUtil.convertToFullHttpResponse(response));
+                exchange.setOriginalResponse(response);
             }
         } catch (Throwable t) {
             log.error("Error during HTTP request completion", t);
@@ -87,6 +124,12 @@ public class HttpProxyFilter implements GlobalFilter {
         }
     }
 
+    private void releaseBody(Request request) {
+        if (request.getBodyGenerator() instanceof ByteBufBodyGenerator bodyGenerator) {
+            bodyGenerator.release();
+        }
+    }
+
     @Override
     public int getOrder() {
         return Integer.MAX_VALUE;
@@ -103,11 +146,13 @@ public class HttpProxyFilter implements GlobalFilter {
         HttpServerRequest request = exchange.getRequest();
         RequestBuilder requestBuilder = new RequestBuilder();
         requestBuilder.setMethod(request.method().name());
+        requestBuilder.setRequestTimeout(PROXY_REQUEST_TIMEOUT_MS);
         requestBuilder.setHeaders(request.requestHeaders());
         QueryStringDecoder stringDecoder = new QueryStringDecoder(exchange.getRequest().uri(), StandardCharsets.UTF_8);
         requestBuilder.setQueryParams(stringDecoder.parameters());
-        if (Objects.nonNull(request.body())) {
-            requestBuilder.setBody(request.body().nioBuffer());
+        if (Objects.nonNull(request.body()) && request.body().isReadable()) {
+            // 直接转发入站请求的ByteBuf，不拷贝为nio/堆缓冲区
+            requestBuilder.setBody(new ByteBufBodyGenerator(request.body()));
         }
 
         // 从LoadBalanceFilter设置的URI属性中获取目标URL
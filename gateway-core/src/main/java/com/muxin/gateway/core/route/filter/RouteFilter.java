@@ -3,6 +3,9 @@ package com.muxin.gateway.core.route.filter;
 import com.muxin.gateway.core.common.Ordered;
 import com.muxin.gateway.core.http.ServerWebExchange;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 /**
  * [Class description]
  *
@@ -13,6 +16,18 @@ public interface RouteFilter extends Ordered {
 
     void filter(ServerWebExchange exchange);
 
+    /**
+     * 异步执行过滤器，返回的阶段完成后过滤器链才继续执行
+     * 默认同步调用{@link #filter(ServerWebExchange)}，需要等待后端等IO的过滤器覆盖此方法，不能阻塞调用线程
+     *
+     * @param exchange 请求交换对象
+     * @return 过滤器完成阶段
+     */
+    default CompletionStage<Void> filterAsync(ServerWebExchange exchange) {
+        filter(exchange);
+        return CompletableFuture.completedFuture(null);
+    }
+
     FilterTypeEnum filterType();
 
 }
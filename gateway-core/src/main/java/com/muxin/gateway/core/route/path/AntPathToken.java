@@ -0,0 +1,159 @@
+package com.muxin.gateway.core.route.path;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 预编译的Ant路径段，在路径的[start, end)区间上匹配，不截取子串
+ * <p>
+ * 字面量、{@code *}、{@code {var}}、{@code **}不做正则匹配；只有段内通配（如{@code *.json}、{@code {id:\d+}}）
+ * 使用预编译的正则
+ *
+ * @author Administrator
+ */
+final class AntPathToken {
+
+    private static final Pattern GLOB_PATTERN = Pattern.compile("\\?|\\*|\\{((?:\\{[^/]+?}|[^/{}]|\\\\[{}])+?)}");
+
+    private static final String DEFAULT_VARIABLE_PATTERN = "((?s).*)";
+
+    enum Kind {
+        /**
+         * 字面量
+         */
+        LITERAL,
+        /**
+         * 任意单个路径段：{@code *}或{@code {var}}
+         */
+        ANY,
+        /**
+         * 任意多个路径段：{@code **}
+         */
+        DOUBLE_STAR,
+        /**
+         * 段内通配，按正则匹配
+         */
+        REGEX
+    }
+
+    private final String raw;
+    private final Kind kind;
+    private final Pattern pattern;
+    private final List<String> variableNames;
+
+    private AntPathToken(String raw, Kind kind, Pattern pattern, List<String> variableNames) {
+        this.raw = raw;
+        this.kind = kind;
+        this.pattern = pattern;
+        this.variableNames = variableNames;
+    }
+
+    static AntPathToken compile(String token) {
+        if ("**".equals(token)) {
+            return new AntPathToken(token, Kind.DOUBLE_STAR, null, List.of());
+        }
+        if ("*".equals(token)) {
+            return new AntPathToken(token, Kind.ANY, null, List.of());
+        }
+
+        StringBuilder patternBuilder = new StringBuilder();
+        List<String> names = new ArrayList<>(1);
+        Matcher matcher = GLOB_PATTERN.matcher(token);
+        int end = 0;
+        while (matcher.find()) {
+            patternBuilder.append(quote(token, end, matcher.start()));
+            String match = matcher.group();
+            if ("?".equals(match)) {
+                patternBuilder.append('.');
+            } else if ("*".equals(match)) {
+                patternBuilder.append(".*");
+            } else {
+                int colonIdx = match.indexOf(':');
+                if (colonIdx == -1) {
+                    patternBuilder.append(DEFAULT_VARIABLE_PATTERN);
+                    names.add(matcher.group(1));
+                } else {
+                    patternBuilder.append('(').append(match, colonIdx + 1, match.length() - 1).append(')');
+                    names.add(match.substring(1, colonIdx));
+                }
+            }
+            end = matcher.end();
+        }
+        if (end == 0) {
+            return new AntPathToken(token, Kind.LITERAL, null, List.of());
+        }
+        if (end == token.length() && names.size() == 1 && !names.get(0).startsWith("*")
+                && DEFAULT_VARIABLE_PATTERN.contentEquals(patternBuilder)) {
+            // 整段是{var}，任意非空段都能匹配
+            return new AntPathToken(token, Kind.ANY, null, List.copyOf(names));
+        }
+        patternBuilder.append(quote(token, end, token.length()));
+        return new AntPathToken(token, Kind.REGEX, Pattern.compile(patternBuilder.toString()), List.copyOf(names));
+    }
+
+    Kind kind() {
+        return kind;
+    }
+
+    String raw() {
+        return raw;
+    }
+
+    /**
+     * 匹配路径段path[start, end)
+     */
+    boolean matches(String path, int start, int end) {
+        return switch (kind) {
+            case LITERAL -> raw.length() == end - start && path.regionMatches(start, raw, 0, raw.length());
+            case ANY -> true;
+            case REGEX -> pattern.matcher(path).region(start, end).matches();
+            case DOUBLE_STAR -> false;
+        };
+    }
+
+    /**
+     * 提取路径段path[start, end)上的路径变量，调用前需已确认匹配
+     */
+    void extractVariables(String path, int start, int end, Map<String, String> uriTemplateVariables) {
+        if (Objects.isNull(uriTemplateVariables) || variableNames.isEmpty()) {
+            return;
+        }
+        if (kind == Kind.ANY) {
+            uriTemplateVariables.put(variableNames.get(0), path.substring(start, end));
+            return;
+        }
+        Matcher matcher = pattern.matcher(path).region(start, end);
+        if (!matcher.matches()) {
+            return;
+        }
+        if (variableNames.size() != matcher.groupCount()) {
+            throw new IllegalArgumentException(
+                    "The number of capturing groups in the pattern segment " +
+                            pattern + " does not match the number of URI template variables it defines, " +
+                            "which can occur if capturing groups are used in a URI template regex. " +
+                            "Use non-capturing groups instead."
+            );
+        }
+        for (int i = 1; i <= matcher.groupCount(); i++) {
+            String name = variableNames.get(i - 1);
+            if (name.startsWith("*")) {
+                throw new IllegalArgumentException(
+                        "Capturing patterns (" + name + ") are not " +
+                                "supported by the AntPathMatcher. Use the PathPatternParser instead."
+                );
+            }
+            uriTemplateVariables.put(name, matcher.group(i));
+        }
+    }
+
+    private static String quote(String s, int start, int end) {
+        if (start == end) {
+            return "";
+        }
+        return Pattern.quote(s.substring(start, end));
+    }
+}
@@ -0,0 +1,163 @@
+package com.muxin.gateway.core.route.path;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 预编译的Ant路径模式，由{@link PathMatcher#compile(String)}创建，线程安全
+ * <p>
+ * 路由注册时完成切分和路径段匹配器的构建，匹配时在请求路径上按下标定位路径段，
+ * 不做split/substring，也不创建匹配上下文；匹配语义与{@link AntPathMatcher#match(String, String)}一致
+ *
+ * @author Administrator
+ */
+public final class CompiledPathPattern {
+
+    private final String pattern;
+    private final String pathSeparator;
+    private final boolean isPattern;
+    private final AntPathToken[] tokens;
+    private final boolean hasDoubleStar;
+    private final boolean patternStartsWithSeparator;
+    private final boolean patternEndsWithSeparator;
+
+    CompiledPathPattern(String pattern, String pathSeparator, boolean isPattern, String[] tokens) {
+        this.pattern = pattern;
+        this.pathSeparator = pathSeparator;
+        this.isPattern = isPattern;
+        this.tokens = new AntPathToken[tokens.length];
+        boolean doubleStar = false;
+        for (int i = 0; i < tokens.length; i++) {
+            this.tokens[i] = AntPathToken.compile(tokens[i]);
+            doubleStar |= this.tokens[i].kind() == AntPathToken.Kind.DOUBLE_STAR;
+        }
+        this.hasDoubleStar = doubleStar;
+        this.patternStartsWithSeparator = pattern.startsWith(pathSeparator);
+        this.patternEndsWithSeparator = pattern.endsWith(pathSeparator);
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * 是否含有通配符或路径变量
+     */
+    public boolean isPattern() {
+        return isPattern;
+    }
+
+    public boolean matches(String path) {
+        return path != null && matches(path, path.length());
+    }
+
+    /**
+     * 只匹配path的[0, end)部分，用于跳过查询串而不截取子串
+     */
+    public boolean matches(String path, int end) {
+        return doMatch(path, end, null);
+    }
+
+    /**
+     * 匹配并提取路径变量
+     *
+     * @throws IllegalStateException 路径不匹配
+     */
+    public Map<String, String> extractUriTemplateVariables(String path) {
+        Map<String, String> variables = new LinkedHashMap<>(2);
+        if (path == null || !doMatch(path, path.length(), variables)) {
+            throw new IllegalStateException("Pattern \"" + pattern + "\" is not a match for \"" + path + "\"");
+        }
+        return variables;
+    }
+
+    private boolean doMatch(String path, int end, Map<String, String> variables) {
+        if (path == null) {
+            return false;
+        }
+        if (!isPattern) {
+            return end == path.length() ? pattern.equals(path)
+                    : pattern.length() == end && path.regionMatches(0, pattern, 0, end);
+        }
+        if (path.startsWith(pathSeparator) != patternStartsWithSeparator) {
+            return false;
+        }
+        return matchFrom(0, path, 0, end, variables);
+    }
+
+    /**
+     * 从第tokenIndex个模式段、路径的pos位置开始匹配，匹配成功后在回溯途中提取路径变量
+     */
+    private boolean matchFrom(int tokenIndex, String path, int pos, int end, Map<String, String> variables) {
+        int start = skipSeparators(path, pos, end);
+        if (tokenIndex == tokens.length) {
+            if (start < end) {
+                return false;
+            }
+            // 没有**时，模式与路径的结尾分隔符必须一致
+            return hasDoubleStar || patternEndsWithSeparator == endsWithSeparator(path, end);
+        }
+
+        AntPathToken token = tokens[tokenIndex];
+        if (token.kind() == AntPathToken.Kind.DOUBLE_STAR) {
+            // 依次尝试让**吞掉0..n个路径段
+            int current = start;
+            while (true) {
+                if (matchFrom(tokenIndex + 1, path, current, end, variables)) {
+                    return true;
+                }
+                current = skipSeparators(path, current, end);
+                if (current >= end) {
+                    return false;
+                }
+                current = segmentEnd(path, current, end);
+            }
+        }
+
+        if (start >= end) {
+            // 路径已结束，只剩一个*且路径以分隔符结尾时视为匹配
+            return !hasDoubleStar && tokenIndex == tokens.length - 1 && "*".equals(token.raw())
+                    && endsWithSeparator(path, end);
+        }
+        int segmentEnd = segmentEnd(path, start, end);
+        if (!token.matches(path, start, segmentEnd)) {
+            return false;
+        }
+        if (!matchFrom(tokenIndex + 1, path, segmentEnd, end, variables)) {
+            return false;
+        }
+        if (variables != null) {
+            token.extractVariables(path, start, segmentEnd, variables);
+        }
+        return true;
+    }
+
+    private int skipSeparators(String path, int pos, int end) {
+        while (pos < end && isSeparator(path.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private int segmentEnd(String path, int pos, int end) {
+        while (pos < end && !isSeparator(path.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private boolean isSeparator(char c) {
+        // 与StringTokenizer一致，分隔符字符串中的每个字符都是分隔符
+        return pathSeparator.indexOf(c) >= 0;
+    }
+
+    private boolean endsWithSeparator(String path, int end) {
+        int length = pathSeparator.length();
+        return end >= length && path.regionMatches(end - length, pathSeparator, 0, length);
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
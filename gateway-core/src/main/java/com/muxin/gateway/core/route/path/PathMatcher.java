@@ -26,4 +26,9 @@ public interface PathMatcher {
 
     Map<String, String> extractUriTemplateVariables(String pattern, String path);
 
+    /**
+     * 预编译路径模式，路由注册时调用一次，匹配时不再切分模式和构建段匹配器
+     */
+    CompiledPathPattern compile(String pattern);
+
 }
@@ -0,0 +1,330 @@
+package com.muxin.gateway.core.route.path;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按路径段组织的路由前缀树
+ * <p>
+ * 支持字面量段、{@code {var}}、{@code *}、{@code **}以及段内通配（如{@code *.json}、{@code {id:\d+}}）。
+ * 匹配时对请求路径只扫描一遍，以下标切分路径段，不做split/substring；字面量子节点按与{@link String#hashCode()}
+ * 一致的哈希直接在路径区间上查找。只命中一个节点时直接返回节点上的只读列表，不产生分配；
+ * 非字面量段使用与{@link CompiledPathPattern}相同的预编译路径段，段内通配需要正则匹配，只在这类节点上创建Matcher。
+ * <p>
+ * 候选顺序：同一层按字面量、段内通配、单段变量、{@code **}的顺序深度优先，越具体越靠前；同一节点内按添加顺序。
+ * 非线程安全，由调用方构建完成后整体发布，发布后只读
+ *
+ * @author Administrator
+ */
+public class PathTrie<T> {
+
+    private final Node<T> root = new Node<>();
+
+    /**
+     * 添加路径模式
+     *
+     * @param pattern 已normalize的路径模式
+     */
+    public void add(String pattern, T value) {
+        Node<T> node = root;
+        int length = pattern.length();
+        int pos = 0;
+        while (true) {
+            while (pos < length && pattern.charAt(pos) == '/') {
+                pos++;
+            }
+            if (pos >= length) {
+                break;
+            }
+            int end = pattern.indexOf('/', pos);
+            if (end < 0) {
+                end = length;
+            }
+            node = node.child(pattern.substring(pos, end));
+            pos = end;
+        }
+        node.addValue(value);
+    }
+
+    /**
+     * 匹配请求路径，查询串和片段会被忽略
+     *
+     * @param path 请求路径或URI
+     * @return 按优先级排列的候选值，只读
+     */
+    public List<T> match(String path) {
+        return match(path, null);
+    }
+
+    /**
+     * 匹配请求路径，同时提取优先级最高的候选对应的路径变量
+     *
+     * @param uriVariables 路径变量输出，为null时不提取
+     * @return 按优先级排列的候选值，只读
+     */
+    public List<T> match(String path, Map<String, String> uriVariables) {
+        if (path == null) {
+            return Collections.emptyList();
+        }
+        int end = pathEnd(path);
+        if (hasDotSegment(path, end)) {
+            path = PathUtil.normalize(path.substring(0, end));
+            end = path.length();
+        }
+        return collect(root, path, 0, end, Collections.emptyList(), uriVariables);
+    }
+
+    private List<T> collect(Node<T> node, String path, int pos, int end, List<T> acc,
+                            Map<String, String> uriVariables) {
+        while (pos < end && path.charAt(pos) == '/') {
+            pos++;
+        }
+        if (pos >= end) {
+            acc = merge(acc, node.values);
+            // **可以匹配零个路径段
+            return node.multi != null ? collectMulti(node.multi, path, pos, end, acc, uriVariables) : acc;
+        }
+
+        int segmentEnd = pos;
+        while (segmentEnd < end && path.charAt(segmentEnd) != '/') {
+            segmentEnd++;
+        }
+
+        Node<T> literal = node.findLiteral(path, pos, segmentEnd);
+        if (literal != null) {
+            acc = collect(literal, path, segmentEnd, end, acc, uriVariables);
+        }
+        if (node.globs != null) {
+            for (Node<T> glob : node.globs) {
+                if (glob.token.matches(path, pos, segmentEnd)) {
+                    boolean first = acc.isEmpty();
+                    acc = collect(glob, path, segmentEnd, end, acc, uriVariables);
+                    if (first && !acc.isEmpty()) {
+                        glob.token.extractVariables(path, pos, segmentEnd, uriVariables);
+                    }
+                }
+            }
+        }
+        if (node.variables != null) {
+            for (Node<T> variable : node.variables) {
+                boolean first = acc.isEmpty();
+                acc = collect(variable, path, segmentEnd, end, acc, uriVariables);
+                if (first && !acc.isEmpty()) {
+                    variable.token.extractVariables(path, pos, segmentEnd, uriVariables);
+                }
+            }
+        }
+        if (node.multi != null) {
+            acc = collectMulti(node.multi, path, pos, end, acc, uriVariables);
+        }
+        return acc;
+    }
+
+    /**
+     * {@code **}依次尝试吞掉0..n个路径段
+     */
+    private List<T> collectMulti(Node<T> multi, String path, int pos, int end, List<T> acc,
+                                 Map<String, String> uriVariables) {
+        while (true) {
+            acc = collect(multi, path, pos, end, acc, uriVariables);
+            while (pos < end && path.charAt(pos) == '/') {
+                pos++;
+            }
+            if (pos >= end) {
+                return acc;
+            }
+            while (pos < end && path.charAt(pos) != '/') {
+                pos++;
+            }
+        }
+    }
+
+    /**
+     * 合并候选，只有命中多个节点时才分配新列表
+     */
+    private static <T> List<T> merge(List<T> acc, List<T> values) {
+        if (values.isEmpty() || acc == values) {
+            return acc;
+        }
+        if (acc.isEmpty()) {
+            return values;
+        }
+        MergedList<T> merged;
+        if (acc instanceof MergedList<T> owned) {
+            merged = owned;
+        } else {
+            merged = new MergedList<>(acc);
+        }
+        for (T value : values) {
+            if (!merged.contains(value)) {
+                merged.add(value);
+            }
+        }
+        return merged;
+    }
+
+    private static int pathEnd(String path) {
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '?' || c == '#') {
+                return i;
+            }
+        }
+        return path.length();
+    }
+
+    /**
+     * 是否包含"."或".."路径段，包含时先normalize
+     */
+    private static boolean hasDotSegment(String path, int end) {
+        for (int i = path.indexOf('.'); i >= 0 && i < end; i = path.indexOf('.', i + 1)) {
+            if (i > 0 && path.charAt(i - 1) != '/') {
+                continue;
+            }
+            int next = i + 1;
+            if (next < end && path.charAt(next) == '.') {
+                next++;
+            }
+            if (next >= end || path.charAt(next) == '/') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class MergedList<T> extends ArrayList<T> {
+        MergedList(List<T> initial) {
+            super(initial.size() + 4);
+            addAll(initial);
+        }
+    }
+
+    // ========== 节点 ==========
+
+    private static final class Node<T> {
+
+        /**
+         * 字面量子节点，开放寻址表，容量为2的幂
+         */
+        private String[] literalKeys;
+        private Node<T>[] literalNodes;
+        private int literalCount;
+
+        private List<Node<T>> globs;
+        private List<Node<T>> variables;
+        private Node<T> multi;
+
+        /**
+         * 非字面量节点上预编译的路径段
+         */
+        private AntPathToken token;
+
+        private final List<T> valueList = new ArrayList<>(1);
+        private List<T> values = Collections.emptyList();
+
+        Node<T> child(String segment) {
+            AntPathToken compiled = AntPathToken.compile(segment);
+            switch (compiled.kind()) {
+                case DOUBLE_STAR -> {
+                    if (multi == null) {
+                        multi = new Node<>();
+                        multi.token = compiled;
+                    }
+                    return multi;
+                }
+                case ANY -> {
+                    if (variables == null) {
+                        variables = new ArrayList<>(1);
+                    }
+                    return findOrAdd(variables, compiled);
+                }
+                case REGEX -> {
+                    if (globs == null) {
+                        globs = new ArrayList<>(1);
+                    }
+                    return findOrAdd(globs, compiled);
+                }
+                default -> {
+                    Node<T> literal = findLiteral(segment, 0, segment.length());
+                    if (literal == null) {
+                        literal = new Node<>();
+                        putLiteral(segment, literal);
+                    }
+                    return literal;
+                }
+            }
+        }
+
+        private static <T> Node<T> findOrAdd(List<Node<T>> nodes, AntPathToken token) {
+            for (Node<T> node : nodes) {
+                if (node.token.raw().equals(token.raw())) {
+                    return node;
+                }
+            }
+            Node<T> node = new Node<>();
+            node.token = token;
+            nodes.add(node);
+            return node;
+        }
+
+        void addValue(T value) {
+            valueList.add(value);
+            values = Collections.unmodifiableList(valueList);
+        }
+
+        Node<T> findLiteral(String path, int start, int end) {
+            if (literalKeys == null) {
+                return null;
+            }
+            int length = end - start;
+            int mask = literalKeys.length - 1;
+            for (int i = hash(path, start, end) & mask; literalKeys[i] != null; i = (i + 1) & mask) {
+                String key = literalKeys[i];
+                if (key.length() == length && path.regionMatches(start, key, 0, length)) {
+                    return literalNodes[i];
+                }
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void putLiteral(String key, Node<T> node) {
+            if (literalKeys == null || (literalCount + 1) * 2 > literalKeys.length) {
+                String[] oldKeys = literalKeys;
+                Node<T>[] oldNodes = literalNodes;
+                int capacity = oldKeys == null ? 4 : oldKeys.length * 2;
+                literalKeys = new String[capacity];
+                literalNodes = new Node[capacity];
+                literalCount = 0;
+                if (oldKeys != null) {
+                    for (int i = 0; i < oldKeys.length; i++) {
+                        if (oldKeys[i] != null) {
+                            putLiteral(oldKeys[i], oldNodes[i]);
+                        }
+                    }
+                }
+            }
+            int mask = literalKeys.length - 1;
+            int i = key.hashCode() & mask;
+            while (literalKeys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            literalKeys[i] = key;
+            literalNodes[i] = node;
+            literalCount++;
+        }
+
+        /**
+         * 与{@link String#hashCode()}一致，直接在路径区间上计算
+         */
+        private static int hash(String path, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + path.charAt(i);
+            }
+            return h;
+        }
+    }
+}
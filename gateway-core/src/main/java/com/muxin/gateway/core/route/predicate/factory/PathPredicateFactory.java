@@ -2,6 +2,7 @@ package com.muxin.gateway.core.route.predicate.factory;
 
 import com.muxin.gateway.core.route.RoutePredicate;
 import com.muxin.gateway.core.route.path.AntPathMatcher;
+import com.muxin.gateway.core.route.path.CompiledPathPattern;
 import com.muxin.gateway.core.route.path.PathMatcher;
 import lombok.extern.slf4j.Slf4j;
 
@@ -28,19 +29,16 @@ public class PathPredicateFactory implements PredicateFactory {
             throw new IllegalArgumentException("Path pattern is required");
         }
 
-        final String finalPattern = pattern;
-        log.debug("Created path predicate with pattern: {}", finalPattern);
+        // 创建断言时预编译，匹配时不再切分模式
+        final CompiledPathPattern compiledPattern = pathMatcher.compile(pattern);
+        log.debug("Created path predicate with pattern: {}", compiledPattern);
         
         return exchange -> {
             String path = exchange.getRequest().uri();
-            // 去掉查询参数
+            // 忽略查询参数，只匹配路径部分
             int queryIndex = path.indexOf('?');
-            if (queryIndex > 0) {
-                path = path.substring(0, queryIndex);
-            }
-            
-            boolean matches = pathMatcher.match(finalPattern, path);
-            log.debug("Path {} matches pattern {}: {}", path, finalPattern, matches);
+            boolean matches = compiledPattern.matches(path, queryIndex > 0 ? queryIndex : path.length());
+            log.debug("Path {} matches pattern {}: {}", path, compiledPattern, matches);
             return matches;
         };
     }
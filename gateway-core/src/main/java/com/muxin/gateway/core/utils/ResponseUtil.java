@@ -4,7 +4,6 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.*;
 import lombok.extern.slf4j.Slf4j;
-import org.asynchttpclient.Response;
 
 
 @Slf4j
@@ -27,33 +26,17 @@ public class ResponseUtil {
         return createResponse(statusEnum, statusEnum.reasonPhrase());
     }
 
-    public static FullHttpResponse convertToFullHttpResponse(Response response) {
-        if (response == null) {
-            return null;
-        }
-        try {
-            // 创建HTTP版本
-            HttpVersion httpVersion = HttpVersion.HTTP_1_1;
-            // 创建响应状态
-            HttpResponseStatus status = HttpResponseStatus.valueOf(response.getStatusCode());
-            // 获取响应体
-            ByteBuf content = Unpooled.EMPTY_BUFFER;
-            if (response.hasResponseBody()) {
-                content = Unpooled.wrappedBuffer(response.getResponseBodyAsByteBuffer());
-            }
-            // 创建FullHttpResponsew
-            FullHttpResponse fullResponse = new DefaultFullHttpResponse(httpVersion, status, content);
-            // 复制响应头
-            fullResponse.headers().add(response.getHeaders());
-            // 设置Content-Length（如果原响应没有设置的话）
-            if (!fullResponse.headers().contains(HttpHeaderNames.CONTENT_LENGTH)) {
-                fullResponse.headers().set(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
-            }
-            return fullResponse;
-        } catch (Exception e) {
-            log.error("Failed to convert Response to FullHttpResponse: " + e.getMessage(), e);
-            return createResponse(HttpResponseStatus.INTERNAL_SERVER_ERROR);
-        }
+    /**
+     * 用后端响应的头部和响应体构建FullHttpResponse，响应体的引用转移给返回的响应，不做拷贝
+     */
+    public static FullHttpResponse createResponse(HttpResponseStatus status, HttpHeaders headers,
+                                                  HttpHeaders trailingHeaders, ByteBuf content) {
+        FullHttpResponse fullResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, content,
+                headers, trailingHeaders);
+        // 响应体已聚合，按实际长度重新设置分帧方式
+        fullResponse.headers().remove(HttpHeaderNames.TRANSFER_ENCODING);
+        fullResponse.headers().set(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+        return fullResponse;
     }
 
 }
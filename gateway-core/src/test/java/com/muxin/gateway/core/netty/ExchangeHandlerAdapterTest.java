@@ -0,0 +1,101 @@
+package com.muxin.gateway.core.netty;
+
+import com.muxin.gateway.core.common.GatewayConstants;
+import com.muxin.gateway.core.http.ExchangeHandler;
+import com.muxin.gateway.core.http.ServerWebExchange;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 客户端断开取消后端请求测试
+ * 使用NIO传输：NIO只有在读取时才能感知到对端关闭
+ *
+ * @author Administrator
+ */
+@DisplayName("客户端断开取消后端请求测试")
+public class ExchangeHandlerAdapterTest {
+
+    private final CompletableFuture<Void> backendRequest = new CompletableFuture<>();
+    private final CountDownLatch requestReceived = new CountDownLatch(1);
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // 模拟一个迟迟不返回的后端
+        ExchangeHandler slowBackend = new ExchangeHandler() {
+            @Override
+            public void handle(ServerWebExchange exchange) {
+            }
+
+            @Override
+            public CompletionStage<Void> handleAsync(ServerWebExchange exchange) {
+                exchange.setAttribute(GatewayConstants.GATEWAY_BACKEND_REQUEST_ATTR, backendRequest);
+                requestReceived.countDown();
+                return backendRequest;
+            }
+        };
+        group = new NioEventLoopGroup(1);
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(
+                                new HttpServerCodec(),
+                                new HttpObjectAggregator(65536),
+                                new ExchangeHandlerAdapter(slowBackend));
+                    }
+                })
+                .bind(new InetSocketAddress("127.0.0.1", 0))
+                .sync()
+                .channel();
+    }
+
+    @AfterEach
+    void tearDown() {
+        serverChannel.close().syncUninterruptibly();
+        group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+    }
+
+    @Test
+    @DisplayName("请求处理中客户端断开时取消后端请求")
+    void testClientCloseCancelsBackendRequest() throws Exception {
+        InetSocketAddress address = (InetSocketAddress) serverChannel.localAddress();
+        try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write("GET /slow HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            assertTrue(requestReceived.await(2, TimeUnit.SECONDS));
+        }
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!backendRequest.isDone() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(backendRequest.isCancelled());
+    }
+}
@@ -0,0 +1,164 @@
+package com.muxin.gateway.core.registry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 服务实例本地快照测试
+ *
+ * @author Administrator
+ */
+@DisplayName("服务实例本地快照测试")
+public class ServiceInstanceCacheTest {
+
+    private static final String SERVICE_ID = "user-service";
+
+    private final StubRegisterCenter registerCenter = new StubRegisterCenter();
+
+    private ServiceInstanceCache cache;
+
+    @AfterEach
+    void tearDown() {
+        registerCenter.release.countDown();
+        if (cache != null) {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("首次访问不在调用线程拉取，加载完成前返回空快照")
+    void testInitialLoadDoesNotBlockCaller() throws Exception {
+        registerCenter.instances = List.of(instance(8081));
+        registerCenter.release = new CountDownLatch(1);
+        cache = new ServiceInstanceCache(registerCenter);
+
+        assertTrue(cache.getSnapshot(SERVICE_ID).isEmpty());
+        assertTrue(cache.getSnapshot(SERVICE_ID).isEmpty());
+
+        registerCenter.release.countDown();
+        cache.preload(SERVICE_ID).get(1, TimeUnit.SECONDS);
+
+        assertEquals(1, cache.getSnapshot(SERVICE_ID).size());
+        assertEquals(1, registerCenter.pulls.get());
+        assertEquals(1, registerCenter.subscriptions.get());
+    }
+
+    @Test
+    @DisplayName("注册中心不可用时后台刷新保留旧快照")
+    void testStaleSnapshotKeptWhenRegistryUnavailable() throws Exception {
+        registerCenter.instances = List.of(instance(8081), instance(8082));
+        cache = new ServiceInstanceCache(registerCenter, 0);
+        cache.preload(SERVICE_ID).get(1, TimeUnit.SECONDS);
+        ServiceInstanceCache.InstanceSnapshot loaded = cache.getSnapshot(SERVICE_ID);
+        assertEquals(2, loaded.size());
+
+        registerCenter.available = false;
+        registerCenter.instances = Collections.emptyList();
+        Thread.sleep(5);
+
+        // 快照已过期，本次访问仍返回旧快照并触发后台刷新
+        assertSame(loaded, cache.getSnapshot(SERVICE_ID));
+        awaitRefresh();
+
+        assertEquals(2, registerCenter.pulls.get());
+        assertSame(loaded, cache.getSnapshot(SERVICE_ID));
+    }
+
+    @Test
+    @DisplayName("注册中心可用时后台刷新替换快照")
+    void testSnapshotReplacedByRefresh() throws Exception {
+        registerCenter.instances = List.of(instance(8081));
+        cache = new ServiceInstanceCache(registerCenter, 0);
+        cache.preload(SERVICE_ID).get(1, TimeUnit.SECONDS);
+        ServiceInstanceCache.InstanceSnapshot loaded = cache.getSnapshot(SERVICE_ID);
+
+        registerCenter.instances = List.of(instance(8081), instance(8082));
+        Thread.sleep(5);
+        cache.getSnapshot(SERVICE_ID);
+        awaitRefresh();
+
+        ServiceInstanceCache.InstanceSnapshot refreshed = cache.getSnapshot(SERVICE_ID);
+        assertEquals(2, refreshed.size());
+        assertTrue(refreshed.version() > loaded.version());
+    }
+
+    /**
+     * 刷新线程是单线程，另一个服务的首次加载完成时之前提交的刷新已经执行完
+     */
+    private void awaitRefresh() throws Exception {
+        cache.preload("barrier-" + System.nanoTime()).get(1, TimeUnit.SECONDS);
+    }
+
+    private static ServiceInstance instance(int port) {
+        DefaultServiceInstance instance = new DefaultServiceInstance();
+        instance.setInstanceId("127.0.0.1:" + port);
+        instance.setHost("127.0.0.1");
+        instance.setPort(port);
+        return instance;
+    }
+
+    private static class StubRegisterCenter implements RegisterCenter {
+
+        private final AtomicInteger pulls = new AtomicInteger();
+        private final AtomicInteger subscriptions = new AtomicInteger();
+        private volatile List<ServiceInstance> instances = Collections.emptyList();
+        private volatile boolean available = true;
+        private volatile CountDownLatch release = new CountDownLatch(0);
+
+        @Override
+        public List<ServiceInstance> selectInstances(String serviceId) {
+            if (!SERVICE_ID.equals(serviceId)) {
+                return Collections.emptyList();
+            }
+            try {
+                release.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            pulls.incrementAndGet();
+            return instances;
+        }
+
+        @Override
+        public List<ServiceInstance> selectInstances(String serviceId, Boolean healthy) {
+            return selectInstances(serviceId);
+        }
+
+        @Override
+        public void subscribe(String serviceId, RegisterCenterListener listener) {
+            if (SERVICE_ID.equals(serviceId)) {
+                subscriptions.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void unsubscribe(String serviceId, RegisterCenterListener listener) {
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return available;
+        }
+
+        @Override
+        public void register(ServiceInstance instance) {
+        }
+
+        @Override
+        public void deregister(ServiceInstance instance) {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.muxin.gateway.core.route.path;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 路径匹配测试
+ * 期望值取自预编译之前的AntPathMatcher（逐次切分模式和路径的实现）的输出，
+ * AntPathMatcher.match与CompiledPathPattern必须与之保持一致
+ *
+ * @author Administrator
+ */
+@DisplayName("路径匹配测试")
+public class AntPathMatcherTest {
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    @ParameterizedTest(name = "{0} 匹配 {1} => {2}")
+    @DisplayName("预编译匹配与原实现一致")
+    @CsvSource(delimiter = '|', value = {
+            // 字面量与末尾斜杠
+            "/api/users                   | /api/users         | true  |",
+            "/api/users                   | /api/users/        | false |",
+            "/api/users/                  | /api/users         | false |",
+            "/api/users                   | /api/user          | false |",
+            "api/users                    | /api/users         | false |",
+            "/api/users                   | api/users          | false |",
+            // *
+            "/api/*                       | /api/users         | true  |",
+            "/api/*                       | /api/users/1       | false |",
+            "/api/*                       | /api/              | true  |",
+            "/api/*                       | /api               | false |",
+            "/api/*.json                  | /api/a.json        | true  |",
+            "/api/*.json                  | /api/a.xml         | false |",
+            // **
+            "/api/**                      | /api               | true  |",
+            "/api/**                      | /api/              | true  |",
+            "/api/**                      | /api/a/b/c         | true  |",
+            "/**                          | /                  | true  |",
+            "/**                          | /x/y               | true  |",
+            "/api/**/detail               | /api/detail        | true  |",
+            "/api/**/detail               | /api/a/b/detail    | true  |",
+            "/api/**/detail               | /api/a/b/other     | false |",
+            "/**/*.html                   | /a/b/c.html        | true  |",
+            // ?
+            "/api/us?r                    | /api/user          | true  |",
+            "/api/us?r                    | /api/usr           | false |",
+            "/api/?                       | /api/a             | true  |",
+            "/api/?                       | /api/ab            | false |",
+            // {var}与变量提取
+            "/users/{id}                  | /users/42          | true  | id=42",
+            "/users/{id}                  | /users/42/orders   | false |",
+            "/users/{id}/orders/{orderId} | /users/7/orders/9  | true  | id=7;orderId=9",
+            "/users/{id:\\d+}             | /users/abc         | false |",
+            "/users/{id:\\d+}             | /users/123         | true  | id=123",
+            "/files/{name}.{ext}          | /files/report.pdf  | true  | name=report;ext=pdf",
+            // 空段
+            "/api//users                  | /api//users        | true  |",
+            "/api/users                   | /api//users        | false |",
+            "/api/*/x                     | /api//x            | false |",
+            "/api/{v}/x                   | /api//x            | false |",
+            "/api/**                      | /api//a            | true  |",
+    })
+    void testMatchesPreviousBehavior(String pattern, String path, boolean expected, String variables) {
+        CompiledPathPattern compiled = matcher.compile(pattern);
+
+        assertEquals(expected, matcher.match(pattern, path));
+        assertEquals(expected, compiled.matches(path));
+        assertEquals(expected, compiled.matches(path + "?q=1", path.length()));
+        if (expected) {
+            Map<String, String> expectedVariables = parseVariables(variables);
+            assertEquals(expectedVariables, compiled.extractUriTemplateVariables(path));
+            assertEquals(expectedVariables, matcher.extractUriTemplateVariables(pattern, path));
+        }
+    }
+
+    private static Map<String, String> parseVariables(String variables) {
+        Map<String, String> result = new LinkedHashMap<>();
+        if (variables != null) {
+            for (String pair : variables.split(";")) {
+                int index = pair.indexOf('=');
+                result.put(pair.substring(0, index), pair.substring(index + 1));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,70 @@
+package com.muxin.gateway.core.route.path;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 路由前缀树测试
+ * 匹配时提取的路径变量必须与首个候选的模式单独提取的结果一致
+ *
+ * @author Administrator
+ */
+@DisplayName("路由前缀树测试")
+public class PathTrieTest {
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    private PathTrie<String> trie(String... patterns) {
+        PathTrie<String> trie = new PathTrie<>();
+        for (String pattern : patterns) {
+            trie.add(pattern, pattern);
+        }
+        return trie;
+    }
+
+    @Test
+    @DisplayName("匹配时提取首个候选的路径变量")
+    void testCapturesVariablesOfFirstCandidate() {
+        PathTrie<String> trie = trie("/api/**", "/api/{service}/users/{id}", "/api/orders/{id:\\d+}.json");
+
+        Map<String, String> variables = new LinkedHashMap<>();
+        List<String> candidates = trie.match("/api/orders/42.json", variables);
+
+        assertEquals(List.of("/api/orders/{id:\\d+}.json", "/api/**"), candidates);
+        assertEquals(matcher.extractUriTemplateVariables(candidates.get(0), "/api/orders/42.json"), variables);
+        assertEquals(Map.of("id", "42"), variables);
+
+        variables.clear();
+        candidates = trie.match("/api/billing/users/7?verbose=true", variables);
+
+        assertEquals("/api/{service}/users/{id}", candidates.get(0));
+        assertEquals(Map.of("service", "billing", "id", "7"), variables);
+    }
+
+    @Test
+    @DisplayName("失败分支上的路径变量不会留在结果中")
+    void testIgnoresVariablesOfFailedBranches() {
+        PathTrie<String> trie = trie("/api/{service}/users", "/api/**");
+
+        Map<String, String> variables = new LinkedHashMap<>();
+        List<String> candidates = trie.match("/api/billing/orders", variables);
+
+        assertEquals(List.of("/api/**"), candidates);
+        assertTrue(variables.isEmpty());
+    }
+
+    @Test
+    @DisplayName("不传变量输出时与只匹配一致")
+    void testMatchWithoutVariables() {
+        PathTrie<String> trie = trie("/api/{service}/users/{id}");
+
+        assertEquals(trie.match("/api/billing/users/7"), trie.match("/api/billing/users/7", null));
+        assertTrue(trie.match("/other").isEmpty());
+    }
+}